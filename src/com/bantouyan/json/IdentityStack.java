@@ -11,6 +11,7 @@ package com.bantouyan.json;
  */
 class IdentityStack
 {
+    private static final int CHECK_INTERVAL = 64; // enter方法检查循环引用的间隔层数
     private Object[] datas;
     private int pos = 0;
     
@@ -39,7 +40,7 @@ class IdentityStack
     {
         if(pos == datas.length)
         {
-            Object[] ary = new Object[datas.length + 10];
+            Object[] ary = new Object[datas.length * 2 + 10];
             System.arraycopy(datas, 0, ary, 0, datas.length);
             datas = ary;
         }
@@ -90,6 +91,21 @@ class IdentityStack
         return false;
     }
     
+    /**
+     * 在遍历Json实例的过程中进入一个JsonObject或JsonArray：元素入栈，
+     * 栈的深度是CHECK_INTERVAL的整数倍时检查元素是否已经在栈中。
+     * 存在循环引用时路径会无限延长，进入循环之后同一个元素每隔循环长度层就出现一次，
+     * 所以每隔CHECK_INTERVAL层检查一次也一定能发现，而没有循环引用的较浅的Json实例完全不需要线性查找。
+     * @param e 入栈元素
+     * @return 发现循环引用返回false（此时元素不入栈），否则返回true
+     */
+    public boolean enter(Object e)
+    {
+        if(pos > 0 && pos % CHECK_INTERVAL == 0 && contains(e)) return false;
+        push(e);
+        return true;
+    }
+    
     /**
      * 判断栈是否为空。    
      * @return 空栈返回true，否则返回false
@@ -1,25 +1,57 @@
 package com.bantouyan.json;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.io.RandomAccessFile;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 /**
  * <p>所有Json实例的抽象超类，用来提供操作Json的通用接口。</p>
  * 
  * <p><strong>生成Json实例</strong>，把文本转换为Json实例可以调用类方法
- * <strong>parseJsonText</strong>或<strong>parseJsonReader</strong>，
+ * <strong>parseJsonText</strong>（接受String、CharSequence与字符数组）或<strong>parseJsonReader</strong>，
+ * UTF-8编码的字节可以调用<strong>parseJsonBytes</strong>、<strong>parseJsonStream</strong>
+ * 或<strong>parseJsonFile</strong>，
  * 如果想从Java集合生成Json实例，则可以调用类方法<strong>parseJavaMap</strong>
- * 或<strong>parseJavaCollection</strong>。</p>
+ * 或<strong>parseJavaCollection</strong>。
+ * 这些静态方法重复使用缓存的解析器（及其缓冲区），大量解析较短的Json文本时不必每次都重新创建。
+ * 只读取少数子元素时，可以用<strong>parseJsonText(jsonText, true)</strong>
+ * 延迟解析嵌套的JsonObject与JsonArray。
+ * 已经全部在内存中的很大的Json文本可以用<strong>parseParallel</strong>分段并行解析。
+ * 从Reader中读取很大的JsonArray时，可以用<strong>parseArrayElements</strong>逐个接受子元素，
+ * 传入<strong>JsonPipeline</strong>时由多个线程以流水线方式解析。
+ * 只读取数据时，可以用<strong>parseJsonTape</strong>生成Json结构索引，
+ * 再通过类<strong>JsonCursor</strong>访问。
+ * 只需要少数几个路径的值时，可以调用<strong>extractPaths</strong>，
+ * 只解析与路径匹配的子元素。
+ * 如果不需要生成Json实例，可以用类<strong>JsonReader</strong>逐个读取Json记号，
+ * 或者向<strong>parseJsonText</strong>与<strong>parseJsonReader</strong>传入
+ * <strong>JsonHandler</strong>以推模式解析。</p>
  * 
  * <p><strong>生成Json文本</strong>，调用方法<strong>generateJsonText</strong>
  * 可以把Json实例转换为对应的Json文本。重写的方法<strong>toString</strong>
  * 返回Json实例对应的文本，等同于调用不带参数的方法<strong>generateJsonText</strong>。
- * 如果想把Json文本输出到字符流，请调用方法<strong>outputToWriter</strong>。
+ * 如果想把Json文本输出到字符流，请调用方法<strong>outputToWriter</strong>；
+ * 调用方法<strong>writeTo</strong>则直接以UTF-8编码的字节输出到字节流、ByteBuffer或通道。
+ * 多次输出内容基本不变的Json实例时可以调用<strong>setCacheText</strong>缓存生成的文本，
+ * 修改子孙实例后只重新生成被修改的部分。
+ * 多个首尾相接（如每行一个）的Json实例可以用<strong>iterateDocuments</strong>逐个解析，
+ * 用类<strong>JsonLineWriter</strong>逐行写出；很大的NDJSON文件可以用<strong>parseDocuments</strong>
+ * 按<strong>JsonLineParser</strong>的配置由多个线程并行解析。
+ * 解析大量Name相同的Json实例时，可以向<strong>parseJsonText</strong>、<strong>parseJsonReader</strong>
+ * 与<strong>iterateDocuments</strong>传入共享的<strong>JsonNameCache</strong>。
  * </p>
  * 
  * <p>方法<strong>isEmpty</strong>可以判断Json实例子元素的个数是否为零，
@@ -28,7 +60,9 @@ import java.util.Set;
  * 方法<strong>getType</strong>返回Json实例的类型。</p>
  * 
  * <p>创建、修改Json实例的过程中可能会产生Json实例间的<strong>循环引用</strong>，
- * 可以用方法<strong>existsCircle</strong>检测。</p>
+ * 可以用方法<strong>existsCircle</strong>检测。生成Json文本、比较Json实例时在同一次遍历中检测循环引用，
+ * 确定没有循环引用时可以向<strong>generateJsonText</strong>、<strong>outputToWriter</strong>
+ * 与<strong>writeTo</strong>指定trusted为true，完全不检测。</p>
  * 
  * @author 飞翔的河马
  * @version 1.01
@@ -50,6 +84,9 @@ public abstract class Json implements Cloneable
      */
     protected final static JsonPrimitive falseJson = new JsonPrimitive(false);
     
+    //JsonArray与JsonObject缓存的文本，不缓存文本时为null，JsonPrimitive总是为null
+    JsonTextCache textCache = null;
+    
     /**
      * 返回值为true或false的逻辑型的Json实例。
      * @param value true或false
@@ -72,20 +109,314 @@ public abstract class Json implements Cloneable
         
         try
         {
-            JsonTextParser jsonParser = new JsonTextParser(jsonText);
+            JsonTextParser jsonParser = JsonParserPool.acquire(jsonText);
+            try
+            {
+                json = jsonParser.parse();
+            }
+            finally
+            {
+                JsonParserPool.release(jsonParser);
+            }
+        } 
+        catch (IOException e)
+        {
+            //构造函数JsonTextParser（CharSequence）直接从字符串中复制字符，
+            //不会产生IO异常，所以这里作为内部错误处理。
+            throw new InternalError(e.getMessage());
+        }
+        
+        return json;
+    }
+    
+    /**
+     * 解析字符序列（如StringBuilder、CharBuffer）包含的Json文本为Json实例，
+     * 直接从字符序列中读取字符，不经过Reader。对于CharBuffer，解析从其当前位置开始，
+     * 到其limit结束，但不改变CharBuffer的位置。
+     * @param jsonText Json文本，应该为一个完整的JsonArray或JsonObject的表示。
+     * @return 对应的Json实例
+     * @throws JsonException Json文本格式不正确
+     * @since 1.02
+     */
+    public static Json parseJsonText(CharSequence jsonText) throws JsonException
+    {
+        Json json = null;
+        
+        try
+        {
+            JsonTextParser jsonParser = JsonParserPool.acquire(jsonText);
+            try
+            {
+                json = jsonParser.parse();
+            }
+            finally
+            {
+                JsonParserPool.release(jsonParser);
+            }
+        } 
+        catch (IOException e)
+        {
+            //直接读取内存中的字符，不会产生IO异常，所以这里作为内部错误处理。
+            throw new InternalError(e.getMessage());
+        }
+        
+        return json;
+    }
+    
+    /**
+     * 解析字符序列包含的Json文本为Json实例，解析JsonObject子元素的Name时使用指定的缓存，
+     * 多次出现的同一个Name（包括之前用同一个缓存解析过的）只生成一个String实例。
+     * @param jsonText Json文本，应该为一个完整的JsonArray或JsonObject的表示。
+     * @param names 可以在多个解析过程之间共享的Name缓存
+     * @return 对应的Json实例
+     * @throws JsonException Json文本格式不正确
+     * @since 1.02
+     */
+    public static Json parseJsonText(CharSequence jsonText, JsonNameCache names) throws JsonException
+    {
+        try
+        {
+            JsonTextParser jsonParser = JsonParserPool.acquire(jsonText);
+            try
+            {
+                jsonParser.setNameCache(names);
+                return jsonParser.parse();
+            }
+            finally
+            {
+                JsonParserPool.release(jsonParser);
+            }
+        } 
+        catch (IOException e)
+        {
+            //直接读取内存中的字符，不会产生IO异常，所以这里作为内部错误处理。
+            throw new InternalError(e.getMessage());
+        }
+    }
+    
+    /**
+     * 解析字符序列包含的Json文本为Json实例，可以选择延迟解析。
+     * 延迟解析时只校验Json文本的格式，嵌套的JsonObject与JsonArray只记录其在文本中的范围，
+     * 第一次访问其子元素（如调用get、getJsonObject、getJsonArray、entrySet、count等方法）时才解析，
+     * 所以只读取少数子元素时可以节省大量的时间与内存。<br/>
+     * 延迟解析的Json实例会引用jsonText，所以之后不能修改jsonText；
+     * 跳过格式校验时无法发现的错误（如Name重复、整数溢出）在解析子元素时才抛出JsonException；
+     * 未解析的JsonObject与JsonArray转换为Json文本时一次解析其所有的子孙实例并保留，输出的文本与非延迟解析时相同，
+     * 所以第一次输出的耗时相当于完整解析加上输出，之后的输出与非延迟解析时相同，只需要输出而不读取子元素时延迟解析没有好处；
+     * 延迟解析的Json实例第一次访问（包括输出）时会修改自身，不能在多个线程中同时读取或输出。
+     * @param jsonText Json文本，应该为一个完整的JsonArray或JsonObject的表示。
+     * @param lazy 为true时延迟解析嵌套的JsonObject与JsonArray，为false时与parseJsonText(jsonText)相同
+     * @return 对应的Json实例
+     * @throws JsonException Json文本格式不正确
+     * @since 1.02
+     */
+    public static Json parseJsonText(CharSequence jsonText, boolean lazy) throws JsonException
+    {
+        if(! lazy) return parseJsonText(jsonText);
+        
+        Json json = null;
+        
+        try
+        {
+            JsonTextParser jsonParser = new JsonTextParser(jsonText, 0, jsonText.length(), true);
+            json = jsonParser.parse();
+        } 
+        catch (IOException e)
+        {
+            //直接读取内存中的字符，不会产生IO异常，所以这里作为内部错误处理。
+            throw new InternalError(e.getMessage());
+        }
+        
+        return json;
+    }
+    
+    /**
+     * 解析字符数组中指定范围的Json文本为Json实例，直接在数组上解析，不复制字符。
+     * @param jsonText 包含Json文本的字符数组，解析过程中不能修改
+     * @param offset Json文本在数组中的起始下标
+     * @param length Json文本的长度
+     * @return 对应的Json实例
+     * @throws JsonException Json文本格式不正确
+     * @since 1.02
+     */
+    public static Json parseJsonText(char[] jsonText, int offset, int length) throws JsonException
+    {
+        Json json = null;
+        
+        try
+        {
+            JsonTextParser jsonParser = new JsonTextParser(jsonText, offset, length);
+            json = jsonParser.parse();
+        } 
+        catch (IOException e)
+        {
+            //直接读取内存中的字符，不会产生IO异常，所以这里作为内部错误处理。
+            throw new InternalError(e.getMessage());
+        }
+        
+        return json;
+    }
+    
+    /**
+     * 解析UTF-8编码的Json文本为Json实例，直接在字节上解析，无需先解码成字符串。
+     * 可以识别BOM，如果以UTF-16或UTF-32的BOM开头，则按相应的编码解析。
+     * @param jsonBytes UTF-8编码的Json文本，应该为一个完整的JsonArray或JsonObject的表示。
+     * @return 对应的Json实例
+     * @throws JsonException Json文本格式不正确，或UTF-8编码错误
+     * @since 1.02
+     */
+    public static Json parseJsonBytes(byte[] jsonBytes) throws JsonException
+    {
+        return parseJsonBytes(jsonBytes, 0, jsonBytes.length);
+    }
+    
+    /**
+     * 解析byte数组中指定范围的UTF-8编码的Json文本为Json实例，直接在数组上解析，不复制字节。
+     * @param jsonBytes 包含UTF-8编码Json文本的数组，解析过程中不能修改
+     * @param offset Json文本在数组中的起始下标
+     * @param length Json文本的字节数
+     * @return 对应的Json实例
+     * @throws JsonException Json文本格式不正确，或UTF-8编码错误
+     * @since 1.02
+     */
+    public static Json parseJsonBytes(byte[] jsonBytes, int offset, int length) throws JsonException
+    {
+        Json json = null;
+        
+        try
+        {
+            JsonByteParser jsonParser = new JsonByteParser(jsonBytes, offset, length);
             json = jsonParser.parse();
         } 
         catch (IOException e)
         {
-            //构造函数JsonTextParser（String）使用StringReader作为内部Reader的
-            //实现，而操作StringReader过程中一般不产生IO异常，所以这里作为内部
-            //错误处理。
+            //直接读取内存中的字节，不会产生IO异常，所以这里作为内部错误处理。
             throw new InternalError(e.getMessage());
         }
         
         return json;
     }
     
+    /**
+     * 解析ByteBuffer（可以是直接缓冲区）中UTF-8编码的Json文本为Json实例，
+     * 解析从其当前位置开始，到其limit结束，但不改变ByteBuffer的位置。
+     * @param jsonBuffer 包含UTF-8编码Json文本的ByteBuffer，解析过程中不能修改
+     * @return 对应的Json实例
+     * @throws JsonException Json文本格式不正确，或UTF-8编码错误
+     * @since 1.02
+     */
+    public static Json parseJsonBytes(ByteBuffer jsonBuffer) throws JsonException
+    {
+        Json json = null;
+        
+        try
+        {
+            JsonByteParser jsonParser = new JsonByteParser(jsonBuffer);
+            json = jsonParser.parse();
+        } 
+        catch (IOException e)
+        {
+            //直接读取内存中的字节，不会产生IO异常，所以这里作为内部错误处理。
+            throw new InternalError(e.getMessage());
+        }
+        
+        return json;
+    }
+    
+    /**
+     * 用多个线程并行解析字符序列包含的Json文本为Json实例，适用于已经全部在内存中的很大的Json文本。
+     * 先顺序扫描一遍文本找出最外层JsonObject或JsonArray的子元素之间的分隔位置，
+     * 再把子元素分成若干段交给executor（如ThreadPoolExecutor，Java 7以上也可以是ForkJoinPool）解析，
+     * 调用线程也参与解析，最后合并成一个Json实例。
+     * 结果与parseJsonText(jsonText)相同，格式不正确时抛出的异常也相同；
+     * 文本较短（不足64K个字符）时直接顺序解析。
+     * @param jsonText Json文本，应该为一个完整的JsonArray或JsonObject的表示，解析过程中不能修改。
+     * @param executor 执行解析任务的ExecutorService
+     * @return 对应的Json实例
+     * @throws JsonException Json文本格式不正确
+     * @since 1.02
+     */
+    public static Json parseParallel(CharSequence jsonText, ExecutorService executor) throws JsonException
+    {
+        try
+        {
+            return JsonParallelParser.parse(jsonText, executor);
+        } 
+        catch (IOException e)
+        {
+            //直接读取内存中的字符，不会产生IO异常，所以这里作为内部错误处理。
+            throw new InternalError(e.getMessage());
+        }
+    }
+    
+    /**
+     * 用多个线程并行解析UTF-8编码的Json文本为Json实例，直接在字节上解析，无需先解码成字符串。
+     * 分段的方法与parseParallel(jsonText, executor)相同，结果与parseJsonBytes(jsonBytes)相同；
+     * 以UTF-16或UTF-32的BOM开头时顺序解析。
+     * @param jsonBytes UTF-8编码的Json文本，应该为一个完整的JsonArray或JsonObject的表示，解析过程中不能修改。
+     * @param executor 执行解析任务的ExecutorService
+     * @return 对应的Json实例
+     * @throws JsonException Json文本格式不正确，或UTF-8编码错误
+     * @since 1.02
+     */
+    public static Json parseParallel(byte[] jsonBytes, ExecutorService executor) throws JsonException
+    {
+        try
+        {
+            return JsonParallelParser.parse(jsonBytes, executor);
+        } 
+        catch (IOException e)
+        {
+            //直接读取内存中的字节，不会产生IO异常，所以这里作为内部错误处理。
+            throw new InternalError(e.getMessage());
+        }
+    }
+    
+    /**
+     * 解析字节流中UTF-8编码的Json文本为Json实例，直接在字节上解析，无需InputStreamReader。
+     * @param input 包含UTF-8编码Json文本的字节流，整个字节流应该是一个完整的JsonArray或JsonObject的表示
+     * @return 对应的Json实例
+     * @throws IOException 读取input发生异常
+     * @throws JsonException Json文本格式不正确，或UTF-8编码错误
+     * @since 1.02
+     */
+    public static Json parseJsonStream(InputStream input) throws IOException, JsonException
+    {
+        Json json = null;
+        
+        JsonByteParser jsonParser = new JsonByteParser(input);
+        json = jsonParser.parse();
+        
+        return json;
+    }
+    
+    /**
+     * 解析UTF-8编码的Json文件为Json实例。通过内存映射直接解析文件中的字节，
+     * 每次只映射文件的一段，所以可以解析大于2G的文件。
+     * @param file UTF-8编码的Json文件，整个文件应该是一个完整的JsonArray或JsonObject的表示
+     * @return 对应的Json实例
+     * @throws IOException 读取或映射文件发生异常
+     * @throws JsonException 文件内容格式不正确，或UTF-8编码错误
+     * @since 1.02
+     */
+    public static Json parseJsonFile(File file) throws IOException, JsonException
+    {
+        Json json = null;
+        
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try
+        {
+            JsonByteParser jsonParser = new JsonByteParser(raf.getChannel());
+            json = jsonParser.parse();
+        }
+        finally
+        {
+            raf.close();
+        }
+        
+        return json;
+    }
+    
     /**
      * 解析reader包含的Json文本流为Json实例。
      * @param reader 包含Json文本的Reader实例，整个字符流应该是一个完整的JsonArray或JsonObject的表示
@@ -97,12 +428,301 @@ public abstract class Json implements Cloneable
     {
         Json json = null;
         
-        JsonTextParser jsonParser = new JsonTextParser(reader);
-        json = jsonParser.parse();
+        JsonTextParser jsonParser = JsonParserPool.acquire(reader);
+        try
+        {
+            json = jsonParser.parse();
+        }
+        finally
+        {
+            JsonParserPool.release(jsonParser);
+        }
         
         return json;
     }
     
+    /**
+     * 解析reader包含的Json文本流为Json实例，解析JsonObject子元素的Name时使用指定的缓存。
+     * @param reader 包含Json文本的Reader实例，整个字符流应该是一个完整的JsonArray或JsonObject的表示
+     * @param names 可以在多个解析过程之间共享的Name缓存
+     * @return 对应的Json实例
+     * @throws IOException 读写reader发生异常
+     * @throws JsonException reader所包含的Json文本格式不正确
+     * @since 1.02
+     */
+    public static Json parseJsonReader(Reader reader, JsonNameCache names) throws IOException, JsonException
+    {
+        JsonTextParser jsonParser = JsonParserPool.acquire(reader);
+        try
+        {
+            jsonParser.setNameCache(names);
+            return jsonParser.parse();
+        }
+        finally
+        {
+            JsonParserPool.release(jsonParser);
+        }
+    }
+    
+    /**
+     * 解析字符序列包含的Json文本为Json结构索引，返回指向根元素的只读游标。
+     * 结构索引只由几个基本类型的数组组成，不生成JsonObject、JsonArray与JsonPrimitive，
+     * 适用于只读取数据的场合。不检测JsonObject中重复的Name。
+     * @param jsonText Json文本，应该为一个完整的JsonArray或JsonObject的表示。
+     * @return 指向根元素（JsonObject或JsonArray）的游标
+     * @throws JsonException Json文本格式不正确
+     * @since 1.02
+     */
+    public static JsonCursor parseJsonTape(CharSequence jsonText) throws JsonException
+    {
+        JsonTape tape = null;
+        
+        try
+        {
+            JsonTextParser jsonParser = new JsonTextParser(jsonText);
+            tape = jsonParser.parseTape();
+        } 
+        catch (IOException e)
+        {
+            //直接读取内存中的字符，不会产生IO异常，所以这里作为内部错误处理。
+            throw new InternalError(e.getMessage());
+        }
+        
+        return new JsonCursor(tape, 0, -1);
+    }
+    
+    /**
+     * 解析reader包含的Json文本流为Json结构索引，返回指向根元素的只读游标。
+     * 结构索引只由几个基本类型的数组组成，不生成JsonObject、JsonArray与JsonPrimitive，
+     * 适用于只读取数据的场合。不检测JsonObject中重复的Name。
+     * @param reader 包含Json文本的Reader实例，整个字符流应该是一个完整的JsonArray或JsonObject的表示
+     * @return 指向根元素（JsonObject或JsonArray）的游标
+     * @throws IOException 读写reader发生异常
+     * @throws JsonException reader所包含的Json文本格式不正确
+     * @since 1.02
+     */
+    public static JsonCursor parseJsonTape(Reader reader) throws IOException, JsonException
+    {
+        JsonTextParser jsonParser = new JsonTextParser(reader);
+        return new JsonCursor(jsonParser.parseTape(), 0, -1);
+    }
+    
+    /**
+     * 从字符序列包含的Json文本中提取指定路径的子元素，只解析与路径匹配的子元素，
+     * 其他子元素只识别括号与引号快速跳过（所以不检查其中的格式）。
+     * 路径可以是JSON Pointer（如"/user/id"），也可以是简单的路径表达式
+     * （如"$.user.id"、"$.items[*].price"、"$['a b'][0]"，"*"匹配所有的子元素）。
+     * 不含通配符的路径都已找到时立即停止解析，不再检查之后的文本。
+     * @param jsonText Json文本，应该为一个完整的JsonArray或JsonObject的表示。
+     * @param paths 要提取的路径
+     * @return 每个路径（按传入的顺序）及其匹配的子元素，没有匹配的路径对应空的List
+     * @throws JsonException Json文本或路径格式不正确
+     * @since 1.02
+     */
+    public static Map<String, List<Json>> extractPaths(CharSequence jsonText, String... paths)
+            throws JsonException
+    {
+        try
+        {
+            return new JsonPathSelector(paths).select(new JsonTextParser(jsonText));
+        } 
+        catch (IOException e)
+        {
+            //直接读取内存中的字符，不会产生IO异常，所以这里作为内部错误处理。
+            throw new InternalError(e.getMessage());
+        }
+    }
+    
+    /**
+     * 从reader包含的Json文本流中提取指定路径的子元素，只解析与路径匹配的子元素，
+     * 其他子元素只识别括号与引号快速跳过（所以不检查其中的格式）。
+     * 路径可以是JSON Pointer（如"/user/id"），也可以是简单的路径表达式
+     * （如"$.user.id"、"$.items[*].price"、"$['a b'][0]"，"*"匹配所有的子元素）。
+     * 不含通配符的路径都已找到时立即停止读取reader，不再检查之后的文本。
+     * @param reader 包含Json文本的Reader实例，整个字符流应该是一个完整的JsonArray或JsonObject的表示
+     * @param paths 要提取的路径
+     * @return 每个路径（按传入的顺序）及其匹配的子元素，没有匹配的路径对应空的List
+     * @throws IOException 读写reader发生异常
+     * @throws JsonException Json文本或路径格式不正确
+     * @since 1.02
+     */
+    public static Map<String, List<Json>> extractPaths(Reader reader, String... paths)
+            throws IOException, JsonException
+    {
+        JsonPathSelector selector = new JsonPathSelector(paths);
+        return selector.select(new JsonTextParser(reader));
+    }
+    
+    /**
+     * 逐个解析reader中作为根元素的JsonArray的子元素，每解析完一个子元素就交给consumer，
+     * 之后不再保留对它的引用，所以占用的内存只与单个子元素的大小有关，而与子元素的个数无关。
+     * @param reader 包含Json文本的Reader实例，整个字符流应该是一个完整的JsonArray的表示
+     * @param consumer 接受子元素的回调
+     * @throws IOException 读写reader发生异常
+     * @throws JsonException reader所包含的Json文本格式不正确，或根元素不是JsonArray
+     * @since 1.02
+     */
+    public static void parseArrayElements(Reader reader, JsonConsumer consumer) throws IOException, JsonException
+    {
+        JsonTextParser jsonParser = new JsonTextParser(reader);
+        jsonParser.parseArrayElements(consumer);
+    }
+    
+    /**
+     * 以流水线方式解析reader中作为根元素的JsonArray的子元素：调用线程只切分出每个子元素的文本，
+     * 由pipeline的多个工作线程同时解析，每解析完一个子元素就交给consumer。
+     * 子元素是否按顺序交出、工作线程数及流水线的容量由pipeline决定，
+     * 解析结束后可以从pipeline中读取切分线程与工作线程等待的统计数据。
+     * @param reader 包含Json文本的Reader实例，整个字符流应该是一个完整的JsonArray的表示
+     * @param consumer 接受子元素的回调，在工作线程中调用，但同一时刻只调用一次
+     * @param pipeline 流水线的配置，同时记录统计数据
+     * @throws IOException 读写reader发生异常，或等待时调用线程被中断
+     * @throws JsonException reader所包含的Json文本格式不正确，或根元素不是JsonArray
+     * @since 1.02
+     */
+    public static void parseArrayElements(Reader reader, JsonConsumer consumer, JsonPipeline pipeline)
+            throws IOException, JsonException
+    {
+        pipeline.parse(reader, consumer);
+    }
+    
+    /**
+     * 逐个解析reader中首尾相接（如每行一个）的多个Json实例，每次只解析一个，
+     * 占用的内存与Json实例的总数无关。
+     * @param reader 包含多个JsonObject或JsonArray文本的Reader实例，由调用者关闭
+     * @return 依次返回各个Json实例的迭代器
+     * @throws IOException 读写reader发生异常
+     * @since 1.02
+     */
+    public static JsonIterator iterateDocuments(Reader reader) throws IOException
+    {
+        return iterateDocuments(reader, null);
+    }
+    
+    /**
+     * 逐个解析reader中首尾相接（如每行一个）的多个Json实例，解析JsonObject子元素的Name时使用指定的缓存。
+     * 不指定缓存时各个Json实例共用解析器自己的缓存，指定缓存则可以在多个迭代器（或线程）之间共享。
+     * @param reader 包含多个JsonObject或JsonArray文本的Reader实例，由调用者关闭
+     * @param names 可以在多个解析过程之间共享的Name缓存，为null时使用解析器自己的缓存
+     * @return 依次返回各个Json实例的迭代器
+     * @throws IOException 读写reader发生异常
+     * @since 1.02
+     */
+    public static JsonIterator iterateDocuments(Reader reader, JsonNameCache names) throws IOException
+    {
+        JsonTextParser jsonParser = new JsonTextParser(reader);
+        jsonParser.setNameCache(names);
+        return new JsonIterator(jsonParser, null);
+    }
+    
+    /**
+     * 逐个解析UTF-8编码的文件中首尾相接（如每行一个）的多个Json实例，每次只解析一个，
+     * 通过内存映射直接解析文件中的字节。
+     * 解析完最后一个Json实例或发生异常时自动关闭文件，提前结束时应调用迭代器的close方法。
+     * @param file UTF-8编码的文件，包含多个JsonObject或JsonArray的文本
+     * @return 依次返回各个Json实例的迭代器
+     * @throws IOException 打开或映射文件发生异常
+     * @since 1.02
+     */
+    public static JsonIterator iterateDocuments(File file) throws IOException
+    {
+        return iterateDocuments(file, null);
+    }
+    
+    /**
+     * 逐个解析UTF-8编码的文件中首尾相接（如每行一个）的多个Json实例，解析JsonObject子元素的Name时使用指定的缓存。
+     * 解析完最后一个Json实例或发生异常时自动关闭文件，提前结束时应调用迭代器的close方法。
+     * @param file UTF-8编码的文件，包含多个JsonObject或JsonArray的文本
+     * @param names 可以在多个解析过程之间共享的Name缓存，为null时使用解析器自己的缓存
+     * @return 依次返回各个Json实例的迭代器
+     * @throws IOException 打开或映射文件发生异常
+     * @since 1.02
+     */
+    public static JsonIterator iterateDocuments(File file, JsonNameCache names) throws IOException
+    {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try
+        {
+            JsonByteParser jsonParser = new JsonByteParser(raf.getChannel());
+            jsonParser.setNameCache(names);
+            return new JsonIterator(jsonParser, raf);
+        }
+        catch(IOException e)
+        {
+            raf.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * 由多个线程并行解析UTF-8编码的NDJSON文件（每行一个JsonObject或JsonArray），
+     * 把每一行的Json实例交给consumer。文件在换行符处分成若干段，每一段映射到内存后直接解析，
+     * 线程数、是否按行的顺序交出以及是否跳过格式错误的行由parser决定，
+     * 解析结束后可以从parser中读取行数与出错的行。
+     * @param file UTF-8编码的NDJSON文件
+     * @param consumer 接受Json实例的回调，在解析线程中调用，但同一时刻只调用一次
+     * @param parser 并行解析的配置，同时记录解析结果
+     * @throws IOException 打开、读取或映射文件发生异常
+     * @throws JsonException 某一行的格式不正确（parser不跳过格式错误的行时）
+     * @since 1.02
+     */
+    public static void parseDocuments(File file, JsonConsumer consumer, JsonLineParser parser)
+            throws IOException, JsonException
+    {
+        parser.parse(file, consumer);
+    }
+    
+    /**
+     * 由多个线程并行解析UTF-8编码的NDJSON文件（每行一个JsonObject或JsonArray），
+     * 按段收集所有的Json实例，每一段对应文件中连续的若干行。
+     * @param file UTF-8编码的NDJSON文件
+     * @param parser 并行解析的配置，同时记录解析结果
+     * @return 每一段的Json实例，各段及段内的Json实例都按文件中的顺序排列
+     * @throws IOException 打开、读取或映射文件发生异常
+     * @throws JsonException 某一行的格式不正确（parser不跳过格式错误的行时）
+     * @since 1.02
+     */
+    public static List<List<Json>> parseDocuments(File file, JsonLineParser parser)
+            throws IOException, JsonException
+    {
+        return parser.parsePartitions(file);
+    }
+    
+    /**
+     * 以推模式解析Json文本，每读到一个Json记号就调用handler对应的方法，不生成Json实例。
+     * @param jsonText Json文本，应该是一个完整的JsonArray或JsonObject的表示
+     * @param handler 接受解析结果的回调
+     * @throws JsonException Json文本格式不正确
+     * @since 1.02
+     */
+    public static void parseJsonText(CharSequence jsonText, JsonHandler handler) throws JsonException
+    {
+        try
+        {
+            JsonTextParser jsonParser = new JsonTextParser(jsonText);
+            jsonParser.parse(handler);
+        } 
+        catch (IOException e)
+        {
+            //直接读取内存中的字符，不会产生IO异常，所以这里作为内部错误处理。
+            throw new InternalError(e.getMessage());
+        }
+    }
+    
+    /**
+     * 以推模式解析reader包含的Json文本流，每读到一个Json记号就调用handler对应的方法，不生成Json实例。
+     * @param reader 包含Json文本的Reader实例，整个字符流应该是一个完整的JsonArray或JsonObject的表示
+     * @param handler 接受解析结果的回调
+     * @throws IOException 读写reader发生异常
+     * @throws JsonException reader所包含的Json文本格式不正确
+     * @since 1.02
+     */
+    public static void parseJsonReader(Reader reader, JsonHandler handler) throws IOException, JsonException
+    {
+        JsonTextParser jsonParser = new JsonTextParser(reader);
+        jsonParser.parse(handler);
+    }
+    
     /**
      * <p>将Java Map实例解析为JsonObject实例，但忽略key为null的entry。</p>
      *
@@ -375,15 +995,24 @@ public abstract class Json implements Cloneable
      */
     public final String generateJsonText(boolean useQuote)throws JsonException
     {
-        if(existsCircle())
-        {
-            throw new JsonException("Circle reference exists in this Json.");
-        }
-        
+        return generateJsonText(useQuote, false);
+    }
+    
+    /**
+     * 生成对应的Json文本，循环引用在生成文本的同一次遍历中检测，不需要事先遍历整个Json实例。
+     * 确定没有循环引用（如由自己的代码构建、或由Json文本解析而来）时可以指定trusted为true，完全不检测。
+     * @param useQuote 为true时Object的Name部分加引号， false时尽量不加引号
+     * @param trusted 为true时不检测循环引用，此时如果存在循环引用会导致StackOverflowError
+     * @return 对应的Json文本
+     * @throws JsonException 如果Json实例内出现了循环引用（trusted为false时），则抛出此异常
+     * @since 1.02
+     */
+    public final String generateJsonText(boolean useQuote, boolean trusted)throws JsonException
+    {
         StringBuilder builder = new StringBuilder();
         try
         {
-            appendToAppendable(builder, useQuote);
+            appendToAppendable(builder, useQuote, trusted? null: new IdentityStack(), new NumberConverter.Buffer());
         }
         catch (IOException e)
         {
@@ -391,7 +1020,7 @@ public abstract class Json implements Cloneable
             //jsonStringToAppendable(String, StringBuilder)
             //和jsonStringToAppendableWithoutQuote(String, StringBuilder)
             //引起的，这两个方法只会调用StringBuild.append(char)
-            //和StringBuilder.append(String)，一般不会引起异常，
+            //、StringBuilder.append(String)与StringBuilder.append(CharSequence, int, int)，一般不会引起异常，
             //所以作为InternalError处理。
             throw new InternalError(e.getMessage());
         }
@@ -406,20 +1035,16 @@ public abstract class Json implements Cloneable
      */
     public final void outputToWriter(PrintWriter writer, boolean useQuote) throws JsonException
     {
-        if(existsCircle())
-        {
-            throw new JsonException("Circle reference exists in this Json.");
-        }
         try
         {
-            appendToAppendable(writer, useQuote);
+            appendToAppendable(writer, useQuote, new IdentityStack(), new NumberConverter.Buffer());
         } 
         catch (IOException e)
         {
             //这里的IOException是由于appendToAppendable中调用
             //jsonStringToAppendable(String, PrintWriter)
-            //引起的，该方法只会调用PrintWriter.append(char)
-            //和PrintWriter.append(String)，不会产生异常，
+            //引起的，该方法只会调用PrintWriter.append(char)、
+            //PrintWriter.append(String)与PrintWriter.write(String, int, int)，不会产生异常，
             //所以作为InternalError处理。
             throw new InternalError(e.getMessage());
         }
@@ -434,20 +1059,142 @@ public abstract class Json implements Cloneable
      */
     public final void outputToWriter(Writer writer, boolean useQuote) throws IOException, JsonException
     {
-        if(existsCircle())
-        {
-            throw new JsonException("Circle reference exists in this Json.");
-        }
-        appendToAppendable(writer, useQuote);
+        outputToWriter(writer, useQuote, false);
     }
     
     /**
-     * 向可追加对象追加Json文本。
+     * 将Json对应的文本输出到字符流，循环引用在输出的同一次遍历中检测，
+     * 所以存在循环引用时字符流中已经输出了循环引用之前的部分文本。
+     * @param writer 接受Json文本的字符流
+     * @param useQuote 为true时Object的Name部分加引号， false时尽量不加引号
+     * @param trusted 为true时不检测循环引用，此时如果存在循环引用会导致StackOverflowError
+     * @throws IOException IO异常
+     * @throws JsonException Json内存在循环引用（trusted为false时）
+     * @since 1.02
+     */
+    public final void outputToWriter(Writer writer, boolean useQuote, boolean trusted)
+            throws IOException, JsonException
+    {
+        appendToAppendable(writer, useQuote, trusted? null: new IdentityStack(), new NumberConverter.Buffer());
+    }
+    
+    /**
+     * 向可追加对象追加Json文本，同时检测循环引用。
      * @param dest 接受Json文本的可追加对象
      * @param useQuote 为true时Object的Name部分加引号， false时尽量不加引号
+     * @param parentRef 上级Json对象堆栈，用于检测循环引用，为null时不检测
+     * @param numbers 格式化数值的缓冲区，由一次输出独占并重复使用
      * @throws IOException 追加字符流发生IO异常
+     * @throws JsonException 存在循环引用
+     */
+    protected abstract void appendToAppendable(Appendable dest, boolean useQuote, IdentityStack parentRef,
+            NumberConverter.Buffer numbers) throws IOException;
+    
+    /**
+     * 将Json对应的文本以UTF-8编码的字节输出到字节流，不生成中间的String，不刷新也不关闭字节流。
+     * @param output 接受Json文本的字节流
+     * @param useQuote 为true时Object的Name部分加引号， false时尽量不加引号
+     * @throws IOException IO异常
+     * @throws JsonException Json内存在循环引用
+     * @since 1.02
+     */
+    public final void writeTo(OutputStream output, boolean useQuote) throws IOException, JsonException
+    {
+        writeTo(output, useQuote, false);
+    }
+    
+    /**
+     * 将Json对应的文本以UTF-8编码的字节输出到字节流，循环引用在输出的同一次遍历中检测，
+     * 所以存在循环引用时字节流中可能已经输出了部分文本。
+     * @param output 接受Json文本的字节流
+     * @param useQuote 为true时Object的Name部分加引号， false时尽量不加引号
+     * @param trusted 为true时不检测循环引用，此时如果存在循环引用会导致StackOverflowError
+     * @throws IOException IO异常
+     * @throws JsonException Json内存在循环引用（trusted为false时）
+     * @since 1.02
+     */
+    public final void writeTo(OutputStream output, boolean useQuote, boolean trusted)
+            throws IOException, JsonException
+    {
+        JsonByteWriter.write(this, useQuote, trusted, output, null, null);
+    }
+    
+    /**
+     * 将Json对应的文本以UTF-8编码的字节写入ByteBuffer，从其当前位置开始，写完后位置移到文本之后。
+     * @param buffer 接受Json文本的ByteBuffer
+     * @param useQuote 为true时Object的Name部分加引号， false时尽量不加引号
+     * @throws BufferOverflowException buffer剩余的空间不够，此时buffer中已经写入了部分文本
+     * @throws JsonException Json内存在循环引用
+     * @since 1.02
+     */
+    public final void writeTo(ByteBuffer buffer, boolean useQuote) throws JsonException
+    {
+        writeTo(buffer, useQuote, false);
+    }
+    
+    /**
+     * 将Json对应的文本以UTF-8编码的字节写入ByteBuffer，循环引用在输出的同一次遍历中检测，
+     * 所以存在循环引用时buffer中可能已经写入了部分文本。
+     * @param buffer 接受Json文本的ByteBuffer
+     * @param useQuote 为true时Object的Name部分加引号， false时尽量不加引号
+     * @param trusted 为true时不检测循环引用，此时如果存在循环引用会导致StackOverflowError
+     * @throws BufferOverflowException buffer剩余的空间不够，此时buffer中已经写入了部分文本
+     * @throws JsonException Json内存在循环引用（trusted为false时）
+     * @since 1.02
      */
-    protected abstract void appendToAppendable(Appendable dest, boolean useQuote) throws IOException; 
+    public final void writeTo(ByteBuffer buffer, boolean useQuote, boolean trusted) throws JsonException
+    {
+        try
+        {
+            JsonByteWriter.write(this, useQuote, trusted, null, null, buffer);
+        }
+        catch (IOException e)
+        {
+            //直接写入内存中的字节，不会产生IO异常，所以这里作为内部错误处理。
+            throw new InternalError(e.getMessage());
+        }
+    }
+    
+    /**
+     * 将Json对应的文本以UTF-8编码的字节写入通道，不生成中间的String，不关闭通道。
+     * 通道是GatheringByteChannel（如FileChannel）时用聚集写操作一次写出多块缓冲区。
+     * @param channel 接受Json文本的通道，必须是阻塞模式
+     * @param useQuote 为true时Object的Name部分加引号， false时尽量不加引号
+     * @throws IOException IO异常
+     * @throws JsonException Json内存在循环引用
+     * @since 1.02
+     */
+    public final void writeTo(WritableByteChannel channel, boolean useQuote) throws IOException, JsonException
+    {
+        writeTo(channel, useQuote, false);
+    }
+    
+    /**
+     * 将Json对应的文本以UTF-8编码的字节写入通道，循环引用在输出的同一次遍历中检测，
+     * 所以存在循环引用时通道中可能已经写入了部分文本。
+     * @param channel 接受Json文本的通道，必须是阻塞模式
+     * @param useQuote 为true时Object的Name部分加引号， false时尽量不加引号
+     * @param trusted 为true时不检测循环引用，此时如果存在循环引用会导致StackOverflowError
+     * @throws IOException IO异常
+     * @throws JsonException Json内存在循环引用（trusted为false时）
+     * @since 1.02
+     */
+    public final void writeTo(WritableByteChannel channel, boolean useQuote, boolean trusted)
+            throws IOException, JsonException
+    {
+        JsonByteWriter.write(this, useQuote, trusted, null, channel, null);
+    }
+    
+    /**
+     * 向JsonByteWriter写入UTF-8编码的Json文本，同时检测循环引用。
+     * @param dest 接受Json文本的JsonByteWriter
+     * @param useQuote 为true时Object的Name部分加引号， false时尽量不加引号
+     * @param parentRef 上级Json对象堆栈，用于检测循环引用，为null时不检测
+     * @throws IOException 写出字节发生IO异常
+     * @throws JsonException 存在循环引用
+     */
+    protected abstract void appendToBytes(JsonByteWriter dest, boolean useQuote, IdentityStack parentRef)
+            throws IOException;
     
     /**
      * 判断Json对象内是否存在循环引用。
@@ -468,6 +1215,43 @@ public abstract class Json implements Cloneable
      */
     protected abstract boolean existsCircle(IdentityStack parentRef);
     
+    /**
+     * 设置是否缓存Json实例及其所有子孙JsonArray与JsonObject实例生成的Json文本，对JsonPrimitive无意义。
+     * 缓存了文本的实例输出时直接复制缓存的文本（Object的Name是否加引号各缓存一份），
+     * 通过add、set、remove、insert、clear等方法修改Json实例时清除它自身缓存的文本，
+     * 上级实例输出时逐层检查缓存文本的子孙实例，只重新生成被修改的实例，并替换上级实例文本中对应的部分，
+     * 所以输出的耗时与子孙JsonArray、JsonObject实例的个数成正比，与JsonPrimitive的个数无关。
+     * 子元素不引用上级实例，被多个上级实例共享时不影响上级实例被回收。之后添加的子元素在第一次输出时继承上级实例的设置。
+     * 适合多次输出内容基本不变的Json实例（如配置、响应的外层结构）。
+     * 通过JsonObject的nameSet、values与entrySet返回的集合（包括其迭代器与Entry）修改JsonObject时缓存也会失效，
+     * 只读取这些集合不影响缓存。
+     * @param cache 为true时缓存，为false时停止缓存并清除已经缓存的文本
+     * @throws JsonException Json实例内存在循环引用
+     * @since 1.02
+     */
+    public final void setCacheText(boolean cache) throws JsonException
+    {
+        setCacheText(cache, new IdentityStack());
+    }
+    
+    /**
+     * 判断Json实例是否缓存生成的Json文本。
+     * @return 缓存返回true，否则返回false
+     * @since 1.02
+     */
+    public final boolean isCacheText()
+    {
+        return textCache != null && textCache.enabled;
+    }
+    
+    /**
+     * 设置Json实例及其所有子孙实例是否缓存生成的Json文本。
+     * @param cache 为true时缓存，为false时停止缓存并清除已经缓存的文本
+     * @param parentRef 上级Json对象堆栈，用于检测循环引用
+     * @throws JsonException 存在循环引用
+     */
+    protected abstract void setCacheText(boolean cache, IdentityStack parentRef);
+    
     /**
      * 清空Json实例所有的子元素，对JsonPrimitive无意义。
      */
@@ -538,18 +1322,8 @@ public abstract class Json implements Cloneable
             }
             else
             {
-                if(this.existsCircle())
-                {
-                    throw new JsonException("The json instance used to compare exists circle.");
-                }
-                else if(objJson.existsCircle())
-                {
-                    throw new JsonException("The json instance used to be compare exists circle.");
-                }
-                else
-                {
-                    return this.same(objJson);
-                }
+                //循环引用在比较的同一次遍历中检测
+                return this.same(objJson, new IdentityStack(), new IdentityStack());
             }
         }
         else
@@ -561,9 +1335,31 @@ public abstract class Json implements Cloneable
     /**
      * 判断两个Json实例表示的数据是否一致，即是否表示相同的Json。
      * @param obj 被比较的Json实例
+     * @param thisRef 本实例一侧的上级Json对象堆栈，用于检测循环引用
+     * @param objRef obj一侧的上级Json对象堆栈，用于检测循环引用
      * @return 一致返回true，不一致返回false
+     * @throws JsonException 参与比较的Json实例内存在循环引用
+     */
+    protected abstract boolean same(Json obj, IdentityStack thisRef, IdentityStack objRef);
+    
+    /**
+     * 比较两个JsonObject或JsonArray的子元素之前，把两者分别压入各自一侧的堆栈，并检测循环引用。
+     * @param obj 被比较的Json实例
+     * @param thisRef 本实例一侧的上级Json对象堆栈
+     * @param objRef obj一侧的上级Json对象堆栈
+     * @throws JsonException 参与比较的Json实例内存在循环引用
      */
-    protected abstract boolean same(Json obj);
+    final void enterSame(Json obj, IdentityStack thisRef, IdentityStack objRef)
+    {
+        if(! thisRef.enter(this))
+        {
+            throw new JsonException("The json instance used to compare exists circle.");
+        }
+        if(! objRef.enter(obj))
+        {
+            throw new JsonException("The json instance used to be compare exists circle.");
+        }
+    }
     
     /**
      * Json实例的hash值，不同的子类型有不同的计算方法。
@@ -588,6 +1384,7 @@ public abstract class Json implements Cloneable
         {
             throw new InternalError();
         }
+        nval.textCache = null; //Clone出的实例不缓存文本
         
         return nval;
     }
@@ -40,6 +40,10 @@ public final class JsonArray extends Json implements Iterable<Json>
 {
     //允许包含值为null的元素，但get及转换为Json文本时当NULL类型的Json实例处理
     private ArrayList<Json> elements;
+    //延迟解析的JsonArray在Json文本中的范围，解析子元素后lazyText为null
+    private CharSequence lazyText = null;
+    private int lazyStart = 0;
+    private int lazyEnd = 0;
     
     /**
      * 创建空的JsonArray实例。
@@ -58,6 +62,20 @@ public final class JsonArray extends Json implements Iterable<Json>
         this.elements = new ArrayList<Json>(initialCapicity);
     }
     
+    /**
+     * 创建延迟解析的JsonArray实例，只记录它在Json文本中的范围，
+     * 第一次访问子元素时才解析。
+     * @param text Json文本，已经校验过格式，之后不能修改
+     * @param start JsonArray的起始下标（字符'['的下标）
+     * @param end JsonArray的结束下标（字符']'的下一个下标）
+     */
+    JsonArray(CharSequence text, int start, int end)
+    {
+        this.lazyText = text;
+        this.lazyStart = start;
+        this.lazyEnd = end;
+    }
+    
     /**
      * 根据Json集合创建包含子元素的JsonArray实例。
      * @param collection 创建JsonArray的源数据
@@ -86,7 +104,7 @@ public final class JsonArray extends Json implements Iterable<Json>
         for(Object value: collection)
         {
             Json element = Json.changeToJson(value, parser);
-            this.elements.add(element);
+            this.addElement(element);
         }
     }
         
@@ -97,11 +115,11 @@ public final class JsonArray extends Json implements Iterable<Json>
      */
     public Json get(int index)
     {
-        Json json = this.elements.get(index);
+        Json json = this.elements().get(index);
         if(json == null)
         {
             json = Json.nullJson;
-            this.elements.set(index, json);
+            this.elements().set(index, json);
         }
         
         return json;
@@ -114,7 +132,7 @@ public final class JsonArray extends Json implements Iterable<Json>
      */
     public String getString(int index)
     {
-        Json json = this.elements.get(index);
+        Json json = this.elements().get(index);
         if(json instanceof JsonPrimitive)
         {
             return ((JsonPrimitive)json).getString();
@@ -132,7 +150,7 @@ public final class JsonArray extends Json implements Iterable<Json>
      */
     public boolean canToBoolean(int index)
     {
-        Json json = this.elements.get(index);
+        Json json = this.elements().get(index);
         if(json instanceof JsonPrimitive)
         {
             return ((JsonPrimitive)json).canToBoolean();
@@ -153,7 +171,7 @@ public final class JsonArray extends Json implements Iterable<Json>
     {
         if(canToBoolean(index))
         {
-            return ((JsonPrimitive)this.elements.get(index)).getBoolean();
+            return ((JsonPrimitive)this.elements().get(index)).getBoolean();
         }
         else
         {
@@ -168,7 +186,7 @@ public final class JsonArray extends Json implements Iterable<Json>
      */
     public boolean canToLong(int index)
     {
-        Json json = this.elements.get(index);
+        Json json = this.elements().get(index);
         if(json instanceof JsonPrimitive)
         {
             return ((JsonPrimitive)json).canToLong();
@@ -189,7 +207,7 @@ public final class JsonArray extends Json implements Iterable<Json>
     {
         if(canToLong(index))
         {
-            return ((JsonPrimitive)this.elements.get(index)).getLong();
+            return ((JsonPrimitive)this.elements().get(index)).getLong();
         }
         else
         {
@@ -204,7 +222,7 @@ public final class JsonArray extends Json implements Iterable<Json>
      */
     public boolean canToDouble(int index)
     {
-        Json json = this.elements.get(index);
+        Json json = this.elements().get(index);
         if(json instanceof JsonPrimitive)
         {
             return ((JsonPrimitive)json).canToDouble();
@@ -225,7 +243,7 @@ public final class JsonArray extends Json implements Iterable<Json>
     {
         if(canToDouble(index))
         {
-            return ((JsonPrimitive)this.elements.get(index)).getDouble();
+            return ((JsonPrimitive)this.elements().get(index)).getDouble();
         }
         else
         {
@@ -240,7 +258,7 @@ public final class JsonArray extends Json implements Iterable<Json>
      */
     public boolean canToJsonArray(int index)
     {
-        Json json = this.elements.get(index);
+        Json json = this.elements().get(index);
         return (json instanceof JsonArray)? true: false;
     }
     
@@ -254,7 +272,7 @@ public final class JsonArray extends Json implements Iterable<Json>
     {
         if(canToJsonArray(index))
         {
-            return (JsonArray)this.elements.get(index);
+            return (JsonArray)this.elements().get(index);
         }
         else
         {
@@ -269,7 +287,7 @@ public final class JsonArray extends Json implements Iterable<Json>
      */
     public boolean canToJsonObject(int index)
     {
-        Json json = this.elements.get(index);
+        Json json = this.elements().get(index);
         return (json instanceof JsonObject)? true: false;
     }
     
@@ -283,7 +301,7 @@ public final class JsonArray extends Json implements Iterable<Json>
     {
         if(canToJsonObject(index))
         {
-            return (JsonObject)this.elements.get(index);
+            return (JsonObject)this.elements().get(index);
         }
         else
         {
@@ -298,8 +316,8 @@ public final class JsonArray extends Json implements Iterable<Json>
      */
     public boolean append(Json element)
     {
-        return (element == null)? this.elements.add(Json.nullJson):
-                                  this. elements.add(element);
+        return (element == null)? this.addElement(Json.nullJson):
+                                  this.addElement(element);
     } 
     
     /**
@@ -310,8 +328,8 @@ public final class JsonArray extends Json implements Iterable<Json>
     public boolean append(Jsonable element)
     {
         Json json = (element == null)? Json.nullJson: element.generateJson();
-        return (json == null)? this.elements.add(Json.nullJson):
-                               this.elements.add(json);
+        return (json == null)? this.addElement(Json.nullJson):
+                               this.addElement(json);
     }
 
     /**
@@ -321,8 +339,8 @@ public final class JsonArray extends Json implements Iterable<Json>
      */
     public boolean append(String element)
     {
-        return (element == null)? this.elements.add(Json.nullJson):
-                                  this.elements.add(new JsonPrimitive(element));
+        return (element == null)? this.addElement(Json.nullJson):
+                                  this.addElement(new JsonPrimitive(element));
     }
     
     /**
@@ -332,7 +350,7 @@ public final class JsonArray extends Json implements Iterable<Json>
      */
     public boolean append(long element)
     {
-        return this.elements.add(new JsonPrimitive(element));
+        return this.addElement(new JsonPrimitive(element));
     }
     
     /**
@@ -342,7 +360,7 @@ public final class JsonArray extends Json implements Iterable<Json>
      */
     public boolean append(double element)
     {
-        return this.elements.add(new JsonPrimitive(element));
+        return this.addElement(new JsonPrimitive(element));
     }
     
     /**
@@ -352,7 +370,7 @@ public final class JsonArray extends Json implements Iterable<Json>
      */
     public boolean append(boolean element)
     {
-        return this.elements.add(Json.getBooleanJson(element));
+        return this.addElement(Json.getBooleanJson(element));
     }
     
     /**
@@ -361,7 +379,7 @@ public final class JsonArray extends Json implements Iterable<Json>
      */
     public boolean append()
     {
-        return this.elements.add(Json.nullJson);
+        return this.addElement(Json.nullJson);
     }
     
     /**
@@ -372,7 +390,7 @@ public final class JsonArray extends Json implements Iterable<Json>
     public void appendAll(Collection<?> list) throws JsonException
     {
         JsonArray jary = Json.parseJavaCollection(list);
-        this.elements.addAll(jary.elements);
+        this.addElements(this.count(), jary.elements());
     }
     
     /**
@@ -384,7 +402,7 @@ public final class JsonArray extends Json implements Iterable<Json>
     public void appendAll(Collection<?> list, JsonParser parser) throws JsonException
     {
         JsonArray jary = Json.parseJavaCollection(list, parser);
-        this.elements.addAll(jary.elements);
+        this.addElements(this.count(), jary.elements());
     }
     
     /**
@@ -393,7 +411,7 @@ public final class JsonArray extends Json implements Iterable<Json>
      */
     public void appendAll(JsonArray jary)
     {
-        this.elements.addAll(jary.elements);
+        this.addElements(this.count(), jary.elements());
     }
     
     /**
@@ -404,9 +422,9 @@ public final class JsonArray extends Json implements Iterable<Json>
     public void insert(int index, Json element)
     {
         if(element == null)
-            this.elements.add(index, Json.nullJson);
+            this.addElement(index, Json.nullJson);
         else
-            this.elements.add(index, element);
+            this.addElement(index, element);
     }
     
     /**
@@ -420,9 +438,9 @@ public final class JsonArray extends Json implements Iterable<Json>
     {
         Json json = (element == null)? Json.nullJson: element.generateJson();
         if(json == null)
-            this.elements.add(index, Json.nullJson);
+            this.addElement(index, Json.nullJson);
         else
-            this.elements.add(index, json);
+            this.addElement(index, json);
     }
 
     /**
@@ -433,9 +451,9 @@ public final class JsonArray extends Json implements Iterable<Json>
     public void insert(int index, String element)
     {
         if(element == null)
-            this.elements.add(index, Json.nullJson);
+            this.addElement(index, Json.nullJson);
         else
-            this.elements.add(index, new JsonPrimitive(element));
+            this.addElement(index, new JsonPrimitive(element));
     }
 
     /**
@@ -445,7 +463,7 @@ public final class JsonArray extends Json implements Iterable<Json>
      */
     public void insert(int index, long element)
     {
-        this.elements.add(index, new JsonPrimitive(element));
+        this.addElement(index, new JsonPrimitive(element));
     }
 
     /**
@@ -455,7 +473,7 @@ public final class JsonArray extends Json implements Iterable<Json>
      */
     public void insert(int index, double element)
     {
-        this.elements.add(index, new JsonPrimitive(element));
+        this.addElement(index, new JsonPrimitive(element));
     }
 
     /**
@@ -465,7 +483,7 @@ public final class JsonArray extends Json implements Iterable<Json>
      */
     public void insert(int index, boolean element)
     {
-        this.elements.add(index, Json.getBooleanJson(element));
+        this.addElement(index, Json.getBooleanJson(element));
     }
     
     /**
@@ -474,7 +492,7 @@ public final class JsonArray extends Json implements Iterable<Json>
      */
     public void insert(int index)
     {
-        this.elements.add(index, Json.nullJson);
+        this.addElement(index, Json.nullJson);
     }
     
     /**
@@ -485,7 +503,7 @@ public final class JsonArray extends Json implements Iterable<Json>
     public void insertAll(int index, Collection<?> list) throws JsonException
     {
         JsonArray jary = Json.parseJavaCollection(list);
-        this.elements.addAll(index, jary.elements);
+        this.addElements(index, jary.elements());
     }
     
     /**
@@ -497,7 +515,7 @@ public final class JsonArray extends Json implements Iterable<Json>
     public void insertAll(int index, Collection<?> list, JsonParser parser) throws JsonException
     {
         JsonArray jary = Json.parseJavaCollection(list, parser);
-        this.elements.addAll(index, jary.elements);
+        this.addElements(index, jary.elements());
     }
     
     /**
@@ -506,7 +524,7 @@ public final class JsonArray extends Json implements Iterable<Json>
      */
     public void insertAll(int index, JsonArray jary)
     {
-        this.elements.addAll(index, jary.elements);
+        this.addElements(index, jary.elements());
     }
     
     /**
@@ -517,9 +535,9 @@ public final class JsonArray extends Json implements Iterable<Json>
     public void set(int index, Json element)
     {
         if(element == null)
-            this.elements.set(index, Json.nullJson);
+            this.setElement(index, Json.nullJson);
         else
-            this.elements.set(index, element);
+            this.setElement(index, element);
     }
     
     /**
@@ -531,9 +549,9 @@ public final class JsonArray extends Json implements Iterable<Json>
     {
         Json json = (element == null)? Json.nullJson: element.generateJson();
         if(json == null)
-            this.elements.set(index, Json.nullJson);
+            this.setElement(index, Json.nullJson);
         else
-            this.elements.set(index, json);
+            this.setElement(index, json);
     }
 
     /**
@@ -544,9 +562,9 @@ public final class JsonArray extends Json implements Iterable<Json>
     public void set(int index, String element)
     {
         if(element == null)
-            this.elements.set(index, Json.nullJson);
+            this.setElement(index, Json.nullJson);
         else
-            this.elements.set(index, new JsonPrimitive(element));
+            this.setElement(index, new JsonPrimitive(element));
     }
 
     /**
@@ -556,7 +574,7 @@ public final class JsonArray extends Json implements Iterable<Json>
      */
     public void set(int index, long element)
     {
-        this.elements.set(index, new JsonPrimitive(element));
+        this.setElement(index, new JsonPrimitive(element));
     }
 
     /**
@@ -566,7 +584,7 @@ public final class JsonArray extends Json implements Iterable<Json>
      */
     public void set(int index, double element)
     {
-        this.elements.set(index, new JsonPrimitive(element));
+        this.setElement(index, new JsonPrimitive(element));
     }
 
     /**
@@ -576,7 +594,7 @@ public final class JsonArray extends Json implements Iterable<Json>
      */
     public void set(int index, boolean element)
     {
-        this.elements.set(index, Json.getBooleanJson(element));
+        this.setElement(index, Json.getBooleanJson(element));
     }
 
     /**
@@ -585,7 +603,7 @@ public final class JsonArray extends Json implements Iterable<Json>
      */
     public void set(int index)
     {
-        this.elements.set(index, Json.nullJson);
+        this.setElement(index, Json.nullJson);
     }
     
     /**
@@ -594,16 +612,19 @@ public final class JsonArray extends Json implements Iterable<Json>
      */
     public void remove(int index)
     {
-        this.elements.remove(index);
+        this.removeElement(index);
     }
 
     /**
      * 判断两个Json实例表示的数据是否一致。
      * @param obj 被比较的Json实例
+     * @param thisRef 本实例一侧的上级Json对象堆栈，用于检测循环引用
+     * @param objRef obj一侧的上级Json对象堆栈，用于检测循环引用
      * @return 一致返回true，不一致返回false
+     * @throws JsonException 参与比较的Json实例内存在循环引用
      */
     @Override
-    protected boolean same(Json obj)
+    protected boolean same(Json obj, IdentityStack thisRef, IdentityStack objRef)
     {
         if(obj == null)
         {
@@ -623,16 +644,19 @@ public final class JsonArray extends Json implements Iterable<Json>
         }
         else
         {
+            enterSame(obj, thisRef, objRef);
             int cnt = this.count();
             
             JsonArray objAry = (JsonArray)obj;
             for(int i=0; i<cnt; i++)
             {
-                if(! this.get(i).same(objAry.get(i)))
+                if(! this.get(i).same(objAry.get(i), thisRef, objRef))
                 {
-                    return false;
+                    return false; //比较结果已经确定，不必再出栈
                 }
             }
+            thisRef.pop();
+            objRef.pop();
             return true;
         }
     }
@@ -665,13 +689,15 @@ public final class JsonArray extends Json implements Iterable<Json>
     public JsonArray clone()
     {
         JsonArray nval = (JsonArray)super.clone();
+        //未解析的实例与Clone出的实例共用不会被修改的Json文本，各自解析
+        if(this.lazyText != null) return nval;
         
         @SuppressWarnings("unchecked")
-        ArrayList<Json> clone = (ArrayList<Json>)this.elements.clone();
+        ArrayList<Json> clone = (ArrayList<Json>)this.elements().clone();
         nval.elements = clone;
-        for(int i=0; i<this.elements.size(); i++)
+        for(int i=0; i<this.elements().size(); i++)
         {
-            Json json= this.elements.get(i);
+            Json json= this.elements().get(i);
             if(! (json instanceof JsonPrimitive))
             {
                 nval.elements.set(i, json.clone());
@@ -688,7 +714,7 @@ public final class JsonArray extends Json implements Iterable<Json>
     @Override
     public int count()
     {
-        return this.elements.size();
+        return this.elements().size();
     }
     
     /**
@@ -697,7 +723,8 @@ public final class JsonArray extends Json implements Iterable<Json>
     @Override
     public void clear()
     {
-        this.elements.clear();
+        changed();
+        this.elements().clear();
     }
     
     /**
@@ -707,29 +734,135 @@ public final class JsonArray extends Json implements Iterable<Json>
     @Override
     public boolean isEmpty()
     {
-        return this.elements.isEmpty();
+        return this.elements().isEmpty();
     }
     
     /**
      * 向可追加对象追加Json文本。
      * @param dest 接受Json文本的可追加对象
      * @param useQuote 为true时Object的Name部分加引号， false时尽量不加引号
+     * @param parentRef 上级Json对象堆栈，用于检测循环引用，为null时不检测
+     * @param numbers 格式化数值的缓冲区，由一次输出独占并重复使用
      * @throws IOException 追加字符流发生IO异常
+     * @throws JsonException 存在循环引用
      */
     @Override
-    protected void appendToAppendable(Appendable dest, boolean useQuote) throws IOException
+    protected void appendToAppendable(Appendable dest, boolean useQuote, IdentityStack parentRef,
+            NumberConverter.Buffer numbers) throws IOException
     {
+        //未解析的实例一次解析所有的子孙实例并保留，输出的文本与非延迟解析时相同，之后输出时不再解析
+        if(this.lazyText != null) load(false);
+
+        if(this.textCache != null && this.textCache.enabled)
+        {
+            dest.append(cachedText(useQuote, parentRef, numbers));
+            return;
+        }
+
+        if(parentRef != null && ! parentRef.enter(this))
+        {
+            throw new JsonException("Circle reference exists in this Json.");
+        }
+        appendElements(dest, useQuote, parentRef, numbers);
+        if(parentRef != null) parentRef.pop();
+    }
+
+    /**
+     * 向可追加对象追加所有子元素生成的Json文本，缓存文本时dest是正在生成的文本，子元素通过textCache追加。
+     * @param dest 接受Json文本的可追加对象
+     * @param useQuote 为true时Object的Name部分加引号， false时尽量不加引号
+     * @param parentRef 上级Json对象堆栈，用于检测循环引用，为null时不检测
+     * @param numbers 格式化数值的缓冲区，由一次输出独占并重复使用
+     * @throws IOException 追加字符流发生IO异常
+     * @throws JsonException 存在循环引用
+     */
+    private void appendElements(Appendable dest, boolean useQuote, IdentityStack parentRef,
+            NumberConverter.Buffer numbers) throws IOException
+    {
+        JsonTextCache cache = (this.textCache != null && this.textCache.enabled)? this.textCache: null;
         dest.append('[');
         int cnt = count();
         for(int i=0; i<cnt; i++)
         {
             if(i > 0) dest.append(',');
             Json element = get(i);
-            element.appendToAppendable(dest, useQuote);
+            if(cache != null)
+                cache.appendChild(element, useQuote, parentRef, numbers);
+            else
+                element.appendToAppendable(dest, useQuote, parentRef, numbers);
         }
         dest.append(']');
     }
-    
+
+    /**
+     * 返回缓存的Json文本，子孙实例被修改过时更新，没有缓存时生成并缓存，textCache不为null且缓存文本。
+     * @param useQuote 为true时Object的Name部分加引号， false时尽量不加引号
+     * @param parentRef 上级Json对象堆栈，用于检测循环引用，为null时不检测
+     * @param numbers 格式化数值的缓冲区
+     * @return 缓存的Json文本
+     * @throws IOException 不会发生（内存中的字符）
+     * @throws JsonException 存在循环引用
+     */
+    String cachedText(boolean useQuote, IdentityStack parentRef, NumberConverter.Buffer numbers)
+            throws IOException
+    {
+        if(this.lazyText != null) load(false);
+        if(parentRef != null && ! parentRef.enter(this))
+        {
+            throw new JsonException("Circle reference exists in this Json.");
+        }
+
+        String text = this.textCache.getText(useQuote, parentRef, numbers);
+        if(text == null)
+        {
+            appendElements(this.textCache.startText(), useQuote, parentRef, numbers);
+            text = this.textCache.endText(useQuote);
+        }
+
+        if(parentRef != null) parentRef.pop();
+        return text;
+    }
+
+    /**
+     * 向JsonByteWriter写入UTF-8编码的Json文本。
+     * @param dest 接受Json文本的JsonByteWriter
+     * @param useQuote 为true时Object的Name部分加引号， false时尽量不加引号
+     * @param parentRef 上级Json对象堆栈，用于检测循环引用，为null时不检测
+     * @throws IOException 写出字节发生IO异常
+     * @throws JsonException 存在循环引用
+     */
+    @Override
+    protected void appendToBytes(JsonByteWriter dest, boolean useQuote, IdentityStack parentRef) throws IOException
+    {
+        //未解析的实例一次解析所有的子孙实例并保留，输出的文本与非延迟解析时相同，之后输出时不再解析
+        if(this.lazyText != null) load(false);
+
+        if(this.textCache != null && this.textCache.enabled)
+        {
+            //缓存的文本已经转义，直接编码输出
+            String text = cachedText(useQuote, parentRef, dest.numbers);
+            dest.writeRaw(text, 0, text.length());
+            return;
+        }
+
+        if(parentRef != null && ! parentRef.enter(this))
+        {
+            throw new JsonException("Circle reference exists in this Json.");
+        }
+
+        dest.writeAscii('[');
+        int cnt = count();
+        for(int i=0; i<cnt; i++)
+        {
+            if(i > 0) dest.writeAscii(',');
+            Json element = get(i);
+            element.appendToBytes(dest, useQuote, parentRef);
+        }
+        dest.writeAscii(']');
+
+        if(parentRef != null) parentRef.pop();
+    }
+
     /**
      * 返回 Json实例类型 JsonType.ARRAY。
      */
@@ -746,7 +879,7 @@ public final class JsonArray extends Json implements Iterable<Json>
      */
     public JsonType getType(int index)
     {
-        return this.elements.get(index).getType();
+        return this.elements().get(index).getType();
     }
 
     /**
@@ -757,6 +890,7 @@ public final class JsonArray extends Json implements Iterable<Json>
     @Override
     protected boolean existsCircle(IdentityStack parentRef)
     {
+        if(this.lazyText != null) return false; //由Json文本解析而来，不会有循环引用
         if(parentRef.contains(this)) return true;
         
         parentRef.push(this);
@@ -771,6 +905,44 @@ public final class JsonArray extends Json implements Iterable<Json>
         return exists;
     }
 
+    /**
+     * 设置JsonArray实例及其所有子孙实例是否缓存生成的Json文本。
+     * @param cache 为true时缓存，为false时停止缓存并清除已经缓存的文本
+     * @param parentRef 上级Json对象堆栈，用于检测循环引用
+     * @throws JsonException 存在循环引用
+     */
+    @Override
+    protected void setCacheText(boolean cache, IdentityStack parentRef)
+    {
+        if(! parentRef.enter(this))
+        {
+            throw new JsonException("Circle reference exists in this Json.");
+        }
+
+        if(cache)
+        {
+            if(this.textCache == null)
+                this.textCache = new JsonTextCache(true);
+            else
+                this.textCache.enabled = true;
+        }
+        else if(this.textCache != null)
+        {
+            this.textCache.disable();
+        }
+
+        //未解析的实例在解析时由子元素继承设置
+        if(this.lazyText == null)
+        {
+            for(Json element: this.elements)
+            {
+                if(element != null) element.setCacheText(cache, parentRef);
+            }
+        }
+
+        parentRef.pop();
+    }
+
     /**
      * 返回迭代器，用于for each循环。
      * @return JsonArray的迭代器
@@ -778,6 +950,113 @@ public final class JsonArray extends Json implements Iterable<Json>
     @Override
     public Iterator<Json> iterator()
     {
-        return elements.iterator();
+        final Iterator<Json> iterator = this.elements().iterator();
+        //通过迭代器删除子元素时使缓存的文本失效
+        return new Iterator<Json>()
+        {
+            public boolean hasNext()
+            {
+                return iterator.hasNext();
+            }
+
+            public Json next()
+            {
+                return iterator.next();
+            }
+
+            public void remove()
+            {
+                changed();
+                iterator.remove();
+            }
+        };
+    }
+    
+    /**
+     * 返回存放子元素的ArrayList，延迟解析的JsonArray在第一次调用时解析子元素。
+     * @return 存放子元素的ArrayList
+     * @throws JsonException Json文本中有跳过格式校验时无法发现的错误（如整数溢出）
+     */
+    private ArrayList<Json> elements() throws JsonException
+    {
+        if(this.lazyText != null) load(true);
+        return this.elements;
+    }
+
+    /**
+     * 解析延迟解析的JsonArray的子元素。
+     * @param lazy 为true时只解析一层，嵌套的JsonObject与JsonArray仍然延迟解析；为false时解析所有的子孙实例
+     * @throws JsonException Json文本中有跳过格式校验时无法发现的错误（如整数溢出）
+     */
+    private void load(boolean lazy) throws JsonException
+    {
+        try
+        {
+            JsonTextParser parser = new JsonTextParser(lazyText, lazyStart, lazyEnd, lazy);
+            this.elements = parser.parseArray().elements;
+        }
+        catch(IOException e)
+        {
+            //直接读取内存中的字符，不会产生IO异常，所以这里作为内部错误处理。
+            throw new InternalError(e.getMessage());
+        }
+        this.lazyText = null;
+        if(this.textCache != null && this.textCache.enabled)
+        {
+            for(Json element: this.elements) JsonTextCache.inherit(element);
+        }
+    }
+
+    /**
+     * Json数组将被修改，清除本实例缓存的文本，上级实例在下一次输出时检查到本实例的文本改变。
+     */
+    private void changed()
+    {
+        if(this.textCache != null) this.textCache.clear();
+    }
+
+    /**
+     * 在Json数组末尾添加子元素。
+     */
+    private boolean addElement(Json element)
+    {
+        changed();
+        return this.elements().add(element);
+    }
+
+    /**
+     * 在指定下标添加子元素。
+     */
+    private void addElement(int index, Json element)
+    {
+        changed();
+        this.elements().add(index, element);
+    }
+
+    /**
+     * 在指定下标批量添加子元素。
+     */
+    private void addElements(int index, Collection<Json> list)
+    {
+        changed();
+        this.elements().addAll(index, list);
+    }
+
+    /**
+     * 设置指定下标的子元素。
+     */
+    private void setElement(int index, Json element)
+    {
+        changed();
+        this.elements().set(index, element);
+    }
+
+    /**
+     * 删除指定下标的子元素。
+     */
+    private void removeElement(int index)
+    {
+        changed();
+        this.elements().remove(index);
     }
 }
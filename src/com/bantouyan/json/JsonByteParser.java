@@ -0,0 +1,1322 @@
+package com.bantouyan.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * 内部类，JsonTextParser的字节版本，直接从UTF-8编码的byte数组、ByteBuffer（包括直接缓冲区）、
+ * InputStream或文件（通过FileChannel内存映射）解析Json实例，无需先解码成字符，仅供此Json库内部使用。
+ *
+ * <p>只有包含非ASCII字节或转义符的字符串才需要解码，纯ASCII的字符串直接由字节扩展成字符。
+ * 能识别UTF-8的BOM（跳过），遇到UTF-16或UTF-32的BOM时按相应的编码解码后交由JsonTextParser解析。
+ * 异常信息中的位置是字节的位置，使用long类型，可以超过2G。</p>
+ *
+ * <p>解析文件时，每次只映射文件的一段（窗口），解析完一段后再映射下一段，
+ * 所以可以解析大于2G的文件，且字节直接从映射区读取，不复制。</p>
+ *
+ * @author 飞翔的河马
+ * @version 1.02
+ * @since 1.02
+ */
+class JsonByteParser
+{
+    private static int[] trueAry = {'t', 'r', 'u', 'e'};
+    private static int[] falseAry =  {'f', 'a', 'l', 's', 'e'};
+    private static int[] nullAry = {'n', 'u', 'l', 'l'};
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final int DEFAULT_MAP_SIZE = 64 * 1024 * 1024;
+
+    private InputStream input;
+    // 以文件作为数据源时，[mapStart, mapStart + bufLen)为当前映射的文件区域，mapEnd为文件结尾
+    private FileChannel channel;
+    private long mapStart = 0;
+    private long mapEnd = 0;
+    private int mapSize = DEFAULT_MAP_SIZE;
+    // 字节缓冲区，以byte数组或ByteBuffer作为数据源时就是数据源本身，
+    // 以InputStream作为数据源时包装了一个从中成块读入的byte数组，
+    // 以文件作为数据源时是当前映射的文件区域，ch为buf.get(bufPos - 1)
+    private ByteBuffer buf;
+    private int bufPos = 0; // the index of next byte in buf
+    private int bufLen = 0; // the limit of valid bytes in buf
+    // 解析字符串与Name时使用的字符缓冲区，可重复使用
+    private char[] chars = new char[64];
+    private int charLen = 0;
+    private JsonNameCache names = null; // Name的规范化缓存，没有指定共享的缓存时在第一次解析Name时创建
+    // 遇到UTF-16或UTF-32的BOM时，记录对应的编码
+    private String bomCharset = null;
+    private JsonTextParser charsetParser = null;
+    // after JsonByteParser object create, ch is the first byte and pos equal 0
+    private int ch = -1; // the current byte (0 ~ 255) of the source
+    private long pos = -1; // the current position (byte offset) of the source
+
+    /**
+     * 用InputStream新建一个JsonByteParser对象。
+     * @param input 提供UTF-8编码的Json字节流
+     * @throws IOException 读取InputStream发生异常
+     */
+    public JsonByteParser(InputStream input) throws IOException
+    {
+        this(input, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * 用InputStream新建一个JsonByteParser对象，并指定字节缓冲区的大小。
+     * @param input 提供UTF-8编码的Json字节流
+     * @param bufferSize 字节缓冲区的大小，不能小于4（用于识别BOM）
+     * @throws IOException 读取InputStream发生异常
+     */
+    JsonByteParser(InputStream input, int bufferSize) throws IOException
+    {
+        this.input = input;
+        this.buf = ByteBuffer.wrap(new byte[Math.max(4, bufferSize)]);
+        fillForBom();
+        detectBom();
+        next();
+    }
+
+    /**
+     * 用byte数组新建一个JsonByteParser对象，直接在数组上解析，不复制字节。
+     * @param bytes 包含UTF-8编码Json文本的数组，解析过程中不能修改
+     * @param offset Json文本在数组中的起始下标
+     * @param length Json文本的字节数
+     * @throws IOException 不会发生（声明此异常是为了与其他构造函数保持一致）
+     */
+    public JsonByteParser(byte[] bytes, int offset, int length) throws IOException
+    {
+        if(offset < 0 || length < 0 || offset > bytes.length - length)
+        {
+            throw new IndexOutOfBoundsException("offset " + offset + ", length " + length
+                    + ", array length " + bytes.length);
+        }
+        this.buf = ByteBuffer.wrap(bytes);
+        this.bufPos = offset;
+        this.bufLen = offset + length;
+        detectBom();
+        next();
+    }
+
+    /**
+     * 用ByteBuffer（可以是直接缓冲区）新建一个JsonByteParser对象，
+     * 解析从其当前位置到limit的字节，直接在ByteBuffer上解析，不复制字节，也不改变其位置。
+     * @param buffer 包含UTF-8编码Json文本的ByteBuffer，解析过程中不能修改
+     * @throws IOException 不会发生（声明此异常是为了与其他构造函数保持一致）
+     */
+    public JsonByteParser(ByteBuffer buffer) throws IOException
+    {
+        this.buf = buffer;
+        this.bufPos = buffer.position();
+        this.bufLen = buffer.limit();
+        detectBom();
+        next();
+    }
+
+    /**
+     * 用ByteBuffer中的一段新建一个JsonByteParser对象，用于解析从较大的文本中截取的一部分（如NDJSON文件的一行），
+     * 直接在ByteBuffer上解析，不识别BOM，也不改变ByteBuffer的位置。
+     * 字节位置从position开始计算，所以错误信息中的位置与整个文本一致。
+     * @param buffer 包含UTF-8编码Json文本的ByteBuffer，解析过程中不能修改
+     * @param start 要解析部分的起始下标
+     * @param end 要解析部分的结束下标（不包含）
+     * @param position 下标start的字节在整个文本中的位置
+     * @throws IOException 不会发生（声明此异常是为了与其他构造函数保持一致）
+     */
+    JsonByteParser(ByteBuffer buffer, int start, int end, long position) throws IOException
+    {
+        this.buf = buffer;
+        this.bufPos = start;
+        this.bufLen = end;
+        this.pos = position - 1;
+        next();
+    }
+
+    /**
+     * 用FileChannel新建一个JsonByteParser对象，从其当前位置解析到文件结尾，
+     * 每次映射文件的一段，直接从映射区读取字节。
+     * @param channel 包含UTF-8编码Json文本的文件通道，解析过程中文件不能修改
+     * @throws IOException 读取或映射文件发生异常
+     */
+    public JsonByteParser(FileChannel channel) throws IOException
+    {
+        this(channel, DEFAULT_MAP_SIZE);
+    }
+
+    /**
+     * 用FileChannel新建一个JsonByteParser对象，并指定每次映射的字节数。
+     * @param channel 包含UTF-8编码Json文本的文件通道，解析过程中文件不能修改
+     * @param mapSize 每次映射的字节数，不能小于4（用于识别BOM）
+     * @throws IOException 读取或映射文件发生异常
+     */
+    JsonByteParser(FileChannel channel, int mapSize) throws IOException
+    {
+        this.channel = channel;
+        this.mapSize = Math.max(4, mapSize);
+        this.mapStart = channel.position();
+        this.mapEnd = channel.size();
+        this.buf = ByteBuffer.allocate(0);
+        if(mapStart < mapEnd)
+        {
+            map(mapStart);
+        }
+        detectBom();
+        next();
+    }
+
+    /**
+     * 根据字节内容解析成JsonObject或JsonArray。
+     * @return 解析后的JsonObject或JsonArray实例
+     * @throws IOException 读取InputStream有误
+     * @throws JsonException Json格式错误（不是JsonObject或JsonArray）
+     */
+    public Json parse() throws IOException, JsonException
+    {
+        if(bomCharset != null)
+        {
+            return charsetParser().parse();
+        }
+
+        Json json = null;
+
+        while(ch != -1)
+        {
+            if(ch == '{')
+            {
+                json = parseObject();
+                parseTailBlank(-1);
+            }
+            else if(ch == '[')
+            {
+                json = parseArray();
+                parseTailBlank(-1);
+            }
+            else if(! isBlankCharacter(ch))
+            {
+                String msg = "Cannot found json object begin sign '{'" +
+                        " or json array begin sign ']' at position " + pos + ".";
+                throw new JsonException(msg);
+            }
+            else
+            {
+                skipBlank();
+                continue;
+            }
+
+            next();
+        }
+        if(json == null)
+        {
+            String msg = "Cannot parse blank character sequence to json.";
+            throw new JsonException(msg);
+        }
+
+        return json;
+    }
+
+    /**
+     * 解析下一个JsonObject或JsonArray，用于多个Json实例首尾相接（或每行一个）的情况，
+     * 进入时指向上一个Json实例之后的字节，退出时指向本Json实例之后的第一个字节。
+     * @return 解析后的JsonObject或JsonArray实例，只剩下空白字符时返回null
+     * @throws IOException 读取InputStream有误
+     * @throws JsonException Json格式错误（不是JsonObject或JsonArray）
+     */
+    Json parseNext() throws IOException, JsonException
+    {
+        if(bomCharset != null)
+        {
+            return charsetParser().parseNext();
+        }
+
+        skipBlank();
+        if(ch == '{')
+        {
+            return parseObject();
+        }
+        else if(ch == '[')
+        {
+            return parseArray();
+        }
+        else if(ch == -1)
+        {
+            return null;
+        }
+        else
+        {
+            String msg = "Cannot found json object begin sign '{'" +
+                    " or json array begin sign ']' at position " + pos + ".";
+            throw new JsonException(msg);
+        }
+    }
+
+    /**
+     * 从当前字节开始解析JsonObject实例，
+     * 进入时pos指向字符'{'，退出时指向对应的'}'之后的第一个字节。
+     * @return 对应的JsonObject实例
+     * @throws IOException 读取InputStream发生异常
+     * @throws JsonException Json格式不正确（无法解析成JsonObject，或Name出现重复）
+     */
+    private JsonObject parseObject() throws IOException, JsonException
+    {
+        JsonObject json = new JsonObject();
+        boolean needNextElement = false;
+
+        next(); //skip character '{'
+
+        while(ch != -1)
+        {
+            if(needNextElement == false && ch == '}') break;
+
+            if(isBlankCharacter(ch))
+            {
+                skipBlank();
+            }
+            else
+            {
+                String name = parseName();
+                if (json.containsName(name))
+                {
+                    String msg = "Object element name \"" + name
+                            + "\" at position " + pos + " is repeated.";
+                    throw new JsonException(msg);
+                }
+                else
+                {
+                    Json value = parseValue('}');
+                    parseTailBlank(',', '}');
+                    json.set(name, value); //已经检测过Name是否重复，所以不使用方法add
+                }
+
+                if (ch == '}') //子元素后是'}'，JsonObject结束
+                {
+                    break;
+                } else
+                //子元素后是','，需解析下一个子元素（Name Value对）
+                {
+                    next(); // skip character ','
+                    needNextElement = true;
+                }
+            }
+        }
+
+        if(ch == '}')
+        {
+            next(); // skip character '}'
+        }
+        else
+        {
+            String msg = "Cannot found object end sign \'}\' at position " + pos + ".";
+            throw new JsonException(msg);
+        }
+
+        return json;
+    }
+
+    /**
+     * 从当前字节开始解析JsonArray实例，
+     * 进入时pos指向字符'['，退出时指向对应的']'之后的第一个字节。
+     * @return 对应的JsonArray实例
+     * @throws IOException 读取InputStream发生异常
+     * @throws JsonException Json格式不正确（无法解析成JsonArray）
+     */
+    private JsonArray parseArray() throws IOException, JsonException
+    {
+        JsonArray json = new JsonArray();
+        boolean needNextElement = false;
+
+        next(); // skip character '['
+
+        while(ch != -1)
+        {
+            if(needNextElement == false && ch == ']') break;
+
+            if (isBlankCharacter(ch))
+            {
+                skipBlank();
+            }
+            else
+            {
+                Json value = parseValue(']');
+                json.append(value);
+                parseTailBlank(',', ']');
+                if (ch == ']') //子元素后是']'，数组结束
+                {
+                    break;
+                }
+                else //子元素后是','，需解析下一个子元素
+                {
+                    next(); // skip character ','
+                    needNextElement = true;
+                }
+            }
+        }
+
+        if(ch == ']')
+        {
+            next(); // skip character ']'
+        }
+        else
+        {
+            String msg = "Cannot found array end sign \']\' at position " + pos + ".";
+            throw new JsonException(msg);
+        }
+
+        return json;
+    }
+
+    /**
+     * 解析JsonObject中的一段子元素并加入json，用于并行解析。
+     * 进入时pos指向字节'{'或这一段之前的分隔符','，
+     * 数据源在这一段最后一个子元素之后的','或'}'处结束。
+     * @param json 接受子元素的JsonObject
+     * @throws IOException 读取InputStream发生异常
+     * @throws JsonException Json格式不正确
+     */
+    void parseMembers(JsonObject json) throws IOException, JsonException
+    {
+        next(); // skip character '{' or ','
+
+        while(true)
+        {
+            String name = parseName();
+            if (json.containsName(name))
+            {
+                String msg = "Object element name \"" + name
+                        + "\" at position " + pos + " is repeated.";
+                throw new JsonException(msg);
+            }
+            Json value = parseValue('}');
+            parseTailBlank(',', '}');
+            json.set(name, value);
+
+            int sign = ch;
+            next(); // skip character ',' or '}'
+            if(ch == -1) break;
+            if(sign == '}') parseTailBlank(-1);
+        }
+    }
+
+    /**
+     * 解析JsonArray中的一段子元素并加入json，用于并行解析。
+     * 进入时pos指向字节'['或这一段之前的分隔符','，
+     * 数据源在这一段最后一个子元素之后的','或']'处结束。
+     * @param json 接受子元素的JsonArray
+     * @throws IOException 读取InputStream发生异常
+     * @throws JsonException Json格式不正确
+     */
+    void parseElements(JsonArray json) throws IOException, JsonException
+    {
+        next(); // skip character '[' or ','
+
+        while(true)
+        {
+            skipBlank();
+            json.append(parseValue(']'));
+            parseTailBlank(',', ']');
+
+            int sign = ch;
+            next(); // skip character ',' or ']'
+            if(ch == -1) break;
+            if(sign == ']') parseTailBlank(-1);
+        }
+    }
+
+    /**
+     * 解析JsonObject子元素的name部分，进入时指向name部分（可包括前导空白）的第一个字节，
+     * 退出时指向字符':'后的第一个字节。
+     * @return 表示name的String
+     * @throws IOException 读取InputStream发生异常
+     * @throws JsonException Json格式不正确（无法解析出一个表示Name的字符串或无法找到结束字符“:”）
+     */
+    private String parseName() throws IOException, JsonException
+    {
+        String str = null;
+
+        while(ch != -1)
+        {
+            if(ch == '\'' || ch == '\"')
+            {
+                str = parseString(ch, true);
+                parseTailBlank(':');
+                break;
+            }
+            else if(! isBlankCharacter(ch))
+            {
+                //无引号字符串，非ASCII字符是否合法在解码后判断
+                if(JsonCharClass.isNameStart(ch) || ch >= 0x80)
+                {
+                    str = parseString();
+                    parseTailBlank(':');
+                    break;
+                }
+                else
+                {
+                    String msg = "Cannot found object element name at position " + pos + ".";
+                    throw new JsonException(msg);
+                }
+            }
+
+            skipBlank();
+        }
+
+        if(ch == ':') //Name部分正常结束
+        {
+            next(); //skip character ':'
+        }
+        else
+        {
+            String msg = "Cannot found object element name at position " + pos + ".";
+            throw new JsonException(msg);
+        }
+
+        return str;
+    }
+
+    /**
+     * 解析Json子元素（对JsonObject而言指子元素的Value部分），
+     * 进入时指向表示value（可包含前导空白）的第一个字节，
+     * 退出时指向value（不包含尾空白）之后的第一个字节。
+     * @param endChar 子元素除逗号外的结束符，只允许是]或}
+     * @return Json子元素的实例
+     * @throws IOException 读取InputStream发生异常
+     * @throws JsonException Json格式不正确（无法解析成Json子元素）
+     */
+    private Json parseValue(int endChar) throws IOException, JsonException
+    {
+        Json json = null;
+
+        while(ch != -1)
+        {
+            if(isBlankCharacter(ch))
+            {
+                skipBlank();
+            }
+            else if(ch == '{')
+            {
+                json = parseObject();
+                break;
+            }
+            else if(ch == '[')
+            {
+                json = parseArray();
+                break;
+            }
+            else if(ch == 't') // parse true
+            {
+                json = parseJsonConstant("true", trueAry, endChar);
+                break;
+            }
+            else if(ch == 'f') //parse false
+            {
+                json = parseJsonConstant("false", falseAry, endChar);
+                break;
+            }
+            else if(ch == 'n') //parse null
+            {
+                json = parseJsonConstant("null", nullAry, endChar);
+                break;
+            }
+            else if(ch == '\'' || ch == '\"')
+            {
+                String str = parseString(ch);
+                json = new JsonPrimitive(str);
+                break;
+            }
+            else if(ch == '-' || (ch >= '0' && ch<= '9'))
+            {
+                Number num = parseNumber(endChar);
+                json = new JsonPrimitive(num);
+                break;
+            }
+            else
+            {
+                String msg = null;
+                if(ch == '+')
+                {
+                    next();
+                    if(ch>='0' && ch<='9')
+                    {
+                            msg = "Json number cannot begin with '+' at position " + pos + ".";
+                    }
+                }
+
+                if(msg == null)
+                {
+                    msg = (endChar == ']')? "Cannot found array element at position ":
+                                            "Cannot found object element value at position ";
+                    msg += pos + ".";
+                }
+                throw new JsonException(msg);
+            }
+
+        }
+
+        return json;
+    }
+
+    /**
+     * 解析不带引号的字符串（用于处理JsonObject子元素的Name部分），
+     * 进入时pos指向字符串的开头，退出时指向字符串的下一个字节。
+     * @return 所解析的字符串
+     * @throws IOException 读取InputStream发生异常
+     * @throws JsonException Json格式不正确（无法解析出一个不带引号的String）
+     */
+    private String parseString() throws IOException, JsonException
+    {
+        charLen = 0;
+
+        while(ch != -1)
+        {
+            if(ch == ':' || isBlankCharacter(ch)) break;
+
+            if(ch < 0x80 && isNameCharacter(ch))
+            {
+                //连续的ASCII合法字符直接由字节扩展为字符
+                int i = bufPos;
+                while(i < bufLen)
+                {
+                    int b = buf.get(i);
+                    if(b < 0 || ! isNameCharacter(b)) break;
+                    i++;
+                }
+                appendAscii(bufPos - 1, i);
+                moveTo(i);
+            }
+            else if(ch >= 0x80)
+            {
+                long start = pos;
+                int c = decodeUtf8();
+                if(c <= 256)
+                {
+                    String msg = (charLen == 0)? "Cannot found object element name at position " + start + ".":
+                            "Illegal character found in non-quotation mark string at position " + start
+                            + ", so cannot as object element name.";
+                    throw new JsonException(msg);
+                }
+                appendCodePoint(c);
+                next();
+            }
+            else
+            {
+                String msg = "Illegal character found in non-quotation mark string at position " + pos
+                           + ", so cannot as object element name.";
+                throw new JsonException(msg);
+            }
+        }
+
+        String str = nameString();
+        if(JsonCharClass.isKeyword(str))
+        {
+            String msg = "Non-quotation mark string \"" + str + "\" found at position " + pos
+                       + " is javascript keywords, so cannot as object element name..";
+            throw new JsonException(msg);
+        }
+        return str;
+    }
+
+    /**
+     * 解析带引号的字符串，进入时pos指向开头的引号，退出时指向结尾的引号的下一个字节。
+     * 纯ASCII的连续字节直接扩展为字符，只有非ASCII字节与转义符才需要解码。
+     * @param quoteChar 字符串所使用的引号，' or "
+     * @return 所解析的字符串
+     * @throws IOException 读取InputStream发生异常
+     * @throws JsonException Json格式不正确（无法解析出一个带引号的字符串，或UTF-8编码错误）
+     */
+    private String parseString(int quoteChar) throws IOException, JsonException
+    {
+        return parseString(quoteChar, false);
+    }
+
+    /**
+     * 解析带引号的字符串，进入时pos指向开头的引号，退出时指向结尾的引号的下一个字节。
+     * @param quoteChar 字符串所使用的引号，' or "
+     * @param isName 是否是JsonObject子元素的Name，是则通过Name缓存生成字符串
+     * @return 所解析的字符串
+     * @throws IOException 读取InputStream发生异常
+     * @throws JsonException Json格式不正确（无法解析出一个带引号的字符串，或UTF-8编码错误）
+     */
+    private String parseString(int quoteChar, boolean isName) throws IOException, JsonException
+    {
+        charLen = 0;
+        next(); // skip quatorChar
+
+        while(ch != -1)
+        {
+            if(ch == quoteChar) break;
+
+            if(ch < 0x0020)
+            {
+                String msg = "Character less then \\u0020 found at position " + pos + ".";
+                throw new JsonException(msg);
+            }
+            if(ch == '\\')
+            {
+                appendEscape();
+            }
+            else if(ch >= 0x80)
+            {
+                appendCodePoint(decodeUtf8());
+                next();
+            }
+            else
+            {
+                //不含转义符、控制字符与非ASCII字节的连续字节直接扩展为字符
+                int i = bufPos;
+                while(i < bufLen)
+                {
+                    int b = buf.get(i);
+                    if(b == quoteChar || b == '\\' || b < 0x0020) break; //非ASCII字节为负数
+                    i++;
+                }
+                appendAscii(bufPos - 1, i);
+                moveTo(i);
+            }
+        }
+
+        if(ch == quoteChar)
+        {
+            next(); // skip quator char
+        }
+        else
+        {
+            String msg = "Cannot found string end quotation ";
+            msg += (quoteChar == '"')? "\'" + (char)quoteChar + "\'":
+                                       "\"" + (char)quoteChar + "\"";
+            msg += " at position " + pos + ".";
+            throw new JsonException(msg);
+        }
+
+        return (isName)? nameString(): new String(chars, 0, charLen);
+    }
+
+    /**
+     * 解析Number字符串， 进入时pos指向Number的第一个字节，退出时指向Number的下一个字节。
+     * @param endChar Number后除空白、逗号外可接受的终止符，只允许是']' 或 '}'
+     * @return Number对象（Long或Double类型）
+     * @throws IOException 读取InputStream发生异常
+     * @throws JsonException Json格式不正确（无法解析成一个Json Number）
+     */
+    private Number parseNumber(int endChar) throws IOException, JsonException
+    {
+        charLen = 0;
+        boolean isInt = true;
+
+        // parse minus sign
+        if(ch == '-')
+        {
+            appendChar((char)ch);
+            next();
+        }
+
+        //parse integer part
+        if(ch == '0') //begin with 0
+        {
+            appendChar((char)ch);
+            next();
+            if(ch >= '0' && ch <= '9')
+            {
+                throw new JsonException("Number not allow leading zero at position " + pos + ".");
+            }
+        }
+        else if(ch > '0' && ch <= '9') //begin with 1..9
+        {
+            appendDigits();
+        }
+        else
+        {
+            throw new JsonException("In number charcter after '-' is not 0..9 at position " + pos + ".");
+        }
+
+        //parse fraction
+        if(ch == '.')
+        {
+            appendChar((char)ch);
+            isInt = false;
+            next(); //skip character '.'
+            if(ch>='0' && ch<='9')
+            {
+                appendDigits();
+            }
+            else
+            {
+                throw new JsonException("In number character after '.' is not 0..9 at position " + pos + ".");
+            }
+
+        }
+
+        // parse exponent
+        if(ch == 'e' || ch == 'E')
+        {
+            appendChar((char)ch);
+            isInt = false;
+
+            next(); //skip character e
+
+            //parse plus or minus sign
+            if(ch == '+' || ch == '-')
+            {
+                appendChar((char)ch);
+                next();
+            }
+
+            if(ch>='0' && ch<='9')
+            {
+                appendDigits();
+            }
+            else
+            {
+                throw new JsonException("In number character after 'e' or 'E' is not 0..9 at position " + pos + ".");
+            }
+        }
+        if(ch != ',' && ch != endChar && !isBlankCharacter(ch))
+        {
+            String msg = "Number invalid sufix at position " + pos + ".";
+            throw new JsonException(msg);
+        }
+
+        try
+        {
+            if(isInt)
+            {
+                return NumberConverter.toLong(chars, 0, charLen);
+            }
+            else
+            {
+                return NumberConverter.toDouble(chars, 0, charLen);
+            }
+        }
+        catch (NumberFormatException e)
+        {
+            String msg = (isInt)? "Integer ": "Float ";
+            msg += "string \"" + new String(chars, 0, charLen) + "\" format error at position " + pos + ".";
+            throw new JsonException(msg, e);
+        }
+    }
+
+    /**
+     * 解析Json常量true、false与null，进入时指向Json常量的第一个字节，退出时指向常量的下一个字节。
+     * @param constName 只允许是true、false与null
+     * @param constAry 只允许使用JsonByteParser静态类常量trueAry、falseAry与nullAry
+     * @param endChar Json常量后后除空白、逗号外可接受的终止符，只允许是']' 或 '}'
+     * @return 对应的Json常量
+     * @throws IOException 读取InputStream发生异常
+     * @throws JsonException Json格式不正确（非Json常量字符串，或常量字符串后紧跟着非法字符）
+     */
+    private JsonPrimitive parseJsonConstant(String constName, int[] constAry, int endChar)
+    throws IOException, JsonException
+    {
+        JsonPrimitive json = null;
+
+        for(int i=0; i<constAry.length; i++)
+        {
+            if(ch != constAry[i])
+            {
+                String msg = "Cannot foun constant \"" + constName + "\" at position " + pos + ".";
+                throw new JsonException(msg);
+            }
+
+            next();
+        }
+        if(ch != ',' && ch != endChar && !isBlankCharacter(ch))
+        {
+            String msg = "Invalid sufix of constant \"" + constName + "\" at position " + pos + ".";
+            throw new JsonException(msg);
+        }
+
+        json = (constAry == trueAry)? Json.trueJson:
+                    (constAry == falseAry)? Json.falseJson: Json.nullJson;
+
+        return json;
+    }
+
+    /**
+     * 从当前字节开始解析剩余的空白字符串，遇到终止字符前出现其他字符或EOF为异常。
+     * 进入时pos指向空白字符，或endsChar中的字符，
+     * 退出时指向遇到的第一个endsChar字符。
+     * @param endChar1 终止字符，不能是-1（-1表示已到达尾部，即EOF）
+     * @param endChar2 终止字符，不能是-1（-1表示已到达尾部，即EOF）
+     * @throws IOException 读取InputStream发生异常
+     * @throws JsonException Json格式不正确（遇到终止字符前读到非空白字符或已到达尾部）
+     */
+    private void parseTailBlank(int endChar1, int endChar2) throws IOException, JsonException
+    {
+        boolean found = false;
+
+        while(ch != -1)
+        {
+            if(ch == endChar1 || ch == endChar2)
+            {
+                found = true;
+                break;
+            }
+            else if(! isBlankCharacter(ch))
+            {
+                String msg = "Non-blank  character found at position " + pos
+                        + " before '" + (char)endChar1 + "' and '" + (char)endChar2 + "'.";
+                throw new JsonException(msg);
+            }
+
+            skipBlank();
+        }
+
+        if(! found)
+        {
+            String msg = "Cannot found end character \'" + (char)endChar1 + "\' and \'" + (char)endChar2 + "\' at position " + pos + ".";
+            throw new JsonException(msg);
+        }
+    }
+
+    /**
+     * 从当前字节开始解析剩余的空白字符串，遇到终止字符前出现其他字符或EOF为异常。
+     * 进入时pos指向空白字符，或endsChar中的字符，
+     * 退出时指向遇到的第一个endsChar字符。
+     * @param endChar 可以用-1表示期望到达尾部，即EOF
+     * @throws IOException 读取InputStream发生异常
+     * @throws JsonException Json格式不正确（遇到终止字符前读到非空白字符，或当终止字符不是-1时已到达尾部）
+     */
+    private void parseTailBlank(int endChar) throws IOException, JsonException
+    {
+        boolean found = false;
+
+        while(ch != -1)
+        {
+            if(ch == endChar)
+            {
+                found = true;
+                break;
+            }
+            else if(! isBlankCharacter(ch))
+            {
+                String msg = "Non-blank character found at position " + pos + " before ";
+                msg += (endChar == -1)? "EOF.": "'" + (char)endChar + "'.";
+                throw new JsonException(msg);
+            }
+
+            skipBlank();
+        }
+
+        if(! found && endChar != -1)
+        {
+            String msg = "Cannot found character \'" + (char)endChar + "\'(end char) at position " + pos + ".";
+            throw new JsonException(msg);
+        }
+    }
+
+    /**
+     * 从当前字节开始解码一个UTF-8编码的字符，进入时ch是首字节（不小于0x80），
+     * 退出时ch是该字符的最后一个字节。
+     * @return 字符的Unicode码点
+     * @throws IOException 读取InputStream发生异常
+     * @throws JsonException UTF-8编码错误
+     */
+    private int decodeUtf8() throws IOException, JsonException
+    {
+        long start = pos;
+        int count;
+        int c;
+        int min;
+        if(ch >= 0xC2 && ch <= 0xDF)
+        {
+            count = 1;
+            c = ch & 0x1F;
+            min = 0x80;
+        }
+        else if(ch >= 0xE0 && ch <= 0xEF)
+        {
+            count = 2;
+            c = ch & 0x0F;
+            min = 0x800;
+        }
+        else if(ch >= 0xF0 && ch <= 0xF4)
+        {
+            count = 3;
+            c = ch & 0x07;
+            min = 0x10000;
+        }
+        else
+        {
+            throw new JsonException("Invalid UTF-8 byte sequence found at position " + start + ".");
+        }
+
+        for(int i=0; i<count; i++)
+        {
+            next();
+            if((ch & 0xC0) != 0x80) //包括EOF
+            {
+                throw new JsonException("Invalid UTF-8 byte sequence found at position " + start + ".");
+            }
+            c = (c << 6) | (ch & 0x3F);
+        }
+        if(c < min || c > 0x10FFFF || (c >= 0xD800 && c <= 0xDFFF))
+        {
+            throw new JsonException("Invalid UTF-8 byte sequence found at position " + start + ".");
+        }
+
+        return c;
+    }
+
+    /**
+     * 查表还原一个转义序列并追加到字符缓冲区，进入时pos指向转义符'\\'，退出时指向转义序列之后的字节。
+     * \\uXXXX的四个十六进制数字在缓冲区中时直接从缓冲区计算其数值。
+     * @throws IOException 读取InputStream发生异常
+     * @throws JsonException Json格式不正确（非法的转义符或十六进制数字）
+     */
+    private void appendEscape() throws IOException, JsonException
+    {
+        next(); // skip character '\\'
+        char c = (ch >= 0 && ch < 128)? JsonCharClass.ESCAPE_VALUES[ch]: 0;
+        if(c == 0)
+        {
+            if(ch != 'u')
+            {
+                String msg = "Unexpected escape sign \'\\" + (char)ch + "\' found at position " + pos + ".";
+                throw new JsonException(msg);
+            }
+
+            int i = bufPos;
+            int code = -1;
+            if(i + 4 <= bufLen)
+            {
+                //任一字节不是十六进制数字时查表结果为-1，其或运算的结果也为负数
+                code = (hexValue(buf.get(i)) << 12) | (hexValue(buf.get(i + 1)) << 8)
+                     | (hexValue(buf.get(i + 2)) << 4) | hexValue(buf.get(i + 3));
+                if(code >= 0) moveTo(i + 3);
+            }
+            if(code < 0)
+            {
+                //逐个字节读取，以便在出错时给出出错字节的位置
+                code = 0;
+                for(int k = 0; k < 4; k++)
+                {
+                    next();
+                    int digit = (ch >= 0)? JsonCharClass.hexValue((char)ch): -1;
+                    if(digit < 0)
+                    {
+                        String msg = "Un expected character found in unicode character sequence at positon " + pos + ".";
+                        throw new JsonException(msg);
+                    }
+                    code = (code << 4) | digit;
+                }
+            }
+            c = (char)code;
+        }
+        appendChar(c);
+        next();
+    }
+
+    /**
+     * 返回字节所表示的十六进制数字的数值。
+     * @param b 要转换的字节
+     * @return 对应的数值，不是十六进制数字（包括非ASCII字节）时返回-1
+     */
+    private static int hexValue(byte b)
+    {
+        return (b >= 0)? JsonCharClass.HEX_VALUES[b]: -1;
+    }
+
+    /**
+     * 返回字符缓冲区中的字符所对应的Name，多次出现的Name返回缓存中的同一个String实例。
+     * @return 对应的String
+     */
+    private String nameString()
+    {
+        if(names == null) names = new JsonNameCache();
+        return names.lookup(chars, 0, charLen);
+    }
+
+    /**
+     * 指定解析Name时使用的缓存，用于在多个解析器之间共享。
+     * @param names Name的规范化缓存
+     */
+    void setNameCache(JsonNameCache names)
+    {
+        this.names = names;
+    }
+
+    /**
+     * 向字符缓冲区追加一个字符。
+     * @param c 要追加的字符
+     */
+    private void appendChar(char c)
+    {
+        if(charLen == chars.length) growChars(charLen + 1);
+        chars[charLen++] = c;
+    }
+
+    /**
+     * 向字符缓冲区追加一个Unicode码点，增补字符追加为代理对。
+     * @param c 要追加的码点
+     */
+    private void appendCodePoint(int c)
+    {
+        if(c < 0x10000)
+        {
+            appendChar((char)c);
+        }
+        else
+        {
+            c -= 0x10000;
+            appendChar((char)(0xD800 + (c >>> 10)));
+            appendChar((char)(0xDC00 + (c & 0x3FF)));
+        }
+    }
+
+    /**
+     * 将缓冲区[start, end)范围内的ASCII字节扩展为字符追加到字符缓冲区。
+     * @param start 起始下标（包括）
+     * @param end 结束下标（不包括）
+     */
+    private void appendAscii(int start, int end)
+    {
+        int len = end - start;
+        if(charLen + len > chars.length) growChars(charLen + len);
+        for(int i=start; i<end; i++)
+        {
+            chars[charLen++] = (char)buf.get(i);
+        }
+    }
+
+    /**
+     * 扩大字符缓冲区，使其至少能容纳minCapacity个字符。
+     * @param minCapacity 最小容量
+     */
+    private void growChars(int minCapacity)
+    {
+        int capacity = Math.max(chars.length * 2, minCapacity);
+        char[] ary = new char[capacity];
+        System.arraycopy(chars, 0, ary, 0, charLen);
+        chars = ary;
+    }
+
+    /**
+     * 从当前字节开始将连续的数字追加到字符缓冲区，进入时指向第一个数字，退出时指向数字后的第一个字节。
+     * @throws IOException 读取InputStream发生异常
+     */
+    private void appendDigits() throws IOException
+    {
+        while(ch >= '0' && ch <= '9')
+        {
+            int start = bufPos - 1;
+            int i = bufPos;
+            while(i < bufLen)
+            {
+                int b = buf.get(i);
+                if(b < '0' || b > '9') break;
+                i++;
+            }
+            appendAscii(start, i);
+            moveTo(i);
+        }
+    }
+
+    /**
+     * 检测字节c是否属于空白字符（空格、回车、换行、制表符）。
+     * @param c 被检测字节
+     * @return 是空白返回true，否则返回false
+     */
+    private boolean isBlankCharacter(int c)
+    {
+        return JsonCharClass.isBlank(c);
+    }
+
+    /**
+     * 检测ASCII字符c是否可以出现在不带引号的Name中。
+     * @param c 被检测字符
+     * @return 可以返回true，否则返回false
+     */
+    private boolean isNameCharacter(int c)
+    {
+        return JsonCharClass.isNamePart(c);
+    }
+
+    /**
+     * 从当前字节开始跳过连续的空白字符，进入时指向空白字符，退出时指向第一个非空白字符或EOF。
+     * @throws IOException 读取InputStream发生异常
+     */
+    private void skipBlank() throws IOException
+    {
+        while(ch != -1 && isBlankCharacter(ch))
+        {
+            int i = bufPos;
+            while(i < bufLen && isBlankCharacter(buf.get(i))) i++;
+            moveTo(i);
+        }
+    }
+
+    /**
+     * 读取下一个字节，并更新ch与pos，缓冲区读完后从InputStream中成块读入。
+     * @throws IOException 读取InputStream发生异常
+     */
+    private void next() throws IOException
+    {
+        if(bufPos < bufLen || fill())
+        {
+            ch = buf.get(bufPos++) & 0xFF;
+        }
+        else
+        {
+            ch = -1;
+        }
+        pos++;
+    }
+
+    /**
+     * 将缓冲区下标为index的字节作为当前字节，并更新ch与pos，
+     * 进入时ch必须是缓冲区中的字节，且index不小于ch在缓冲区中的下标。
+     * 如果index等于bufLen，则从InputStream中读入下一块字节。
+     * @param index 新的当前字节在缓冲区中的下标
+     * @throws IOException 读取InputStream发生异常
+     */
+    private void moveTo(int index) throws IOException
+    {
+        pos += index - bufPos;
+        bufPos = index;
+        next();
+    }
+
+    /**
+     * 从InputStream中读入下一块字节到缓冲区。
+     * @return 读入了字节返回true，已到达尾部返回false
+     * @throws IOException 读取InputStream发生异常
+     */
+    private boolean fill() throws IOException
+    {
+        int len = -1;
+        if(input != null)
+        {
+            len = 0;
+            while(len == 0)
+            {
+                len = input.read(buf.array(), 0, buf.capacity());
+            }
+        }
+        else if(channel != null)
+        {
+            if(mapStart + bufLen < mapEnd)
+            {
+                map(mapStart + bufLen);
+                return true;
+            }
+            mapStart = mapEnd;
+        }
+
+        bufPos = 0;
+        bufLen = (len < 0)? 0: len;
+        return len > 0;
+    }
+
+    /**
+     * 从文件的start处开始映射下一段文件区域，作为新的缓冲区。
+     * 不再使用的映射区在被垃圾回收时释放。
+     * @param start 映射区域在文件中的起始位置
+     * @throws IOException 映射文件发生异常
+     */
+    private void map(long start) throws IOException
+    {
+        int len = (int)Math.min(mapSize, mapEnd - start);
+        buf = channel.map(FileChannel.MapMode.READ_ONLY, start, len);
+        mapStart = start;
+        bufPos = 0;
+        bufLen = len;
+    }
+
+    /**
+     * 创建对象时从InputStream中读入第一块字节，尽量读满4个字节以识别BOM。
+     * @throws IOException 读取InputStream发生异常
+     */
+    private void fillForBom() throws IOException
+    {
+        byte[] ary = buf.array();
+        while(bufLen < 4)
+        {
+            int len = input.read(ary, bufLen, ary.length - bufLen);
+            if(len < 0) break;
+            bufLen += len;
+        }
+    }
+
+    /**
+     * 识别缓冲区开头的BOM，跳过UTF-8的BOM，记录UTF-16与UTF-32的编码。
+     */
+    private void detectBom()
+    {
+        int avail = bufLen - bufPos;
+        int b0 = (avail > 0)? buf.get(bufPos) & 0xFF: -1;
+        int b1 = (avail > 1)? buf.get(bufPos + 1) & 0xFF: -1;
+        int b2 = (avail > 2)? buf.get(bufPos + 2) & 0xFF: -1;
+        int b3 = (avail > 3)? buf.get(bufPos + 3) & 0xFF: -1;
+
+        if(b0 == 0xEF && b1 == 0xBB && b2 == 0xBF)
+        {
+            bufPos += 3;
+            pos += 3;
+        }
+        else if(b0 == 0 && b1 == 0 && b2 == 0xFE && b3 == 0xFF)
+        {
+            bomCharset = "UTF-32BE";
+        }
+        else if(b0 == 0xFF && b1 == 0xFE && b2 == 0 && b3 == 0)
+        {
+            bomCharset = "UTF-32LE";
+        }
+        else if(b0 == 0xFE && b1 == 0xFF)
+        {
+            bomCharset = "UTF-16BE";
+        }
+        else if(b0 == 0xFF && b1 == 0xFE)
+        {
+            bomCharset = "UTF-16LE";
+        }
+    }
+
+    /**
+     * 数据源以UTF-16或UTF-32的BOM开头时，按对应的编码解码后交由JsonTextParser解析，
+     * 此时异常信息中的位置是字符的位置。
+     * @return 解析剩余数据的JsonTextParser，多次调用返回同一个对象
+     * @throws IOException 读取InputStream发生异常
+     * @throws JsonException 虚拟机不支持对应的编码
+     */
+    private JsonTextParser charsetParser() throws IOException, JsonException
+    {
+        if(charsetParser != null)
+        {
+            return charsetParser;
+        }
+        if(! Charset.isSupported(bomCharset))
+        {
+            throw new JsonException("Unsupported charset " + bomCharset + " indicated by BOM.");
+        }
+
+        // ch是已读入的第一个字节，从它开始（包括BOM）解码
+        int start = bufPos - 1;
+        int bomLength = bomCharset.startsWith("UTF-32")? 4: 2;
+        Charset charset = Charset.forName(bomCharset);
+        JsonTextParser parser = null;
+        if(channel != null)
+        {
+            channel.position(mapStart + start + bomLength);
+            parser = new JsonTextParser(new InputStreamReader(Channels.newInputStream(channel), charset));
+        }
+        else if(input == null)
+        {
+            ByteBuffer bytes = buf.duplicate();
+            bytes.limit(bufLen);
+            bytes.position(start + bomLength);
+            parser = new JsonTextParser(charset.decode(bytes));
+        }
+        else
+        {
+            InputStream head = new ByteArrayInputStream(buf.array(), start + bomLength,
+                    bufLen - start - bomLength);
+            InputStream stream = new SequenceInputStream(head, input);
+            parser = new JsonTextParser(new InputStreamReader(stream, charset));
+        }
+        if(names != null) parser.setNameCache(names);
+        charsetParser = parser;
+        return parser;
+    }
+}
@@ -0,0 +1,331 @@
+package com.bantouyan.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>内部类，把Json实例直接编码为UTF-8字节输出，不生成中间的String或字符数组，仅供此Json库内部使用。</p>
+ *
+ * <p>字节先写入几块固定大小的缓冲区，全部写满或输出结束时一次性写出：
+ * 写入OutputStream时逐块写出，写入GatheringByteChannel（如FileChannel）时用一次聚集写操作写出所有的块，
+ * 写入ByteBuffer时逐块复制。缓冲区由固定数量的槽位缓存，多次输出时重复使用，
+ * 取出与放回都只用一次原子操作，不加锁，也不使用ThreadLocal。</p>
+ *
+ * <p>字符串的转义规则与生成Json文本时相同；没有配对的代理字符输出为'?'，与UTF-8编码的Writer相同。</p>
+ *
+ * @author 飞翔的河马
+ * @version 1.02
+ * @since 1.02
+ */
+final class JsonByteWriter
+{
+    private static final int CHUNK_SIZE = 8192;
+    private static final int CHUNK_COUNT = 4;
+    private static final int MAX_CHAR_BYTES = 6; // 一个字符（或代理字符对）最多占用的字节数（"\\u001f"）
+    private static final AtomicReferenceArray<JsonByteWriter> slots
+            = new AtomicReferenceArray<JsonByteWriter>(Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+
+    // 输出目标，三者只有一个不为null
+    private OutputStream output;
+    private WritableByteChannel channel;
+    private ByteBuffer target;
+
+    private final byte[][] chunks = new byte[CHUNK_COUNT][];
+    private final ByteBuffer[] views = new ByteBuffer[CHUNK_COUNT];
+    private int current = 0; // 正在写入的块
+    private byte[] buf; // 正在写入的块，即chunks[current]
+    private int pos = 0; // 正在写入的块中下一个字节的下标
+    final NumberConverter.Buffer numbers = new NumberConverter.Buffer(); // 生成缓存的文本时格式化数值的缓冲区
+
+    private JsonByteWriter()
+    {
+        for(int i = 0; i < CHUNK_COUNT; i++)
+        {
+            chunks[i] = new byte[CHUNK_SIZE];
+            views[i] = ByteBuffer.wrap(chunks[i]);
+        }
+        buf = chunks[0];
+    }
+
+    /**
+     * 把Json实例编码为UTF-8字节写入output、channel或target（只有一个不为null）。
+     * @param json 要输出的Json实例
+     * @param useQuote 为true时Object的Name部分加引号， false时尽量不加引号
+     * @param trusted 为true时不检测循环引用
+     * @param output 接受字节的OutputStream，不刷新也不关闭
+     * @param channel 接受字节的阻塞模式的WritableByteChannel，不关闭
+     * @param target 接受字节的ByteBuffer
+     * @throws IOException 写入OutputStream或WritableByteChannel发生异常
+     * @throws JsonException Json内存在循环引用（trusted为false时）
+     */
+    static void write(Json json, boolean useQuote, boolean trusted,
+            OutputStream output, WritableByteChannel channel, ByteBuffer target) throws IOException, JsonException
+    {
+        JsonByteWriter writer = take();
+        writer.output = output;
+        writer.channel = channel;
+        writer.target = target;
+        try
+        {
+            json.appendToBytes(writer, useQuote, trusted? null: new IdentityStack());
+            writer.drain();
+        }
+        finally
+        {
+            writer.output = null;
+            writer.channel = null;
+            writer.target = null;
+            writer.current = 0;
+            writer.buf = writer.chunks[0];
+            writer.pos = 0;
+            release(writer);
+        }
+    }
+
+    /**
+     * 从槽位中取出一个JsonByteWriter，所有槽位都为空时新建。
+     */
+    private static JsonByteWriter take()
+    {
+        int len = slots.length();
+        int start = (int)((Thread.currentThread().getId() & 0x7FFFFFFF) % len);
+        for(int i = 0; i < len; i++)
+        {
+            int index = (start + i) % len;
+            if(slots.get(index) != null)
+            {
+                JsonByteWriter writer = slots.getAndSet(index, null);
+                if(writer != null) return writer;
+            }
+        }
+        return new JsonByteWriter();
+    }
+
+    /**
+     * 放回用完的JsonByteWriter，所有槽位都满时丢弃。
+     */
+    private static void release(JsonByteWriter writer)
+    {
+        int len = slots.length();
+        int start = (int)((Thread.currentThread().getId() & 0x7FFFFFFF) % len);
+        for(int i = 0; i < len; i++)
+        {
+            if(slots.compareAndSet((start + i) % len, null, writer)) return;
+        }
+    }
+
+    /**
+     * 写入一个ASCII字符。
+     * @param c ASCII字符
+     * @throws IOException 写出缓冲区发生异常
+     */
+    void writeAscii(char c) throws IOException
+    {
+        if(pos == CHUNK_SIZE) nextChunk();
+        buf[pos++] = (byte)c;
+    }
+
+    /**
+     * 写入只包含ASCII字符的字符串（如数字、true、false、null）。
+     * @param str 只包含ASCII字符的字符串
+     * @throws IOException 写出缓冲区发生异常
+     */
+    void writeAscii(String str) throws IOException
+    {
+        int len = str.length();
+        for(int i = 0; i < len; i++)
+        {
+            if(pos == CHUNK_SIZE) nextChunk();
+            buf[pos++] = (byte)str.charAt(i);
+        }
+    }
+
+    /**
+     * 写入整数的十进制表示，不生成字符串。
+     * @param value 整数
+     * @throws IOException 写出缓冲区发生异常
+     */
+    void writeLong(long value) throws IOException
+    {
+        if(CHUNK_SIZE - pos < NumberConverter.MAX_LONG_LENGTH) nextChunk();
+        pos = NumberConverter.writeLong(value, buf, pos);
+    }
+
+    /**
+     * 写入有限的浮点数的最短十进制表示（格式与Double.toString相同），不生成字符串。
+     * @param value 有限的浮点数
+     * @throws IOException 写出缓冲区发生异常
+     */
+    void writeDouble(double value) throws IOException
+    {
+        if(CHUNK_SIZE - pos < NumberConverter.MAX_DOUBLE_LENGTH) nextChunk();
+        pos = NumberConverter.writeDouble(value, buf, pos);
+    }
+
+    /**
+     * 以Json字符串（带引号与转义符）的形式写入字符串。
+     * @param str 要写入的字符串
+     * @throws IOException 写出缓冲区发生异常
+     */
+    void writeString(String str) throws IOException
+    {
+        String[] escapes = JsonCharClass.ESCAPE_TEXTS;
+        writeAscii('\"');
+        int len = str.length();
+        for(int i = 0; i < len; i++)
+        {
+            if(CHUNK_SIZE - pos < MAX_CHAR_BYTES) nextChunk();
+            char c = str.charAt(i);
+            if(c < 128)
+            {
+                String escape = escapes[c];
+                if(escape == null)
+                {
+                    buf[pos++] = (byte)c;
+                }
+                else
+                {
+                    for(int j = 0; j < escape.length(); j++)
+                    {
+                        buf[pos++] = (byte)escape.charAt(j);
+                    }
+                }
+            }
+            else
+            {
+                i = encode(str, i, len);
+            }
+        }
+        writeAscii('\"');
+    }
+
+    /**
+     * 不加转义符写入字符序列中[start, end)范围的字符（如不带引号的Name、缓存的Json文本）。
+     * @param text 字符序列
+     * @param start 起始下标
+     * @param end 结束下标（不包含）
+     * @throws IOException 写出缓冲区发生异常
+     */
+    void writeRaw(CharSequence text, int start, int end) throws IOException
+    {
+        for(int i = start; i < end; i++)
+        {
+            if(CHUNK_SIZE - pos < MAX_CHAR_BYTES) nextChunk();
+            char c = text.charAt(i);
+            if(c < 128)
+            {
+                buf[pos++] = (byte)c;
+            }
+            else
+            {
+                i = encode(text, i, end);
+            }
+        }
+    }
+
+    /**
+     * 把码值不小于128的字符（或代理字符对）编码为UTF-8写入缓冲区，缓冲区至少有MAX_CHAR_BYTES个字节的空间。
+     * @param text 字符序列
+     * @param i 字符的下标
+     * @param end 字符序列的结束下标（不包含）
+     * @return 最后一个被编码的字符的下标（代理字符对为i + 1）
+     */
+    private int encode(CharSequence text, int i, int end)
+    {
+        char c = text.charAt(i);
+        if(c < 0x800)
+        {
+            buf[pos++] = (byte)(0xC0 | (c >> 6));
+            buf[pos++] = (byte)(0x80 | (c & 0x3F));
+        }
+        else if(c < 0xD800 || c > 0xDFFF)
+        {
+            buf[pos++] = (byte)(0xE0 | (c >> 12));
+            buf[pos++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+            buf[pos++] = (byte)(0x80 | (c & 0x3F));
+        }
+        else if(c <= 0xDBFF && i + 1 < end && Character.isLowSurrogate(text.charAt(i + 1)))
+        {
+            int code = Character.toCodePoint(c, text.charAt(i + 1));
+            buf[pos++] = (byte)(0xF0 | (code >> 18));
+            buf[pos++] = (byte)(0x80 | ((code >> 12) & 0x3F));
+            buf[pos++] = (byte)(0x80 | ((code >> 6) & 0x3F));
+            buf[pos++] = (byte)(0x80 | (code & 0x3F));
+            return i + 1;
+        }
+        else
+        {
+            buf[pos++] = '?'; //没有配对的代理字符
+        }
+        return i;
+    }
+
+    /**
+     * 切换到下一块缓冲区，所有的块都写满时先全部写出。
+     * @throws IOException 写出缓冲区发生异常
+     */
+    private void nextChunk() throws IOException
+    {
+        views[current].limit(pos); //剩余空间不够一个字符时切换，所以块不一定写满
+        if(current + 1 == CHUNK_COUNT)
+        {
+            drain();
+            return;
+        }
+        current++;
+        buf = chunks[current];
+        pos = 0;
+    }
+
+    /**
+     * 写出所有缓冲区中的字节，之后从第一块开始重新写入。
+     * @throws IOException 写入OutputStream或WritableByteChannel发生异常
+     */
+    private void drain() throws IOException
+    {
+        int count = current + 1;
+        views[current].limit(pos);
+        for(int i = 0; i < count; i++)
+        {
+            views[i].position(0);
+        }
+
+        if(output != null)
+        {
+            for(int i = 0; i < count; i++)
+            {
+                output.write(chunks[i], 0, views[i].limit());
+            }
+        }
+        else if(target != null)
+        {
+            for(int i = 0; i < count; i++)
+            {
+                target.put(views[i]);
+            }
+        }
+        else if(channel instanceof GatheringByteChannel)
+        {
+            GatheringByteChannel gathering = (GatheringByteChannel)channel;
+            while(views[count - 1].hasRemaining())
+            {
+                gathering.write(views, 0, count);
+            }
+        }
+        else
+        {
+            for(int i = 0; i < count; i++)
+            {
+                while(views[i].hasRemaining()) channel.write(views[i]);
+            }
+        }
+
+        current = 0;
+        buf = chunks[0];
+        pos = 0;
+    }
+}
@@ -0,0 +1,191 @@
+package com.bantouyan.json;
+
+import java.util.Arrays;
+
+/**
+ * <p>解析与生成Json文本时共用的字符分类表与JavaScript关键字识别，仅供此Json库内部使用。</p>
+ *
+ * <p>空白字符、不带引号的Name的首字符与后续字符都通过查表判断，码值大于256的字符都可以出现在Name中。
+ * 关键字用完美散列识别：由长度、首字符、第二个字符与末字符算出唯一的下标，
+ * 最多只需比较一次字符串。</p>
+ *
+ * @author 飞翔的河马
+ * @version 1.02
+ * @since 1.02
+ */
+final class JsonCharClass
+{
+    private static final byte BLANK = 1;      // 空格、回车、换行、制表符
+    private static final byte NAME_START = 2; // 可以作为不带引号的Name的首字符
+    private static final byte NAME_PART = 4;  // 可以出现在不带引号的Name中
+    // 码值0到256的字符的分类
+    private static final byte[] CLASSES = new byte[257];
+
+    // 转义符'\\'之后的字符（u除外）还原后的字符，0表示不是合法的转义符
+    static final char[] ESCAPE_VALUES = new char[128];
+    // 十六进制数字对应的数值，-1表示不是十六进制数字
+    static final byte[] HEX_VALUES = new byte[128];
+    // 生成Json文本时码值小于128的字符在字符串中的转义形式，null表示不需要转义
+    static final String[] ESCAPE_TEXTS = new String[128];
+
+    private static final String[] KEYWORDS = {"abstract", "boolean", "break",
+        "byte", "case", "catch", "char", "class", "const", "continue",
+        "debugger", "default", "delete", "do", "double", "else", "enum",
+        "export", "extends", "fasle", "final", "finally", "float", "for",
+        "function", "goto", "if", "implements", "import", "in", "instanceof",
+        "int", "interface", "long", "native", "new", "null", "package",
+        "private", "protected", "public", "return", "short", "static",
+        "super", "switch", "synchronized", "this", "throw", "throws",
+        "transient", "try", "true", "typeof", "var", "void", "volatile",
+        "while", "with"};
+    private static final int MIN_KEYWORD_LENGTH = 2;
+    private static final int MAX_KEYWORD_LENGTH = 12;
+    // 小写字母a到z参与散列的值，使所有关键字的散列值互不相同
+    private static final int[] KEYWORD_ASSO = {40, 52, 42, 33, 62, 22, 50, 9, 19, 1, 60, 60, 43,
+        31, 11, 11, 47, 0, 9, 5, 50, 4, 42, 16, 60, 50};
+    // 以散列值为下标的关键字表
+    private static final String[] KEYWORD_TABLE = new String[128];
+
+    static
+    {
+        CLASSES[' '] = BLANK;
+        CLASSES['\t'] = BLANK;
+        CLASSES['\r'] = BLANK;
+        CLASSES['\n'] = BLANK;
+        CLASSES['_'] = NAME_START | NAME_PART;
+        CLASSES['$'] = NAME_START | NAME_PART;
+        for(int c = 'a'; c <= 'z'; c++) CLASSES[c] = NAME_START | NAME_PART;
+        for(int c = 'A'; c <= 'Z'; c++) CLASSES[c] = NAME_START | NAME_PART;
+        for(int c = '0'; c <= '9'; c++) CLASSES[c] = NAME_PART;
+
+        ESCAPE_VALUES['\"'] = '\"';
+        ESCAPE_VALUES['\''] = '\'';
+        ESCAPE_VALUES['\\'] = '\\';
+        ESCAPE_VALUES['/'] = '/';
+        ESCAPE_VALUES['b'] = '\b';
+        ESCAPE_VALUES['f'] = '\f';
+        ESCAPE_VALUES['n'] = '\n';
+        ESCAPE_VALUES['r'] = '\r';
+        ESCAPE_VALUES['t'] = '\t';
+
+        ESCAPE_TEXTS['\"'] = "\\\"";
+        ESCAPE_TEXTS['\''] = "\\\'";
+        ESCAPE_TEXTS['\\'] = "\\\\";
+        ESCAPE_TEXTS['/'] = "\\/";
+        String hexDigits = "0123456789abcdef";
+        for(int c = 0; c < 0x20; c++)
+        {
+            ESCAPE_TEXTS[c] = "\\u00" + hexDigits.charAt(c >> 4) + hexDigits.charAt(c & 0xF);
+        }
+        ESCAPE_TEXTS['\b'] = "\\b";
+        ESCAPE_TEXTS['\f'] = "\\f";
+        ESCAPE_TEXTS['\n'] = "\\n";
+        ESCAPE_TEXTS['\r'] = "\\r";
+        ESCAPE_TEXTS['\t'] = "\\t";
+
+        Arrays.fill(HEX_VALUES, (byte)-1);
+        for(int i = 0; i < 10; i++) HEX_VALUES['0' + i] = (byte)i;
+        for(int i = 0; i < 6; i++)
+        {
+            HEX_VALUES['a' + i] = (byte)(10 + i);
+            HEX_VALUES['A' + i] = (byte)(10 + i);
+        }
+
+        for(String key: KEYWORDS)
+        {
+            int hash = keywordHash(key.length(), key.charAt(0), key.charAt(1), key.charAt(key.length() - 1));
+            if(KEYWORD_TABLE[hash] != null)
+            {
+                throw new InternalError("Keyword hash of \"" + key + "\" is not unique.");
+            }
+            KEYWORD_TABLE[hash] = key;
+        }
+    }
+
+    private JsonCharClass()
+    {
+    }
+
+    /**
+     * 检测字符c是否属于空白字符（空格、回车、换行、制表符）。
+     * @param c 被检测字符，可以是-1（EOF）
+     * @return 是空白返回true，否则返回false
+     */
+    static boolean isBlank(int c)
+    {
+        return c >= 0 && c <= ' ' && CLASSES[c] == BLANK;
+    }
+
+    /**
+     * 检测字符c是否可以作为不带引号的Name的首字符。
+     * @param c 被检测字符，可以是-1（EOF）
+     * @return 可以返回true，否则返回false
+     */
+    static boolean isNameStart(int c)
+    {
+        return c > 256 || (c >= 0 && (CLASSES[c] & NAME_START) != 0);
+    }
+
+    /**
+     * 检测字符c是否可以出现在不带引号的Name中。
+     * @param c 被检测字符，可以是-1（EOF）
+     * @return 可以返回true，否则返回false
+     */
+    static boolean isNamePart(int c)
+    {
+        return c > 256 || (c >= 0 && (CLASSES[c] & NAME_PART) != 0);
+    }
+
+    /**
+     * 返回十六进制数字对应的数值。
+     * @param c 要转换的字符
+     * @return 对应的数值，不是十六进制数字时返回-1
+     */
+    static int hexValue(char c)
+    {
+        return (c < 128)? HEX_VALUES[c]: -1;
+    }
+
+    /**
+     * 判断字符串是否为JavaScript关键字或保留字。
+     * @param str 被判断的字符串
+     * @return 是JavaScript关键字或保留字返回true，否则返回false
+     */
+    static boolean isKeyword(String str)
+    {
+        int len = str.length();
+        if(len < MIN_KEYWORD_LENGTH || len > MAX_KEYWORD_LENGTH) return false;
+
+        int hash = keywordHash(len, str.charAt(0), str.charAt(1), str.charAt(len - 1));
+        return hash >= 0 && str.equals(KEYWORD_TABLE[hash]);
+    }
+
+    /**
+     * 判断字符串能否不带引号输出，即非空、只包含可以出现在Name中的字符且不是JavaScript关键字。
+     * @param str 被判断的字符串
+     * @return 可以不带引号输出返回true，否则返回false
+     */
+    static boolean canOmitQuote(String str)
+    {
+        int len = str.length();
+        if(len == 0) return false;
+        for(int i = 0; i < len; i++)
+        {
+            if(! isNamePart(str.charAt(i))) return false;
+        }
+        return ! isKeyword(str);
+    }
+
+    /**
+     * 计算关键字的散列值。
+     * @return 散列值，参与计算的字符不是小写字母（不可能是关键字）时返回-1
+     */
+    private static int keywordHash(int len, char first, char second, char last)
+    {
+        if(first < 'a' || first > 'z' || second < 'a' || second > 'z' || last < 'a' || last > 'z')
+        {
+            return -1;
+        }
+        return (len + KEYWORD_ASSO[first - 'a'] + KEYWORD_ASSO[second - 'a'] + KEYWORD_ASSO[last - 'a']) & 127;
+    }
+}
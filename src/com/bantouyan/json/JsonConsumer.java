@@ -0,0 +1,18 @@
+package com.bantouyan.json;
+
+/**
+ * <p>逐个接受Json实例的回调接口，服务于类Json的静态方法parseArrayElements。
+ * 解析器每解析完一个子元素就调用一次方法accept，之后不再保留对该子元素的引用。</p>
+ *
+ * @author 飞翔的河马
+ * @version 1.02
+ * @since 1.02
+ */
+public interface JsonConsumer
+{
+    /**
+     * 接受一个解析完成的Json实例。
+     * @param json 解析完成的Json实例
+     */
+    void accept(Json json);
+}
@@ -0,0 +1,534 @@
+package com.bantouyan.json;
+
+import java.io.IOException;
+
+import com.bantouyan.json.Json.JsonType;
+
+/**
+ * <p>只读访问Json结构索引（tape）的游标，由类Json的静态方法<strong>parseJsonTape</strong>
+ * 创建，指向Json文本中的一个值（JsonObject、JsonArray或基本类型的值）。</p>
+ *
+ * <p>与JsonObject、JsonArray不同，解析时不生成HashMap、ArrayList与JsonPrimitive，
+ * 整个Json文本只保存在几个基本类型的数组中，所以占用的内存与生成的对象都少得多。
+ * 游标通过下标运算在结构索引中移动，跳过一个JsonObject或JsonArray、按下标访问JsonArray的子元素都只需要常数时间。</p>
+ *
+ * <p>与JsonObject、JsonArray一样，方法<strong>get</strong>返回指定Name或下标的子元素
+ * （即指向子元素的游标），方法<strong>getXXX</strong>以特定的类型返回子元素的值。
+ * 按Name查找子元素需要依次比较（不生成String），所以遍历JsonObject的子元素应该使用方法
+ * <strong>first</strong>与<strong>next</strong>，方法<strong>getName</strong>返回JsonObject子元素的Name。</p>
+ *
+ * <p>解析时不检测JsonObject中重复的Name，按Name查找时返回第一个子元素。
+ * 方法<strong>toJson</strong>可以把游标指向的值转换为普通的Json实例。</p>
+ *
+ * @author 飞翔的河马
+ * @version 1.02
+ * @since 1.02
+ */
+public final class JsonCursor
+{
+    private JsonTape tape;
+    private int index; // 值的记录的下标
+    private int nameIndex; // JsonObject子元素Name的记录的下标，其他情况为-1
+
+    /**
+     * 新建一个指向结构索引中特定值的游标。
+     * @param tape Json结构索引
+     * @param index 值的记录的下标
+     * @param nameIndex JsonObject子元素Name的记录的下标，其他情况为-1
+     */
+    JsonCursor(JsonTape tape, int index, int nameIndex)
+    {
+        this.tape = tape;
+        this.index = index;
+        this.nameIndex = nameIndex;
+    }
+
+    /**
+     * 返回游标指向的值的类型。
+     * @return 值的JsonType
+     */
+    public JsonType getType()
+    {
+        switch(tape.type(index))
+        {
+            case JsonTape.OBJECT:
+                return JsonType.OBJECT;
+            case JsonTape.ARRAY:
+                return JsonType.ARRAY;
+            case JsonTape.STRING:
+                return JsonType.STRING;
+            case JsonTape.INTEGER:
+                return JsonType.INTEGER;
+            case JsonTape.FLOAT:
+                return JsonType.FLOAT;
+            case JsonTape.TRUE:
+            case JsonTape.FALSE:
+                return JsonType.BOOLEAN;
+            default:
+                return JsonType.NULL;
+        }
+    }
+
+    /**
+     * 返回子元素的个数，JsonObject与JsonArray以外的值返回0。
+     * @return 子元素的个数
+     */
+    public int count()
+    {
+        return isContainer()? tape.count(index): 0;
+    }
+
+    /**
+     * 判断子元素的个数是否为零。
+     * @return 子元素的个数为零返回true，否则返回false
+     */
+    public boolean isEmpty()
+    {
+        return count() == 0;
+    }
+
+    /**
+     * 返回指向第一个子元素的游标。
+     * @return 指向第一个子元素的游标，没有子元素或者不是JsonObject或JsonArray时返回null
+     */
+    public JsonCursor first()
+    {
+        if(! isContainer() || tape.count(index) == 0) return null;
+        return (tape.type(index) == JsonTape.OBJECT)? new JsonCursor(tape, index + 3, index + 1):
+                                                      new JsonCursor(tape, index + 1, -1);
+    }
+
+    /**
+     * 返回指向下一个兄弟元素（同一个JsonObject或JsonArray中的下一个子元素）的游标。
+     * @return 指向下一个兄弟元素的游标，已经是最后一个子元素或者是顶层的值时返回null
+     */
+    public JsonCursor next()
+    {
+        int i = tape.next(index);
+        if(i >= tape.size()) return null;
+        int type = tape.type(i);
+        if(type == JsonTape.OBJECT_END || type == JsonTape.ARRAY_END) return null;
+        return (nameIndex >= 0)? new JsonCursor(tape, i + 2, i): new JsonCursor(tape, i, -1);
+    }
+
+    /**
+     * 返回JsonObject子元素的Name。
+     * @return 子元素的Name，游标指向的不是JsonObject的子元素时返回null
+     */
+    public String getName()
+    {
+        return (nameIndex < 0)? null: tape.stringValue(nameIndex);
+    }
+
+    /**
+     * 判断JsonObject是否包含指定Name的子元素。
+     * @param name 子元素的Name
+     * @return 包含返回true，否则返回false
+     */
+    public boolean containsName(String name)
+    {
+        return find(name) >= 0;
+    }
+
+    /**
+     * 返回JsonObject中指向指定Name的子元素的游标。
+     * @param name 子元素的Name
+     * @return 指向子元素的游标，不存在或者不是JsonObject时返回null
+     */
+    public JsonCursor get(String name)
+    {
+        int i = find(name);
+        return (i < 0)? null: new JsonCursor(tape, i + 2, i);
+    }
+
+    /**
+     * 返回JsonObject中指定Name的子元素Value的JsonType。
+     * @param name 子元素的Name
+     * @return 子元素Value的Type，不存在时返回null
+     */
+    public JsonType getType(String name)
+    {
+        JsonCursor cursor = get(name);
+        return (cursor == null)? null: cursor.getType();
+    }
+
+    /**
+     * 以字符串的形式返回JsonObject中指定Name的子元素的Value。
+     * @param name 子元素的Name
+     * @return 子元素Value的字符串形式，不存在时返回null
+     */
+    public String getString(String name)
+    {
+        JsonCursor cursor = get(name);
+        return (cursor == null)? null: cursor.getString();
+    }
+
+    /**
+     * 以boolean的形式返回JsonObject中指定Name的子元素的Value。
+     * @param name 子元素的Name
+     * @return 子元素Value的boolean形式
+     * @throws JsonException 不存在或无法转换为boolean
+     */
+    public boolean getBoolean(String name) throws JsonException
+    {
+        int i = find(name);
+        if(i < 0 || ! canToBoolean(i + 2))
+        {
+            throw new JsonException("Cannot transfer element corresponding " + name + " to boolean value.");
+        }
+        return toBoolean(i + 2);
+    }
+
+    /**
+     * 以long的形式返回JsonObject中指定Name的子元素的Value。
+     * @param name 子元素的Name
+     * @return 子元素Value的long形式
+     * @throws JsonException 不存在或无法转换为long
+     */
+    public long getLong(String name) throws JsonException
+    {
+        int i = find(name);
+        if(i < 0 || ! canToLong(i + 2))
+        {
+            throw new JsonException("Cannot transfer element corresponding " + name + " to long value.");
+        }
+        return toLong(i + 2);
+    }
+
+    /**
+     * 以double的形式返回JsonObject中指定Name的子元素的Value。
+     * @param name 子元素的Name
+     * @return 子元素Value的double形式
+     * @throws JsonException 不存在或无法转换为double
+     */
+    public double getDouble(String name) throws JsonException
+    {
+        int i = find(name);
+        if(i < 0 || ! canToDouble(i + 2))
+        {
+            throw new JsonException("Cannot transfer element corresponding " + name + " to double value.");
+        }
+        return toDouble(i + 2);
+    }
+
+    /**
+     * 返回JsonObject中指向指定Name的JsonObject子元素的游标。
+     * @param name 子元素的Name
+     * @return 指向子元素的游标
+     * @throws JsonException 不存在或不是JsonObject
+     */
+    public JsonCursor getJsonObject(String name) throws JsonException
+    {
+        int i = find(name);
+        if(i < 0 || tape.type(i + 2) != JsonTape.OBJECT)
+        {
+            throw new JsonException("Cannot transfer element corresponding " + name + " to JsonObject value.");
+        }
+        return new JsonCursor(tape, i + 2, i);
+    }
+
+    /**
+     * 返回JsonObject中指向指定Name的JsonArray子元素的游标。
+     * @param name 子元素的Name
+     * @return 指向子元素的游标
+     * @throws JsonException 不存在或不是JsonArray
+     */
+    public JsonCursor getJsonArray(String name) throws JsonException
+    {
+        int i = find(name);
+        if(i < 0 || tape.type(i + 2) != JsonTape.ARRAY)
+        {
+            throw new JsonException("Cannot transfer element corresponding " + name + " to JsonArray value.");
+        }
+        return new JsonCursor(tape, i + 2, i);
+    }
+
+    /**
+     * 返回JsonArray中指向特定下标子元素的游标。
+     * @param index 子元素的下标
+     * @return 指向子元素的游标
+     * @throws IndexOutOfBoundsException 下标超出范围，或者不是JsonArray
+     */
+    public JsonCursor get(int index)
+    {
+        return new JsonCursor(tape, locate(index), -1);
+    }
+
+    /**
+     * 返回JsonArray中特定下标子元素的JsonType。
+     * @param index 子元素的下标
+     * @return 子元素的Type
+     */
+    public JsonType getType(int index)
+    {
+        return get(index).getType();
+    }
+
+    /**
+     * 以字符串的形式返回JsonArray中特定下标的子元素。
+     * @param index 子元素的下标
+     * @return 子元素的字符串形式
+     */
+    public String getString(int index)
+    {
+        return get(index).getString();
+    }
+
+    /**
+     * 以boolean的形式返回JsonArray中特定下标的子元素。
+     * @param index 子元素的下标
+     * @return 子元素的boolean形式
+     * @throws JsonException 无法转换为boolean
+     */
+    public boolean getBoolean(int index) throws JsonException
+    {
+        int i = locate(index);
+        if(! canToBoolean(i))
+        {
+            throw new JsonException("Cannot transfer element at " + index + " to boolean value.");
+        }
+        return toBoolean(i);
+    }
+
+    /**
+     * 以long的形式返回JsonArray中特定下标的子元素。
+     * @param index 子元素的下标
+     * @return 子元素的long形式
+     * @throws JsonException 无法转换为long
+     */
+    public long getLong(int index) throws JsonException
+    {
+        int i = locate(index);
+        if(! canToLong(i))
+        {
+            throw new JsonException("Cannot transfer element at " + index + " to long value.");
+        }
+        return toLong(i);
+    }
+
+    /**
+     * 以double的形式返回JsonArray中特定下标的子元素。
+     * @param index 子元素的下标
+     * @return 子元素的double形式
+     * @throws JsonException 无法转换为double
+     */
+    public double getDouble(int index) throws JsonException
+    {
+        int i = locate(index);
+        if(! canToDouble(i))
+        {
+            throw new JsonException("Cannot transfer element at " + index + " to double value.");
+        }
+        return toDouble(i);
+    }
+
+    /**
+     * 返回JsonArray中指向特定下标的JsonObject子元素的游标。
+     * @param index 子元素的下标
+     * @return 指向子元素的游标
+     * @throws JsonException 子元素不是JsonObject
+     */
+    public JsonCursor getJsonObject(int index) throws JsonException
+    {
+        int i = locate(index);
+        if(tape.type(i) != JsonTape.OBJECT)
+        {
+            throw new JsonException("Cannot transfer element at " + index + " to JsonObject value.");
+        }
+        return new JsonCursor(tape, i, -1);
+    }
+
+    /**
+     * 返回JsonArray中指向特定下标的JsonArray子元素的游标。
+     * @param index 子元素的下标
+     * @return 指向子元素的游标
+     * @throws JsonException 子元素不是JsonArray
+     */
+    public JsonCursor getJsonArray(int index) throws JsonException
+    {
+        int i = locate(index);
+        if(tape.type(i) != JsonTape.ARRAY)
+        {
+            throw new JsonException("Cannot transfer element at " + index + " to JsonArray value.");
+        }
+        return new JsonCursor(tape, i, -1);
+    }
+
+    /**
+     * 以字符串的形式返回游标指向的值，JsonObject与JsonArray返回其Json文本。
+     * @return 值的字符串形式
+     */
+    public String getString()
+    {
+        return (tape.type(index) == JsonTape.STRING)? tape.stringValue(index): toString();
+    }
+
+    /**
+     * 以boolean的形式返回游标指向的值，字符串"true"与"false"（忽略大小写与首尾空白）也可以转换。
+     * @return 值的boolean形式
+     * @throws JsonException 无法转换为boolean
+     */
+    public boolean getBoolean() throws JsonException
+    {
+        if(! canToBoolean(index))
+        {
+            throw new JsonException("Cannot transfer to boolean value for type is " + getType() + ".");
+        }
+        return toBoolean(index);
+    }
+
+    /**
+     * 以long的形式返回游标指向的值，表示整数的字符串也可以转换。
+     * @return 值的long形式
+     * @throws JsonException 无法转换为long
+     */
+    public long getLong() throws JsonException
+    {
+        if(! canToLong(index))
+        {
+            throw new JsonException("Cannot transfer to long value for type is " + getType() + ".");
+        }
+        return toLong(index);
+    }
+
+    /**
+     * 以double的形式返回游标指向的值，整数与表示数值的字符串也可以转换。
+     * @return 值的double形式
+     * @throws JsonException 无法转换为double
+     */
+    public double getDouble() throws JsonException
+    {
+        if(! canToDouble(index))
+        {
+            throw new JsonException("Cannot transfer to double value for type is " + getType() + ".");
+        }
+        return toDouble(index);
+    }
+
+    /**
+     * 把游标指向的值转换为Json实例（JsonObject、JsonArray或JsonPrimitive）。
+     * @return 对应的Json实例
+     * @throws JsonException JsonObject中存在重复的Name
+     */
+    public Json toJson() throws JsonException
+    {
+        return tape.toJson(index);
+    }
+
+    /**
+     * 返回游标指向的值对应的Json文本，Object的Name部分加引号。
+     * @return Json文本
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder();
+        try
+        {
+            tape.appendToAppendable(index, builder, new NumberConverter.Buffer());
+        }
+        catch(IOException e)
+        {
+            //向StringBuilder追加字符不会产生IO异常，所以这里作为内部错误处理。
+            throw new InternalError(e.getMessage());
+        }
+        return builder.toString();
+    }
+
+    private boolean isContainer()
+    {
+        int type = tape.type(index);
+        return type == JsonTape.OBJECT || type == JsonTape.ARRAY;
+    }
+
+    /**
+     * 在JsonObject的子元素中查找指定的Name。
+     * @param name 子元素的Name
+     * @return Name的记录的下标，不存在或者不是JsonObject时返回-1
+     */
+    private int find(String name)
+    {
+        if(name == null || tape.type(index) != JsonTape.OBJECT) return -1;
+
+        for(int i = index + 1; tape.type(i) != JsonTape.OBJECT_END; i = tape.next(i + 2))
+        {
+            if(tape.stringEquals(i, name)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * 在JsonArray的子元素中查找特定下标的子元素。
+     * @param index 子元素的下标
+     * @return 子元素的记录的下标
+     * @throws IndexOutOfBoundsException 下标超出范围，或者不是JsonArray
+     */
+    private int locate(int index)
+    {
+        int size = (tape.type(this.index) == JsonTape.ARRAY)? tape.count(this.index): 0;
+        if(index < 0 || index >= size)
+        {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        return tape.element(this.index, index);
+    }
+
+    private boolean canToBoolean(int i)
+    {
+        int type = tape.type(i);
+        if(type == JsonTape.TRUE || type == JsonTape.FALSE) return true;
+        if(type != JsonTape.STRING) return false;
+        String str = tape.stringValue(i).trim();
+        return str.equalsIgnoreCase("true") || str.equalsIgnoreCase("false");
+    }
+
+    private boolean toBoolean(int i)
+    {
+        int type = tape.type(i);
+        if(type == JsonTape.STRING)
+        {
+            return tape.stringValue(i).trim().equalsIgnoreCase("true");
+        }
+        return type == JsonTape.TRUE;
+    }
+
+    private boolean canToLong(int i)
+    {
+        int type = tape.type(i);
+        if(type == JsonTape.INTEGER) return true;
+        if(type != JsonTape.STRING) return false;
+        return tape.stringValue(i).matches("\\s*[+-]?\\d+\\s*");
+    }
+
+    private long toLong(int i) throws JsonException
+    {
+        if(tape.type(i) == JsonTape.INTEGER) return tape.longValue(i);
+
+        String str = tape.stringValue(i).trim();
+        try
+        {
+            return Long.parseLong((str.charAt(0) == '+')? str.substring(1): str);
+        }
+        catch(NumberFormatException e)
+        {
+            throw new JsonException("Cannot transfer String \"" + str + "\" to long value.");
+        }
+    }
+
+    private boolean canToDouble(int i)
+    {
+        int type = tape.type(i);
+        if(type == JsonTape.FLOAT || type == JsonTape.INTEGER) return true;
+        if(type != JsonTape.STRING) return false;
+        return tape.stringValue(i).matches("\\s*[+-]?\\d+(\\.\\d*)?([eE][+-]?\\d+)?\\s*");
+    }
+
+    private double toDouble(int i)
+    {
+        int type = tape.type(i);
+        if(type == JsonTape.FLOAT) return tape.doubleValue(i);
+        if(type == JsonTape.INTEGER) return tape.longValue(i);
+        return Double.parseDouble(tape.stringValue(i).trim());
+    }
+}
@@ -0,0 +1,718 @@
+package com.bantouyan.json;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+/**
+ * <p>非阻塞的增量Json解析器，用于NIO通道等一次只能得到部分数据的场合。
+ * 每次调用方法<strong>feed</strong>传入一块UTF-8编码的字节，
+ * 数据不足以构成完整的Json实例时返回<strong>NEED_MORE_INPUT</strong>，
+ * 解析出一个完整的JsonObject或JsonArray时返回<strong>JSON_READY</strong>，
+ * 然后可以调用方法<strong>getJson</strong>取得该Json实例。</p>
+ *
+ * <p>解析状态（包括未完成的字符串、数值与UTF-8字符）都保存在解析器对象中，
+ * 而不是在调用栈上，所以不需要阻塞任何线程等待数据。
+ * 一个字节流中可以先后包含多个Json实例，接受的语法与<strong>Json.parseJsonBytes</strong>相同。
+ * 错误信息中的位置是从字节流开头算起的字节数。</p>
+ *
+ * <p><strong>示例</strong>：<br/>
+ * <code>
+ * &nbsp;&nbsp;&nbsp;&nbsp;while(parser.feed(buffer) == Status.JSON_READY)<br/>
+ * &nbsp;&nbsp;&nbsp;&nbsp;{<br/>
+ * &nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;handle(parser.getJson());<br/>
+ * &nbsp;&nbsp;&nbsp;&nbsp;}<br/>
+ * &nbsp;&nbsp;&nbsp;&nbsp;buffer.clear(); //buffer中的字节已全部读入解析器<br/>
+ * </code></p>
+ *
+ * <p>解析过程中发生异常后，解析器不能继续使用。</p>
+ *
+ * @author 飞翔的河马
+ * @version 1.02
+ * @since 1.02
+ */
+public class JsonFeedParser
+{
+    // 结构状态
+    private static final int ROOT = 0;         // 等待根元素的开始字符
+    private static final int OBJECT_FIRST = 1; // 已读入'{'，等待Name或'}'
+    private static final int OBJECT_NAME = 2;  // 已读入','，等待Name
+    private static final int OBJECT_COLON = 3; // 已读入Name，等待':'
+    private static final int OBJECT_VALUE = 4; // 已读入':'，等待Value
+    private static final int ARRAY_FIRST = 5;  // 已读入'['，等待子元素或']'
+    private static final int ARRAY_VALUE = 6;  // 已读入','，等待子元素
+    private static final int AFTER_VALUE = 7;  // 已读入子元素，等待','或结束字符
+
+    // 记号内部的状态
+    private static final int TOKEN_NONE = 0;
+    private static final int TOKEN_STRING = 1;   // 带引号的字符串
+    private static final int TOKEN_ESCAPE = 2;   // 字符串中的'\'之后
+    private static final int TOKEN_UNICODE = 3;  // 字符串中的"\\u"之后
+    private static final int TOKEN_NAME = 4;     // 不带引号的Name
+    private static final int TOKEN_CONSTANT = 5; // true、false或null
+    private static final int TOKEN_PLUS = 6;     // 值的位置出现了'+'
+    private static final int NUMBER_MINUS = 7;   // 数值的'-'之后
+    private static final int NUMBER_ZERO = 8;    // 数值的整数部分为0
+    private static final int NUMBER_INT = 9;     // 数值的整数部分
+    private static final int NUMBER_DOT = 10;    // 数值的'.'之后
+    private static final int NUMBER_FRACTION = 11; // 数值的小数部分
+    private static final int NUMBER_E = 12;      // 数值的'e'或'E'之后
+    private static final int NUMBER_E_SIGN = 13; // 数值指数部分的符号之后
+    private static final int NUMBER_EXPONENT = 14; // 数值的指数部分
+
+    private int state = ROOT;
+    private int token = TOKEN_NONE;
+    private ArrayList<Json> containers = new ArrayList<Json>(); // 尚未结束的JsonObject与JsonArray
+    private String name = null; // 当前JsonObject子元素的Name
+    private Json json = null;   // 最近解析完成的Json实例
+
+    private StringBuilder text = new StringBuilder(); // 当前记号的字符
+    private char[] numberChars = new char[32]; // 转换数值时暂存text中的字符
+    private int quote;          // 当前字符串的引号
+    private boolean isName;     // 当前字符串是否是Name
+    private int unicode;        // "\\u"之后的十六进制数值
+    private int unicodeCount;   // "\\u"之后已读入的十六进制数字个数
+    private String constName;   // 当前常量，true、false或null
+    private int constIndex;     // 当前常量已匹配的字符数
+    private boolean isInt;      // 当前数值是否是整数
+
+    private long pos = 0;       // 下一个字节的位置
+    private long charPos = 0;   // 当前字符（第一个字节）的位置
+    private int utf8Count = 0;  // 当前UTF-8字符尚未读入的字节数
+    private int utf8Char;
+    private int utf8Min;
+
+    /**
+     * 新建一个JsonFeedParser对象。
+     */
+    public JsonFeedParser()
+    {
+    }
+
+    /**
+     * 读入input中的字节并解析，直到解析出一个完整的Json实例，或input中的字节全部读完。
+     * 返回JSON_READY时，input的position指向该Json实例之后的第一个字节，
+     * 剩余的字节需要再次调用此方法读入；返回NEED_MORE_INPUT时，input中的字节已全部读入。
+     * @param input UTF-8编码的字节
+     * @return 解析出完整的Json实例返回JSON_READY，否则返回NEED_MORE_INPUT
+     * @throws JsonException Json格式不正确，或UTF-8编码错误
+     */
+    public Status feed(ByteBuffer input) throws JsonException
+    {
+        json = null;
+        while(input.hasRemaining())
+        {
+            if(token == TOKEN_STRING && utf8Count == 0)
+            {
+                //字符串中连续的ASCII字符直接追加，不经过状态机
+                int p = input.position();
+                int limit = input.limit();
+                while(p < limit)
+                {
+                    byte b = input.get(p);
+                    if(b < 0x20 || b == quote || b == '\\') break; //非ASCII字节小于0
+                    text.append((char)b);
+                    p++;
+                }
+                pos += p - input.position();
+                input.position(p);
+                if(p == limit) break;
+            }
+
+            int b = input.get() & 0xFF;
+            if(utf8Count == 0)
+            {
+                charPos = pos++;
+                if(b < 0x80)
+                {
+                    if(process((char)b)) return Status.JSON_READY;
+                }
+                else
+                {
+                    startUtf8(b);
+                }
+            }
+            else
+            {
+                pos++;
+                if((b & 0xC0) != 0x80)
+                {
+                    throw new JsonException("Invalid UTF-8 byte sequence found at position " + charPos + ".");
+                }
+                utf8Char = (utf8Char << 6) | (b & 0x3F);
+                utf8Count--;
+                if(utf8Count == 0 && endUtf8()) return Status.JSON_READY;
+            }
+        }
+        return Status.NEED_MORE_INPUT;
+    }
+
+    /**
+     * 返回最近一次调用feed解析出的Json实例。
+     * @return feed返回JSON_READY时为对应的JsonObject或JsonArray，否则为null
+     */
+    public Json getJson()
+    {
+        return json;
+    }
+
+    /**
+     * 通知解析器字节流已经结束，检查是否有未解析完的Json实例。
+     * @throws JsonException 字节流在Json实例的中间结束
+     */
+    public void endOfInput() throws JsonException
+    {
+        if(state != ROOT || utf8Count != 0)
+        {
+            throw new JsonException("Unexpected end of input at position " + pos + ".");
+        }
+    }
+
+    /**
+     * 读入UTF-8多字节字符的第一个字节。
+     * @param b 字节值
+     * @throws JsonException 不是合法的UTF-8首字节
+     */
+    private void startUtf8(int b) throws JsonException
+    {
+        if(b >= 0xC2 && b <= 0xDF)
+        {
+            utf8Count = 1;
+            utf8Char = b & 0x1F;
+            utf8Min = 0x80;
+        }
+        else if(b >= 0xE0 && b <= 0xEF)
+        {
+            utf8Count = 2;
+            utf8Char = b & 0x0F;
+            utf8Min = 0x800;
+        }
+        else if(b >= 0xF0 && b <= 0xF4)
+        {
+            utf8Count = 3;
+            utf8Char = b & 0x07;
+            utf8Min = 0x10000;
+        }
+        else
+        {
+            throw new JsonException("Invalid UTF-8 byte sequence found at position " + charPos + ".");
+        }
+    }
+
+    /**
+     * UTF-8多字节字符读完后检查并解析该字符，增补字符作为代理对解析。
+     * 字节流开头的BOM被忽略。
+     * @return 解析出完整的Json实例返回true，否则返回false
+     * @throws JsonException 不是合法的UTF-8字符，或Json格式不正确
+     */
+    private boolean endUtf8() throws JsonException
+    {
+        int c = utf8Char;
+        if(c < utf8Min || c > 0x10FFFF || (c >= 0xD800 && c <= 0xDFFF))
+        {
+            throw new JsonException("Invalid UTF-8 byte sequence found at position " + charPos + ".");
+        }
+
+        if(c == 0xFEFF && charPos == 0)
+        {
+            return false;
+        }
+        else if(c < 0x10000)
+        {
+            return process((char)c);
+        }
+        else
+        {
+            c -= 0x10000;
+            process((char)(0xD800 + (c >>> 10)));
+            return process((char)(0xDC00 + (c & 0x3FF)));
+        }
+    }
+
+    /**
+     * 解析一个字符，字符的位置为charPos。
+     * @param c 被解析的字符
+     * @return 解析出完整的Json实例返回true，否则返回false
+     * @throws JsonException Json格式不正确
+     */
+    private boolean process(char c) throws JsonException
+    {
+        if(token != TOKEN_NONE && processToken(c))
+        {
+            return false;
+        }
+
+        if(JsonCharClass.isBlank(c))
+        {
+            return false;
+        }
+
+        switch(state)
+        {
+            case ROOT:
+                if(c == '{' || c == '[')
+                {
+                    startContainer(c);
+                    return false;
+                }
+                else
+                {
+                    String msg = "Cannot found json object begin sign '{'" +
+                            " or json array begin sign ']' at position " + charPos + ".";
+                    throw new JsonException(msg);
+                }
+            case OBJECT_FIRST:
+                if(c == '}')
+                {
+                    return endContainer();
+                }
+                startName(c);
+                return false;
+            case OBJECT_NAME:
+                startName(c);
+                return false;
+            case OBJECT_COLON:
+                if(c == ':')
+                {
+                    if(((JsonObject)top()).containsName(name))
+                    {
+                        String msg = "Object element name \"" + name
+                                + "\" at position " + (charPos + 1) + " is repeated.";
+                        throw new JsonException(msg);
+                    }
+                    state = OBJECT_VALUE;
+                    return false;
+                }
+                else
+                {
+                    String msg = "Non-blank character found at position " + charPos + " before ':'.";
+                    throw new JsonException(msg);
+                }
+            case ARRAY_FIRST:
+                if(c == ']')
+                {
+                    return endContainer();
+                }
+                startValue(c);
+                return false;
+            case OBJECT_VALUE:
+            case ARRAY_VALUE:
+                startValue(c);
+                return false;
+            default: // AFTER_VALUE
+                int endChar = endChar();
+                if(c == ',')
+                {
+                    state = (endChar == '}')? OBJECT_NAME: ARRAY_VALUE;
+                    return false;
+                }
+                else if(c == endChar)
+                {
+                    return endContainer();
+                }
+                else
+                {
+                    String msg = "Non-blank  character found at position " + charPos
+                            + " before ',' and '" + (char)endChar + "'.";
+                    throw new JsonException(msg);
+                }
+        }
+    }
+
+    /**
+     * 在记号内部解析一个字符。
+     * @param c 被解析的字符
+     * @return c属于当前记号返回true；当前记号已在c之前结束返回false，此时c需要继续解析
+     * @throws JsonException Json格式不正确
+     */
+    private boolean processToken(char c) throws JsonException
+    {
+        switch(token)
+        {
+            case TOKEN_STRING:
+                if(c == quote)
+                {
+                    token = TOKEN_NONE;
+                    if(isName)
+                    {
+                        name = text.toString();
+                        state = OBJECT_COLON;
+                    }
+                    else
+                    {
+                        addValue(new JsonPrimitive(text.toString()));
+                    }
+                }
+                else if(c < 0x0020)
+                {
+                    String msg = "Character less then \\u0020 found at position " + charPos + ".";
+                    throw new JsonException(msg);
+                }
+                else if(c == '\\')
+                {
+                    token = TOKEN_ESCAPE;
+                }
+                else
+                {
+                    text.append(c);
+                }
+                return true;
+            case TOKEN_ESCAPE:
+                token = TOKEN_STRING;
+                char escaped = (c < 128)? JsonCharClass.ESCAPE_VALUES[c]: 0;
+                if(escaped != 0)
+                {
+                    text.append(escaped);
+                }
+                else if(c == 'u')
+                {
+                    token = TOKEN_UNICODE;
+                    unicode = 0;
+                    unicodeCount = 0;
+                }
+                else
+                {
+                    String msg = "Unexpected escape sign \'\\" + c + "\' found at position " + charPos + ".";
+                    throw new JsonException(msg);
+                }
+                return true;
+            case TOKEN_UNICODE:
+                int digit = JsonCharClass.hexValue(c);
+                if(digit < 0)
+                {
+                    String msg = "Un expected character found in unicode character sequence at positon " + charPos + ".";
+                    throw new JsonException(msg);
+                }
+                unicode = (unicode << 4) | digit;
+                if(++unicodeCount == 4)
+                {
+                    text.append((char)unicode);
+                    token = TOKEN_STRING;
+                }
+                return true;
+            case TOKEN_NAME:
+                if(JsonCharClass.isNamePart(c))
+                {
+                    text.append(c);
+                    return true;
+                }
+                else if(c == ':' || JsonCharClass.isBlank(c))
+                {
+                    name = text.toString();
+                    if(JsonCharClass.isKeyword(name))
+                    {
+                        String msg = "Non-quotation mark string \"" + name + "\" found at position " + charPos
+                                + " is javascript keywords, so cannot as object element name..";
+                        throw new JsonException(msg);
+                    }
+                    token = TOKEN_NONE;
+                    state = OBJECT_COLON;
+                    return false;
+                }
+                else
+                {
+                    String msg = "Illegal character found in non-quotation mark string at position " + charPos
+                            + ", so cannot as object element name.";
+                    throw new JsonException(msg);
+                }
+            case TOKEN_CONSTANT:
+                if(constIndex < constName.length())
+                {
+                    if(c != constName.charAt(constIndex))
+                    {
+                        String msg = "Cannot foun constant \"" + constName + "\" at position " + charPos + ".";
+                        throw new JsonException(msg);
+                    }
+                    constIndex++;
+                    return true;
+                }
+                if(! isValueEnd(c))
+                {
+                    String msg = "Invalid sufix of constant \"" + constName + "\" at position " + charPos + ".";
+                    throw new JsonException(msg);
+                }
+                token = TOKEN_NONE;
+                addValue((constName.charAt(0) == 't')? Json.trueJson:
+                            (constName.charAt(0) == 'f')? Json.falseJson: Json.nullJson);
+                return false;
+            case TOKEN_PLUS:
+                String msg = (c >= '0' && c <= '9')? "Json number cannot begin with '+' at position ":
+                                (endChar() == ']')? "Cannot found array element at position ":
+                                                    "Cannot found object element value at position ";
+                throw new JsonException(msg + charPos + ".");
+            default:
+                return processNumber(c);
+        }
+    }
+
+    /**
+     * 在数值内部解析一个字符。
+     * @param c 被解析的字符
+     * @return c属于当前数值返回true；数值已在c之前结束返回false，此时c需要继续解析
+     * @throws JsonException Json格式不正确
+     */
+    private boolean processNumber(char c) throws JsonException
+    {
+        boolean isDigit = (c >= '0' && c <= '9');
+        switch(token)
+        {
+            case NUMBER_MINUS:
+                if(isDigit)
+                {
+                    token = (c == '0')? NUMBER_ZERO: NUMBER_INT;
+                    text.append(c);
+                    return true;
+                }
+                throw new JsonException("In number charcter after '-' is not 0..9 at position " + charPos + ".");
+            case NUMBER_ZERO:
+                if(isDigit)
+                {
+                    throw new JsonException("Number not allow leading zero at position " + charPos + ".");
+                }
+                break;
+            case NUMBER_DOT:
+                if(isDigit)
+                {
+                    token = NUMBER_FRACTION;
+                    text.append(c);
+                    return true;
+                }
+                throw new JsonException("In number character after '.' is not 0..9 at position " + charPos + ".");
+            case NUMBER_E:
+            case NUMBER_E_SIGN:
+                if(token == NUMBER_E && (c == '+' || c == '-'))
+                {
+                    token = NUMBER_E_SIGN;
+                    text.append(c);
+                    return true;
+                }
+                if(isDigit)
+                {
+                    token = NUMBER_EXPONENT;
+                    text.append(c);
+                    return true;
+                }
+                throw new JsonException("In number character after 'e' or 'E' is not 0..9 at position " + charPos + ".");
+            default: // NUMBER_INT, NUMBER_FRACTION, NUMBER_EXPONENT
+                if(isDigit)
+                {
+                    text.append(c);
+                    return true;
+                }
+                break;
+        }
+
+        // 整数部分或小数部分之后可以是'.'（仅整数部分）或指数部分
+        if(c == '.' && (token == NUMBER_ZERO || token == NUMBER_INT))
+        {
+            token = NUMBER_DOT;
+            isInt = false;
+            text.append(c);
+            return true;
+        }
+        else if((c == 'e' || c == 'E') && token != NUMBER_EXPONENT)
+        {
+            token = NUMBER_E;
+            isInt = false;
+            text.append(c);
+            return true;
+        }
+        else if(! isValueEnd(c))
+        {
+            throw new JsonException("Number invalid sufix at position " + charPos + ".");
+        }
+
+        token = TOKEN_NONE;
+        int len = text.length();
+        if(len > numberChars.length) numberChars = new char[Math.max(len, numberChars.length * 2)];
+        text.getChars(0, len, numberChars, 0);
+        try
+        {
+            if(isInt)
+            {
+                addValue(new JsonPrimitive(NumberConverter.toLong(numberChars, 0, len)));
+            }
+            else
+            {
+                addValue(new JsonPrimitive(NumberConverter.toDouble(numberChars, 0, len)));
+            }
+        }
+        catch (NumberFormatException e)
+        {
+            String msg = (isInt)? "Integer ": "Float ";
+            msg += "string \"" + text + "\" format error at position " + charPos + ".";
+            throw new JsonException(msg, e);
+        }
+        return false;
+    }
+
+    /**
+     * 开始解析JsonObject子元素的Name。
+     * @param c Name的第一个字符（不是空白）
+     * @throws JsonException 不能作为Name的开始
+     */
+    private void startName(char c) throws JsonException
+    {
+        text.setLength(0);
+        if(c == '\'' || c == '\"')
+        {
+            token = TOKEN_STRING;
+            quote = c;
+            isName = true;
+        }
+        else if(JsonCharClass.isNameStart(c))
+        {
+            token = TOKEN_NAME;
+            text.append(c);
+        }
+        else
+        {
+            String msg = "Cannot found object element name at position " + charPos + ".";
+            throw new JsonException(msg);
+        }
+    }
+
+    /**
+     * 开始解析JsonObject子元素的Value或JsonArray的子元素。
+     * @param c 值的第一个字符（不是空白）
+     * @throws JsonException 不能作为值的开始
+     */
+    private void startValue(char c) throws JsonException
+    {
+        text.setLength(0);
+        if(c == '{' || c == '[')
+        {
+            startContainer(c);
+        }
+        else if(c == '\'' || c == '\"')
+        {
+            token = TOKEN_STRING;
+            quote = c;
+            isName = false;
+        }
+        else if(c == 't' || c == 'f' || c == 'n')
+        {
+            token = TOKEN_CONSTANT;
+            constName = (c == 't')? "true": (c == 'f')? "false": "null";
+            constIndex = 1;
+        }
+        else if(c == '-' || (c >= '0' && c <= '9'))
+        {
+            token = (c == '-')? NUMBER_MINUS: (c == '0')? NUMBER_ZERO: NUMBER_INT;
+            isInt = true;
+            text.append(c);
+        }
+        else if(c == '+')
+        {
+            token = TOKEN_PLUS;
+        }
+        else
+        {
+            String msg = (endChar() == ']')? "Cannot found array element at position ":
+                                             "Cannot found object element value at position ";
+            throw new JsonException(msg + charPos + ".");
+        }
+    }
+
+    /**
+     * 开始一个新的JsonObject或JsonArray，并把它加入上一层Json实例。
+     * @param c 开始字符'{'或'['
+     */
+    private void startContainer(char c)
+    {
+        Json container = (c == '{')? new JsonObject(): new JsonArray();
+        if(! containers.isEmpty())
+        {
+            addValue(container);
+        }
+        containers.add(container);
+        state = (c == '{')? OBJECT_FIRST: ARRAY_FIRST;
+    }
+
+    /**
+     * 结束当前的JsonObject或JsonArray。
+     * @return 结束的是根元素返回true，否则返回false
+     */
+    private boolean endContainer()
+    {
+        Json container = containers.remove(containers.size() - 1);
+        if(containers.isEmpty())
+        {
+            json = container;
+            state = ROOT;
+            return true;
+        }
+        else
+        {
+            state = AFTER_VALUE;
+            return false;
+        }
+    }
+
+    /**
+     * 把值加入当前的JsonObject（使用当前的Name）或JsonArray。
+     * @param value 要加入的值
+     */
+    private void addValue(Json value)
+    {
+        Json container = top();
+        if(container instanceof JsonObject)
+        {
+            ((JsonObject)container).set(name, value); //已经检测过Name是否重复
+        }
+        else
+        {
+            ((JsonArray)container).append(value);
+        }
+        state = AFTER_VALUE;
+    }
+
+    /**
+     * 返回当前的JsonObject或JsonArray。
+     * @return 当前的JsonObject或JsonArray
+     */
+    private Json top()
+    {
+        return containers.get(containers.size() - 1);
+    }
+
+    /**
+     * 返回当前的JsonObject或JsonArray的结束字符。
+     * @return '}'或']'
+     */
+    private int endChar()
+    {
+        return (top() instanceof JsonObject)? '}': ']';
+    }
+
+    /**
+     * 判断字符是否可以紧跟在数值或常量之后。
+     * @param c 被判断的字符
+     * @return 可以返回true，否则返回false
+     */
+    private boolean isValueEnd(char c)
+    {
+        return c == ',' || c == endChar() || JsonCharClass.isBlank(c);
+    }
+
+    /**
+     * 方法feed的返回值。</br>
+     * <strong>NEED_MORE_INPUT</strong>表示传入的字节已全部读入，需要更多的字节；</br>
+     * <strong>JSON_READY</strong>表示已解析出一个完整的Json实例。
+     *
+     * @author 飞翔的河马
+     * @version 1.02
+     * @since 1.02
+     */
+    public static enum Status
+    {
+        /**
+         * 传入的字节已全部读入，但还没有解析出完整的Json实例。
+         */
+        NEED_MORE_INPUT,
+
+        /**
+         * 已解析出一个完整的Json实例，可以调用getJson取得。
+         */
+        JSON_READY
+    };
+}
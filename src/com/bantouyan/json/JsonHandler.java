@@ -0,0 +1,74 @@
+package com.bantouyan.json;
+
+/**
+ * <p>推模式（Push，类似SAX）的Json解析回调接口，服务于类Json的静态方法
+ * parseJsonText(text, handler)与parseJsonReader(reader, handler)。
+ * 解析器每读到一个Json记号就调用对应的方法，不生成任何Json实例，
+ * 适合只需要统计、过滤或转发Json值的场合。</p>
+ *
+ * <p>数值与逻辑值以基本类型传递，所以回调本身不会为其创建对象。
+ * 回调方法可以抛出JsonException以终止解析。</p>
+ *
+ * <p>与Json.parseJsonText不同的是，推模式解析不检测JsonObject中重复的Name。</p>
+ *
+ * @author 飞翔的河马
+ * @version 1.02
+ * @since 1.02
+ */
+public interface JsonHandler
+{
+    /**
+     * 读到JsonObject的开始字符'{'。
+     */
+    void startObject();
+
+    /**
+     * 读到JsonObject的结束字符'}'。
+     */
+    void endObject();
+
+    /**
+     * 读到JsonArray的开始字符'['。
+     */
+    void startArray();
+
+    /**
+     * 读到JsonArray的结束字符']'。
+     */
+    void endArray();
+
+    /**
+     * 读到JsonObject子元素的Name，其后紧跟着该子元素Value的回调。
+     * @param name 子元素的Name，不带引号与转义符
+     */
+    void name(String name);
+
+    /**
+     * 读到字符串值。
+     * @param value 字符串值，不带引号与转义符
+     */
+    void stringValue(String value);
+
+    /**
+     * 读到整型数值。
+     * @param value 整型数值
+     */
+    void longValue(long value);
+
+    /**
+     * 读到浮点型数值。
+     * @param value 浮点型数值
+     */
+    void doubleValue(double value);
+
+    /**
+     * 读到逻辑型（布尔型）值true或false。
+     * @param value 逻辑型值
+     */
+    void booleanValue(boolean value);
+
+    /**
+     * 读到null值。
+     */
+    void nullValue();
+}
@@ -0,0 +1,140 @@
+package com.bantouyan.json;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>逐个解析首尾相接（如每行一个，即NDJSON）的多个Json实例的迭代器，
+ * 由类Json的静态方法<strong>iterateDocuments</strong>创建。</p>
+ *
+ * <p>每次调用方法<strong>next</strong>只解析一个JsonObject或JsonArray，
+ * 所以占用的内存与Json实例的总数无关。Json实例之间可以有任意空白字符（包括换行）。
+ * 因为Iterator的方法不能抛出IOException，读取数据发生的IO异常会包装为JsonException抛出。</p>
+ *
+ * <p>由文件创建的迭代器在解析完最后一个Json实例或发生异常时自动关闭文件，
+ * 提前结束迭代时应调用方法<strong>close</strong>关闭文件。</p>
+ *
+ * @author 飞翔的河马
+ * @version 1.02
+ * @since 1.02
+ */
+public class JsonIterator implements Iterator<Json>, Closeable
+{
+    private JsonTextParser textParser;
+    private JsonByteParser byteParser;
+    private Closeable source; // 需要由迭代器关闭的数据源，可以为null
+    private Json nextJson = null;
+    private boolean finished = false;
+
+    /**
+     * 用JsonTextParser新建一个JsonIterator对象。
+     * @param parser 提供Json实例的解析器
+     * @param source 需要由迭代器关闭的数据源，可以为null
+     */
+    JsonIterator(JsonTextParser parser, Closeable source)
+    {
+        this.textParser = parser;
+        this.source = source;
+    }
+
+    /**
+     * 用JsonByteParser新建一个JsonIterator对象。
+     * @param parser 提供Json实例的解析器
+     * @param source 需要由迭代器关闭的数据源，可以为null
+     */
+    JsonIterator(JsonByteParser parser, Closeable source)
+    {
+        this.byteParser = parser;
+        this.source = source;
+    }
+
+    /**
+     * 判断是否还有Json实例，需要时解析下一个Json实例。
+     * @return 还有Json实例返回true，否则返回false
+     * @throws JsonException Json格式不正确，或读取数据发生IO异常
+     */
+    public boolean hasNext() throws JsonException
+    {
+        if(nextJson == null && ! finished)
+        {
+            try
+            {
+                nextJson = (textParser != null)? textParser.parseNext(): byteParser.parseNext();
+            }
+            catch(IOException e)
+            {
+                closeQuietly();
+                throw new JsonException(e);
+            }
+            catch(JsonException e)
+            {
+                closeQuietly();
+                throw e;
+            }
+            if(nextJson == null)
+            {
+                closeQuietly();
+            }
+        }
+        return nextJson != null;
+    }
+
+    /**
+     * 返回下一个Json实例。
+     * @return 下一个JsonObject或JsonArray实例
+     * @throws JsonException Json格式不正确，或读取数据发生IO异常
+     * @throws NoSuchElementException 没有更多的Json实例
+     */
+    public Json next() throws JsonException
+    {
+        if(! hasNext())
+        {
+            throw new NoSuchElementException();
+        }
+        Json json = nextJson;
+        nextJson = null;
+        return json;
+    }
+
+    /**
+     * 不支持此操作。
+     * @throws UnsupportedOperationException 总是抛出
+     */
+    public void remove()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * 结束迭代，如果迭代器是由文件创建的，同时关闭该文件。
+     * @throws IOException 关闭文件发生异常
+     */
+    public void close() throws IOException
+    {
+        finished = true;
+        nextJson = null;
+        if(source != null)
+        {
+            Closeable src = source;
+            source = null;
+            src.close();
+        }
+    }
+
+    /**
+     * 结束迭代并关闭数据源，忽略关闭时发生的异常。
+     */
+    private void closeQuietly()
+    {
+        try
+        {
+            close();
+        }
+        catch(IOException e)
+        {
+            //已经读完或出错，关闭失败不影响结果
+        }
+    }
+}
@@ -0,0 +1,453 @@
+package com.bantouyan.json;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * <p>多线程并行解析UTF-8编码的NDJSON文件（每行一个JsonObject或JsonArray），
+ * 服务于类Json的静态方法parseDocuments。</p>
+ *
+ * <p>文件按大致相同的长度在换行符处分成若干段（每个线程几段，每段不超过16M），
+ * 每一段由一个线程通过FileChannel内存映射后直接在映射区上逐行解析，不复制字节。
+ * 空白行（包括只有回车的行）被忽略，但计入行号；文件开头的UTF-8 BOM被跳过。
+ * 异常信息中的位置是字节在整个文件中的位置。</p>
+ *
+ * <p>解析结果可以交给JsonConsumer，也可以按段收集（每一段一个List，按文件中的顺序排列）。
+ * 交给JsonConsumer时方法accept在工作线程中调用，但同一时刻只调用一次，所以JsonConsumer不需要是线程安全的；
+ * 按顺序交出（ordered为true）时按行的顺序交出，此时最多只有线程数2倍的段已经解析而尚未交出，
+ * 占用的内存与文件大小无关；否则按段解析完成的先后交出。</p>
+ *
+ * <p>默认遇到格式错误的行时停止解析并抛出该行（有多个时为最前面一行）的JsonException，
+ * 按顺序交出时该行之前的Json实例都已交出。collectFailures为true时跳过格式错误的行继续解析，
+ * 解析结束后通过方法getFailures取得所有出错的行号及其异常。
+ * 一个JsonLineParser对象可以先后用于多次解析，但不能同时用于多个解析过程。</p>
+ *
+ * @author 飞翔的河马
+ * @version 1.02
+ * @since 1.02
+ */
+public final class JsonLineParser
+{
+    private static final int MIN_SEGMENT_SIZE = 64 * 1024;
+    private static final int MAX_SEGMENT_SIZE = 16 * 1024 * 1024;
+    private static final int SEGMENTS_PER_THREAD = 4; // 多分几段，使各线程的负载比较均衡
+
+    private final int threads;
+    private final boolean ordered;
+    private final boolean collectFailures;
+
+    // 最近一次解析的结果
+    private volatile long lineCount = 0;
+    private volatile long documentCount = 0;
+    private volatile SortedMap<Long, JsonException> failures = new TreeMap<Long, JsonException>();
+
+    /**
+     * 新建一个JsonLineParser对象，线程数与处理器个数相同，按顺序交出Json实例，遇到格式错误的行时停止解析。
+     */
+    public JsonLineParser()
+    {
+        this(Runtime.getRuntime().availableProcessors(), true, false);
+    }
+
+    /**
+     * 新建一个JsonLineParser对象。
+     * @param threads 解析线程数
+     * @param ordered 为true时按行的顺序把Json实例交给JsonConsumer，为false时按段解析完成的先后交出
+     * @param collectFailures 为true时跳过格式错误的行继续解析，并记录出错的行；为false时遇到格式错误的行就停止解析
+     * @throws IllegalArgumentException threads小于1
+     */
+    public JsonLineParser(int threads, boolean ordered, boolean collectFailures)
+    {
+        if(threads < 1)
+        {
+            throw new IllegalArgumentException("Threads " + threads + " is less than 1.");
+        }
+        this.threads = threads;
+        this.ordered = ordered;
+        this.collectFailures = collectFailures;
+    }
+
+    /**
+     * 返回最近一次解析的行数（包括空白行与出错的行），提前停止时只包括已解析的段。
+     * @return 行数
+     */
+    public long getLineCount()
+    {
+        return lineCount;
+    }
+
+    /**
+     * 返回最近一次解析成功的Json实例的个数。
+     * @return Json实例的个数
+     */
+    public long getDocumentCount()
+    {
+        return documentCount;
+    }
+
+    /**
+     * 返回最近一次解析中格式错误的行，只有collectFailures为true时才记录。
+     * @return 出错的行号（从1开始）及其异常，按行号排序，不能修改
+     */
+    public SortedMap<Long, JsonException> getFailures()
+    {
+        return failures;
+    }
+
+    /**
+     * 解析NDJSON文件，把每一行的Json实例交给consumer。
+     * @param file UTF-8编码的NDJSON文件
+     * @param consumer 接受Json实例的回调
+     * @throws IOException 打开、读取或映射文件发生异常
+     * @throws JsonException 某一行的格式不正确（collectFailures为false时）
+     */
+    void parse(File file, JsonConsumer consumer) throws IOException, JsonException
+    {
+        new Run(consumer).parse(file);
+    }
+
+    /**
+     * 解析NDJSON文件，按段收集所有的Json实例。
+     * @param file UTF-8编码的NDJSON文件
+     * @return 每一段的Json实例，按文件中的顺序排列
+     * @throws IOException 打开、读取或映射文件发生异常
+     * @throws JsonException 某一行的格式不正确（collectFailures为false时）
+     */
+    List<List<Json>> parsePartitions(File file) throws IOException, JsonException
+    {
+        Run run = new Run(null);
+        run.parse(file);
+        return run.results;
+    }
+
+    /**
+     * 一次解析的状态。
+     */
+    private final class Run
+    {
+        private final JsonConsumer consumer; // 为null时按段收集
+        private final Object lock = new Object();
+        private FileChannel channel;
+        private long[] bounds; // 各段的起始位置，最后一个是文件结尾
+        private Semaphore slots; // 按顺序交出时限制已解析而尚未交出的段数
+        // 以下字段由lock保护
+        private int nextSegment = 0; // 下一个要解析的段
+        private int nextDelivery = 0; // 按顺序交出时下一个要交出的段
+        private ArrayList<List<Json>> results; // 各段的Json实例，交出后置为null（按段收集时保留）
+        private long[] lines; // 各段的行数
+        private long documents = 0;
+        private TreeMap<Long, JsonException> segmentFailures = new TreeMap<Long, JsonException>(); // 键为段号与段内行号
+        private Throwable failure = null; // 最早的导致停止解析的错误
+        // 导致停止解析的最早的错误所在的段号与段内行号（段号在高32位），之后的行不再解析（也不再交出）
+        private volatile long failedOrder = Long.MAX_VALUE;
+
+        Run(JsonConsumer consumer)
+        {
+            this.consumer = consumer;
+        }
+
+        /**
+         * 分段，启动工作线程并等待所有的段处理完，之后汇总结果并抛出最早的错误。
+         */
+        void parse(File file) throws IOException, JsonException
+        {
+            RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try
+            {
+                channel = raf.getChannel();
+                bounds = split(channel);
+                int count = bounds.length - 1;
+                results = new ArrayList<List<Json>>(Collections.nCopies(count, (List<Json>)null));
+                lines = new long[count];
+                slots = new Semaphore((consumer != null && ordered)? threads * 2: Integer.MAX_VALUE);
+
+                Thread[] workers = new Thread[Math.min(threads, Math.max(1, count))];
+                for(int i = 0; i < workers.length; i++)
+                {
+                    workers[i] = new Thread(new Worker(), "JsonLineParser-worker-" + i);
+                    workers[i].setDaemon(true);
+                    workers[i].start();
+                }
+                join(workers);
+            }
+            finally
+            {
+                raf.close();
+            }
+
+            synchronized(lock)
+            {
+                //段内的行号转换为文件中的行号
+                long[] firstLines = new long[lines.length];
+                long total = 0;
+                for(int i = 0; i < lines.length; i++)
+                {
+                    firstLines[i] = total + 1;
+                    total += lines[i];
+                }
+                TreeMap<Long, JsonException> map = new TreeMap<Long, JsonException>();
+                for(Long order: segmentFailures.keySet())
+                {
+                    map.put(firstLines[(int)(order >>> 32)] + (order & 0xFFFFFFFFL), segmentFailures.get(order));
+                }
+
+                lineCount = total;
+                documentCount = documents;
+                failures = Collections.unmodifiableSortedMap(map);
+
+                if(failure instanceof IOException) throw (IOException)failure;
+                if(failure instanceof RuntimeException) throw (RuntimeException)failure;
+                if(failure instanceof Error) throw (Error)failure;
+            }
+        }
+
+        /**
+         * 等待所有的工作线程结束。
+         */
+        private void join(Thread[] workers)
+        {
+            boolean interrupted = false;
+            for(Thread worker: workers)
+            {
+                while(worker.isAlive())
+                {
+                    try
+                    {
+                        worker.join();
+                    }
+                    catch(InterruptedException e)
+                    {
+                        interrupted = true;
+                    }
+                }
+            }
+            if(interrupted) Thread.currentThread().interrupt();
+        }
+
+        /**
+         * 在换行符处把文件分段。
+         * @return 各段的起始位置，最后一个是文件结尾
+         */
+        private long[] split(FileChannel channel) throws IOException
+        {
+            long size = channel.size();
+            long segmentSize = size / ((long)threads * SEGMENTS_PER_THREAD);
+            segmentSize = Math.max(MIN_SEGMENT_SIZE, Math.min(MAX_SEGMENT_SIZE, segmentSize));
+
+            ArrayList<Long> list = new ArrayList<Long>();
+            long start = skipBom(channel);
+            list.add(start);
+            ByteBuffer buffer = ByteBuffer.allocate(8192);
+            while(start + segmentSize < size)
+            {
+                //下一段从start + segmentSize之后的第一个换行符的下一个字节开始
+                long next = -1;
+                long position = start + segmentSize - 1;
+                while(next < 0 && position < size)
+                {
+                    buffer.clear();
+                    int len = channel.read(buffer, position);
+                    if(len <= 0) break;
+                    for(int i = 0; i < len; i++)
+                    {
+                        if(buffer.get(i) == '\n')
+                        {
+                            next = position + i + 1;
+                            break;
+                        }
+                    }
+                    position += len;
+                }
+                if(next < 0 || next >= size) break;
+                list.add(next);
+                start = next;
+            }
+            list.add(size);
+
+            long[] bounds = new long[list.size()];
+            for(int i = 0; i < bounds.length; i++)
+            {
+                bounds[i] = list.get(i);
+            }
+            return bounds;
+        }
+
+        /**
+         * 返回跳过文件开头的UTF-8 BOM之后的位置。
+         */
+        private long skipBom(FileChannel channel) throws IOException
+        {
+            ByteBuffer bom = ByteBuffer.allocate(3);
+            while(bom.hasRemaining() && channel.read(bom, bom.position()) > 0);
+            boolean found = bom.position() == 3 && bom.get(0) == (byte)0xEF
+                    && bom.get(1) == (byte)0xBB && bom.get(2) == (byte)0xBF;
+            return found? 3: 0;
+        }
+
+        /**
+         * 记录导致停止解析的错误，只保留最早的。
+         * @param order 错误所在的段号与段内行号（段号在高32位）
+         * @param e 错误
+         */
+        private void fail(long order, Throwable e)
+        {
+            synchronized(lock)
+            {
+                if(order < failedOrder)
+                {
+                    failedOrder = order;
+                    failure = e;
+                }
+            }
+        }
+
+        /**
+         * 记录一段的解析结果，交给consumer或保留。
+         * @param segment 段号
+         * @param list 这一段的Json实例
+         * @param lineCount 这一段的行数
+         */
+        private void finish(int segment, List<Json> list, long lineCount)
+        {
+            synchronized(lock)
+            {
+                results.set(segment, list);
+                lines[segment] = lineCount;
+                documents += list.size();
+                if(consumer == null) return;
+
+                if(! ordered)
+                {
+                    deliver(segment);
+                    return;
+                }
+                while(nextDelivery < results.size() && results.get(nextDelivery) != null)
+                {
+                    deliver(nextDelivery++);
+                    slots.release();
+                }
+            }
+        }
+
+        /**
+         * 在持有lock时把一段的Json实例交给consumer，consumer抛出的异常导致停止解析。
+         */
+        private void deliver(int segment)
+        {
+            List<Json> list = results.set(segment, null);
+            if(((long)segment << 32) > failedOrder) return;
+            for(Json json: list)
+            {
+                try
+                {
+                    consumer.accept(json);
+                }
+                catch(Throwable e)
+                {
+                    fail((long)segment << 32, e);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * 工作线程，依次取出一段并逐行解析。
+         */
+        private final class Worker implements Runnable
+        {
+            private final JsonNameCache names = new JsonNameCache(); // 同一个线程解析的行共享Name缓存
+
+            public void run()
+            {
+                while(true)
+                {
+                    slots.acquireUninterruptibly();
+                    int segment;
+                    synchronized(lock)
+                    {
+                        segment = nextSegment++;
+                    }
+                    if(segment >= results.size() || ((long)segment << 32) > failedOrder)
+                    {
+                        slots.release();
+                        return;
+                    }
+
+                    try
+                    {
+                        parseSegment(segment);
+                    }
+                    catch(Throwable e)
+                    {
+                        fail((long)segment << 32, e);
+                        finish(segment, new ArrayList<Json>(0), 0);
+                    }
+                }
+            }
+
+            /**
+             * 映射一段并逐行解析。
+             */
+            private void parseSegment(int segment) throws IOException
+            {
+                long start = bounds[segment];
+                int size = (int)(bounds[segment + 1] - start);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+                ArrayList<Json> list = new ArrayList<Json>();
+                long line = 0;
+                int lineStart = 0;
+                while(lineStart < size)
+                {
+                    int lineEnd = lineStart;
+                    boolean blank = true;
+                    for(; lineEnd < size; lineEnd++)
+                    {
+                        byte b = buffer.get(lineEnd);
+                        if(b == '\n') break;
+                        if(blank && ! JsonCharClass.isBlank(b)) blank = false;
+                    }
+
+                    long order = ((long)segment << 32) | line;
+                    if(order > failedOrder) break;
+                    if(! blank)
+                    {
+                        try
+                        {
+                            JsonByteParser parser = new JsonByteParser(buffer, lineStart, lineEnd, start + lineStart);
+                            parser.setNameCache(names);
+                            list.add(parser.parse());
+                        }
+                        catch(JsonException e)
+                        {
+                            if(collectFailures)
+                            {
+                                synchronized(lock)
+                                {
+                                    segmentFailures.put(order, e);
+                                }
+                            }
+                            else
+                            {
+                                fail(order, e);
+                                break;
+                            }
+                        }
+                    }
+                    line++;
+                    lineStart = lineEnd + 1;
+                }
+                finish(segment, list, line);
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.bantouyan.json;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * <p>把多个Json实例逐个写入字符流，每个Json实例占一行（即NDJSON格式），
+ * 写出的文本可以用类Json的静态方法<strong>iterateDocuments</strong>读回。</p>
+ *
+ * <p>每个Json实例写完后即可释放，占用的内存与Json实例的总数无关。
+ * Json文本中字符串里的换行符总是以转义符的形式输出，所以不会破坏行的结构。</p>
+ *
+ * @author 飞翔的河马
+ * @version 1.02
+ * @since 1.02
+ */
+public class JsonLineWriter implements Closeable, Flushable
+{
+    private Writer writer;
+    private boolean useQuote;
+
+    /**
+     * 用Writer新建一个JsonLineWriter对象，Object的Name部分加引号。
+     * @param writer 接受Json文本的字符流
+     */
+    public JsonLineWriter(Writer writer)
+    {
+        this(writer, true);
+    }
+
+    /**
+     * 用Writer新建一个JsonLineWriter对象。
+     * @param writer 接受Json文本的字符流
+     * @param useQuote 为true时Object的Name部分加引号， false时尽量不加引号
+     */
+    public JsonLineWriter(Writer writer, boolean useQuote)
+    {
+        this.writer = writer;
+        this.useQuote = useQuote;
+    }
+
+    /**
+     * 把一个Json实例写成一行。
+     * @param json 要写入的JsonObject或JsonArray实例
+     * @throws IOException 写入字符流发生异常
+     * @throws JsonException json不是JsonObject或JsonArray，或者存在循环引用
+     */
+    public void write(Json json) throws IOException, JsonException
+    {
+        Json.JsonType type = json.getType();
+        if(type != Json.JsonType.OBJECT && type != Json.JsonType.ARRAY)
+        {
+            throw new JsonException("Only JsonObject or JsonArray can be written as a line.");
+        }
+        json.outputToWriter(writer, useQuote);
+        writer.write('\n');
+    }
+
+    /**
+     * 刷新字符流。
+     * @throws IOException 刷新字符流发生异常
+     */
+    public void flush() throws IOException
+    {
+        writer.flush();
+    }
+
+    /**
+     * 关闭字符流。
+     * @throws IOException 关闭字符流发生异常
+     */
+    public void close() throws IOException
+    {
+        writer.close();
+    }
+}
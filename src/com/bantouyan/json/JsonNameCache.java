@@ -0,0 +1,137 @@
+package com.bantouyan.json;
+
+/**
+ * <p>JsonObject子元素Name的规范化缓存，解析时直接用缓冲区中的字符查找，
+ * 多次出现的同一个Name返回同一个String实例，其hash值已经计算过，
+ * 加入JsonObject时不必重新计算。</p>
+ *
+ * <p>每个解析器默认使用自己的缓存。逐行解析大量结构相同的Json实例（如NDJSON）时，
+ * 可以新建一个JsonNameCache传给类Json的parseJsonText、parseJsonReader或iterateDocuments方法，
+ * 由多个解析器（包括不同的线程）共享。</p>
+ *
+ * <p>缓存的大小是固定的，每个Name根据hash值只能放在一个位置，冲突时新的Name替换旧的Name。
+ * 查找一定次数后命中率仍然很低（如Name是随机生成的Map键）时缓存自动停用，
+ * 之后直接生成新的String。共享时不加锁，统计的次数可能不精确，但不影响查找结果的正确性。</p>
+ *
+ * @author 飞翔的河马
+ * @version 1.02
+ * @since 1.02
+ */
+public final class JsonNameCache
+{
+    private static final int DEFAULT_CAPACITY = 256;
+    private static final int MAX_NAME_LENGTH = 64; // 更长的Name不放入缓存
+
+    private final String[] names;
+    private final int mask;
+    private int lookups = 0;
+    private int misses = 0;
+    private volatile boolean disabled = false;
+
+    /**
+     * 新建一个默认大小（256个Name）的JsonNameCache对象。
+     */
+    public JsonNameCache()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * 新建一个JsonNameCache对象，并指定最多缓存的Name个数。
+     * @param capacity 最多缓存的Name个数，会向上取整为2的幂
+     * @throws IllegalArgumentException capacity小于1或大于2^20
+     */
+    public JsonNameCache(int capacity)
+    {
+        if(capacity < 1 || capacity > (1 << 20))
+        {
+            throw new IllegalArgumentException("Capacity " + capacity + " is not between 1 and " + (1 << 20) + ".");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if(size < capacity) size <<= 1;
+        this.names = new String[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * 判断缓存是否因命中率太低而停用。
+     * @return 停用返回true，否则返回false
+     */
+    public boolean isDisabled()
+    {
+        return disabled;
+    }
+
+    /**
+     * 返回字符数组中指定范围的字符所对应的String，已缓存时返回缓存的实例。
+     * @param chars 包含Name的字符数组
+     * @param start Name第一个字符的下标
+     * @param len Name的长度
+     * @return 对应的String
+     */
+    String lookup(char[] chars, int start, int len)
+    {
+        if(disabled || len > MAX_NAME_LENGTH)
+        {
+            return new String(chars, start, len);
+        }
+
+        //与String.hashCode的计算方法相同，命中时可以直接与缓存实例的hash值比较
+        int hash = 0;
+        int end = start + len;
+        for(int i = start; i < end; i++)
+        {
+            hash = 31 * hash + chars[i];
+        }
+
+        String[] table = names;
+        int index = (hash ^ (hash >>> 16)) & mask;
+        String name = table[index];
+        if(name != null && name.hashCode() == hash && matches(name, chars, start, len))
+        {
+            lookups++;
+            return name;
+        }
+
+        name = new String(chars, start, len);
+        name.hashCode(); //计算并保存hash值
+        table[index] = name;
+        checkHitRate();
+        return name;
+    }
+
+    /**
+     * 记录一次未命中，查找足够多次后命中率低于一半时停用缓存。
+     */
+    private void checkHitRate()
+    {
+        int count = ++lookups;
+        int miss = ++misses;
+        if(count >= names.length * 4)
+        {
+            if(miss * 2 > count)
+            {
+                disabled = true;
+            }
+            else
+            {
+                //重新开始统计，使命中率反映最近的情况
+                lookups = 0;
+                misses = 0;
+            }
+        }
+    }
+
+    /**
+     * 判断String与字符数组中指定范围的字符是否相同。
+     */
+    private static boolean matches(String name, char[] chars, int start, int len)
+    {
+        if(name.length() != len) return false;
+        for(int i = 0; i < len; i++)
+        {
+            if(name.charAt(i) != chars[start + i]) return false;
+        }
+        return true;
+    }
+}
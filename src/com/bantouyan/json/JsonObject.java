@@ -1,8 +1,11 @@
 package com.bantouyan.json;
 
 import java.io.IOException;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -50,6 +53,10 @@ public final class JsonObject extends Json
     //不允许出现key为null的entry，但允许value为null
     //值为null的value，get以及转换为Json文本时当类型为NULL的Json实例处理
     private HashMap<String, Json> elements = null;
+    //延迟解析的JsonObject在Json文本中的范围，解析子元素后lazyText为null
+    private CharSequence lazyText = null;
+    private int lazyStart = 0;
+    private int lazyEnd = 0;
     
     /**
      * 创建空的JsonObject实例。
@@ -71,6 +78,20 @@ public final class JsonObject extends Json
         this.elements = new HashMap<String, Json>(capicity);
     }
     
+    /**
+     * 创建延迟解析的JsonObject实例，只记录它在Json文本中的范围，
+     * 第一次访问子元素时才解析。
+     * @param text Json文本，已经校验过格式，之后不能修改
+     * @param start JsonObject的起始下标（字符'{'的下标）
+     * @param end JsonObject的结束下标（字符'}'的下一个下标）
+     */
+    JsonObject(CharSequence text, int start, int end)
+    {
+        this.lazyText = text;
+        this.lazyStart = start;
+        this.lazyEnd = end;
+    }
+    
     /**
      * 根据已有的Map创建包含子元素的JsonObject实例。
      * @param map 创建JsonObject的源数据，但忽略掉map中key为null的entry对
@@ -116,7 +137,7 @@ public final class JsonObject extends Json
             
             Object value = map.get(key);
             Json jsonValue = Json.changeToJson(value, parser);
-            this.elements.put(nameStr, jsonValue);
+            this.putElement(nameStr, jsonValue);
         }
     }
     
@@ -127,8 +148,8 @@ public final class JsonObject extends Json
      */
     public Json get(String name)
     {
-        return ( (name == null) || (!this.elements.containsKey(name)))? null:
-                    this.elements.get(name);
+        return ( (name == null) || (!this.elements().containsKey(name)))? null:
+                    this.elements().get(name);
     }
     
     /**
@@ -138,9 +159,9 @@ public final class JsonObject extends Json
      */
     public String getString(String name)
     {
-        if((name == null) || (!this.elements.containsKey(name))) return null;
+        if((name == null) || (!this.elements().containsKey(name))) return null;
         
-        Json json = this.elements.get(name);
+        Json json = this.elements().get(name);
         return (json instanceof JsonPrimitive)? ((JsonPrimitive)json).getString():
                                                 json.toString();
     }
@@ -152,8 +173,8 @@ public final class JsonObject extends Json
      */
     public boolean canToBoolean(String name)
     {
-        if((name == null) || (!this.elements.containsKey(name))) return false;
-        Json json = this.elements.get(name);
+        if((name == null) || (!this.elements().containsKey(name))) return false;
+        Json json = this.elements().get(name);
         
         return (json instanceof JsonPrimitive)? ((JsonPrimitive)json).canToBoolean():
                                                false;
@@ -169,7 +190,7 @@ public final class JsonObject extends Json
     {
         if(canToBoolean(name))
         {
-            return ((JsonPrimitive)this.elements.get(name)).getBoolean();
+            return ((JsonPrimitive)this.elements().get(name)).getBoolean();
         }
         else
         {
@@ -184,8 +205,8 @@ public final class JsonObject extends Json
      */
     public boolean canToLong(String name)
     {
-        if((name == null) || (!this.elements.containsKey(name))) return false;
-        Json json = this.elements.get(name);
+        if((name == null) || (!this.elements().containsKey(name))) return false;
+        Json json = this.elements().get(name);
         
         return (json instanceof JsonPrimitive)? ((JsonPrimitive)json).canToLong():
                                                false;
@@ -201,7 +222,7 @@ public final class JsonObject extends Json
     {
         if(canToLong(name))
         {
-            return ((JsonPrimitive)this.elements.get(name)).getLong();
+            return ((JsonPrimitive)this.elements().get(name)).getLong();
         }
         else
         {
@@ -216,8 +237,8 @@ public final class JsonObject extends Json
      */
     public boolean canToDouble(String name)
     {
-        if((name == null) || (!this.elements.containsKey(name))) return false;
-        Json json = this.elements.get(name);
+        if((name == null) || (!this.elements().containsKey(name))) return false;
+        Json json = this.elements().get(name);
         
         return (json instanceof JsonPrimitive)? ((JsonPrimitive)json).canToDouble():
                                                false;
@@ -233,7 +254,7 @@ public final class JsonObject extends Json
     {
         if(canToDouble(name))
         {
-            return ((JsonPrimitive)this.elements.get(name)).getDouble();
+            return ((JsonPrimitive)this.elements().get(name)).getDouble();
         }
         else
         {
@@ -248,8 +269,8 @@ public final class JsonObject extends Json
      */
     public boolean canToJsonArray(String name)
     {
-        return ((name == null) || (!this.elements.containsKey(name)))? false:
-            this.elements.get(name) instanceof JsonArray;
+        return ((name == null) || (!this.elements().containsKey(name)))? false:
+            this.elements().get(name) instanceof JsonArray;
     }
     
     /**
@@ -262,7 +283,7 @@ public final class JsonObject extends Json
     {
         if(canToJsonArray(name))
         {
-            return (JsonArray)this.elements.get(name);
+            return (JsonArray)this.elements().get(name);
         }
         else
         {
@@ -277,8 +298,8 @@ public final class JsonObject extends Json
      */
     public boolean canToJsonObject(String name)
     {
-        return ((name == null) || (!this.elements.containsKey(name)))? false:
-            this.elements.get(name) instanceof JsonObject;
+        return ((name == null) || (!this.elements().containsKey(name)))? false:
+            this.elements().get(name) instanceof JsonObject;
     }
     
     /**
@@ -291,7 +312,7 @@ public final class JsonObject extends Json
     {
         if(canToJsonObject(name))
         {
-            return (JsonObject)this.elements.get(name);
+            return (JsonObject)this.elements().get(name);
         }
         else
         {
@@ -311,16 +332,16 @@ public final class JsonObject extends Json
         {
             throw new JsonException("Element Name in JsonObject cannot be null.");
         }
-        else if(this.elements.containsKey(name))
+        else if(this.elements().containsKey(name))
         {
             String msg = "Name \"" + name + "\" already exist in this JsonObject.";
             throw new JsonException(msg);
         }
         
         if(value == null)
-            this.elements.put(name, Json.nullJson);
+            this.putElement(name, Json.nullJson);
         else
-            this.elements.put(name, value);
+            this.putElement(name, value);
     }
 
     /**
@@ -335,7 +356,7 @@ public final class JsonObject extends Json
         {
             throw new JsonException("Element Name in JsonObject cannot be null.");
         }
-        else if(this.elements.containsKey(name))
+        else if(this.elements().containsKey(name))
         {
             String msg = "Name \"" + name + "\" already exist in this JsonObject.";
             throw new JsonException(msg);
@@ -343,15 +364,15 @@ public final class JsonObject extends Json
         
         if(value == null)
         {
-            this.elements.put(name, Json.nullJson);
+            this.putElement(name, Json.nullJson);
         }
         else
         {
             Json json = value.generateJson();
             if(json == null)
-                this.elements.put(name, Json.nullJson);
+                this.putElement(name, Json.nullJson);
             else
-                this.elements.put(name, json);
+                this.putElement(name, json);
         }
     }
 
@@ -367,16 +388,16 @@ public final class JsonObject extends Json
         {
             throw new JsonException("Element Name in JsonObject cannot be null.");
         }
-        else if(this.elements.containsKey(name))
+        else if(this.elements().containsKey(name))
         {
             String msg = "Name \"" + name + "\" already exist in this JsonObject.";
             throw new JsonException(msg);
         }
         
         if(value == null)
-            this.elements.put(name, Json.nullJson);
+            this.putElement(name, Json.nullJson);
         else
-            this.elements.put(name, new JsonPrimitive(value));
+            this.putElement(name, new JsonPrimitive(value));
     }
 
     /**
@@ -391,13 +412,13 @@ public final class JsonObject extends Json
         {
             throw new JsonException("Element Name in JsonObject cannot be null.");
         }
-        else if(this.elements.containsKey(name))
+        else if(this.elements().containsKey(name))
         {
             String msg = "Name \"" + name + "\" already exist in this JsonObject.";
             throw new JsonException(msg);
         }
         
-        this.elements.put(name, new JsonPrimitive(value));
+        this.putElement(name, new JsonPrimitive(value));
     }
 
     /**
@@ -412,13 +433,13 @@ public final class JsonObject extends Json
         {
             throw new JsonException("Element Name in JsonObject cannot be null.");
         }
-        else if(this.elements.containsKey(name))
+        else if(this.elements().containsKey(name))
         {
             String msg = "Name \"" + name + "\" already exist in this JsonObject.";
             throw new JsonException(msg);
         }
         
-        this.elements.put(name, new JsonPrimitive(value));
+        this.putElement(name, new JsonPrimitive(value));
     }
 
     /**
@@ -433,13 +454,13 @@ public final class JsonObject extends Json
         {
             throw new JsonException("Element Name in JsonObject cannot be null.");
         }
-        else if(this.elements.containsKey(name))
+        else if(this.elements().containsKey(name))
         {
             String msg = "Name \"" + name + "\" already exist in this JsonObject.";
             throw new JsonException(msg);
         }
         
-        this.elements.put(name, Json.getBooleanJson(value));
+        this.putElement(name, Json.getBooleanJson(value));
     }
 
     /**
@@ -453,13 +474,13 @@ public final class JsonObject extends Json
         {
             throw new JsonException("Element Name in JsonObject cannot be null.");
         }
-        else if(this.elements.containsKey(name))
+        else if(this.elements().containsKey(name))
         {
             String msg = "Name \"" + name + "\" already exist in this JsonObject.";
             throw new JsonException(msg);
         }
         
-        this.elements.put(name, Json.nullJson);
+        this.putElement(name, Json.nullJson);
     }
     
     /**
@@ -499,17 +520,17 @@ public final class JsonObject extends Json
     public void addAll(JsonObject jobj) throws JsonException
     {
         String conflictNames = "";
-        Set<String> names = jobj.nameSet();
+        Set<String> names = jobj.elements().keySet();
         
         for(String name: names)
         {
-            if(this.elements.containsKey(name))
+            if(this.elements().containsKey(name))
                 conflictNames += ", " + name;
         }
         
         if(conflictNames.equals(""))
         {
-            this.elements.putAll(jobj.elements);
+            this.putElements(jobj.elements());
         }
         else
         {
@@ -528,8 +549,8 @@ public final class JsonObject extends Json
     public Json set(String name, Json value)
     {
         if(name == null) return null;
-        return (value == null)? this.elements.put(name, Json.nullJson):
-                                this.elements.put(name, value);
+        return (value == null)? this.putElement(name, Json.nullJson):
+                                this.putElement(name, value);
     }
 
     /**
@@ -543,8 +564,8 @@ public final class JsonObject extends Json
         if(name == null) return null;
         Json json = null;
         if(value != null) json = value.generateJson();
-        return (json == null)? this.elements.put(name, Json.nullJson):
-                                this.elements.put(name, json);
+        return (json == null)? this.putElement(name, Json.nullJson):
+                                this.putElement(name, json);
     }
 
     /**
@@ -556,8 +577,8 @@ public final class JsonObject extends Json
     public Json set(String name, String value)
     {
         if(name == null) return null;
-        return (value == null)? this.elements.put(name, Json.nullJson):
-                                this.elements.put(name, new JsonPrimitive(value));
+        return (value == null)? this.putElement(name, Json.nullJson):
+                                this.putElement(name, new JsonPrimitive(value));
     }
 
     /**
@@ -569,7 +590,7 @@ public final class JsonObject extends Json
     public Json set(String name, long value)
     {
         return (name == null)? null:
-                               this.elements.put(name, new JsonPrimitive(value));
+                               this.putElement(name, new JsonPrimitive(value));
     }
 
     /**
@@ -581,7 +602,7 @@ public final class JsonObject extends Json
     public Json set(String name, double value)
     {
         return (name == null)? null:
-                               this.elements.put(name, new JsonPrimitive(value));
+                               this.putElement(name, new JsonPrimitive(value));
     }
 
     /**
@@ -593,7 +614,7 @@ public final class JsonObject extends Json
     public Json set(String name, boolean value)
     {
         return (name == null)? null:
-                               this.elements.put(name, Json.getBooleanJson(value));
+                               this.putElement(name, Json.getBooleanJson(value));
     }
 
     /**
@@ -604,7 +625,7 @@ public final class JsonObject extends Json
     public Json set(String name)
     {
         return (name == null)? null:
-            this.elements.put(name, Json.nullJson);
+            this.putElement(name, Json.nullJson);
     }
 
     /**
@@ -616,7 +637,7 @@ public final class JsonObject extends Json
     public void setAll(Map<?, ?> map) throws JsonException
     {
         JsonObject nobj = Json.parseJavaMap(map);
-        this.elements.putAll(nobj.elements);
+        this.putElements(nobj.elements());
     }
     
     /**
@@ -629,7 +650,7 @@ public final class JsonObject extends Json
     public void setAll(Map<?, ?> map, JsonParser parser) throws JsonException
     {
         JsonObject nobj = Json.parseJavaMap(map, parser);
-        this.elements.putAll(nobj.elements);
+        this.putElements(nobj.elements());
     }
     
     /**
@@ -639,7 +660,7 @@ public final class JsonObject extends Json
      */
     public void setAll(JsonObject jobj)
     {
-        this.elements.putAll(jobj.elements);
+        this.putElements(jobj.elements());
     }
     
     /**
@@ -648,7 +669,7 @@ public final class JsonObject extends Json
      */
     public void remove(String name)
     {
-        this.elements.remove(name);
+        this.removeElement(name);
     }
     
     /**
@@ -658,7 +679,7 @@ public final class JsonObject extends Json
      */
     public boolean containsName(String name)
     { 
-        return this.elements.containsKey(name);
+        return this.elements().containsKey(name);
     }
     
     /**
@@ -667,7 +688,7 @@ public final class JsonObject extends Json
      */
     public Set<String> nameSet()
     {
-        return this.elements.keySet();
+        return new NameSet();
     }
     
     /**
@@ -677,7 +698,7 @@ public final class JsonObject extends Json
     //if modify this method, modify entrySet() together
     public Collection<Json> values()
     {
-        return this.elements.values();
+        return new ValueCollection();
     }
     
     /**
@@ -687,16 +708,19 @@ public final class JsonObject extends Json
     // if modify this method, modify values() together
     public Set<Entry<String, Json>> entrySet()
     {
-        return elements.entrySet();
+        return new EntrySet();
     }
     
     /**
      * 判断两个Json实例表示的数据是否一致。
      * @param obj 被比较的Json实例
+     * @param thisRef 本实例一侧的上级Json对象堆栈，用于检测循环引用
+     * @param objRef obj一侧的上级Json对象堆栈，用于检测循环引用
      * @return 一致返回true，不一致返回false
+     * @throws JsonException 参与比较的Json实例内存在循环引用
      */
     @Override
-    protected boolean same(Json obj)
+    protected boolean same(Json obj, IdentityStack thisRef, IdentityStack objRef)
     {
         if(obj == null)
         {
@@ -716,20 +740,23 @@ public final class JsonObject extends Json
         }
         else
         {
+            enterSame(obj, thisRef, objRef);
             JsonObject objObj = (JsonObject)obj;
-            Set<String> nameSet = this.nameSet();
+            Set<String> nameSet = this.elements().keySet();
             
             for(String name: nameSet)
             {
                 if(! objObj.containsName(name))
                 {
-                    return false;
+                    return false; //比较结果已经确定，不必再出栈
                 }
-                else if(! this.get(name).same(objObj.get(name)))
+                else if(! this.get(name).same(objObj.get(name), thisRef, objRef))
                 {
                     return false;
                 }
             }
+            thisRef.pop();
+            objRef.pop();
             return true;
         }
     }
@@ -742,7 +769,7 @@ public final class JsonObject extends Json
     public int hashCode()
     {
         int hashcode = 7;
-        Set<String> names = nameSet();
+        Set<String> names = this.elements().keySet();
         for(String name: names)
         {
             Json json = get(name);
@@ -762,14 +789,16 @@ public final class JsonObject extends Json
     public JsonObject clone()
     {
         JsonObject nval = (JsonObject)super.clone();
+        //未解析的实例与Clone出的实例共用不会被修改的Json文本，各自解析
+        if(this.lazyText != null) return nval;
         
         @SuppressWarnings("unchecked")
-        HashMap<String, Json> clone = (HashMap<String, Json>)this.elements.clone();
+        HashMap<String, Json> clone = (HashMap<String, Json>)this.elements().clone();
         nval.elements = clone;
-        Set<String> names = this.elements.keySet();
+        Set<String> names = this.elements().keySet();
         for(String name: names)
         {
-            Json json = this.elements.get(name);
+            Json json = this.elements().get(name);
             if(! (json instanceof JsonPrimitive))
             {
                 nval.elements.put(name, json.clone());
@@ -786,7 +815,7 @@ public final class JsonObject extends Json
     @Override
     public int count()
     {
-        return this.elements.size();
+        return this.elements().size();
     }
     
     /**
@@ -795,7 +824,9 @@ public final class JsonObject extends Json
     @Override
     public void clear()
     {
-        this.elements.clear();
+        changed();
+        if(this.textCache != null) this.textCache.removeName(null);
+        this.elements().clear();
     }
     
     /**
@@ -805,28 +836,71 @@ public final class JsonObject extends Json
     @Override
     public boolean isEmpty()
     {
-        return this.elements.isEmpty();
+        return this.elements().isEmpty();
     }
 
     /**
      * 向可追加对象追加Json文本。
      * @param dest 接受Json文本的可追加对象
      * @param useQuote 为true时Object的Name部分加引号， false时尽量不加引号
+     * @param parentRef 上级Json对象堆栈，用于检测循环引用，为null时不检测
+     * @param numbers 格式化数值的缓冲区，由一次输出独占并重复使用
+     * @throws IOException 追加字符流发生IO异常
+     * @throws JsonException 存在循环引用
+     */
+    @Override
+    protected void appendToAppendable(Appendable dest, boolean useQuote, IdentityStack parentRef,
+            NumberConverter.Buffer numbers) throws IOException
+    {
+        //未解析的实例一次解析所有的子孙实例并保留，输出的文本与非延迟解析时相同，之后输出时不再解析
+        if(this.lazyText != null) load(false);
+
+        if(this.textCache != null && this.textCache.enabled)
+        {
+            dest.append(cachedText(useQuote, parentRef, numbers));
+            return;
+        }
+
+        if(parentRef != null && ! parentRef.enter(this))
+        {
+            throw new JsonException("Circle reference exists in this Json.");
+        }
+        appendElements(dest, useQuote, parentRef, numbers);
+        if(parentRef != null) parentRef.pop();
+    }
+
+    /**
+     * 向可追加对象追加所有子元素生成的Json文本，缓存文本时dest是正在生成的文本，子元素通过textCache追加。
+     * @param dest 接受Json文本的可追加对象
+     * @param useQuote 为true时Object的Name部分加引号， false时尽量不加引号
+     * @param parentRef 上级Json对象堆栈，用于检测循环引用，为null时不检测
+     * @param numbers 格式化数值的缓冲区，由一次输出独占并重复使用
      * @throws IOException 追加字符流发生IO异常
+     * @throws JsonException 存在循环引用
      */
-    @Override //if modify this method, modify appendToWriter() together
-    protected void appendToAppendable(Appendable dest, boolean useQuote) throws IOException
+    //if modify this method, modify appendToBytes() together
+    private void appendElements(Appendable dest, boolean useQuote, IdentityStack parentRef,
+            NumberConverter.Buffer numbers) throws IOException
     {
+        JsonTextCache cache = (this.textCache != null && this.textCache.enabled)? this.textCache: null;
         int i = 0;
-        
+
         dest.append('{');
-        for(Entry<String, Json> entry: entrySet())
+        for(Entry<String, Json> entry: this.elements().entrySet())
         {
             if(i > 0) dest.append(',');
             i++;
-            
+
             String name = entry.getKey();
-            if(useQuote)
+            if(cache != null)
+            {
+                //缓存文本时Name只转义一次
+                if(! useQuote && JsonCharClass.canOmitQuote(name))
+                    dest.append(name);
+                else
+                    dest.append(cache.quotedName(name));
+            }
+            else if(useQuote)
             {
                 JsonTextParser.jsonStringToAppendable(name, dest);
             }
@@ -834,15 +908,101 @@ public final class JsonObject extends Json
             {
                 JsonTextParser.jsonStringToAppendableWithoutQutoe(name, dest);
             }
-                
+
             dest.append(':');
             Json value = entry.getValue();
             //value is a json instance, not null, because it come from method entrySet()
-            value.appendToAppendable(dest, useQuote);
+            if(cache != null)
+                cache.appendChild(value, useQuote, parentRef, numbers);
+            else
+                value.appendToAppendable(dest, useQuote, parentRef, numbers);
         }
         dest.append('}');
     }
 
+    /**
+     * 返回缓存的Json文本，子孙实例被修改过时更新，没有缓存时生成并缓存，textCache不为null且缓存文本。
+     * @param useQuote 为true时Object的Name部分加引号， false时尽量不加引号
+     * @param parentRef 上级Json对象堆栈，用于检测循环引用，为null时不检测
+     * @param numbers 格式化数值的缓冲区
+     * @return 缓存的Json文本
+     * @throws IOException 不会发生（内存中的字符）
+     * @throws JsonException 存在循环引用
+     */
+    String cachedText(boolean useQuote, IdentityStack parentRef, NumberConverter.Buffer numbers)
+            throws IOException
+    {
+        if(this.lazyText != null) load(false);
+        if(parentRef != null && ! parentRef.enter(this))
+        {
+            throw new JsonException("Circle reference exists in this Json.");
+        }
+
+        String text = this.textCache.getText(useQuote, parentRef, numbers);
+        if(text == null)
+        {
+            appendElements(this.textCache.startText(), useQuote, parentRef, numbers);
+            text = this.textCache.endText(useQuote);
+        }
+
+        if(parentRef != null) parentRef.pop();
+        return text;
+    }
+
+    /**
+     * 向JsonByteWriter写入UTF-8编码的Json文本。
+     * @param dest 接受Json文本的JsonByteWriter
+     * @param useQuote 为true时Object的Name部分加引号， false时尽量不加引号
+     * @param parentRef 上级Json对象堆栈，用于检测循环引用，为null时不检测
+     * @throws IOException 写出字节发生IO异常
+     * @throws JsonException 存在循环引用
+     */
+    @Override //if modify this method, modify appendElements() together
+    protected void appendToBytes(JsonByteWriter dest, boolean useQuote, IdentityStack parentRef) throws IOException
+    {
+        //未解析的实例一次解析所有的子孙实例并保留，输出的文本与非延迟解析时相同，之后输出时不再解析
+        if(this.lazyText != null) load(false);
+
+        if(this.textCache != null && this.textCache.enabled)
+        {
+            //缓存的文本已经转义，直接编码输出
+            String text = cachedText(useQuote, parentRef, dest.numbers);
+            dest.writeRaw(text, 0, text.length());
+            return;
+        }
+
+        if(parentRef != null && ! parentRef.enter(this))
+        {
+            throw new JsonException("Circle reference exists in this Json.");
+        }
+
+        int i = 0;
+
+        dest.writeAscii('{');
+        for(Entry<String, Json> entry: this.elements().entrySet())
+        {
+            if(i > 0) dest.writeAscii(',');
+            i++;
+
+            String name = entry.getKey();
+            if(useQuote || ! JsonCharClass.canOmitQuote(name))
+            {
+                dest.writeString(name);
+            }
+            else
+            {
+                dest.writeRaw(name, 0, name.length());
+            }
+
+            dest.writeAscii(':');
+            Json value = entry.getValue();
+            value.appendToBytes(dest, useQuote, parentRef);
+        }
+        dest.writeAscii('}');
+
+        if(parentRef != null) parentRef.pop();
+    }
+
     /**
      * 返回 Json实例类型 JsonType.OBJECT。
      */
@@ -859,10 +1019,10 @@ public final class JsonObject extends Json
      */
     public JsonType getType(String name)
     {
-        if(name == null || (! this.elements.containsKey(name)))
+        if(name == null || (! this.elements().containsKey(name)))
             return null;
         else
-            return this.elements.get(name).getType();
+            return this.elements().get(name).getType();
     }
     
     /**
@@ -873,6 +1033,7 @@ public final class JsonObject extends Json
     @Override
     protected boolean existsCircle(IdentityStack parentRef)
     {
+        if(this.lazyText != null) return false; //由Json文本解析而来，不会有循环引用
         if(parentRef.contains(this)) return true;
         
         parentRef.push(this);
@@ -887,4 +1048,299 @@ public final class JsonObject extends Json
         parentRef.pop();
         return exists;
     }
+
+    /**
+     * 设置JsonObject实例及其所有子孙实例是否缓存生成的Json文本。
+     * @param cache 为true时缓存，为false时停止缓存并清除已经缓存的文本
+     * @param parentRef 上级Json对象堆栈，用于检测循环引用
+     * @throws JsonException 存在循环引用
+     */
+    @Override
+    protected void setCacheText(boolean cache, IdentityStack parentRef)
+    {
+        if(! parentRef.enter(this))
+        {
+            throw new JsonException("Circle reference exists in this Json.");
+        }
+
+        if(cache)
+        {
+            if(this.textCache == null)
+                this.textCache = new JsonTextCache(true);
+            else
+                this.textCache.enabled = true;
+        }
+        else if(this.textCache != null)
+        {
+            this.textCache.disable();
+        }
+
+        //未解析的实例在解析时由子元素继承设置
+        if(this.lazyText == null)
+        {
+            for(Json element: this.elements.values())
+            {
+                if(element != null) element.setCacheText(cache, parentRef);
+            }
+        }
+
+        parentRef.pop();
+    }
+    
+    /**
+     * 返回存放子元素的HashMap，延迟解析的JsonObject在第一次调用时解析子元素。
+     * @return 存放子元素的HashMap
+     * @throws JsonException Json文本中有跳过格式校验时无法发现的错误（如Name重复）
+     */
+    private HashMap<String, Json> elements() throws JsonException
+    {
+        if(this.lazyText != null) load(true);
+        return this.elements;
+    }
+
+    /**
+     * 解析延迟解析的JsonObject的子元素。
+     * @param lazy 为true时只解析一层，嵌套的JsonObject与JsonArray仍然延迟解析；为false时解析所有的子孙实例
+     * @throws JsonException Json文本中有跳过格式校验时无法发现的错误（如Name重复）
+     */
+    private void load(boolean lazy) throws JsonException
+    {
+        try
+        {
+            JsonTextParser parser = new JsonTextParser(lazyText, lazyStart, lazyEnd, lazy);
+            this.elements = parser.parseObject().elements;
+        }
+        catch(IOException e)
+        {
+            //直接读取内存中的字符，不会产生IO异常，所以这里作为内部错误处理。
+            throw new InternalError(e.getMessage());
+        }
+        this.lazyText = null;
+        if(this.textCache != null && this.textCache.enabled)
+        {
+            for(Json element: this.elements.values()) JsonTextCache.inherit(element);
+        }
+    }
+
+    /**
+     * JsonObject将被修改，清除本实例缓存的文本，上级实例在下一次输出时检查到本实例的文本改变。
+     */
+    private void changed()
+    {
+        if(this.textCache != null) this.textCache.clear();
+    }
+
+    /**
+     * 添加或覆盖指定Name的子元素。
+     * @return 原来的子元素
+     */
+    private Json putElement(String name, Json value)
+    {
+        changed();
+        return this.elements().put(name, value);
+    }
+
+    /**
+     * 批量添加或覆盖子元素。
+     */
+    private void putElements(HashMap<String, Json> map)
+    {
+        changed();
+        this.elements().putAll(map);
+    }
+
+    /**
+     * 删除指定Name的子元素，同时删除缓存的转义后的Name。
+     */
+    private void removeElement(String name)
+    {
+        changed();
+        this.elements().remove(name);
+        if(this.textCache != null) this.textCache.removeName(name);
+    }
+
+    /*
+     * nameSet、values与entrySet返回的集合，通过集合、迭代器或Entry修改JsonObject时使缓存的文本失效，
+     * 只读取时不影响缓存。每次操作都重新取得存放子元素的HashMap，所以延迟解析的实例也可以使用。
+     */
+
+    private final class NameSet extends AbstractSet<String>
+    {
+        @Override
+        public Iterator<String> iterator()
+        {
+            return new ViewIterator<String>(elements().keySet().iterator());
+        }
+
+        @Override
+        public int size()
+        {
+            return elements().size();
+        }
+
+        @Override
+        public boolean contains(Object o)
+        {
+            return elements().containsKey(o);
+        }
+
+        @Override
+        public boolean remove(Object o)
+        {
+            if(! elements().containsKey(o)) return false;
+            removeElement((String)o);
+            return true;
+        }
+
+        @Override
+        public void clear()
+        {
+            JsonObject.this.clear();
+        }
+    }
+
+    private final class ValueCollection extends AbstractCollection<Json>
+    {
+        @Override
+        public Iterator<Json> iterator()
+        {
+            return new ViewIterator<Json>(elements().values().iterator());
+        }
+
+        @Override
+        public int size()
+        {
+            return elements().size();
+        }
+
+        @Override
+        public boolean contains(Object o)
+        {
+            return elements().containsValue(o);
+        }
+
+        @Override
+        public void clear()
+        {
+            JsonObject.this.clear();
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<String, Json>>
+    {
+        @Override
+        public Iterator<Entry<String, Json>> iterator()
+        {
+            return new ViewIterator<Entry<String, Json>>(elements().entrySet().iterator())
+            {
+                @Override
+                public Entry<String, Json> next()
+                {
+                    return new ViewEntry(super.next());
+                }
+            };
+        }
+
+        @Override
+        public int size()
+        {
+            return elements().size();
+        }
+
+        @Override
+        public boolean contains(Object o)
+        {
+            return elements().entrySet().contains(o);
+        }
+
+        @Override
+        public boolean remove(Object o)
+        {
+            if(! elements().entrySet().contains(o)) return false;
+            removeElement((String)((Entry<?, ?>)o).getKey());
+            return true;
+        }
+
+        @Override
+        public void clear()
+        {
+            JsonObject.this.clear();
+        }
+    }
+
+    /**
+     * 删除子元素时使缓存的文本失效的迭代器。
+     */
+    private class ViewIterator<E> implements Iterator<E>
+    {
+        private final Iterator<E> iterator;
+
+        ViewIterator(Iterator<E> iterator)
+        {
+            this.iterator = iterator;
+        }
+
+        public boolean hasNext()
+        {
+            return iterator.hasNext();
+        }
+
+        public E next()
+        {
+            return iterator.next();
+        }
+
+        public void remove()
+        {
+            changed();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * 修改Value时使缓存的文本失效的子元素，Value为null时转换为NULL类型的Json实例。
+     */
+    private final class ViewEntry implements Entry<String, Json>
+    {
+        private final Entry<String, Json> entry;
+
+        ViewEntry(Entry<String, Json> entry)
+        {
+            this.entry = entry;
+        }
+
+        public String getKey()
+        {
+            return entry.getKey();
+        }
+
+        public Json getValue()
+        {
+            return entry.getValue();
+        }
+
+        public Json setValue(Json value)
+        {
+            changed();
+            return entry.setValue((value == null)? Json.nullJson: value);
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            return entry.equals(o);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return entry.hashCode();
+        }
+
+        @Override
+        public String toString()
+        {
+            return entry.toString();
+        }
+    }
 }
@@ -0,0 +1,399 @@
+package com.bantouyan.json;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * <p>内部类，把已经全部在内存中的Json文本（字符序列或UTF-8编码的byte数组）分段并行解析，
+ * 仅供此Json库内部使用。</p>
+ *
+ * <p>先顺序扫描一遍文本，只识别引号（包括其中的转义符）与括号，找出最外层JsonObject或JsonArray中
+ * 分隔子元素的','，按大致相同的长度把子元素分成若干段，每一段交给一个解析器在ExecutorService中解析，
+ * 最后按顺序合并成一个Json实例。调用线程也参与解析：它先解析第一段，之后依次取回尚未开始的段自己解析，
+ * 所以即使ExecutorService的线程都在忙（或者调用线程本身就是其中之一），也不会互相等待。</p>
+ *
+ * <p>扫描不校验格式。文本太短（只能分成一段）或扫描时发现不可能是合法的Json文本时直接顺序解析；
+ * 任何一段解析失败，或者不同段中有相同的Name时，也在调用线程中重新顺序解析整个文本，
+ * 所以结果与抛出的异常（包括异常信息中的位置）都与顺序解析相同。</p>
+ *
+ * @author 飞翔的河马
+ * @version 1.02
+ * @since 1.02
+ */
+final class JsonParallelParser
+{
+    private static final int MIN_SEGMENT_SIZE = 64 * 1024; // 每一段最少的字符（字节）数
+    private static final int SEGMENTS_PER_PROCESSOR = 4; // 多分几段，使各线程的负载比较均衡
+    private static final int SCAN_BLOCK_SIZE = 8192; // 扫描字符序列时每次复制的字符数
+
+    private JsonParallelParser()
+    {
+    }
+
+    /**
+     * 并行解析字符序列包含的Json文本。
+     * @param text Json文本，解析过程中不能修改
+     * @param executor 执行解析任务的ExecutorService
+     * @return 对应的Json实例
+     * @throws IOException 不会发生（内存中的字符）
+     * @throws JsonException Json文本格式不正确
+     */
+    static Json parse(CharSequence text, ExecutorService executor) throws IOException, JsonException
+    {
+        int len = text.length();
+        Scanner scanner = new Scanner(segmentSize(len));
+        char[] block = new char[Math.max(1, Math.min(len, SCAN_BLOCK_SIZE))];
+        for(int start = 0; start < len; start += block.length)
+        {
+            int count = Math.min(block.length, len - start);
+            JsonTextParser.copyChars(text, start, count, block);
+            if(! scanner.accept(block, count, start)) return new JsonTextParser(text).parse();
+        }
+
+        int[] bounds = scanner.bounds();
+        Json json = null;
+        if(bounds != null)
+        {
+            Segment[] segments = new Segment[bounds.length - 1];
+            for(int i = 0; i < segments.length; i++)
+            {
+                segments[i] = new Segment(text, null, bounds[i], bounds[i + 1] + 1, scanner.isObject);
+            }
+            json = run(segments, executor);
+        }
+        return (json != null)? json: new JsonTextParser(text).parse();
+    }
+
+    /**
+     * 并行解析UTF-8编码的Json文本，可以以UTF-8的BOM开头，以其他BOM开头时顺序解析。
+     * @param bytes UTF-8编码的Json文本，解析过程中不能修改
+     * @param executor 执行解析任务的ExecutorService
+     * @return 对应的Json实例
+     * @throws IOException 不会发生（内存中的字节）
+     * @throws JsonException Json文本格式不正确，或UTF-8编码错误
+     */
+    static Json parse(byte[] bytes, ExecutorService executor) throws IOException, JsonException
+    {
+        int len = bytes.length;
+        int start = 0;
+        if(len >= 3 && bytes[0] == (byte)0xEF && bytes[1] == (byte)0xBB && bytes[2] == (byte)0xBF)
+        {
+            start = 3; // skip UTF-8 BOM
+        }
+
+        Scanner scanner = new Scanner(segmentSize(len));
+        for(int i = start; i < len; i++)
+        {
+            if(! scanner.accept(bytes[i] & 0xFF, i)) return new JsonByteParser(bytes, 0, len).parse();
+        }
+
+        int[] bounds = scanner.bounds();
+        Json json = null;
+        if(bounds != null)
+        {
+            Segment[] segments = new Segment[bounds.length - 1];
+            for(int i = 0; i < segments.length; i++)
+            {
+                segments[i] = new Segment(null, bytes, bounds[i], bounds[i + 1] + 1, scanner.isObject);
+            }
+            json = run(segments, executor);
+        }
+        return (json != null)? json: new JsonByteParser(bytes, 0, len).parse();
+    }
+
+    /**
+     * 根据文本长度与处理器个数计算每一段的长度。
+     */
+    private static int segmentSize(int len)
+    {
+        int segments = Runtime.getRuntime().availableProcessors() * SEGMENTS_PER_PROCESSOR;
+        return Math.max(MIN_SEGMENT_SIZE, len / segments);
+    }
+
+    /**
+     * 解析所有的段并按顺序合并。
+     * @param segments 要解析的段，至少有两个
+     * @param executor 执行解析任务的ExecutorService
+     * @return 合并后的Json实例，需要重新顺序解析（某一段格式错误、Name重复或线程被中断）时返回null
+     * @throws IOException 不会发生（内存中的字符或字节）
+     */
+    private static Json run(Segment[] segments, ExecutorService executor) throws IOException
+    {
+        int count = segments.length;
+        Json[] parts = new Json[count];
+        ArrayList<Future<Json>> futures = new ArrayList<Future<Json>>(count); // 第i个任务解析第i + 1段
+        try
+        {
+            for(int i = 1; i < count; i++)
+            {
+                futures.add(executor.submit(segments[i]));
+            }
+            parts[0] = segments[0].call();
+            for(int i = 1; i < count; i++)
+            {
+                //尚未开始的段由调用线程解析，不必等待ExecutorService
+                Future<Json> future = futures.get(i - 1);
+                parts[i] = future.cancel(false)? segments[i].call(): future.get();
+            }
+        }
+        catch(JsonException e)
+        {
+            cancel(futures);
+            return null;
+        }
+        catch(InterruptedException e)
+        {
+            cancel(futures);
+            Thread.currentThread().interrupt(); //保留中断状态，在调用线程中顺序解析
+            return null;
+        }
+        catch(ExecutionException e)
+        {
+            cancel(futures);
+            Throwable cause = e.getCause();
+            if(cause instanceof JsonException) return null;
+            if(cause instanceof IOException) throw (IOException)cause;
+            if(cause instanceof RuntimeException) throw (RuntimeException)cause;
+            if(cause instanceof Error) throw (Error)cause;
+            throw new InternalError(cause.getMessage());
+        }
+
+        return segments[0].isObject? mergeObjects(parts): mergeArrays(parts);
+    }
+
+    /**
+     * 取消所有尚未完成的任务。
+     */
+    private static void cancel(List<Future<Json>> futures)
+    {
+        for(Future<Json> future: futures)
+        {
+            future.cancel(false);
+        }
+    }
+
+    /**
+     * 按顺序合并各段解析出的JsonArray。
+     */
+    private static JsonArray mergeArrays(Json[] parts)
+    {
+        int count = 0;
+        for(Json part: parts)
+        {
+            count += part.count();
+        }
+
+        JsonArray json = new JsonArray(count);
+        for(Json part: parts)
+        {
+            JsonArray ary = (JsonArray)part;
+            for(int i = 0; i < ary.count(); i++)
+            {
+                json.append(ary.get(i));
+            }
+        }
+        return json;
+    }
+
+    /**
+     * 合并各段解析出的JsonObject。
+     * @return 合并后的JsonObject，不同段中有相同的Name时返回null
+     */
+    private static JsonObject mergeObjects(Json[] parts)
+    {
+        int count = 0;
+        for(Json part: parts)
+        {
+            count += part.count();
+        }
+
+        JsonObject json = new JsonObject(count * 4 / 3 + 1);
+        for(Json part: parts)
+        {
+            for(Entry<String, Json> entry: ((JsonObject)part).entrySet())
+            {
+                String name = entry.getKey();
+                if(json.containsName(name)) return null; //重新顺序解析以得到相同的异常信息
+                json.set(name, entry.getValue());
+            }
+        }
+        return json;
+    }
+
+    /**
+     * 找出最外层JsonObject或JsonArray中分段位置的扫描器，逐个接受字符（或字节）。
+     */
+    private static final class Scanner
+    {
+        private final int segmentSize;
+        // 分段位置：最外层的'{'或'['、选作分段位置的','、最外层的'}'或']'
+        private int[] bounds = new int[16];
+        private int count = 0;
+        private int last = 0; // 上一个分段位置
+        private int depth = 0;
+        private int quote = 0; // 所在字符串的引号，不在字符串中时为0
+        private boolean escape = false; // 上一个字符是字符串中的转义符
+        private boolean closed = false; // 已经找到最外层的'}'或']'
+        private boolean isObject = false;
+
+        Scanner(int segmentSize)
+        {
+            this.segmentSize = segmentSize;
+        }
+
+        /**
+         * 扫描一块字符。
+         * @param block 字符块
+         * @param len 字符块中有效的字符数
+         * @param start 字符块第一个字符在文本中的位置
+         * @return 可以继续扫描返回true，发现无法分段时返回false
+         */
+        boolean accept(char[] block, int len, int start)
+        {
+            for(int i = 0; i < len; i++)
+            {
+                if(! accept(block[i], start + i)) return false;
+            }
+            return true;
+        }
+
+        /**
+         * 扫描一个字符，字节按ASCII字符处理（UTF-8编码的多字节字符不会包含ASCII字节）。
+         * @param c 字符
+         * @param pos 字符在文本中的位置
+         * @return 可以继续扫描返回true，发现无法分段时返回false
+         */
+        boolean accept(int c, int pos)
+        {
+            if(quote != 0)
+            {
+                if(escape)
+                {
+                    escape = false;
+                }
+                else if(c == '\\')
+                {
+                    escape = true;
+                }
+                else if(c == quote)
+                {
+                    quote = 0;
+                }
+                return true;
+            }
+
+            switch(c)
+            {
+            case '\"':
+            case '\'':
+                if(depth == 0) return false;
+                quote = c;
+                break;
+            case '{':
+            case '[':
+                if(depth == 0)
+                {
+                    if(closed) return false;
+                    isObject = (c == '{');
+                    add(pos);
+                }
+                depth++;
+                break;
+            case '}':
+            case ']':
+                if(depth == 0) return false;
+                if(--depth == 0)
+                {
+                    add(pos);
+                    closed = true;
+                }
+                break;
+            case ',':
+                if(depth == 0) return false;
+                if(depth == 1 && pos - last >= segmentSize) add(pos);
+                break;
+            default:
+                if(depth == 0 && ! JsonCharClass.isBlank(c)) return false;
+            }
+            return true;
+        }
+
+        /**
+         * 记录一个分段位置。
+         */
+        private void add(int pos)
+        {
+            if(count == bounds.length) bounds = Arrays.copyOf(bounds, count * 2);
+            bounds[count++] = pos;
+            last = pos;
+        }
+
+        /**
+         * 返回扫描的结果。
+         * @return 所有的分段位置，没有找到完整的最外层Json实例或只能分成一段时返回null
+         */
+        int[] bounds()
+        {
+            return (closed && count > 2)? Arrays.copyOf(bounds, count): null;
+        }
+    }
+
+    /**
+     * 解析一段子元素的任务，文本范围从这一段之前的'{'、'['或','开始，
+     * 到这一段之后的','、'}'或']'结束（包含）。
+     */
+    private static final class Segment implements Callable<Json>
+    {
+        private final CharSequence text;
+        private final byte[] bytes;
+        private final int start;
+        private final int end;
+        private final boolean isObject;
+
+        Segment(CharSequence text, byte[] bytes, int start, int end, boolean isObject)
+        {
+            this.text = text;
+            this.bytes = bytes;
+            this.start = start;
+            this.end = end;
+            this.isObject = isObject;
+        }
+
+        public Json call() throws IOException, JsonException
+        {
+            if(text != null)
+            {
+                JsonTextParser parser = new JsonTextParser(text, start, end, false);
+                if(isObject)
+                {
+                    JsonObject json = new JsonObject();
+                    parser.parseMembers(json);
+                    return json;
+                }
+                JsonArray json = new JsonArray();
+                parser.parseElements(json);
+                return json;
+            }
+            else
+            {
+                JsonByteParser parser = new JsonByteParser(bytes, start, end - start);
+                if(isObject)
+                {
+                    JsonObject json = new JsonObject();
+                    parser.parseMembers(json);
+                    return json;
+                }
+                JsonArray json = new JsonArray();
+                parser.parseElements(json);
+                return json;
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.bantouyan.json;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>内部类，缓存可以重复使用的JsonTextParser，供类Json的静态解析方法使用，仅供此Json库内部使用。</p>
+ *
+ * <p>解析器重置后保留字符缓冲区、StringBuilder与Name缓存，大量解析较短的Json文本时可以减少对象的创建。
+ * 缓存是固定数量的槽位，取出与放回都只用一次原子操作，不加锁也不阻塞，槽位都为空时直接新建解析器，
+ * 槽位都满时丢弃放回的解析器。不使用ThreadLocal，所以缓存的解析器个数与线程个数无关，
+ * 大量短生命周期的线程（如虚拟线程）也不会各自占有一个解析器，解析过程中也不会持有任何锁。</p>
+ *
+ * <p>取出的解析器只属于调用线程，解析过程中再次调用Json的解析方法（如在JsonHandler中）会取出另一个解析器。
+ * 放回之前清除对数据源的引用，所以缓存的解析器不会使已经解析过的文本无法回收。</p>
+ *
+ * @author 飞翔的河马
+ * @version 1.02
+ * @since 1.02
+ */
+final class JsonParserPool
+{
+    private static final AtomicReferenceArray<JsonTextParser> slots
+            = new AtomicReferenceArray<JsonTextParser>(Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+
+    private JsonParserPool()
+    {
+    }
+
+    /**
+     * 取出一个解析器并用字符序列重置。
+     * @param text Json文本，解析过程中不能修改
+     * @return 只属于调用线程的解析器，用完后应调用release放回
+     * @throws IOException 不会发生（内存中的字符）
+     */
+    static JsonTextParser acquire(CharSequence text) throws IOException
+    {
+        JsonTextParser parser = take();
+        if(parser == null) return new JsonTextParser(text);
+        parser.reset(text);
+        return parser;
+    }
+
+    /**
+     * 取出一个解析器并用Reader重置。
+     * @param reader 提供Json字符流
+     * @return 只属于调用线程的解析器，用完后应调用release放回
+     * @throws IOException 读写Reader发生异常
+     */
+    static JsonTextParser acquire(Reader reader) throws IOException
+    {
+        JsonTextParser parser = take();
+        if(parser == null) return new JsonTextParser(reader);
+        parser.reset(reader);
+        return parser;
+    }
+
+    /**
+     * 放回用完的解析器，之后调用者不能再使用该解析器。
+     * @param parser 由acquire取出的解析器
+     */
+    static void release(JsonTextParser parser)
+    {
+        parser.clear();
+        int len = slots.length();
+        int start = start(len);
+        for(int i = 0; i < len; i++)
+        {
+            if(slots.compareAndSet((start + i) % len, null, parser)) return;
+        }
+    }
+
+    /**
+     * 从槽位中取出一个解析器。
+     * @return 取出的解析器，所有槽位都为空时返回null
+     */
+    private static JsonTextParser take()
+    {
+        int len = slots.length();
+        int start = start(len);
+        for(int i = 0; i < len; i++)
+        {
+            int index = (start + i) % len;
+            if(slots.get(index) != null)
+            {
+                JsonTextParser parser = slots.getAndSet(index, null);
+                if(parser != null) return parser;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 根据线程选择开始查找的槽位，使不同的线程尽量使用不同的槽位。
+     */
+    private static int start(int len)
+    {
+        return (int)((Thread.currentThread().getId() & 0x7FFFFFFF) % len);
+    }
+}
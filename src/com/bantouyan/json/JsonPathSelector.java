@@ -0,0 +1,493 @@
+package com.bantouyan.json;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>从Json文本中提取指定路径的子元素，由类Json的静态方法<strong>extractPaths</strong>使用。</p>
+ *
+ * <p>路径可以是JSON Pointer（如"/user/id"，""表示根元素），
+ * 也可以是简单的路径表达式（如"$.user.id"、"$.items[*].price"、"$['a b'][0]"，
+ * "$"表示根元素，"*"匹配所有的子元素）。所有路径编译成一棵前缀树，
+ * 解析时只生成与路径匹配的子元素，不可能匹配的子元素只识别括号与引号快速跳过。
+ * 不含通配符的路径都已找到时立即停止读取。</p>
+ *
+ * @author 飞翔的河马
+ * @version 1.02
+ * @since 1.02
+ */
+final class JsonPathSelector
+{
+    /**
+     * 路径前缀树的节点，表示路径中的一段。
+     */
+    private static class Node
+    {
+        private String name = null; // 匹配的Name，为null时不匹配JsonObject的子元素
+        private int index = -1; // 匹配的下标，为-1时不匹配JsonArray的子元素
+        private boolean wildcard = false; // 是否匹配所有的子元素
+        private ArrayList<Node> children = new ArrayList<Node>();
+        private ArrayList<Integer> ends = new ArrayList<Integer>(); // 在此结束的路径的序号
+
+        private boolean matches(String name, int index)
+        {
+            return wildcard || (name != null && name.equals(this.name))
+                    || (index >= 0 && index == this.index);
+        }
+
+        private boolean sameSegment(Node node)
+        {
+            return wildcard == node.wildcard && index == node.index
+                    && (name == null? node.name == null: name.equals(node.name));
+        }
+    }
+
+    private Node root = new Node();
+    private String[] paths;
+    private ArrayList<List<Json>> results;
+    private boolean[] exact; // 路径不含通配符，最多只有一个匹配的子元素
+    private int remaining; // 尚未找到的路径个数，有通配符时总是大于0
+    private boolean done = false;
+
+    /**
+     * 用一组路径新建一个JsonPathSelector对象。
+     * @param paths JSON Pointer或简单路径表达式
+     * @throws JsonException 路径格式不正确
+     */
+    JsonPathSelector(String[] paths) throws JsonException
+    {
+        this.paths = paths;
+        this.results = new ArrayList<List<Json>>(paths.length);
+        this.exact = new boolean[paths.length];
+        this.remaining = paths.length;
+        for(int i=0; i<paths.length; i++)
+        {
+            results.add(new ArrayList<Json>());
+            Node node = root;
+            exact[i] = true;
+            for(Node segment: compile(paths[i]))
+            {
+                if(segment.wildcard)
+                {
+                    exact[i] = false;
+                    remaining = Integer.MAX_VALUE;
+                }
+                node = child(node, segment);
+            }
+            node.ends.add(i);
+        }
+    }
+
+    /**
+     * 从解析器中提取所有路径对应的子元素，解析器应指向Json文本（可包含前导空白）的第一个字符。
+     * @param parser 提供Json文本的解析器
+     * @return 每个路径（按传入的顺序）及其匹配的子元素，没有匹配的路径对应空的List
+     * @throws IOException 读取Reader发生异常
+     * @throws JsonException Json格式不正确
+     */
+    Map<String, List<Json>> select(JsonTextParser parser) throws IOException, JsonException
+    {
+        parser.skipBlank();
+        int ch = parser.current();
+        if(ch == '{' || ch == '[')
+        {
+            if(! root.ends.isEmpty())
+            {
+                Json json = (ch == '{')? parser.parseObject(): parser.parseArray();
+                collect(json, root);
+            }
+            else
+            {
+                ArrayList<Node> nodes = new ArrayList<Node>(1);
+                nodes.add(root);
+                if(ch == '{')
+                {
+                    selectObject(nodes, parser);
+                }
+                else
+                {
+                    selectArray(nodes, parser);
+                }
+            }
+            if(! done) parser.parseTailBlank(-1);
+        }
+        else if(ch == -1)
+        {
+            String msg = "Cannot parse blank character sequence to json.";
+            throw new JsonException(msg);
+        }
+        else
+        {
+            String msg = "Cannot found json object begin sign '{'" +
+                    " or json array begin sign ']' at position " + parser.position() + ".";
+            throw new JsonException(msg);
+        }
+
+        LinkedHashMap<String, List<Json>> map = new LinkedHashMap<String, List<Json>>();
+        for(int i=0; i<paths.length; i++)
+        {
+            List<Json> list = map.get(paths[i]);
+            if(list == null)
+            {
+                map.put(paths[i], results.get(i));
+            }
+        }
+        return map;
+    }
+
+    /**
+     * 解析JsonObject，只处理Name与路径匹配的子元素，
+     * 进入时指向字符'{'，退出时指向对应的'}'之后的第一个字符（已找到所有路径时立即退出）。
+     * @param nodes 与此JsonObject匹配的节点
+     * @param parser 提供Json文本的解析器
+     * @throws IOException 读取Reader发生异常
+     * @throws JsonException Json格式不正确
+     */
+    private void selectObject(ArrayList<Node> nodes, JsonTextParser parser) throws IOException, JsonException
+    {
+        boolean needNextElement = false;
+
+        parser.next(); //skip character '{'
+        parser.skipBlank();
+
+        while(parser.current() != -1)
+        {
+            if(needNextElement == false && parser.current() == '}') break;
+
+            String name = parser.parseName(true);
+            selectValue(match(nodes, name, -1), '}', parser);
+            if(done) return;
+            parser.parseTailBlank(',', '}');
+            if(parser.current() == '}')
+            {
+                break;
+            }
+            else
+            {
+                parser.next(); // skip character ','
+                parser.skipBlank();
+                needNextElement = true;
+            }
+        }
+
+        if(parser.current() == '}')
+        {
+            parser.next(); // skip character '}'
+        }
+        else
+        {
+            String msg = "Cannot found object end sign \'}\' at position " + parser.position() + ".";
+            throw new JsonException(msg);
+        }
+    }
+
+    /**
+     * 解析JsonArray，只处理下标与路径匹配的子元素，
+     * 进入时指向字符'['，退出时指向对应的']'之后的第一个字符（已找到所有路径时立即退出）。
+     * @param nodes 与此JsonArray匹配的节点
+     * @param parser 提供Json文本的解析器
+     * @throws IOException 读取Reader发生异常
+     * @throws JsonException Json格式不正确
+     */
+    private void selectArray(ArrayList<Node> nodes, JsonTextParser parser) throws IOException, JsonException
+    {
+        boolean needNextElement = false;
+        int index = 0;
+
+        parser.next(); // skip character '['
+        parser.skipBlank();
+
+        while(parser.current() != -1)
+        {
+            if(needNextElement == false && parser.current() == ']') break;
+
+            selectValue(match(nodes, null, index), ']', parser);
+            if(done) return;
+            index++;
+            parser.parseTailBlank(',', ']');
+            if(parser.current() == ']')
+            {
+                break;
+            }
+            else
+            {
+                parser.next(); // skip character ','
+                parser.skipBlank();
+                needNextElement = true;
+            }
+        }
+
+        if(parser.current() == ']')
+        {
+            parser.next(); // skip character ']'
+        }
+        else
+        {
+            String msg = "Cannot found array end sign \']\' at position " + parser.position() + ".";
+            throw new JsonException(msg);
+        }
+    }
+
+    /**
+     * 处理一个子元素：有路径在此结束时解析子元素，有更深的路径时继续选择，否则快速跳过。
+     * 进入时指向子元素（可包含前导空白）的第一个字符，退出时指向子元素之后的第一个字符。
+     * @param nodes 与此子元素匹配的节点，为null时跳过子元素
+     * @param endChar 子元素除逗号外的结束符，只允许是]或}
+     * @param parser 提供Json文本的解析器
+     * @throws IOException 读取Reader发生异常
+     * @throws JsonException Json格式不正确
+     */
+    private void selectValue(ArrayList<Node> nodes, int endChar, JsonTextParser parser)
+            throws IOException, JsonException
+    {
+        parser.skipBlank();
+        if(nodes == null)
+        {
+            parser.skipFast(endChar);
+            return;
+        }
+
+        for(Node node: nodes)
+        {
+            if(! node.ends.isEmpty())
+            {
+                //有路径在此结束，解析整个子元素，更深的路径直接在解析结果中查找
+                Json json = parser.parseValue(endChar);
+                for(Node n: nodes)
+                {
+                    collect(json, n);
+                }
+                return;
+            }
+        }
+
+        int ch = parser.current();
+        if(ch == '{')
+        {
+            selectObject(nodes, parser);
+        }
+        else if(ch == '[')
+        {
+            selectArray(nodes, parser);
+        }
+        else
+        {
+            parser.skipFast(endChar);
+        }
+    }
+
+    /**
+     * 在已解析的Json实例中查找节点及其下级节点对应的路径。
+     * @param json 与节点匹配的Json实例
+     * @param node 路径前缀树的节点
+     */
+    private void collect(Json json, Node node)
+    {
+        for(int i: node.ends)
+        {
+            found(i, json);
+        }
+
+        for(Node child: node.children)
+        {
+            if(json instanceof JsonObject)
+            {
+                JsonObject obj = (JsonObject)json;
+                if(child.wildcard)
+                {
+                    for(Json value: obj.values())
+                    {
+                        collect(value, child);
+                    }
+                }
+                else if(child.name != null && obj.containsName(child.name))
+                {
+                    collect(obj.get(child.name), child);
+                }
+            }
+            else if(json instanceof JsonArray)
+            {
+                JsonArray ary = (JsonArray)json;
+                for(int k=0; k<ary.count(); k++)
+                {
+                    if(child.matches(null, k)) collect(ary.get(k), child);
+                }
+            }
+        }
+    }
+
+    /**
+     * 记录路径匹配的子元素，所有路径都已找到时设置结束标志。
+     * @param i 路径的序号
+     * @param json 匹配的子元素
+     */
+    private void found(int i, Json json)
+    {
+        List<Json> list = results.get(i);
+        if(exact[i])
+        {
+            if(! list.isEmpty()) return;
+            remaining--;
+        }
+        list.add(json);
+        if(remaining == 0) done = true;
+    }
+
+    /**
+     * 返回与子元素匹配的所有下级节点。
+     * @param nodes 与上级Json实例匹配的节点
+     * @param name 子元素的Name，JsonArray的子元素为null
+     * @param index 子元素的下标，JsonObject的子元素为-1
+     * @return 匹配的下级节点，没有时返回null
+     */
+    private static ArrayList<Node> match(ArrayList<Node> nodes, String name, int index)
+    {
+        ArrayList<Node> matched = null;
+        for(Node node: nodes)
+        {
+            for(Node child: node.children)
+            {
+                if(child.matches(name, index))
+                {
+                    if(matched == null) matched = new ArrayList<Node>(2);
+                    matched.add(child);
+                }
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * 返回与segment表示同一段路径的下级节点，不存在时新建。
+     * @param node 上级节点
+     * @param segment 一段路径
+     * @return 下级节点
+     */
+    private static Node child(Node node, Node segment)
+    {
+        for(Node child: node.children)
+        {
+            if(child.sameSegment(segment)) return child;
+        }
+        node.children.add(segment);
+        return segment;
+    }
+
+    /**
+     * 把路径分解为一组节点，每段路径一个。
+     * @param path JSON Pointer或简单路径表达式
+     * @return 每段路径对应的节点
+     * @throws JsonException 路径格式不正确
+     */
+    private static ArrayList<Node> compile(String path) throws JsonException
+    {
+        ArrayList<Node> segments = new ArrayList<Node>();
+        if(path == null)
+        {
+            throw new JsonException("Json path cannot be null.");
+        }
+        else if(path.length() == 0)
+        {
+            return segments; // JSON Pointer ""表示根元素
+        }
+        else if(path.charAt(0) == '/')
+        {
+            //JSON Pointer，~1表示'/'，~0表示'~'，由数字组成的一段同时匹配Name与下标
+            int start = 1;
+            while(true)
+            {
+                int end = path.indexOf('/', start);
+                if(end < 0) end = path.length();
+                Node node = new Node();
+                node.name = path.substring(start, end).replace("~1", "/").replace("~0", "~");
+                node.index = toIndex(node.name);
+                segments.add(node);
+                if(end == path.length()) break;
+                start = end + 1;
+            }
+            return segments;
+        }
+        else if(path.charAt(0) != '$')
+        {
+            throw new JsonException("Json path \"" + path + "\" must begin with '/' or '$'.");
+        }
+
+        int i = 1;
+        while(i < path.length())
+        {
+            Node node = new Node();
+            char c = path.charAt(i);
+            if(c == '.')
+            {
+                int end = i + 1;
+                while(end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') end++;
+                String name = path.substring(i + 1, end);
+                if(name.length() == 0)
+                {
+                    throw new JsonException("Empty name found in json path \"" + path + "\" at position " + i + ".");
+                }
+                if(name.equals("*"))
+                {
+                    node.wildcard = true;
+                }
+                else
+                {
+                    node.name = name;
+                }
+                i = end;
+            }
+            else if(c == '[')
+            {
+                int end = path.indexOf(']', i);
+                if(end < 0)
+                {
+                    throw new JsonException("Cannot found ']' in json path \"" + path + "\" after position " + i + ".");
+                }
+                String token = path.substring(i + 1, end);
+                int len = token.length();
+                if(token.equals("*"))
+                {
+                    node.wildcard = true;
+                }
+                else if(len >= 2 && (token.charAt(0) == '\'' || token.charAt(0) == '\"')
+                        && token.charAt(len - 1) == token.charAt(0))
+                {
+                    node.name = token.substring(1, len - 1);
+                }
+                else if((node.index = toIndex(token)) < 0)
+                {
+                    throw new JsonException("Invalid index \"" + token + "\" in json path \"" + path + "\" at position " + i + ".");
+                }
+                i = end + 1;
+            }
+            else
+            {
+                throw new JsonException("Unexpected character '" + c + "' in json path \"" + path + "\" at position " + i + ".");
+            }
+            segments.add(node);
+        }
+        return segments;
+    }
+
+    /**
+     * 把由数字组成的一段路径转换为下标。
+     * @param token 一段路径
+     * @return 对应的下标，不是合法的下标时返回-1
+     */
+    private static int toIndex(String token)
+    {
+        int len = token.length();
+        if(len == 0 || len > 9 || (len > 1 && token.charAt(0) == '0')) return -1;
+        int index = 0;
+        for(int i=0; i<len; i++)
+        {
+            char c = token.charAt(i);
+            if(c < '0' || c > '9') return -1;
+            index = index * 10 + (c - '0');
+        }
+        return index;
+    }
+}
@@ -0,0 +1,496 @@
+package com.bantouyan.json;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * <p>流水线方式解析作为根元素的JsonArray的子元素，服务于类Json的静态方法parseArrayElements。</p>
+ *
+ * <p>调用线程作为切分线程，从Reader中读取字符，只识别括号与引号快速找出每个子元素的范围，
+ * 把子元素的文本放入有界的队列；若干个工作线程从队列中取出子元素文本，解析成Json实例后交给JsonConsumer。
+ * 同时处于队列中、正在解析或等待按顺序交出的子元素最多有capacity个，达到上限时切分线程等待（背压），
+ * 所以占用的内存只与capacity及子元素的大小有关，而与子元素的个数无关。</p>
+ *
+ * <p>方法accept在工作线程中调用，但同一时刻只调用一次，所以JsonConsumer不需要是线程安全的。
+ * 按顺序交出（ordered为true）时，子元素按其在JsonArray中的顺序交出；
+ * 否则按解析完成的先后交出，不必等待前面较大的子元素。
+ * 格式错误的处理与parseArrayElements(reader, consumer)相同：抛出的异常及其信息（包括位置）
+ * 与顺序解析相同，按顺序交出时出错的子元素之前的子元素都已交出，之后的都不会交出；
+ * 不按顺序交出时，出错的子元素之后的子元素可能有一部分已经交出。</p>
+ *
+ * <p>每次解析结束后可以通过getLexerWaitCount等方法读取这次解析的统计数据，用来调整工作线程数与队列大小：
+ * 切分线程等待的时间长说明工作线程不足（或consumer太慢），工作线程空闲的时间长说明读取Reader是瓶颈。
+ * 一个JsonPipeline对象可以先后用于多次解析，但不能同时用于多个解析过程。</p>
+ *
+ * @author 飞翔的河马
+ * @version 1.02
+ * @since 1.02
+ */
+public final class JsonPipeline
+{
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private final int workers;
+    private final int capacity;
+    private final boolean ordered;
+
+    // 最近一次解析的统计数据
+    private volatile long elementCount = 0;
+    private volatile long lexerWaitCount = 0;
+    private volatile long lexerWaitNanos = 0;
+    private volatile long workerIdleNanos = 0;
+    private volatile int maxInFlight = 0;
+
+    /**
+     * 新建一个JsonPipeline对象，工作线程数与处理器个数相同，最多1024个子元素同时在流水线中，按顺序交出子元素。
+     */
+    public JsonPipeline()
+    {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_CAPACITY, true);
+    }
+
+    /**
+     * 新建一个JsonPipeline对象。
+     * @param workers 工作线程数
+     * @param capacity 最多同时在流水线中（处于队列中、正在解析或等待按顺序交出）的子元素个数
+     * @param ordered 为true时按子元素在JsonArray中的顺序交出，为false时按解析完成的先后交出
+     * @throws IllegalArgumentException workers或capacity小于1
+     */
+    public JsonPipeline(int workers, int capacity, boolean ordered)
+    {
+        if(workers < 1)
+        {
+            throw new IllegalArgumentException("Workers " + workers + " is less than 1.");
+        }
+        if(capacity < 1)
+        {
+            throw new IllegalArgumentException("Capacity " + capacity + " is less than 1.");
+        }
+        this.workers = workers;
+        this.capacity = capacity;
+        this.ordered = ordered;
+    }
+
+    /**
+     * 返回最近一次解析切分出的子元素个数。
+     * @return 子元素个数
+     */
+    public long getElementCount()
+    {
+        return elementCount;
+    }
+
+    /**
+     * 返回最近一次解析中切分线程因流水线已满而等待的次数。
+     * @return 等待的次数
+     */
+    public long getLexerWaitCount()
+    {
+        return lexerWaitCount;
+    }
+
+    /**
+     * 返回最近一次解析中切分线程因流水线已满而等待的总时间。
+     * @return 等待的纳秒数
+     */
+    public long getLexerWaitNanos()
+    {
+        return lexerWaitNanos;
+    }
+
+    /**
+     * 返回最近一次解析中所有工作线程因队列为空而等待的总时间。
+     * @return 等待的纳秒数
+     */
+    public long getWorkerIdleNanos()
+    {
+        return workerIdleNanos;
+    }
+
+    /**
+     * 返回最近一次解析中同时在流水线中的子元素个数的最大值，不超过capacity。
+     * @return 子元素个数的最大值
+     */
+    public int getMaxInFlight()
+    {
+        return maxInFlight;
+    }
+
+    /**
+     * 解析reader中作为根元素的JsonArray，每解析完一个子元素就交给consumer。
+     * @param reader 包含Json文本的Reader实例，整个字符流应该是一个完整的JsonArray的表示
+     * @param consumer 接受子元素的回调
+     * @throws IOException 读写reader发生异常，或等待时调用线程被中断（InterruptedIOException）
+     * @throws JsonException Json文本格式不正确，或根元素不是JsonArray
+     */
+    void parse(Reader reader, JsonConsumer consumer) throws IOException, JsonException
+    {
+        new Run(consumer).parse(new JsonTextParser(reader));
+    }
+
+    /**
+     * 切分出的一个子元素。
+     */
+    private static final class Element
+    {
+        final CharSequence text; // 子元素的文本，包括其后的空白与','或']'
+        final long position; // 子元素第一个字符在整个Json文本中的位置
+        final long index; // 子元素在JsonArray中的下标
+
+        Element(CharSequence text, long position, long index)
+        {
+            this.text = text;
+            this.position = position;
+            this.index = index;
+        }
+    }
+
+    // 通知工作线程结束的标记
+    private static final Element END = new Element(null, 0, -1);
+    // 按顺序交出时，表示出错或被跳过的子元素的标记
+    private static final Object SKIPPED = new Object();
+
+    /**
+     * 一次解析的状态。
+     */
+    private final class Run
+    {
+        private final JsonConsumer consumer;
+        private final Semaphore slots = new Semaphore(capacity);
+        // 结束标记不占用slots，所以队列的大小要能同时容纳它们
+        private final BlockingQueue<Element> queue = new ArrayBlockingQueue<Element>(capacity + workers);
+        private final Object lock = new Object();
+        // 以下字段由lock保护
+        private final HashMap<Long, Object> pending = new HashMap<Long, Object>(); // 等待按顺序交出的子元素
+        private long nextIndex = 0; // 下一个按顺序交出的子元素的下标
+        private Throwable failure = null; // 最早的错误
+        private long idleNanos = 0;
+        // 最早的错误的位置：所在子元素下标的2倍，子元素本身正确、之后才出错（如缺少分隔符）时再加1，
+        // 与顺序解析相同，之前的子元素都要交出，之后的子元素不再解析（也不再交出）
+        private volatile long failedOrder = Long.MAX_VALUE;
+
+        private long count = 0;
+        private long waitCount = 0;
+        private long waitNanos = 0;
+        private int inFlight = 0;
+
+        Run(JsonConsumer consumer)
+        {
+            this.consumer = consumer;
+        }
+
+        /**
+         * 启动工作线程，在调用线程中切分子元素，等待所有子元素处理完后抛出最早的异常。
+         */
+        void parse(JsonTextParser parser) throws IOException, JsonException
+        {
+            Thread[] threads = new Thread[workers];
+            for(int i = 0; i < workers; i++)
+            {
+                threads[i] = new Thread(new Worker(), "JsonPipeline-worker-" + i);
+                threads[i].setDaemon(true);
+                threads[i].start();
+            }
+
+            Exception lexerError = null;
+            try
+            {
+                split(parser);
+            }
+            catch(IOException e)
+            {
+                lexerError = e;
+            }
+            catch(JsonException e)
+            {
+                lexerError = e;
+            }
+            finally
+            {
+                stop(threads);
+            }
+
+            elementCount = count;
+            lexerWaitCount = waitCount;
+            lexerWaitNanos = waitNanos;
+            maxInFlight = inFlight;
+            synchronized(lock)
+            {
+                workerIdleNanos = idleNanos;
+                //出错的子元素在切分线程出错的位置之前，顺序解析时会先遇到它
+                if(failure instanceof RuntimeException) throw (RuntimeException)failure;
+                if(failure instanceof Error) throw (Error)failure;
+            }
+            if(lexerError instanceof IOException) throw (IOException)lexerError;
+            if(lexerError != null) throw (JsonException)lexerError;
+        }
+
+        /**
+         * 切分JsonArray的子元素，与JsonTextParser.parseArrayElements的流程相同，
+         * 只是用skipFast代替parseValue，并记录子元素的文本。
+         */
+        private void split(JsonTextParser parser) throws IOException, JsonException
+        {
+            parser.skipBlank();
+            if(parser.current() == -1)
+            {
+                String msg = "Cannot parse blank character sequence to json.";
+                throw new JsonException(msg);
+            }
+            else if(parser.current() != '[')
+            {
+                String msg = "Cannot found json array begin sign '[' at position " + parser.position() + ".";
+                throw new JsonException(msg);
+            }
+
+            boolean needNextElement = false;
+
+            parser.next(); // skip character '['
+
+            while(parser.current() != -1)
+            {
+                if(needNextElement == false && parser.current() == ']') break;
+
+                if(JsonCharClass.isBlank(parser.current()))
+                {
+                    parser.skipBlank();
+                }
+                else
+                {
+                    if(failedOrder != Long.MAX_VALUE) return; //已有子元素出错，不必继续切分
+
+                    long position = parser.position();
+                    StringBuilder text = new StringBuilder();
+                    parser.startCapture(text);
+                    try
+                    {
+                        parser.skipFast(']');
+                        parser.parseTailBlank(',', ']');
+                    }
+                    catch(JsonException e)
+                    {
+                        //交给工作线程解析已读过的部分，以得到与顺序解析相同的异常
+                        parser.endCapture();
+                        submit(new Element(text, position, count++));
+                        throw e;
+                    }
+                    parser.endCapture();
+                    submit(new Element(text, position, count++));
+
+                    if (parser.current() == ']') //子元素后是']'，数组结束
+                    {
+                        break;
+                    }
+                    else //子元素后是','，需解析下一个子元素
+                    {
+                        parser.next(); // skip character ','
+                        needNextElement = true;
+                    }
+                }
+            }
+
+            if(parser.current() == ']')
+            {
+                parser.next(); // skip character ']'
+            }
+            else
+            {
+                String msg = "Cannot found array end sign \']\' at position " + parser.position() + ".";
+                throw new JsonException(msg);
+            }
+            parser.parseTailBlank(-1);
+        }
+
+        /**
+         * 把子元素放入队列，流水线已满时等待。
+         */
+        private void submit(Element element) throws IOException
+        {
+            if(! slots.tryAcquire())
+            {
+                waitCount++;
+                long start = System.nanoTime();
+                try
+                {
+                    slots.acquire();
+                }
+                catch(InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for pipeline workers.");
+                }
+                waitNanos += System.nanoTime() - start;
+            }
+            inFlight = Math.max(inFlight, capacity - slots.availablePermits());
+            queue.add(element);
+        }
+
+        /**
+         * 通知所有工作线程结束，并等待它们处理完队列中的子元素。
+         */
+        private void stop(Thread[] threads)
+        {
+            for(int i = 0; i < threads.length; i++)
+            {
+                queue.add(END);
+            }
+
+            boolean interrupted = false;
+            for(Thread thread: threads)
+            {
+                while(thread.isAlive())
+                {
+                    try
+                    {
+                        thread.join();
+                    }
+                    catch(InterruptedException e)
+                    {
+                        interrupted = true;
+                    }
+                }
+            }
+            if(interrupted) Thread.currentThread().interrupt();
+        }
+
+        /**
+         * 记录错误，只保留最早的。
+         * @param order 错误的位置，见failedOrder
+         * @param e 错误
+         */
+        private void fail(long order, Throwable e)
+        {
+            synchronized(lock)
+            {
+                if(order < failedOrder)
+                {
+                    failedOrder = order;
+                    failure = e;
+                }
+            }
+        }
+
+        /**
+         * 交出解析完成的子元素，按顺序交出时先放入pending，再交出所有已连续的子元素。
+         * @param index 子元素的下标
+         * @param value 解析出的Json实例，出错或被跳过时为SKIPPED
+         */
+        private void deliver(long index, Object value)
+        {
+            synchronized(lock)
+            {
+                if(! ordered)
+                {
+                    accept(index, value);
+                    slots.release();
+                    return;
+                }
+
+                pending.put(index, value);
+                while((value = pending.remove(nextIndex)) != null)
+                {
+                    accept(nextIndex, value);
+                    nextIndex++;
+                    slots.release();
+                }
+            }
+        }
+
+        /**
+         * 在持有lock时调用consumer，consumer抛出的异常作为该子元素的错误。
+         */
+        private void accept(long index, Object value)
+        {
+            if(value == SKIPPED || index * 2 >= failedOrder) return;
+            try
+            {
+                consumer.accept((Json)value);
+            }
+            catch(Throwable e)
+            {
+                fail(index * 2 + 1, e);
+            }
+        }
+
+        /**
+         * 工作线程，从队列中取出子元素并解析。
+         */
+        private final class Worker implements Runnable
+        {
+            private final JsonNameCache names = new JsonNameCache(); // 同一个线程解析的子元素共享Name缓存
+
+            public void run()
+            {
+                long idle = 0;
+                while(true)
+                {
+                    Element element = queue.poll();
+                    if(element == null)
+                    {
+                        long start = System.nanoTime();
+                        element = take();
+                        idle += System.nanoTime() - start;
+                    }
+                    if(element == END) break;
+
+                    deliver(element.index, parse(element));
+                }
+                synchronized(lock)
+                {
+                    idleNanos += idle;
+                }
+            }
+
+            /**
+             * 从队列中取出一个子元素，工作线程不会被中断，被中断时继续等待。
+             */
+            private Element take()
+            {
+                while(true)
+                {
+                    try
+                    {
+                        return queue.take();
+                    }
+                    catch(InterruptedException e)
+                    {
+                        //继续等待结束标记
+                    }
+                }
+            }
+
+            /**
+             * 解析一个子元素，出错时记录异常。与顺序解析相同，子元素本身正确而之后出错时仍然交出该子元素。
+             * @return 解析出的Json实例，子元素本身出错或不需要解析时返回SKIPPED
+             */
+            private Object parse(Element element)
+            {
+                long order = element.index * 2;
+                if(order > failedOrder) return SKIPPED;
+                Json json = null;
+                try
+                {
+                    JsonTextParser parser = new JsonTextParser(element.text, element.position);
+                    parser.setNameCache(names);
+                    json = parser.parseValue(']');
+                    parser.parseTailBlank(',', ']');
+                }
+                catch(IOException e)
+                {
+                    //直接读取内存中的字符，不会产生IO异常，所以这里作为内部错误处理。
+                    fail((json == null)? order: order + 1, new InternalError(e.getMessage()));
+                }
+                catch(Throwable e)
+                {
+                    fail((json == null)? order: order + 1, e);
+                }
+                return (json == null)? SKIPPED: json;
+            }
+        }
+    }
+}
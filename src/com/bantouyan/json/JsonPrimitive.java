@@ -313,10 +313,13 @@ public final class JsonPrimitive extends Json
     /**
      * 判断两个Json实例表示的数据是否一致。
      * @param obj 被比较的Json实例
+     * @param thisRef 本实例一侧的上级Json对象堆栈，用于检测循环引用
+     * @param objRef obj一侧的上级Json对象堆栈，用于检测循环引用
      * @return 一致返回true，不一致返回false
+     * @throws JsonException 参与比较的Json实例内存在循环引用
      */
     @Override
-    protected boolean same(Json obj)
+    protected boolean same(Json obj, IdentityStack thisRef, IdentityStack objRef)
     {
         if(obj == null)
         {
@@ -411,20 +414,59 @@ public final class JsonPrimitive extends Json
     * 向可追加对象追加Json文本。
     * @param dest 接受Json文本的可追加对象
     * @param useQuote 为true时Object的Name部分加引号， false时尽量不加引号
+    * @param parentRef 上级Json对象堆栈，对Primitive类型的Json实例无意义
+    * @param numbers 格式化数值的缓冲区，由一次输出独占并重复使用
     * @throws IOException 追加字符流发生IO异常
     */
     @Override
-   protected void appendToAppendable(Appendable dest, boolean useQuote) throws IOException
+   protected void appendToAppendable(Appendable dest, boolean useQuote, IdentityStack parentRef,
+           NumberConverter.Buffer numbers) throws IOException
     {
         if(this.type == JsonType.STRING)
         {
             JsonTextParser.jsonStringToAppendable((String)data, dest);
         }
+        else if(this.type == JsonType.INTEGER)
+        {
+            NumberConverter.appendLong(((Long)data).longValue(), dest, numbers);
+        }
+        else if(this.type == JsonType.FLOAT)
+        {
+            NumberConverter.appendDouble(((Double)data).doubleValue(), dest, numbers);
+        }
         else
         {
             dest.append(data.toString());
         }
     }
+    
+    /**
+    * 向JsonByteWriter写入UTF-8编码的Json文本。
+    * @param dest 接受Json文本的JsonByteWriter
+    * @param useQuote 为true时Object的Name部分加引号， false时尽量不加引号
+    * @param parentRef 上级Json对象堆栈，对Primitive类型的Json实例无意义
+    * @throws IOException 写出字节发生IO异常
+    */
+    @Override
+    protected void appendToBytes(JsonByteWriter dest, boolean useQuote, IdentityStack parentRef) throws IOException
+    {
+        if(this.type == JsonType.STRING)
+        {
+            dest.writeString((String)data);
+        }
+        else if(this.type == JsonType.INTEGER)
+        {
+            dest.writeLong(((Long)data).longValue());
+        }
+        else if(this.type == JsonType.FLOAT)
+        {
+            dest.writeDouble(((Double)data).doubleValue());
+        }
+        else
+        {
+            dest.writeAscii(data.toString());
+        }
+    }
 
     /**
      * 返回 Json实例类型STRING, INTEGER, FLOAT, BOOLEAN或NULL。
@@ -445,4 +487,14 @@ public final class JsonPrimitive extends Json
     {
         return false;
     }
+    
+    /**
+     * 设置是否缓存生成的Json文本，对Primitive类型的Json实例无意义，不执行任何操作。
+     * @param cache 是否缓存
+     * @param parentRef 上级Json对象堆栈
+     */
+    @Override
+    protected void setCacheText(boolean cache, IdentityStack parentRef)
+    {
+    }
 }
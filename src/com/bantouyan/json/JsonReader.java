@@ -0,0 +1,582 @@
+package com.bantouyan.json;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * <p>拉模式（Pull）的Json读取器，从Json文本中逐个读取记号（Token），
+ * 不生成完整的Json实例，所以可以处理大于内存的Json文本。
+ * 接受的语法与类方法<strong>Json.parseJsonText</strong>相同，
+ * 包括单引号字符串与不带引号的Name。</p>
+ *
+ * <p>方法<strong>nextToken</strong>读取并返回下一个记号，
+ * 方法<strong>getToken</strong>返回当前记号，
+ * 方法<strong>getName</strong>返回当前所在JsonObject子元素的Name，
+ * 方法<strong>getString、getLong、getDouble、getBoolean</strong>返回当前记号的值。
+ * 方法<strong>skipValue</strong>跳过当前值（可以是整个JsonObject或JsonArray），
+ * 只检查格式而不生成任何Json实例；
+ * 方法<strong>readJson</strong>则把当前值解析为Json实例。</p>
+ *
+ * <p>与Json.parseJsonText不同的是，JsonReader不检测JsonObject中重复的Name。</p>
+ *
+ * <p><strong>示例</strong>：<br/>
+ * <code>
+ * &nbsp;&nbsp;&nbsp;&nbsp;JsonReader reader = new JsonReader(text);<br/>
+ * &nbsp;&nbsp;&nbsp;&nbsp;while(reader.nextToken() != JsonToken.END_DOCUMENT)<br/>
+ * &nbsp;&nbsp;&nbsp;&nbsp;{<br/>
+ * &nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;if(reader.getToken() == JsonToken.NAME &amp;&amp; reader.getName().equals("list"))<br/>
+ * &nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;reader.skipValue();<br/>
+ * &nbsp;&nbsp;&nbsp;&nbsp;}<br/>
+ * </code></p>
+ *
+ * @author 飞翔的河马
+ * @version 1.02
+ * @since 1.02
+ */
+public class JsonReader implements Closeable
+{
+    // 各层JsonObject或JsonArray的解析状态
+    private static final int OBJECT_START = 0; // 已读入'{'
+    private static final int OBJECT_NAME = 1;  // 已读入子元素的Name
+    private static final int OBJECT_VALUE = 2; // 已读入子元素的Value
+    private static final int ARRAY_START = 3;  // 已读入'['
+    private static final int ARRAY_VALUE = 4;  // 已读入子元素
+
+    private Reader reader;
+    private JsonTextParser lexer;
+    private int[] states = new int[32];
+    private String[] names = new String[32];
+    private int depth = 0;
+    private boolean rootFound = false;
+
+    // 当前记号及其值，当前记号是START_OBJECT或START_ARRAY时，lexer仍指向字符'{'或'['
+    private JsonToken token = null;
+    private String string = null;
+    private Number number = null;
+    private boolean bool = false;
+
+    /**
+     * 用Reader新建一个JsonReader对象。
+     * @param reader 提供Json字符流
+     * @throws IOException 读取Reader发生异常
+     */
+    public JsonReader(Reader reader) throws IOException
+    {
+        this.reader = reader;
+        this.lexer = new JsonTextParser(reader);
+    }
+
+    /**
+     * 用字符串（或其他字符序列）新建一个JsonReader对象。
+     * @param text Json文本，读取过程中不能修改
+     */
+    public JsonReader(CharSequence text)
+    {
+        try
+        {
+            this.lexer = new JsonTextParser(text);
+        }
+        catch (IOException e)
+        {
+            //直接读取内存中的字符，不会产生IO异常，所以这里作为内部错误处理。
+            throw new InternalError(e.getMessage());
+        }
+    }
+
+    /**
+     * 读取下一个记号。
+     * @return 读取到的记号，Json文本结束后始终返回END_DOCUMENT
+     * @throws IOException 读取Reader发生异常
+     * @throws JsonException Json格式不正确
+     */
+    public JsonToken nextToken() throws IOException, JsonException
+    {
+        if(token == JsonToken.START_OBJECT)
+        {
+            lexer.next(); // skip character '{'
+            push(OBJECT_START);
+        }
+        else if(token == JsonToken.START_ARRAY)
+        {
+            lexer.next(); // skip character '['
+            push(ARRAY_START);
+        }
+        string = null;
+        number = null;
+
+        if(depth == 0)
+        {
+            token = (rootFound)? readEnd(): readRoot();
+            return token;
+        }
+
+        switch(states[depth - 1])
+        {
+            case OBJECT_START:
+                lexer.skipBlank();
+                if(lexer.current() == '}')
+                {
+                    token = pop(JsonToken.END_OBJECT);
+                }
+                else
+                {
+                    token = readName();
+                }
+                break;
+            case OBJECT_NAME:
+                token = readValue('}');
+                break;
+            case OBJECT_VALUE:
+                lexer.parseTailBlank(',', '}');
+                if(lexer.current() == '}')
+                {
+                    token = pop(JsonToken.END_OBJECT);
+                }
+                else
+                {
+                    lexer.next(); // skip character ','
+                    lexer.skipBlank();
+                    token = readName();
+                }
+                break;
+            case ARRAY_START:
+                lexer.skipBlank();
+                if(lexer.current() == ']')
+                {
+                    token = pop(JsonToken.END_ARRAY);
+                }
+                else
+                {
+                    token = readValue(']');
+                }
+                break;
+            default: // ARRAY_VALUE
+                lexer.parseTailBlank(',', ']');
+                if(lexer.current() == ']')
+                {
+                    token = pop(JsonToken.END_ARRAY);
+                }
+                else
+                {
+                    lexer.next(); // skip character ','
+                    lexer.skipBlank();
+                    token = readValue(']');
+                }
+                break;
+        }
+
+        return token;
+    }
+
+    /**
+     * 跳过当前值，只检查格式而不生成Json实例。
+     * 当前记号是START_OBJECT或START_ARRAY时，跳过整个JsonObject或JsonArray，
+     * 之后当前记号为对应的END_OBJECT或END_ARRAY；
+     * 当前记号是NAME时，跳过该子元素的Value；其他情况下不做任何操作。
+     * @throws IOException 读取Reader发生异常
+     * @throws JsonException Json格式不正确
+     */
+    public void skipValue() throws IOException, JsonException
+    {
+        if(token == JsonToken.NAME)
+        {
+            nextToken();
+        }
+
+        if(token == JsonToken.START_OBJECT)
+        {
+            lexer.skipObject();
+            token = JsonToken.END_OBJECT;
+        }
+        else if(token == JsonToken.START_ARRAY)
+        {
+            lexer.skipArray();
+            token = JsonToken.END_ARRAY;
+        }
+    }
+
+    /**
+     * 把当前值解析为Json实例。
+     * 当前记号是START_OBJECT或START_ARRAY时，解析整个JsonObject或JsonArray，
+     * 之后当前记号为对应的END_OBJECT或END_ARRAY；
+     * 当前记号是NAME时，解析该子元素的Value。
+     * @return 对应的Json实例
+     * @throws IOException 读取Reader发生异常
+     * @throws JsonException Json格式不正确，或当前记号不是值
+     */
+    public Json readJson() throws IOException, JsonException
+    {
+        if(token == JsonToken.NAME)
+        {
+            nextToken();
+        }
+
+        if(token == JsonToken.START_OBJECT)
+        {
+            Json json = lexer.parseObject();
+            token = JsonToken.END_OBJECT;
+            return json;
+        }
+        else if(token == JsonToken.START_ARRAY)
+        {
+            Json json = lexer.parseArray();
+            token = JsonToken.END_ARRAY;
+            return json;
+        }
+        else if(token == JsonToken.STRING)
+        {
+            return new JsonPrimitive(string);
+        }
+        else if(token == JsonToken.INTEGER || token == JsonToken.FLOAT)
+        {
+            return new JsonPrimitive(number);
+        }
+        else if(token == JsonToken.BOOLEAN)
+        {
+            return (bool)? Json.trueJson: Json.falseJson;
+        }
+        else if(token == JsonToken.NULL)
+        {
+            return Json.nullJson;
+        }
+        else
+        {
+            throw new JsonException("Current token " + token + " is not a json value.");
+        }
+    }
+
+    /**
+     * 返回当前记号。
+     * @return 当前记号，尚未调用nextToken时返回null
+     */
+    public JsonToken getToken()
+    {
+        return token;
+    }
+
+    /**
+     * 返回当前所在JsonObject子元素的Name。当前记号是NAME时返回该Name；
+     * 当前记号是子元素的值（包括作为值的JsonObject或JsonArray的开始与结束）时，返回该子元素的Name。
+     * @return 对应的Name，不在JsonObject内时返回null
+     */
+    public String getName()
+    {
+        if(depth > 0 && states[depth - 1] <= OBJECT_VALUE)
+        {
+            return names[depth - 1];
+        }
+        else
+        {
+            return null;
+        }
+    }
+
+    /**
+     * 返回当前记号的字符串值，记号是STRING时返回不带引号与转义符的字符串，
+     * 是NAME时返回Name，是数值、逻辑值或null时返回对应的文本。
+     * @return 对应的字符串
+     * @throws JsonException 当前记号不是NAME或值
+     */
+    public String getString() throws JsonException
+    {
+        if(token == JsonToken.STRING || token == JsonToken.NAME)
+        {
+            return string;
+        }
+        else if(token == JsonToken.INTEGER || token == JsonToken.FLOAT)
+        {
+            return number.toString();
+        }
+        else if(token == JsonToken.BOOLEAN)
+        {
+            return (bool)? "true": "false";
+        }
+        else if(token == JsonToken.NULL)
+        {
+            return "null";
+        }
+        else
+        {
+            throw new JsonException("Cannot transfer token " + token + " to String value.");
+        }
+    }
+
+    /**
+     * 返回当前记号的整型值。
+     * @return 对应的整型值
+     * @throws JsonException 当前记号不是INTEGER
+     */
+    public long getLong() throws JsonException
+    {
+        if(token == JsonToken.INTEGER)
+        {
+            return number.longValue();
+        }
+        else
+        {
+            throw new JsonException("Cannot transfer to long value for token is not INTEGER.");
+        }
+    }
+
+    /**
+     * 返回当前记号的浮点型值。
+     * @return 对应的浮点型值
+     * @throws JsonException 当前记号不是INTEGER或FLOAT
+     */
+    public double getDouble() throws JsonException
+    {
+        if(token == JsonToken.INTEGER || token == JsonToken.FLOAT)
+        {
+            return number.doubleValue();
+        }
+        else
+        {
+            throw new JsonException("Cannot transfer to double value for token is not FLOAT.");
+        }
+    }
+
+    /**
+     * 返回当前记号的逻辑型（布尔型）值。
+     * @return 对应的逻辑型值
+     * @throws JsonException 当前记号不是BOOLEAN
+     */
+    public boolean getBoolean() throws JsonException
+    {
+        if(token == JsonToken.BOOLEAN)
+        {
+            return bool;
+        }
+        else
+        {
+            throw new JsonException("Cannot transfer to boolean value for token is not BOOLEAN.");
+        }
+    }
+
+    /**
+     * 关闭JsonReader，如果是用Reader创建的，同时关闭该Reader。
+     * @throws IOException 关闭Reader发生异常
+     */
+    public void close() throws IOException
+    {
+        if(reader != null)
+        {
+            reader.close();
+        }
+    }
+
+    /**
+     * 读取根元素的开始字符，根元素只能是JsonObject或JsonArray。
+     * @return START_OBJECT或START_ARRAY
+     * @throws IOException 读取Reader发生异常
+     * @throws JsonException Json格式不正确
+     */
+    private JsonToken readRoot() throws IOException, JsonException
+    {
+        lexer.skipBlank();
+        int ch = lexer.current();
+        if(ch == '{' || ch == '[')
+        {
+            rootFound = true;
+            return (ch == '{')? JsonToken.START_OBJECT: JsonToken.START_ARRAY;
+        }
+        else if(ch == -1)
+        {
+            String msg = "Cannot parse blank character sequence to json.";
+            throw new JsonException(msg);
+        }
+        else
+        {
+            String msg = "Cannot found json object begin sign '{'" +
+                    " or json array begin sign ']' at position " + lexer.position() + ".";
+            throw new JsonException(msg);
+        }
+    }
+
+    /**
+     * 检查根元素之后只有空白字符。
+     * @return END_DOCUMENT
+     * @throws IOException 读取Reader发生异常
+     * @throws JsonException 根元素之后有非空白字符
+     */
+    private JsonToken readEnd() throws IOException, JsonException
+    {
+        lexer.parseTailBlank(-1);
+        return JsonToken.END_DOCUMENT;
+    }
+
+    /**
+     * 读取JsonObject子元素的Name，进入时lexer指向Name的第一个字符或EOF。
+     * @return NAME
+     * @throws IOException 读取Reader发生异常
+     * @throws JsonException Json格式不正确
+     */
+    private JsonToken readName() throws IOException, JsonException
+    {
+        if(lexer.current() == -1)
+        {
+            String msg = "Cannot found object end sign \'}\' at position " + lexer.position() + ".";
+            throw new JsonException(msg);
+        }
+        string = lexer.parseName(true);
+        names[depth - 1] = string;
+        states[depth - 1] = OBJECT_NAME;
+        return JsonToken.NAME;
+    }
+
+    /**
+     * 读取JsonObject子元素的Value或JsonArray的子元素，
+     * 遇到JsonObject或JsonArray时只返回开始记号，不读入开始字符。
+     * @param endChar 子元素除逗号外的结束符，只允许是]或}
+     * @return 值对应的记号
+     * @throws IOException 读取Reader发生异常
+     * @throws JsonException Json格式不正确
+     */
+    private JsonToken readValue(int endChar) throws IOException, JsonException
+    {
+        states[depth - 1] = (endChar == '}')? OBJECT_VALUE: ARRAY_VALUE;
+        lexer.skipBlank();
+        int ch = lexer.current();
+        if(ch == -1)
+        {
+            if(endChar == ']')
+            {
+                String msg = "Cannot found array end sign \']\' at position " + lexer.position() + ".";
+                throw new JsonException(msg);
+            }
+            lexer.parseTailBlank(',', endChar); // 已到达尾部，必然抛出异常
+        }
+        else if(ch == '{')
+        {
+            return JsonToken.START_OBJECT;
+        }
+        else if(ch == '[')
+        {
+            return JsonToken.START_ARRAY;
+        }
+        else if(ch == '\'' || ch == '\"')
+        {
+            string = lexer.parseString(ch);
+            return JsonToken.STRING;
+        }
+        else if(ch == '-' || (ch >= '0' && ch<= '9'))
+        {
+            number = lexer.parseNumber(endChar);
+            return (number instanceof Long)? JsonToken.INTEGER: JsonToken.FLOAT;
+        }
+        else if(ch == 't' || ch == 'f' || ch == 'n')
+        {
+            Json json = lexer.parseValue(endChar);
+            if(json == Json.nullJson)
+            {
+                return JsonToken.NULL;
+            }
+            bool = (json == Json.trueJson);
+            return JsonToken.BOOLEAN;
+        }
+        throw lexer.valueError(endChar);
+    }
+
+    /**
+     * 进入新的一层JsonObject或JsonArray。
+     * @param state 新一层的初始状态，OBJECT_START或ARRAY_START
+     */
+    private void push(int state)
+    {
+        if(depth == states.length)
+        {
+            int[] nstates = new int[depth * 2];
+            System.arraycopy(states, 0, nstates, 0, depth);
+            states = nstates;
+            String[] nnames = new String[depth * 2];
+            System.arraycopy(names, 0, nnames, 0, depth);
+            names = nnames;
+        }
+        states[depth] = state;
+        names[depth] = null;
+        depth++;
+    }
+
+    /**
+     * 读入结束字符'}'或']'，并退出当前一层JsonObject或JsonArray。
+     * @param endToken END_OBJECT或END_ARRAY
+     * @return endToken
+     * @throws IOException 读取Reader发生异常
+     */
+    private JsonToken pop(JsonToken endToken) throws IOException
+    {
+        lexer.next(); // skip character '}' or ']'
+        depth--;
+        return endToken;
+    }
+
+    /**
+     * JsonReader读取到的记号。</br>
+     * <strong>START_OBJECT、END_OBJECT</strong>表示JsonObject的开始与结束；</br>
+     * <strong>START_ARRAY、END_ARRAY</strong>表示JsonArray的开始与结束；</br>
+     * <strong>NAME</strong>表示JsonObject子元素的Name；</br>
+     * <strong>STRING、INTEGER、FLOAT、BOOLEAN、NULL</strong>表示对应类型的值；</br>
+     * <strong>END_DOCUMENT</strong>表示Json文本结束。
+     *
+     * @author 飞翔的河马
+     * @version 1.02
+     * @since 1.02
+     */
+    public static enum JsonToken
+    {
+        /**
+         * JsonObject的开始，即字符'{'。
+         */
+        START_OBJECT,
+
+        /**
+         * JsonObject的结束，即字符'}'。
+         */
+        END_OBJECT,
+
+        /**
+         * JsonArray的开始，即字符'['。
+         */
+        START_ARRAY,
+
+        /**
+         * JsonArray的结束，即字符']'。
+         */
+        END_ARRAY,
+
+        /**
+         * JsonObject子元素的Name。
+         */
+        NAME,
+
+        /**
+         * 字符串值。
+         */
+        STRING,
+
+        /**
+         * 整型数值。
+         */
+        INTEGER,
+
+        /**
+         * 浮点型数值。
+         */
+        FLOAT,
+
+        /**
+         * 逻辑型（布尔型）值，true或false。
+         */
+        BOOLEAN,
+
+        /**
+         * null值。
+         */
+        NULL,
+
+        /**
+         * Json文本结束。
+         */
+        END_DOCUMENT
+    };
+}
@@ -0,0 +1,378 @@
+package com.bantouyan.json;
+
+import java.io.IOException;
+
+/**
+ * <p>Json结构索引（tape），把整个Json文本的结构与值依次保存在long数组中，
+ * 字符串（包括Name）的内容保存在一个char数组中，由JsonTextParser生成，
+ * 供JsonCursor只读访问。</p>
+ *
+ * <p>每个记录的高8位是类型，低56位是附加数据：
+ * JsonObject与JsonArray的开始记录保存对应的结束记录的下标，
+ * 结束记录保存子元素的个数，所以跳过一个子元素只需要常数时间；
+ * JsonArray的结束记录的下一个记录保存其子元素在下标表（int数组）中的起始位置，
+ * 下标表依次保存每个子元素的记录的下标，所以按下标访问子元素也只需要常数时间；
+ * 字符串记录保存字符串在char数组中的起始下标，下一个记录保存字符串的长度；
+ * 整数与浮点数记录的下一个记录保存数值本身（浮点数保存其二进制表示），
+ * 与JsonPrimitive相同，NaN与Infinity保存为字符串；
+ * true、false与null只占一个记录。JsonObject的每个子元素由Name的字符串记录与Value的记录组成。</p>
+ *
+ * @author 飞翔的河马
+ * @version 1.02
+ * @since 1.02
+ */
+final class JsonTape
+{
+    static final int OBJECT = '{';
+    static final int OBJECT_END = '}';
+    static final int ARRAY = '[';
+    static final int ARRAY_END = ']';
+    static final int STRING = '"';
+    static final int INTEGER = 'l';
+    static final int FLOAT = 'd';
+    static final int TRUE = 't';
+    static final int FALSE = 'f';
+    static final int NULL = 'n';
+
+    private static final long PAYLOAD_MASK = (1L << 56) - 1;
+
+    private long[] words = new long[64];
+    private int size = 0;
+    private int[] elements = new int[16]; // 下标表，依次保存每个JsonArray的子元素的记录的下标
+    private int elementCount = 0;
+    private StringBuilder builder = new StringBuilder(); // 生成过程中保存字符串的内容
+    private char[] chars = null; // 生成完成后保存字符串的内容
+
+    /**
+     * 返回生成过程中保存字符串内容的StringBuilder，解析器直接向其追加字符串。
+     * @return 保存字符串内容的StringBuilder
+     */
+    StringBuilder chars()
+    {
+        return builder;
+    }
+
+    /**
+     * 添加JsonObject或JsonArray的开始记录。
+     * @param type OBJECT或ARRAY
+     * @return 开始记录的下标，用于添加结束记录
+     */
+    int startContainer(int type)
+    {
+        int start = size;
+        add(type, 0);
+        return start;
+    }
+
+    /**
+     * 添加JsonObject或JsonArray的结束记录，并在开始记录中保存结束记录的下标，
+     * JsonArray还要把子元素的记录的下标添加到下标表中。
+     * @param start 开始记录的下标
+     * @param type OBJECT_END或ARRAY_END
+     * @param count 子元素的个数
+     */
+    void endContainer(int start, int type, int count)
+    {
+        words[start] |= size;
+        add(type, count);
+        if(type == ARRAY_END)
+        {
+            add(elementCount);
+            if(elementCount + count > elements.length)
+            {
+                int[] nelements = new int[Math.max(elementCount + count, elements.length * 2)];
+                System.arraycopy(elements, 0, nelements, 0, elementCount);
+                elements = nelements;
+            }
+            //子元素都已经结束，可以依次跳过
+            for(int i = start + 1; type(i) != ARRAY_END; i = next(i))
+            {
+                elements[elementCount++] = i;
+            }
+        }
+    }
+
+    /**
+     * 添加字符串记录。
+     * @param offset 字符串在chars()中的起始下标
+     * @param length 字符串的长度
+     */
+    void addString(int offset, int length)
+    {
+        add(STRING, offset);
+        add(length);
+    }
+
+    /**
+     * 添加整数记录。
+     * @param value 整数值
+     */
+    void addLong(long value)
+    {
+        add(INTEGER, 0);
+        add(value);
+    }
+
+    /**
+     * 添加浮点数记录。
+     * @param value 浮点数值
+     */
+    void addDouble(double value)
+    {
+        if(Double.isNaN(value) || Double.isInfinite(value))
+        {
+            //与JsonPrimitive相同，转换为字符串
+            String str = Double.toString(value);
+            addString(builder.length(), str.length());
+            builder.append(str);
+            return;
+        }
+        add(FLOAT, 0);
+        add(Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * 添加true、false或null记录。
+     * @param type TRUE、FALSE或NULL
+     */
+    void addConstant(int type)
+    {
+        add(type, 0);
+    }
+
+    /**
+     * 结束生成，把字符串的内容复制到char数组。
+     */
+    void finish()
+    {
+        chars = new char[builder.length()];
+        builder.getChars(0, chars.length, chars, 0);
+        builder = null;
+    }
+
+    private void add(int type, long payload)
+    {
+        add(((long)type << 56) | payload);
+    }
+
+    private void add(long word)
+    {
+        if(size == words.length)
+        {
+            long[] nwords = new long[size * 2];
+            System.arraycopy(words, 0, nwords, 0, size);
+            words = nwords;
+        }
+        words[size++] = word;
+    }
+
+    /**
+     * 返回记录的个数。
+     * @return 记录的个数
+     */
+    int size()
+    {
+        return size;
+    }
+
+    /**
+     * 返回记录的类型。
+     * @param index 记录的下标
+     * @return 记录的类型
+     */
+    int type(int index)
+    {
+        return (int)(words[index] >>> 56);
+    }
+
+    /**
+     * 返回JsonObject或JsonArray开始记录对应的结束记录的下标。
+     * @param index 开始记录的下标
+     * @return 结束记录的下标
+     */
+    int end(int index)
+    {
+        return (int)(words[index] & PAYLOAD_MASK);
+    }
+
+    /**
+     * 返回JsonObject或JsonArray子元素的个数。
+     * @param index 开始记录的下标
+     * @return 子元素的个数
+     */
+    int count(int index)
+    {
+        return (int)(words[end(index)] & PAYLOAD_MASK);
+    }
+
+    /**
+     * 返回JsonArray特定下标的子元素的记录的下标。
+     * @param index JsonArray开始记录的下标
+     * @param i 子元素的下标，不检查范围
+     * @return 子元素的记录的下标
+     */
+    int element(int index, int i)
+    {
+        return elements[(int)words[end(index) + 1] + i];
+    }
+
+    /**
+     * 返回下一个值的记录的下标，跳过JsonObject与JsonArray的所有子元素。
+     * @param index 值的记录的下标
+     * @return 下一个记录的下标
+     */
+    int next(int index)
+    {
+        switch(type(index))
+        {
+            case OBJECT:
+                return end(index) + 1;
+            case ARRAY:
+                return end(index) + 2;
+            case STRING:
+            case INTEGER:
+            case FLOAT:
+                return index + 2;
+            default:
+                return index + 1;
+        }
+    }
+
+    /**
+     * 返回整数记录的值。
+     * @param index 整数记录的下标
+     * @return 整数值
+     */
+    long longValue(int index)
+    {
+        return words[index + 1];
+    }
+
+    /**
+     * 返回浮点数记录的值。
+     * @param index 浮点数记录的下标
+     * @return 浮点数值
+     */
+    double doubleValue(int index)
+    {
+        return Double.longBitsToDouble(words[index + 1]);
+    }
+
+    /**
+     * 返回字符串记录的值。
+     * @param index 字符串记录的下标
+     * @return 字符串
+     */
+    String stringValue(int index)
+    {
+        return new String(chars, (int)(words[index] & PAYLOAD_MASK), (int)words[index + 1]);
+    }
+
+    /**
+     * 判断字符串记录的值是否与str相同，不生成String对象。
+     * @param index 字符串记录的下标
+     * @param str 要比较的字符串
+     * @return 相同返回true，否则返回false
+     */
+    boolean stringEquals(int index, String str)
+    {
+        int length = (int)words[index + 1];
+        if(length != str.length()) return false;
+
+        int offset = (int)(words[index] & PAYLOAD_MASK);
+        for(int i=0; i<length; i++)
+        {
+            if(chars[offset + i] != str.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * 把值的记录转换为Json实例。
+     * @param index 值的记录的下标
+     * @return 对应的Json实例
+     */
+    Json toJson(int index)
+    {
+        switch(type(index))
+        {
+            case OBJECT:
+                JsonObject obj = new JsonObject(count(index));
+                for(int i = index + 1; type(i) != OBJECT_END; i = next(i + 2))
+                {
+                    obj.add(stringValue(i), toJson(i + 2));
+                }
+                return obj;
+            case ARRAY:
+                JsonArray ary = new JsonArray(count(index));
+                for(int i = index + 1; type(i) != ARRAY_END; i = next(i))
+                {
+                    ary.append(toJson(i));
+                }
+                return ary;
+            case STRING:
+                return new JsonPrimitive(stringValue(index));
+            case INTEGER:
+                return new JsonPrimitive(longValue(index));
+            case FLOAT:
+                return new JsonPrimitive(doubleValue(index));
+            case TRUE:
+                return Json.trueJson;
+            case FALSE:
+                return Json.falseJson;
+            default:
+                return Json.nullJson;
+        }
+    }
+
+    /**
+     * 向可追加对象追加值的记录对应的Json文本，Object的Name部分加引号。
+     * @param index 值的记录的下标
+     * @param dest 接受Json文本的可追加对象
+     * @param numbers 格式化数值的缓冲区
+     * @throws IOException 追加字符流发生IO异常
+     */
+    void appendToAppendable(int index, Appendable dest, NumberConverter.Buffer numbers) throws IOException
+    {
+        switch(type(index))
+        {
+            case OBJECT:
+                dest.append('{');
+                for(int i = index + 1; type(i) != OBJECT_END; i = next(i + 2))
+                {
+                    if(i > index + 1) dest.append(',');
+                    JsonTextParser.jsonStringToAppendable(stringValue(i), dest);
+                    dest.append(':');
+                    appendToAppendable(i + 2, dest, numbers);
+                }
+                dest.append('}');
+                break;
+            case ARRAY:
+                dest.append('[');
+                for(int i = index + 1; type(i) != ARRAY_END; i = next(i))
+                {
+                    if(i > index + 1) dest.append(',');
+                    appendToAppendable(i, dest, numbers);
+                }
+                dest.append(']');
+                break;
+            case STRING:
+                JsonTextParser.jsonStringToAppendable(stringValue(index), dest);
+                break;
+            case INTEGER:
+                NumberConverter.appendLong(longValue(index), dest, numbers);
+                break;
+            case FLOAT:
+                NumberConverter.appendDouble(doubleValue(index), dest, numbers);
+                break;
+            case TRUE:
+                dest.append("true");
+                break;
+            case FALSE:
+                dest.append("false");
+                break;
+            default:
+                dest.append("null");
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.bantouyan.json;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * <p>内部类，JsonArray与JsonObject缓存的Json文本，仅供此Json库内部使用。</p>
+ *
+ * <p>缓存了文本的Json实例输出时复制缓存的文本，不再遍历JsonPrimitive子元素。生成文本时，
+ * 同样缓存文本的子元素（JsonArray与JsonObject）的文本取自子元素自身的缓存，并记录子元素、
+ * 它当时的文本（String实例）与在本实例文本中的位置。修改Json实例时只清除它自身缓存的文本；
+ * 上级实例输出时逐个检查记录的子元素，子元素的文本不再是记录的String实例时，
+ * 用子元素新的文本替换对应的部分，不需要重新遍历其他子元素。</p>
+ *
+ * <p>子元素不保存指向上级实例的引用，所以被多个上级实例共享的子元素不会使上级实例无法被回收，
+ * 代价是输出时要检查所有缓存文本的子孙JsonArray与JsonObject（不包括JsonPrimitive）。
+ * 包含不缓存文本的子元素时无法检查它是否被修改，此时不保存生成的文本，每次输出都重新生成。</p>
+ *
+ * @author 飞翔的河马
+ * @version 1.02
+ * @since 1.02
+ */
+final class JsonTextCache
+{
+    boolean enabled; // 是否缓存本实例的文本
+    private Text quotedText = null; // Name加引号的文本
+    private Text plainText = null; // Name尽量不加引号的文本
+    private int lastLength = 16; // 上一次生成的文本的长度，用作重新生成时StringBuilder的初始容量
+    private HashMap<String, String> names = null; // JsonObject转义后带引号的Name
+
+    //正在生成的文本，生成时记录子元素
+    private StringBuilder builder = null;
+    private ArrayList<Json> children = null;
+    private ArrayList<String> childTexts = null;
+    private ArrayList<Integer> starts = null;
+    private boolean complete = false; // 所有的子元素都可以检查，生成的文本可以保存
+
+    /**
+     * 缓存的文本，以及文本中包含的缓存文本的子元素。
+     */
+    private static final class Text
+    {
+        String text;
+        Json[] children; // 缓存文本的子元素
+        String[] childTexts; // 生成文本时子元素的文本
+        int[] starts; // 子元素的文本在text中的位置
+    }
+
+    /**
+     * 创建JsonTextCache。
+     * @param enabled 是否缓存本实例的文本
+     */
+    JsonTextCache(boolean enabled)
+    {
+        this.enabled = enabled;
+    }
+
+    /**
+     * 返回缓存的文本，检查记录的子元素，子元素的文本改变时替换对应的部分。
+     * @param useQuote 为true时Object的Name部分加引号， false时尽量不加引号
+     * @param parentRef 上级Json对象堆栈，用于检测循环引用，为null时不检测
+     * @param numbers 格式化数值的缓冲区
+     * @return 缓存的文本，没有缓存或需要重新生成时返回null
+     * @throws IOException 不会发生（内存中的字符）
+     * @throws JsonException 存在循环引用
+     */
+    String getText(boolean useQuote, IdentityStack parentRef, NumberConverter.Buffer numbers)
+            throws IOException
+    {
+        Text cached = useQuote? quotedText: plainText;
+        if(cached == null) return null;
+
+        String text = cached.text;
+        StringBuilder spliced = null;
+        String[] newTexts = null;
+        int[] newStarts = null;
+        int copied = 0;
+        for(int i = 0; i < cached.children.length; i++)
+        {
+            String old = cached.childTexts[i];
+            String current = textOf(cached.children[i], useQuote, parentRef, numbers);
+            if(current == null)
+            {
+                //子元素停止缓存文本，无法再检查，重新生成
+                clear();
+                return null;
+            }
+            if(current == old && spliced == null) continue;
+
+            if(spliced == null)
+            {
+                spliced = new StringBuilder(text.length() + current.length());
+                newTexts = cached.childTexts.clone();
+                newStarts = cached.starts.clone();
+            }
+            spliced.append(text, copied, cached.starts[i]);
+            copied = cached.starts[i] + old.length();
+            newStarts[i] = spliced.length();
+            newTexts[i] = current;
+            spliced.append(current);
+        }
+
+        if(spliced != null)
+        {
+            spliced.append(text, copied, text.length());
+            cached.text = spliced.toString();
+            cached.childTexts = newTexts;
+            cached.starts = newStarts;
+            lastLength = cached.text.length();
+        }
+        return cached.text;
+    }
+
+    /**
+     * 开始生成文本，之后通过appendChild追加缓存文本的子元素。
+     * @return 接受生成的文本的StringBuilder
+     */
+    StringBuilder startText()
+    {
+        builder = new StringBuilder(lastLength);
+        children = new ArrayList<Json>();
+        childTexts = new ArrayList<String>();
+        starts = new ArrayList<Integer>();
+        complete = true;
+        return builder;
+    }
+
+    /**
+     * 向正在生成的文本追加子元素，子元素第一次追加时继承缓存文本的设置，
+     * 缓存文本的子元素追加它缓存的文本并记录。
+     * @param child 子元素
+     * @param useQuote 为true时Object的Name部分加引号， false时尽量不加引号
+     * @param parentRef 上级Json对象堆栈，用于检测循环引用，为null时不检测
+     * @param numbers 格式化数值的缓冲区
+     * @throws IOException 不会发生（内存中的字符）
+     * @throws JsonException 存在循环引用
+     */
+    void appendChild(Json child, boolean useQuote, IdentityStack parentRef, NumberConverter.Buffer numbers)
+            throws IOException
+    {
+        inherit(child);
+        String text = textOf(child, useQuote, parentRef, numbers);
+        if(text == null)
+        {
+            //JsonPrimitive不会改变；不缓存文本的JsonArray与JsonObject无法检查，生成的文本不能保存
+            if(! (child instanceof JsonPrimitive)) complete = false;
+            child.appendToAppendable(builder, useQuote, parentRef, numbers);
+            return;
+        }
+
+        children.add(child);
+        childTexts.add(text);
+        starts.add(builder.length());
+        builder.append(text);
+    }
+
+    /**
+     * 结束生成文本，所有的子元素都缓存文本时保存生成的文本。
+     * @param useQuote 为true时Object的Name部分加引号， false时尽量不加引号
+     * @return 生成的文本
+     */
+    String endText(boolean useQuote)
+    {
+        String text = builder.toString();
+        lastLength = text.length();
+        if(complete)
+        {
+            Text cached = new Text();
+            cached.text = text;
+            cached.children = children.toArray(new Json[children.size()]);
+            cached.childTexts = childTexts.toArray(new String[childTexts.size()]);
+            cached.starts = new int[starts.size()];
+            for(int i = 0; i < cached.starts.length; i++) cached.starts[i] = starts.get(i);
+            if(useQuote)
+                quotedText = cached;
+            else
+                plainText = cached;
+        }
+
+        builder = null;
+        children = null;
+        childTexts = null;
+        starts = null;
+        return text;
+    }
+
+    /**
+     * Json实例将被修改，清除缓存的文本，上级实例在下一次输出时发现本实例的文本改变。
+     */
+    void clear()
+    {
+        quotedText = null;
+        plainText = null;
+    }
+
+    /**
+     * 停止缓存本实例的文本，清除已经缓存的文本与Name。
+     */
+    void disable()
+    {
+        enabled = false;
+        clear();
+        names = null;
+    }
+
+    /**
+     * 返回转义后带引号的Name，第一次使用时转义。
+     * @param name JsonObject子元素的Name
+     * @return 转义后带引号的Name
+     */
+    String quotedName(String name)
+    {
+        if(names == null) names = new HashMap<String, String>();
+        String text = names.get(name);
+        if(text == null)
+        {
+            StringBuilder builder = new StringBuilder(name.length() + 2);
+            try
+            {
+                JsonTextParser.jsonStringToAppendable(name, builder);
+            }
+            catch(IOException e)
+            {
+                //直接写入内存中的字符，不会产生IO异常，所以这里作为内部错误处理。
+                throw new InternalError(e.getMessage());
+            }
+            text = builder.toString();
+            names.put(name, text);
+        }
+        return text;
+    }
+
+    /**
+     * 删除缓存的转义后的Name。
+     * @param name JsonObject子元素的Name，为null时删除所有的Name
+     */
+    void removeName(String name)
+    {
+        if(names == null) return;
+        if(name == null)
+            names = null;
+        else
+            names.remove(name);
+    }
+
+    /**
+     * 缓存文本的实例的子元素继承其设置，已经设置过的子元素不变，JsonPrimitive不需要缓存。
+     * @param child 子元素
+     */
+    static void inherit(Json child)
+    {
+        if(child.textCache == null && (child instanceof JsonArray || child instanceof JsonObject))
+        {
+            child.textCache = new JsonTextCache(true);
+        }
+    }
+
+    /**
+     * 返回子元素缓存的文本，没有缓存时生成并缓存。
+     * @param child 子元素
+     * @param useQuote 为true时Object的Name部分加引号， false时尽量不加引号
+     * @param parentRef 上级Json对象堆栈，用于检测循环引用，为null时不检测
+     * @param numbers 格式化数值的缓冲区
+     * @return 子元素缓存的文本，子元素是JsonPrimitive或不缓存文本时返回null
+     * @throws IOException 不会发生（内存中的字符）
+     * @throws JsonException 存在循环引用
+     */
+    private static String textOf(Json child, boolean useQuote, IdentityStack parentRef,
+            NumberConverter.Buffer numbers) throws IOException
+    {
+        if(child.textCache == null || ! child.textCache.enabled) return null;
+        if(child instanceof JsonArray)
+            return ((JsonArray)child).cachedText(useQuote, parentRef, numbers);
+        if(child instanceof JsonObject)
+            return ((JsonObject)child).cachedText(useQuote, parentRef, numbers);
+        return null;
+    }
+}
@@ -2,35 +2,49 @@ package com.bantouyan.json;
 
 import java.io.Reader;
 import java.io.IOException;
-import java.io.StringReader;
+import java.io.Writer;
+import java.nio.CharBuffer;
 
 /**
- * 内部类，用来将Reader或String解析成Json类实例，仅供此Json库内部使用。
+ * 内部类，用来将Reader、String、字符数组或CharBuffer解析成Json类实例，仅供此Json库内部使用。
  * 
  * @author 飞翔的河马
  * @version 1.00
  */
 class JsonTextParser
 {
-    private static String[] jsKeywords = {"abstract", "boolean", "break", 
-        "byte", "case", "catch", "char", "class", "const", "continue",
-        "debugger", "default", "delete", "do", "double", "else", "enum",
-        "export", "extends", "fasle", "final", "finally", "float", "for",
-        "function", "goto", "if", "implements", "import", "in", "instanceof",
-        "int", "interface", "long", "native", "new", "null", "package",
-        "private", "protected", "public", "return", "short", "static",
-        "super", "switch", "synchronized", "this", "throw", "throws",
-        "transient", "try", "true", "typeof", "var", "void", "volatile",
-        "while", "with"};
     private static int[] trueAry = {'t', 'r', 'u', 'e'};
     private static int[] falseAry =  {'f', 'a', 'l', 's', 'e'};
     private static int[] nullAry = {'n', 'u', 'l', 'l'};
-    private char[] unicodeChar = new char[4];
-    
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final int MAX_SCRATCH_SIZE = 64 * 1024; // 重置时保留的StringBuilder的最大容量
     private Reader reader;
+    // 以CharSequence（String、StringBuilder、没有数组的CharBuffer等）作为数据源时，
+    // 文本中[textPos, textEnd)范围的字符尚未读入缓冲区
+    private CharSequence text;
+    private int textPos = 0;
+    private int textEnd = 0;
+    // 字符缓冲区，一次从reader或text中成块读入，ch为buf[bufPos - 1]；
+    // 以字符数组作为数据源时，buf就是该数组本身
+    private char[] buf;
+    private char[] ownBuf = null; // 解析器自己创建的缓冲区，重置后继续使用
+    private int bufPos = 0; // the index of next character in buf
+    private int bufLen = 0; // the count of valid characters in buf
     // after JsonTextParser object create, ch is the first character and pos equal 0
     private int ch = -1; // the current char of the reader
-    private int pos = -1; // the current position of the reader
+    private long pos = -1; // the current position of the reader, may exceed 2G
+    private boolean lazy = false; // 为true时子JsonObject与JsonArray只校验格式，延迟到访问时解析
+    // readNumber的结果，以及Number跨越缓冲区边界时暂存其字符的StringBuilder与数组
+    private long numberLong;
+    private double numberDouble;
+    private StringBuilder numberBuild;
+    private char[] numberChars;
+    private JsonNameCache names = null; // Name的规范化缓存，没有指定共享的缓存时在第一次解析Name时创建
+    private JsonNameCache ownNames = null; // 解析器自己创建的Name缓存，重置后继续使用
+    private StringBuilder scratch = null; // 解析含转义符或跨越缓冲区的字符串时使用的StringBuilder，重置后继续使用
+    // 不为null时记录读过的字符：缓冲区中从下标captureStart开始的字符在读入下一块之前追加到capture
+    private StringBuilder capture = null;
+    private int captureStart = 0;
 //    private char c; // the variant c used to debug, so needn't it
     
     /**
@@ -39,24 +53,181 @@ class JsonTextParser
      * @throws IOException 读写Reader发生异常
      */
     public JsonTextParser(Reader reader) throws IOException
+    {
+        this(reader, DEFAULT_BUFFER_SIZE);
+    }
+    
+    /**
+     * 用Reader新建一个JsonTextParser对象，并指定字符缓冲区的大小。
+     * @param reader 提供Json字符流
+     * @param bufferSize 字符缓冲区的大小，必须大于0
+     * @throws IOException 读写Reader发生异常
+     */
+    JsonTextParser(Reader reader, int bufferSize) throws IOException
     {
         this.reader = reader;
+        this.buf = this.ownBuf = new char[bufferSize];
         next();
     }
     
     /**
-     * 用字符串新建一个JsonTextParser对象。
-     * @param text Json文本
-     * @throws IOException 读取Reader（内部使用）发生异常
+     * 用字符串（或其他字符序列）新建一个JsonTextParser对象，不经过Reader，
+     * 而是直接从字符序列中成块复制字符到缓冲区。
+     * 如果text是有底层数组的CharBuffer，则直接使用底层数组，不复制字符。
+     * @param text Json文本，解析过程中不能修改
+     * @throws IOException 不会发生（声明此异常是为了与其他构造函数保持一致）
      */
-    public JsonTextParser(String text)throws IOException
+    public JsonTextParser(CharSequence text)throws IOException
     {
-        StringReader strReader = new StringReader(text);
-        
-        this.reader = strReader;
+        reset(text);
+    }
+    
+    /**
+     * 用字符数组新建一个JsonTextParser对象，直接在数组上解析，不复制字符。
+     * @param text 包含Json文本的字符数组，解析过程中不能修改
+     * @param offset Json文本在数组中的起始下标
+     * @param length Json文本的长度
+     * @throws IOException 不会发生（声明此异常是为了与其他构造函数保持一致）
+     */
+    public JsonTextParser(char[] text, int offset, int length) throws IOException
+    {
+        if(offset < 0 || length < 0 || offset > text.length - length)
+        {
+            throw new IndexOutOfBoundsException("offset " + offset + ", length " + length
+                    + ", array length " + text.length);
+        }
+        this.buf = text;
+        this.bufPos = offset;
+        this.bufLen = offset + length;
+        next();
+    }
+    
+    /**
+     * 用字符序列的一部分新建一个JsonTextParser对象，用于延迟解析。
+     * 字符位置从字符序列的开头计算，所以错误信息中的位置与整个Json文本一致。
+     * @param text Json文本，之后不能修改
+     * @param start 要解析部分的起始下标
+     * @param end 要解析部分的结束下标（不包含）
+     * @param lazy 为true时JsonObject与JsonArray只校验格式，访问子元素时才解析
+     * @throws IOException 不会发生（声明此异常是为了与其他构造函数保持一致）
+     */
+    JsonTextParser(CharSequence text, int start, int end, boolean lazy) throws IOException
+    {
+        this.text = text;
+        this.textPos = start;
+        this.textEnd = end;
+        this.pos = start - 1;
+        this.lazy = lazy;
+        this.buf = new char[Math.max(1, Math.min(end - start, DEFAULT_BUFFER_SIZE))];
+        next();
+    }
+    
+    /**
+     * 用从较长的Json文本中截取的一部分新建一个JsonTextParser对象，
+     * 字符位置从position开始计算，所以错误信息中的位置与整个Json文本一致。
+     * @param text 截取的Json文本，解析过程中不能修改
+     * @param position text的第一个字符在整个Json文本中的位置
+     * @throws IOException 不会发生（声明此异常是为了与其他构造函数保持一致）
+     */
+    JsonTextParser(CharSequence text, long position) throws IOException
+    {
+        this.text = text;
+        this.textEnd = text.length();
+        this.pos = position - 1;
+        this.buf = new char[Math.max(1, Math.min(textEnd, DEFAULT_BUFFER_SIZE))];
+        next();
+    }
+    
+    /**
+     * 重置解析器，之后从reader中解析新的Json文本。
+     * 保留之前创建的字符缓冲区、StringBuilder与Name缓存，不必为每个Json文本重新创建；
+     * 之前用setNameCache指定的缓存不再使用。
+     * @param reader 提供Json字符流
+     * @throws IOException 读写Reader发生异常
+     */
+    void reset(Reader reader) throws IOException
+    {
+        clear();
+        this.reader = reader;
+        this.buf = ownBuffer(DEFAULT_BUFFER_SIZE);
+        next();
+    }
+    
+    /**
+     * 重置解析器，之后解析字符序列中的Json文本，其他与reset(Reader)相同。
+     * 如果text是有底层数组的CharBuffer，则直接使用底层数组，不复制字符。
+     * @param text Json文本，解析过程中不能修改
+     * @throws IOException 不会发生（声明此异常是为了与reset(Reader)保持一致）
+     */
+    void reset(CharSequence text) throws IOException
+    {
+        clear();
+        if(text instanceof CharBuffer && ((CharBuffer)text).hasArray())
+        {
+            CharBuffer cb = (CharBuffer)text;
+            this.buf = cb.array();
+            this.bufPos = cb.arrayOffset() + cb.position();
+            this.bufLen = this.bufPos + cb.remaining();
+        }
+        else
+        {
+            this.text = text;
+            this.textEnd = text.length();
+            this.buf = ownBuffer(Math.max(1, Math.min(textEnd, DEFAULT_BUFFER_SIZE)));
+        }
         next();
     }
     
+    /**
+     * 清除与上一个Json文本有关的状态，不再引用其数据源，只保留可以重复使用的缓冲区与缓存。
+     * 太大的StringBuilder不再保留，以免长期占用内存。
+     */
+    void clear()
+    {
+        reader = null;
+        text = null;
+        textPos = 0;
+        textEnd = 0;
+        buf = null;
+        bufPos = 0;
+        bufLen = 0;
+        ch = -1;
+        pos = -1;
+        lazy = false;
+        names = ownNames;
+        capture = null;
+        captureStart = 0;
+        if(scratch != null && scratch.capacity() > MAX_SCRATCH_SIZE) scratch = null;
+    }
+    
+    /**
+     * 返回解析器自己的字符缓冲区，长度不够时重新创建。
+     * @param size 缓冲区的最小长度
+     * @return 解析器自己的字符缓冲区
+     */
+    private char[] ownBuffer(int size)
+    {
+        if(ownBuf == null || ownBuf.length < size) ownBuf = new char[size];
+        return ownBuf;
+    }
+    
+    /**
+     * 返回清空后的StringBuilder，用于生成字符串，同一时刻只生成一个字符串。
+     * @return 已清空的StringBuilder
+     */
+    private StringBuilder scratch()
+    {
+        if(scratch == null)
+        {
+            scratch = new StringBuilder(64);
+        }
+        else
+        {
+            scratch.setLength(0);
+        }
+        return scratch;
+    }
+    
     /**
      * 根据reader内容解析成JsonObject或JsonArray。
      * @return 解析后的JsonObject或JsonArray实例
@@ -71,12 +242,12 @@ class JsonTextParser
         {
             if(ch == '{')
             {
-                json = parseObject();
+                json = lazy? lazyObject(): parseObject();
                 parseTailBlank(-1);
             }
             else if(ch == '[')
             {
-                json = parseArray();
+                json = lazy? lazyArray(): parseArray();
                 parseTailBlank(-1);
             }
             else if(! isBlankCharacter(ch))
@@ -85,6 +256,11 @@ class JsonTextParser
                 		" or json array begin sign ']' at position " + pos + ".";
                 throw new JsonException(msg);
             }
+            else
+            {
+                skipBlank();
+                continue;
+            }
             
             next();
         }
@@ -97,6 +273,191 @@ class JsonTextParser
         return json;
     }
     
+    /**
+     * 解析下一个JsonObject或JsonArray，用于多个Json实例首尾相接（或每行一个）的情况，
+     * 进入时指向上一个Json实例之后的字符，退出时指向本Json实例之后的第一个字符。
+     * @return 解析后的JsonObject或JsonArray实例，只剩下空白字符时返回null
+     * @throws IOException 读取reader有误
+     * @throws JsonException Json格式错误（不是JsonObject或JsonArray）
+     */
+    Json parseNext() throws IOException, JsonException
+    {
+        skipBlank();
+        if(ch == '{')
+        {
+            return parseObject();
+        }
+        else if(ch == '[')
+        {
+            return parseArray();
+        }
+        else if(ch == -1)
+        {
+            return null;
+        }
+        else
+        {
+            String msg = "Cannot found json object begin sign '{'" +
+                    " or json array begin sign ']' at position " + pos + ".";
+            throw new JsonException(msg);
+        }
+    }
+    
+    /**
+     * 解析作为根元素的JsonArray，每解析完一个子元素就交给consumer，不保留已解析的子元素。
+     * @param consumer 接受子元素的回调
+     * @throws IOException 读取reader有误
+     * @throws JsonException Json格式错误（不是JsonArray）
+     */
+    void parseArrayElements(JsonConsumer consumer) throws IOException, JsonException
+    {
+        skipBlank();
+        if(ch == -1)
+        {
+            String msg = "Cannot parse blank character sequence to json.";
+            throw new JsonException(msg);
+        }
+        else if(ch != '[')
+        {
+            String msg = "Cannot found json array begin sign '[' at position " + pos + ".";
+            throw new JsonException(msg);
+        }
+        
+        boolean needNextElement = false;
+        
+        next(); // skip character '['
+        
+        while(ch != -1)
+        {
+            if(needNextElement == false && ch == ']') break;
+            
+            if (isBlankCharacter(ch))
+            {
+                skipBlank();
+            }
+            else
+            {
+                consumer.accept(parseValue(']'));
+                parseTailBlank(',', ']');
+                if (ch == ']') //子元素后是']'，数组结束
+                {
+                    break;
+                } 
+                else //子元素后是','，需解析下一个子元素
+                {
+                    next(); // skip character ','
+                    needNextElement = true;
+                }
+            }
+        }
+        
+        if(ch == ']')
+        {
+            next(); // skip character ']'
+        }
+        else
+        {
+            String msg = "Cannot found array end sign \']\' at position " + pos + ".";
+            throw new JsonException(msg);
+        }
+        parseTailBlank(-1);
+    }
+    
+    /**
+     * 根据reader内容解析，每读到一个Json记号就调用handler对应的方法，不生成Json实例。
+     * @param handler 接受解析结果的回调
+     * @throws IOException 读取reader有误
+     * @throws JsonException Json格式错误（不是JsonObject或JsonArray）
+     */
+    public void parse(JsonHandler handler) throws IOException, JsonException
+    {
+        boolean found = false;
+        
+        while(ch != -1)
+        {
+            if(ch == '{')
+            {
+                handleObject(handler);
+                parseTailBlank(-1);
+                found = true;
+            }
+            else if(ch == '[')
+            {
+                handleArray(handler);
+                parseTailBlank(-1);
+                found = true;
+            }
+            else if(! isBlankCharacter(ch))
+            {
+                String msg = "Cannot found json object begin sign '{'" +
+                		" or json array begin sign ']' at position " + pos + ".";
+                throw new JsonException(msg);
+            }
+            else
+            {
+                skipBlank();
+                continue;
+            }
+            
+            next();
+        }
+        if(! found)
+        {
+            String msg = "Cannot parse blank character sequence to json.";
+            throw new JsonException(msg);
+        }
+    }
+    
+    /**
+     * 根据reader内容生成Json结构索引（tape），不生成Json实例，
+     * 所有的结构、数值与字符串都保存在几个基本类型的数组中。不检测重复的Name。
+     * @return 生成的Json结构索引
+     * @throws IOException 读取reader有误
+     * @throws JsonException Json格式错误（不是JsonObject或JsonArray）
+     */
+    JsonTape parseTape() throws IOException, JsonException
+    {
+        JsonTape tape = new JsonTape();
+        boolean found = false;
+        
+        while(ch != -1)
+        {
+            if(ch == '{')
+            {
+                tapeObject(tape);
+                parseTailBlank(-1);
+                found = true;
+            }
+            else if(ch == '[')
+            {
+                tapeArray(tape);
+                parseTailBlank(-1);
+                found = true;
+            }
+            else if(! isBlankCharacter(ch))
+            {
+                String msg = "Cannot found json object begin sign '{'" +
+                		" or json array begin sign ']' at position " + pos + ".";
+                throw new JsonException(msg);
+            }
+            else
+            {
+                skipBlank();
+                continue;
+            }
+            
+            next();
+        }
+        if(! found)
+        {
+            String msg = "Cannot parse blank character sequence to json.";
+            throw new JsonException(msg);
+        }
+        
+        tape.finish();
+        return tape;
+    }
+    
     /**
      * 从当前字符开始解析JsonObject实例，
      * 进入时pos指向字符'{'，退出时指向对应的'}'之后的第一个字符。
@@ -104,7 +465,7 @@ class JsonTextParser
      * @throws IOException 读取Reader发生异常
      * @throws JsonException Json格式不正确（无法解析成JsonObject，或Name出现重复）
      */
-    private JsonObject parseObject() throws IOException, JsonException
+    JsonObject parseObject() throws IOException, JsonException
     {
         JsonObject json = new JsonObject();
         boolean needNextElement = false;
@@ -117,11 +478,11 @@ class JsonTextParser
             
             if(isBlankCharacter(ch))
             {
-                next(); //skip blank character
+                skipBlank();
             }
             else
             {
-                String name = parseName();
+                String name = parseName(true);
                 if (json.containsName(name))
                 {
                     String msg = "Object element name \"" + name
@@ -167,7 +528,7 @@ class JsonTextParser
      * @throws IOException 读取Reader发生异常
      * @throws JsonException Json格式不正确（无法解析成JsonArray）
      */
-    private JsonArray parseArray() throws IOException, JsonException
+    JsonArray parseArray() throws IOException, JsonException
     {
         JsonArray json = new JsonArray();  
         boolean needNextElement = false;  
@@ -180,7 +541,7 @@ class JsonTextParser
             
             if (isBlankCharacter(ch))
             {
-                next(); //skip blank character
+                skipBlank();
             }
             else
             {
@@ -212,14 +573,86 @@ class JsonTextParser
         return json;
     }
     
+    /**
+     * 解析JsonObject中的一段子元素并加入json，用于并行解析。
+     * 进入时pos指向字符'{'或这一段之前的分隔符','，
+     * 数据源在这一段最后一个子元素之后的','或'}'处结束。
+     * @param json 接受子元素的JsonObject
+     * @throws IOException 读取Reader发生异常
+     * @throws JsonException Json格式不正确
+     */
+    void parseMembers(JsonObject json) throws IOException, JsonException
+    {
+        next(); // skip character '{' or ','
+        
+        while(true)
+        {
+            String name = parseName(true);
+            if (json.containsName(name))
+            {
+                String msg = "Object element name \"" + name
+                        + "\" at position " + pos + " is repeated.";
+                throw new JsonException(msg);
+            }
+            Json value = parseValue('}');
+            parseTailBlank(',', '}');
+            json.set(name, value);
+            
+            int sign = ch;
+            next(); // skip character ',' or '}'
+            if(ch == -1) break;
+            if(sign == '}') parseTailBlank(-1);
+        }
+    }
+    
+    /**
+     * 解析JsonArray中的一段子元素并加入json，用于并行解析。
+     * 进入时pos指向字符'['或这一段之前的分隔符','，
+     * 数据源在这一段最后一个子元素之后的','或']'处结束。
+     * @param json 接受子元素的JsonArray
+     * @throws IOException 读取Reader发生异常
+     * @throws JsonException Json格式不正确
+     */
+    void parseElements(JsonArray json) throws IOException, JsonException
+    {
+        next(); // skip character '[' or ','
+        
+        while(true)
+        {
+            skipBlank();
+            json.append(parseValue(']'));
+            parseTailBlank(',', ']');
+            
+            int sign = ch;
+            next(); // skip character ',' or ']'
+            if(ch == -1) break;
+            if(sign == ']') parseTailBlank(-1);
+        }
+    }
+    
+    /**
+     * 解析JsonObject子元素的name部分，进入时指向name部分（可包括前导空白）的第一个字符，
+     * 退出时指向字符':'后的第一个字符。
+     * @param keep 为false时只检查带引号的name的格式而不生成字符串（用于跳过子元素）
+     * @return 表示name的String，keep为false且name带引号时返回null
+     * @throws IOException 读取Reader发生异常
+     * @throws JsonException Json格式不正确（无法解析出一个表示Name的字符串或无法找到结束字符“:”）
+     */
+    String parseName(boolean keep) throws IOException, JsonException
+    {
+        return parseName(keep, null);
+    }
+    
     /**
      * 解析JsonObject子元素的name部分，进入时指向name部分（可包括前导空白）的第一个字符，
      * 退出时指向字符':'后的第一个字符。
-     * @return 表示name的String
+     * @param keep 为false时只检查带引号的name的格式而不生成字符串（用于跳过子元素）
+     * @param dest 不为null时把name追加到dest而不生成字符串（用于生成Json结构索引）
+     * @return 表示name的String，keep为false且name带引号，或者dest不为null时返回null
      * @throws IOException 读取Reader发生异常
      * @throws JsonException Json格式不正确（无法解析出一个表示Name的字符串或无法找到结束字符“:”）
      */
-    private String parseName() throws IOException, JsonException
+    private String parseName(boolean keep, StringBuilder dest) throws IOException, JsonException
     {
         String str = null;
         
@@ -227,17 +660,34 @@ class JsonTextParser
         {
             if(ch == '\'' || ch == '\"')
             {
-                str = parseString(ch);
+                if(dest != null)
+                {
+                    int quoteChar = ch;
+                    next(); // skip quatorChar
+                    appendString(quoteChar, dest);
+                }
+                else if(keep)
+                {
+                    str = parseString(ch, true);
+                }
+                else
+                {
+                    skipString(ch);
+                }
                 parseTailBlank(':');
                 break;
             }
             else if(! isBlankCharacter(ch))
             {
                 //无引号字符串
-                if(ch =='_' || ch == '$' || (ch >= 'a' && ch <= 'z')
-                        || (ch >= 'A' && ch <= 'Z') || ch > 256)
+                if(JsonCharClass.isNameStart(ch))
                 {
                     str = parseString();
+                    if(dest != null)
+                    {
+                        dest.append(str);
+                        str = null;
+                    }
                     parseTailBlank(':');
                     break;
                 }
@@ -248,7 +698,7 @@ class JsonTextParser
                 }
             }
             
-            next();
+            skipBlank();
         }
         
         if(ch == ':') //Name部分正常结束
@@ -273,7 +723,7 @@ class JsonTextParser
      * @throws IOException 读取Reader发生异常
      * @throws JsonException Json格式不正确（无法解析成Json子元素）
      */
-    private Json parseValue(int endChar) throws IOException, JsonException
+    Json parseValue(int endChar) throws IOException, JsonException
     {
         Json json = null;
         
@@ -281,16 +731,16 @@ class JsonTextParser
         {
             if(isBlankCharacter(ch))
             {
-                next(); // skip blank character
+                skipBlank();
             }
             else if(ch == '{')
             {
-                json = parseObject();
+                json = lazy? lazyObject(): parseObject();
                 break;
             }
             else if(ch == '[')
             {
-                json = parseArray();
+                json = lazy? lazyArray(): parseArray();
                 break;
             }
             else if(ch == 't') // parse true
@@ -322,190 +772,1095 @@ class JsonTextParser
             }
             else 
             {
-                String msg = null;
-                if(ch == '+')
+                throw valueError(endChar);
+            }
+            
+        }
+        
+        return json;
+    }
+    
+    /**
+     * 跳过Json子元素（对JsonObject而言指子元素的Value部分），只检查格式而不生成Json实例，
+     * 进入时指向表示value（可包含前导空白）的第一个字符，
+     * 退出时指向value（不包含尾空白）之后的第一个字符。
+     * 与parseValue不同的是，不检测JsonObject中重复的Name，也不检测整数是否超出long的范围。
+     * @param endChar 子元素除逗号外的结束符，只允许是]或}
+     * @throws IOException 读取Reader发生异常
+     * @throws JsonException Json格式不正确（无法解析成Json子元素）
+     */
+    void skipValue(int endChar) throws IOException, JsonException
+    {
+        while(ch != -1)
+        {
+            if(isBlankCharacter(ch))
+            {
+                skipBlank();
+            }
+            else if(ch == '{')
+            {
+                skipObject();
+                break;
+            }
+            else if(ch == '[')
+            {
+                skipArray();
+                break;
+            }
+            else if(ch == 't' || ch == 'f' || ch == 'n')
+            {
+                parseValue(endChar); //Json常量是共享的实例，不会生成新的对象
+                break;
+            }
+            else if(ch == '\'' || ch == '\"')
+            {
+                skipString(ch);
+                break;
+            }
+            else if(ch == '-' || (ch >= '0' && ch<= '9'))
+            {
+                scanNumber(null, endChar);
+                break;
+            }
+            else 
+            {
+                throw valueError(endChar);
+            }
+        }
+    }
+    
+    /**
+     * 解析JsonObject并调用handler对应的方法，不检测重复的Name，
+     * 进入时pos指向字符'{'，退出时指向对应的'}'之后的第一个字符。
+     * @param handler 接受解析结果的回调
+     * @throws IOException 读取Reader发生异常
+     * @throws JsonException Json格式不正确（无法解析成JsonObject）
+     */
+    private void handleObject(JsonHandler handler) throws IOException, JsonException
+    {
+        boolean needNextElement = false;
+        
+        next(); //skip character '{'
+        handler.startObject();
+        
+        while(ch != -1)
+        {
+            if(needNextElement == false && ch == '}') break;
+            
+            if(isBlankCharacter(ch))
+            {
+                skipBlank();
+            }
+            else
+            {
+                handler.name(parseName(true));
+                handleValue('}', handler);
+                parseTailBlank(',', '}');
+                if (ch == '}')
+                {
+                    break;
+                }
+                else
+                {
+                    next(); // skip character ','
+                    needNextElement = true;
+                }
+            }
+        }
+        
+        if(ch == '}')
+        {
+            next(); // skip character '}'
+            handler.endObject();
+        }
+        else
+        {
+            String msg = "Cannot found object end sign \'}\' at position " + pos + ".";
+            throw new JsonException(msg);
+        }
+    }
+    
+    /**
+     * 解析JsonArray并调用handler对应的方法，
+     * 进入时pos指向字符'['，退出时指向对应的']'之后的第一个字符。
+     * @param handler 接受解析结果的回调
+     * @throws IOException 读取Reader发生异常
+     * @throws JsonException Json格式不正确（无法解析成JsonArray）
+     */
+    private void handleArray(JsonHandler handler) throws IOException, JsonException
+    {
+        boolean needNextElement = false;  
+        
+        next(); // skip character '['
+        handler.startArray();
+        
+        while(ch != -1)
+        {
+            if(needNextElement == false && ch == ']') break;
+            
+            if (isBlankCharacter(ch))
+            {
+                skipBlank();
+            }
+            else
+            {
+                handleValue(']', handler);
+                parseTailBlank(',', ']');
+                if (ch == ']')
+                {
+                    break;
+                } 
+                else
+                {
+                    next(); // skip character ','
+                    needNextElement = true;
+                }
+            }
+        }
+        
+        if(ch == ']')
+        {
+            next(); // skip character ']'
+            handler.endArray();
+        }
+        else
+        {
+            String msg = "Cannot found array end sign \']\' at position " + pos + ".";
+            throw new JsonException(msg);
+        }
+    }
+    
+    /**
+     * 解析Json子元素并调用handler对应的方法，
+     * 进入时指向表示value（可包含前导空白）的第一个字符，
+     * 退出时指向value（不包含尾空白）之后的第一个字符。
+     * @param endChar 子元素除逗号外的结束符，只允许是]或}
+     * @param handler 接受解析结果的回调
+     * @throws IOException 读取Reader发生异常
+     * @throws JsonException Json格式不正确（无法解析成Json子元素）
+     */
+    private void handleValue(int endChar, JsonHandler handler) throws IOException, JsonException
+    {
+        while(ch != -1)
+        {
+            if(isBlankCharacter(ch))
+            {
+                skipBlank();
+            }
+            else if(ch == '{')
+            {
+                handleObject(handler);
+                break;
+            }
+            else if(ch == '[')
+            {
+                handleArray(handler);
+                break;
+            }
+            else if(ch == 't' || ch == 'f' || ch == 'n')
+            {
+                Json json = parseValue(endChar);
+                if(json == Json.nullJson)
+                {
+                    handler.nullValue();
+                }
+                else
+                {
+                    handler.booleanValue(json == Json.trueJson);
+                }
+                break;
+            }
+            else if(ch == '\'' || ch == '\"')
+            {
+                handler.stringValue(parseString(ch));
+                break;
+            }
+            else if(ch == '-' || (ch >= '0' && ch<= '9'))
+            {
+                if(readNumber(endChar))
+                {
+                    handler.longValue(numberLong);
+                }
+                else
+                {
+                    handler.doubleValue(numberDouble);
+                }
+                break;
+            }
+            else 
+            {
+                throw valueError(endChar);
+            }
+        }
+    }
+    
+    /**
+     * 把JsonObject写入tape，不检测重复的Name，
+     * 进入时pos指向字符'{'，退出时指向对应的'}'之后的第一个字符。
+     * @param tape 接受解析结果的Json结构索引
+     * @throws IOException 读取Reader发生异常
+     * @throws JsonException Json格式不正确（无法解析成JsonObject）
+     */
+    private void tapeObject(JsonTape tape) throws IOException, JsonException
+    {
+        boolean needNextElement = false;
+        int count = 0;
+        
+        next(); //skip character '{'
+        int start = tape.startContainer(JsonTape.OBJECT);
+        
+        while(ch != -1)
+        {
+            if(needNextElement == false && ch == '}') break;
+            
+            if(isBlankCharacter(ch))
+            {
+                skipBlank();
+            }
+            else
+            {
+                StringBuilder chars = tape.chars();
+                int offset = chars.length();
+                parseName(true, chars);
+                tape.addString(offset, chars.length() - offset);
+                tapeValue('}', tape);
+                count++;
+                parseTailBlank(',', '}');
+                if (ch == '}')
+                {
+                    break;
+                }
+                else
+                {
+                    next(); // skip character ','
+                    needNextElement = true;
+                }
+            }
+        }
+        
+        if(ch == '}')
+        {
+            next(); // skip character '}'
+            tape.endContainer(start, JsonTape.OBJECT_END, count);
+        }
+        else
+        {
+            String msg = "Cannot found object end sign \'}\' at position " + pos + ".";
+            throw new JsonException(msg);
+        }
+    }
+    
+    /**
+     * 把JsonArray写入tape，
+     * 进入时pos指向字符'['，退出时指向对应的']'之后的第一个字符。
+     * @param tape 接受解析结果的Json结构索引
+     * @throws IOException 读取Reader发生异常
+     * @throws JsonException Json格式不正确（无法解析成JsonArray）
+     */
+    private void tapeArray(JsonTape tape) throws IOException, JsonException
+    {
+        boolean needNextElement = false;
+        int count = 0;
+        
+        next(); // skip character '['
+        int start = tape.startContainer(JsonTape.ARRAY);
+        
+        while(ch != -1)
+        {
+            if(needNextElement == false && ch == ']') break;
+            
+            if (isBlankCharacter(ch))
+            {
+                skipBlank();
+            }
+            else
+            {
+                tapeValue(']', tape);
+                count++;
+                parseTailBlank(',', ']');
+                if (ch == ']')
+                {
+                    break;
+                } 
+                else
+                {
+                    next(); // skip character ','
+                    needNextElement = true;
+                }
+            }
+        }
+        
+        if(ch == ']')
+        {
+            next(); // skip character ']'
+            tape.endContainer(start, JsonTape.ARRAY_END, count);
+        }
+        else
+        {
+            String msg = "Cannot found array end sign \']\' at position " + pos + ".";
+            throw new JsonException(msg);
+        }
+    }
+    
+    /**
+     * 把Json子元素写入tape，
+     * 进入时指向表示value（可包含前导空白）的第一个字符，
+     * 退出时指向value（不包含尾空白）之后的第一个字符。
+     * @param endChar 子元素除逗号外的结束符，只允许是]或}
+     * @param tape 接受解析结果的Json结构索引
+     * @throws IOException 读取Reader发生异常
+     * @throws JsonException Json格式不正确（无法解析成Json子元素）
+     */
+    private void tapeValue(int endChar, JsonTape tape) throws IOException, JsonException
+    {
+        while(ch != -1)
+        {
+            if(isBlankCharacter(ch))
+            {
+                skipBlank();
+            }
+            else if(ch == '{')
+            {
+                tapeObject(tape);
+                break;
+            }
+            else if(ch == '[')
+            {
+                tapeArray(tape);
+                break;
+            }
+            else if(ch == 't' || ch == 'f' || ch == 'n')
+            {
+                Json json = parseValue(endChar);
+                if(json == Json.nullJson)
+                {
+                    tape.addConstant(JsonTape.NULL);
+                }
+                else
+                {
+                    tape.addConstant((json == Json.trueJson)? JsonTape.TRUE: JsonTape.FALSE);
+                }
+                break;
+            }
+            else if(ch == '\'' || ch == '\"')
+            {
+                int quoteChar = ch;
+                StringBuilder chars = tape.chars();
+                int offset = chars.length();
+                next(); // skip quatorChar
+                appendString(quoteChar, chars);
+                tape.addString(offset, chars.length() - offset);
+                break;
+            }
+            else if(ch == '-' || (ch >= '0' && ch<= '9'))
+            {
+                if(readNumber(endChar))
+                {
+                    tape.addLong(numberLong);
+                }
+                else
+                {
+                    tape.addDouble(numberDouble);
+                }
+                break;
+            }
+            else 
+            {
+                throw valueError(endChar);
+            }
+        }
+    }
+    
+    /**
+     * 校验JsonObject的格式并返回延迟解析的JsonObject，只记录其在字符序列中的范围，
+     * 进入时pos指向字符'{'，退出时指向对应的'}'之后的第一个字符。
+     * @return 延迟解析的JsonObject实例
+     * @throws IOException 读取Reader发生异常
+     * @throws JsonException Json格式不正确（无法解析成JsonObject）
+     */
+    private JsonObject lazyObject() throws IOException, JsonException
+    {
+        int start = (int)pos;
+        skipObject();
+        return new JsonObject(text, start, (int)pos);
+    }
+    
+    /**
+     * 校验JsonArray的格式并返回延迟解析的JsonArray，只记录其在字符序列中的范围，
+     * 进入时pos指向字符'['，退出时指向对应的']'之后的第一个字符。
+     * @return 延迟解析的JsonArray实例
+     * @throws IOException 读取Reader发生异常
+     * @throws JsonException Json格式不正确（无法解析成JsonArray）
+     */
+    private JsonArray lazyArray() throws IOException, JsonException
+    {
+        int start = (int)pos;
+        skipArray();
+        return new JsonArray(text, start, (int)pos);
+    }
+    
+    /**
+     * 跳过JsonObject，进入时pos指向字符'{'，退出时指向对应的'}'之后的第一个字符。
+     * @throws IOException 读取Reader发生异常
+     * @throws JsonException Json格式不正确（无法解析成JsonObject）
+     */
+    void skipObject() throws IOException, JsonException
+    {
+        boolean needNextElement = false;
+        
+        next(); //skip character '{'
+        
+        while(ch != -1)
+        {
+            if(needNextElement == false && ch == '}') break;
+            
+            if(isBlankCharacter(ch))
+            {
+                skipBlank();
+            }
+            else
+            {
+                parseName(false);
+                skipValue('}');
+                parseTailBlank(',', '}');
+                if (ch == '}')
+                {
+                    break;
+                }
+                else
+                {
+                    next(); // skip character ','
+                    needNextElement = true;
+                }
+            }
+        }
+        
+        if(ch == '}')
+        {
+            next(); // skip character '}'
+        }
+        else
+        {
+            String msg = "Cannot found object end sign \'}\' at position " + pos + ".";
+            throw new JsonException(msg);
+        }
+    }
+    
+    /**
+     * 跳过JsonArray，进入时pos指向字符'['，退出时指向对应的']'之后的第一个字符。
+     * @throws IOException 读取Reader发生异常
+     * @throws JsonException Json格式不正确（无法解析成JsonArray）
+     */
+    void skipArray() throws IOException, JsonException
+    {
+        boolean needNextElement = false;  
+        
+        next(); // skip character '['
+        
+        while(ch != -1)
+        {
+            if(needNextElement == false && ch == ']') break;
+            
+            if (isBlankCharacter(ch))
+            {
+                skipBlank();
+            }
+            else
+            {
+                skipValue(']');
+                parseTailBlank(',', ']');
+                if (ch == ']')
+                {
+                    break;
+                } 
+                else
+                {
+                    next(); // skip character ','
+                    needNextElement = true;
+                }
+            }
+        }
+        
+        if(ch == ']')
+        {
+            next(); // skip character ']'
+        }
+        else
+        {
+            String msg = "Cannot found array end sign \']\' at position " + pos + ".";
+            throw new JsonException(msg);
+        }
+    }
+    
+    /**
+     * 生成当前字符无法作为Json子元素开头时的异常，当前字符是'+'时会读入下一个字符。
+     * @param endChar 子元素除逗号外的结束符，只允许是]或}
+     * @return 对应的JsonException
+     * @throws IOException 读取Reader发生异常
+     */
+    JsonException valueError(int endChar) throws IOException
+    {
+        String msg = null;
+        if(ch == '+')
+        {
+            next();
+            if(ch>='0' && ch<='9')
+            {
+                    msg = "Json number cannot begin with '+' at position " + pos + ".";
+            }
+        }
+        
+        if(msg == null)
+        {
+            msg = (endChar == ']')? "Cannot found array element at position ":
+                                    "Cannot found object element value at position ";
+            msg += pos + ".";
+        }
+        return new JsonException(msg);
+    }
+    
+    /**
+     * 解析不带引号的字符串（用于处理JsonObject子元素的Name部分），
+     * 进入时pos指向字符串的开头，退出时指向字符串的下一个字符。
+     * @return 所解析的字符串
+     * @throws IOException 读取Reader发生异常
+     * @throws JsonException Json格式不正确（无法解析出一个不带引号的String）
+     */
+    private String parseString() throws IOException, JsonException
+    {
+        String str = null;
+        int start = bufPos - 1;
+        int i = bufPos;
+        while(i < bufLen && isNameCharacter(buf[i])) i++;
+        if(i < bufLen && (buf[i] == ':' || isBlankCharacter(buf[i])))
+        {
+            //Name完全在缓冲区内，直接用缓冲区中的字符查找缓存
+            str = nameString(buf, start, i - start);
+            moveTo(i);
+        }
+        else
+        {
+            str = parseStringSlow();
+        }
+        
+        if(JsonCharClass.isKeyword(str))
+        {
+            String msg = "Non-quotation mark string \"" + str + "\" found at position " + pos 
+                       + " is javascript keywords, so cannot as object element name..";
+            throw new JsonException(msg);
+        }
+        return str;
+    }
+    
+    /**
+     * 返回字符数组中指定范围的字符所对应的Name，多次出现的Name返回缓存中的同一个String实例。
+     * @param chars 包含Name的字符数组
+     * @param start Name第一个字符的下标
+     * @param len Name的长度
+     * @return 对应的String
+     */
+    private String nameString(char[] chars, int start, int len)
+    {
+        if(names == null) names = ownNames = new JsonNameCache();
+        return names.lookup(chars, start, len);
+    }
+    
+    /**
+     * 指定解析Name时使用的缓存，用于在多个解析器之间共享。
+     * @param names Name的规范化缓存
+     */
+    void setNameCache(JsonNameCache names)
+    {
+        this.names = names;
+    }
+    
+    /**
+     * 逐块解析不带引号的字符串，用于Name跨越缓冲区或包含非法字符的情况，
+     * 进入时pos指向字符串的开头，退出时指向字符串的下一个字符。
+     * @return 所解析的字符串（未做JavaScript关键字检测）
+     * @throws IOException 读取Reader发生异常
+     * @throws JsonException Json格式不正确（无法解析出一个不带引号的String）
+     */
+    private String parseStringSlow() throws IOException, JsonException
+    {
+        StringBuilder build = scratch();
+        
+        while(ch != -1)
+        {
+            if(ch == ':' || isBlankCharacter(ch)) break;
+
+            if(isNameCharacter(ch))
+            {
+                //连续的合法字符直接从缓冲区成块复制
+                int start = bufPos - 1;
+                int i = bufPos;
+                while(i < bufLen && isNameCharacter(buf[i])) i++;
+                build.append(buf, start, i - start);
+                moveTo(i);
+            }
+            else
+            {
+                String msg = "Illegal character found in non-quotation mark string at position " + pos
+                           + ", so cannot as object element name.";
+                throw new JsonException(msg);
+            }
+        }
+        
+        return build.toString();
+    }
+    
+    /**
+     * 快速跳过一个子元素，只识别括号与引号（以及字符串中的转义符），不检查其他格式，
+     * 用于跳过不需要的子元素。进入时指向子元素的第一个字符（不包含前导空白），
+     * 退出时指向子元素之后的第一个字符。
+     * @param endChar 子元素除逗号外的结束符，只允许是]或}
+     * @throws IOException 读取Reader发生异常
+     * @throws JsonException 没有子元素，或子元素中的括号或引号没有结束
+     */
+    void skipFast(int endChar) throws IOException, JsonException
+    {
+        if(ch == -1 || ch == ',' || ch == '}' || ch == ']') throw valueError(endChar);
+        
+        int depth = 0;
+        int quote = -1; //当前所在字符串的引号，-1表示不在字符串中
+        boolean escape = false;
+        
+        while(ch != -1)
+        {
+            for(int i = bufPos - 1; i < bufLen; i++)
+            {
+                char c = buf[i];
+                if(quote != -1)
                 {
-                    next();
-                    if(ch>='0' && ch<='9')
+                    if(escape)
+                    {
+                        escape = false;
+                    }
+                    else if(c == '\\')
+                    {
+                        escape = true;
+                    }
+                    else if(c == quote)
                     {
-                            msg = "Json number cannot begin with '+' at position " + pos + ".";
+                        quote = -1;
+                        if(depth == 0)
+                        {
+                            moveTo(i + 1);
+                            return;
+                        }
                     }
                 }
-                
-                if(msg == null)
+                else if(c == '\"' || c == '\'')
+                {
+                    quote = c;
+                }
+                else if(c == '{' || c == '[')
+                {
+                    depth++;
+                }
+                else if(c == '}' || c == ']')
+                {
+                    if(depth <= 1)
+                    {
+                        //depth为0时是上级JsonObject或JsonArray的结束符，不属于子元素
+                        moveTo((depth == 0)? i: i + 1);
+                        return;
+                    }
+                    depth--;
+                }
+                else if(depth == 0 && (c == ',' || isBlankCharacter(c)))
+                {
+                    moveTo(i);
+                    return;
+                }
+            }
+            moveTo(bufLen);
+        }
+        
+        if(depth > 0 || quote != -1)
+        {
+            String msg = "Cannot found end of skipped value at position " + pos + ".";
+            throw new JsonException(msg);
+        }
+    }
+    
+    /**
+     * 解析带引号的字符串，进入时pos指向开头的引号，退出时指向结尾的引号的下一个字符。
+     * @param quoteChar 字符串所使用的引号，' or "
+     * @return 所解析的字符串
+     * @throws IOException 读取Reader发生异常
+     * @throws JsonException Json格式不正确（无法解析出一个带引号的字符串）
+     */
+    String parseString(int quoteChar) throws IOException, JsonException
+    {
+        return parseString(quoteChar, false);
+    }
+    
+    /**
+     * 解析带引号的字符串，进入时pos指向开头的引号，退出时指向结尾的引号的下一个字符。
+     * @param quoteChar 字符串所使用的引号，' or "
+     * @param isName 是否是JsonObject子元素的Name，是则在缓冲区内且不含转义符时通过Name缓存生成字符串
+     * @return 所解析的字符串
+     * @throws IOException 读取Reader发生异常
+     * @throws JsonException Json格式不正确（无法解析出一个带引号的字符串）
+     */
+    private String parseString(int quoteChar, boolean isName) throws IOException, JsonException
+    {
+        StringBuilder build = null;
+        next(); // skip quatorChar
+        
+        //字符串在缓冲区内且不含转义符时，直接截取缓冲区中的字符，不使用StringBuilder
+        if(ch != -1)
+        {
+            int start = bufPos - 1;
+            int i = start;
+            while(i < bufLen)
+            {
+                char c = buf[i];
+                if(c == quoteChar)
+                {
+                    String str = (isName)? nameString(buf, start, i - start): new String(buf, start, i - start);
+                    moveTo(i);
+                    next(); // skip quator char
+                    return str;
+                }
+                else if(c == '\\' || c < 0x0020)
+                {
+                    break;
+                }
+                i++;
+            }
+            build = scratch();
+            build.append(buf, start, i - start);
+            if(i > start) moveTo(i);
+        }
+        else
+        {
+            build = scratch();
+        }
+        
+        appendString(quoteChar, build);
+        return build.toString();
+    }
+    
+    /**
+     * 把带引号的字符串的剩余部分（转义符已还原）追加到build，
+     * 进入时pos指向开头的引号之后的某个字符，退出时指向结尾的引号的下一个字符。
+     * @param quoteChar 字符串所使用的引号，' or "
+     * @param build 接受字符串内容的StringBuilder
+     * @throws IOException 读取Reader发生异常
+     * @throws JsonException Json格式不正确（无法解析出一个带引号的字符串）
+     */
+    private void appendString(int quoteChar, StringBuilder build) throws IOException, JsonException
+    {
+        while(ch != -1)
+        {
+            if(ch == quoteChar) break;
+            
+            if(ch < 0x0020)
+            {
+                String msg = "Character less then \\u0020 found at position " + pos + ".";
+                throw new JsonException(msg);
+            }
+            if(ch == '\\')
+            {
+                appendEscape(build);
+            }
+            else
+            {
+                //不含转义符与控制字符的连续字符直接从缓冲区成块复制
+                int start = bufPos - 1;
+                int i = bufPos;
+                while(i < bufLen)
                 {
-                    msg = (endChar == ']')? "Cannot found array element at position ":
-                                            "Cannot found object element value at position ";
-                    msg += pos + ".";
+                    char c = buf[i];
+                    if(c == quoteChar || c == '\\' || c < 0x0020) break;
+                    i++;
                 }
+                build.append(buf, start, i - start);
+                moveTo(i);
+            }
+        }
+        
+        if(ch == quoteChar)
+        {
+            next(); // skip quator char
+        }
+        else
+        {
+            String msg = "Cannot found string end quotation ";
+            msg += (quoteChar == '"')? "\'" + (char)quoteChar + "\'": 
+                                       "\"" + (char)quoteChar + "\"";
+            msg += " at position " + pos + ".";
+            throw new JsonException(msg);
+        }
+    }
+    
+    /**
+     * 查表还原一个转义序列并追加到build，进入时pos指向转义符'\\'，退出时指向转义序列之后的字符。
+     * \\uXXXX的四个十六进制数字在缓冲区中时直接从缓冲区计算其数值；
+     * 代理对由两个相邻的\\uXXXX转义序列依次追加，得到的仍是UTF-16的增补字符。
+     * @param build 接受还原后字符的StringBuilder，为null时只检查格式（用于跳过字符串）
+     * @throws IOException 读取Reader发生异常
+     * @throws JsonException Json格式不正确（非法的转义符或十六进制数字）
+     */
+    private void appendEscape(StringBuilder build) throws IOException, JsonException
+    {
+        next(); // skip character '\\'
+        char c = (ch >= 0 && ch < 128)? JsonCharClass.ESCAPE_VALUES[ch]: 0;
+        if(c == 0)
+        {
+            if(ch != 'u')
+            {
+                String msg = "Unexpected escape sign \'\\" + (char)ch + "\' found at position " + pos + ".";
                 throw new JsonException(msg);
             }
             
+            int i = bufPos;
+            int code = -1;
+            if(i + 4 <= bufLen)
+            {
+                //任一字符不是十六进制数字时查表结果为-1，其或运算的结果也为负数
+                code = (JsonCharClass.hexValue(buf[i]) << 12) | (JsonCharClass.hexValue(buf[i + 1]) << 8)
+                     | (JsonCharClass.hexValue(buf[i + 2]) << 4) | JsonCharClass.hexValue(buf[i + 3]);
+                if(code >= 0) moveTo(i + 3);
+            }
+            if(code < 0)
+            {
+                //逐个字符读取，以便在出错时给出出错字符的位置
+                code = 0;
+                for(int k = 0; k < 4; k++)
+                {
+                    next();
+                    int digit = (ch >= 0)? JsonCharClass.hexValue((char)ch): -1;
+                    if(digit < 0)
+                    {
+                        String msg = "Un expected character found in unicode character sequence at positon " + pos + ".";
+                        throw new JsonException(msg);
+                    }
+                    code = (code << 4) | digit;
+                }
+            }
+            c = (char)code;
+        }
+        if(build != null) build.append(c);
+        next();
+    }
+    
+    /**
+     * 跳过带引号的字符串，只检查格式而不生成字符串，
+     * 进入时pos指向开头的引号，退出时指向结尾的引号的下一个字符。
+     * @param quoteChar 字符串所使用的引号，' or "
+     * @throws IOException 读取Reader发生异常
+     * @throws JsonException Json格式不正确（无法解析出一个带引号的字符串）
+     */
+    void skipString(int quoteChar) throws IOException, JsonException
+    {
+        next(); // skip quatorChar
+        
+        while(ch != -1)
+        {
+            if(ch == quoteChar) break;
+            
+            if(ch < 0x0020)
+            {
+                String msg = "Character less then \\u0020 found at position " + pos + ".";
+                throw new JsonException(msg);
+            }
+            if(ch == '\\')
+            {
+                appendEscape(null);
+            }
+            else
+            {
+                //不含转义符与控制字符的连续字符直接跳过
+                int i = bufPos;
+                while(i < bufLen)
+                {
+                    char c = buf[i];
+                    if(c == quoteChar || c == '\\' || c < 0x0020) break;
+                    i++;
+                }
+                moveTo(i);
+            }
         }
         
-        return json;
+        if(ch == quoteChar)
+        {
+            next(); // skip quator char
+        }
+        else
+        {
+            String msg = "Cannot found string end quotation ";
+            msg += (quoteChar == '"')? "\'" + (char)quoteChar + "\'": 
+                                       "\"" + (char)quoteChar + "\"";
+            msg += " at position " + pos + ".";
+            throw new JsonException(msg);
+        }
     }
     
     /**
-     * 解析不带引号的字符串（用于处理JsonObject子元素的Name部分），
-     * 进入时pos指向字符串的开头，退出时指向字符串的下一个字符。
-     * @return 所解析的字符串
+     * 解析Number字符串， 进入时pos指向Number的第一个字符，退出时指向Number的下一个字符。
+     * @param endChar Number后除空白、逗号外可接受的终止符，只允许是']' 或 '}'
+     * @return Number对象（Long或Double类型）
      * @throws IOException 读取Reader发生异常
-     * @throws JsonException Json格式不正确（无法解析出一个不带引号的String）
+     * @throws JsonException Json格式不正确（无法解析成一个Json Number）
+     */
+    Number parseNumber(int endChar) throws IOException, JsonException
+    {
+        if(readNumber(endChar))
+        {
+            return Long.valueOf(numberLong);
+        }
+        else
+        {
+            return Double.valueOf(numberDouble);
+        }
+    }
+    
+    /**
+     * 解析Number字符串，结果保存在numberLong或numberDouble中，不生成中间的String对象，
+     * 进入时pos指向Number的第一个字符，退出时指向Number的下一个字符。
+     * Number及其后的一个字符都在缓冲区中时直接在缓冲区中检查格式并转换，
+     * 否则用scanNumber逐个字符读取（格式错误时也由scanNumber给出异常信息）。
+     * @param endChar Number后除空白、逗号外可接受的终止符，只允许是']' 或 '}'
+     * @return 是整数（结果在numberLong中）返回true，否则（结果在numberDouble中）返回false
+     * @throws IOException 读取Reader发生异常
+     * @throws JsonException Json格式不正确（无法解析成一个Json Number）
+     */
+    private boolean readNumber(int endChar) throws IOException, JsonException
+    {
+        int start = bufPos - 1;
+        int end = scanNumberInBuffer(start, endChar);
+        if(end != 0)
+        {
+            boolean isInt = (end > 0);
+            if(! isInt) end = -end;
+            moveTo(end); //end小于bufLen，不会读入新的字符
+            convertNumber(buf, start, end, isInt);
+            return isInt;
+        }
+        
+        if(numberBuild == null)
+        {
+            numberBuild = new StringBuilder();
+            numberChars = new char[32];
+        }
+        numberBuild.setLength(0);
+        boolean isInt = scanNumber(numberBuild, endChar);
+        int len = numberBuild.length();
+        if(len > numberChars.length)
+        {
+            numberChars = new char[Math.max(len, numberChars.length * 2)];
+        }
+        numberBuild.getChars(0, len, numberChars, 0);
+        convertNumber(numberChars, 0, len, isInt);
+        return isInt;
+    }
+    
+    /**
+     * 在缓冲区中检查从start开始的Number字符串的格式，不移动当前字符。
+     * @param start Number第一个字符在缓冲区中的下标
+     * @param endChar Number后除空白、逗号外可接受的终止符，只允许是']' 或 '}'
+     * @return Number格式正确且其后的字符也在缓冲区中时返回该字符的下标，不是整数时取负值；
+     *         否则返回0
      */
-    private String parseString() throws IOException, JsonException
+    private int scanNumberInBuffer(int start, int endChar)
     {
-        StringBuilder build = new StringBuilder();
+        char[] b = buf;
+        int len = bufLen;
+        int i = start;
+        boolean isInt = true;
         
-        while(ch != -1)
+        if(b[i] == '-') i++;
+        if(i < len && b[i] == '0')
         {
-            if(ch == ':' || isBlankCharacter(ch)) break;
-
-            if(ch > 256 || ch =='_' || ch == '$' || (ch >= 'a' && ch <= 'z')
-                    || (ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch<= '9'))
-            {
-                build.append((char)ch);
-            }
-            else
-            {
-                String msg = "Illegal character found in non-quotation mark string at position " + pos
-                           + ", so cannot as object element name.";
-                throw new JsonException(msg);
-            }
-            
-            next();
+            i++;
+        }
+        else if(i < len && b[i] > '0' && b[i] <= '9')
+        {
+            while(++i < len && b[i] >= '0' && b[i] <= '9');
+        }
+        else
+        {
+            return 0;
         }
         
-        String str = build.toString();
-        if(isJsKeywords(str))
+        if(i < len && b[i] == '.')
         {
-            String msg = "Non-quotation mark string \"" + str + "\" found at position " + pos 
-                       + " is javascript keywords, so cannot as object element name..";
-            throw new JsonException(msg);
+            isInt = false;
+            if(++i >= len || b[i] < '0' || b[i] > '9') return 0;
+            while(++i < len && b[i] >= '0' && b[i] <= '9');
         }
-        return str;
+        
+        if(i < len && (b[i] == 'e' || b[i] == 'E'))
+        {
+            isInt = false;
+            if(++i < len && (b[i] == '+' || b[i] == '-')) i++;
+            if(i >= len || b[i] < '0' || b[i] > '9') return 0;
+            while(++i < len && b[i] >= '0' && b[i] <= '9');
+        }
+        
+        if(i < len && (b[i] == ',' || b[i] == endChar || isBlankCharacter(b[i])))
+        {
+            return (isInt)? i: -i;
+        }
+        return 0;
     }
     
     /**
-     * 解析带引号的字符串，进入时pos指向开头的引号，退出时指向结尾的引号的下一个字符。
-     * @param quoteChar 字符串所使用的引号，' or "
-     * @return 所解析的字符串
-     * @throws IOException 读取Reader发生异常
-     * @throws JsonException Json格式不正确（无法解析出一个带引号的字符串）
+     * 把检查过格式的Number字符转换为long或double，结果保存在numberLong或numberDouble中。
+     * @param s 包含Number字符的数组
+     * @param start 第一个字符的下标
+     * @param end 最后一个字符的下一个下标
+     * @param isInt 是否是整数
+     * @throws JsonException 整数超出long的范围
      */
-    private String parseString(int quoteChar) throws IOException, JsonException
+    private void convertNumber(char[] s, int start, int end, boolean isInt) throws JsonException
     {
-        StringBuilder build = new StringBuilder();
-        next(); // skip quatorChar
-        
-        while(ch != -1)
+        try
         {
-            if(ch == quoteChar) break;
-            
-            if(ch < 0x0020)
+            if(isInt)
             {
-                String msg = "Character less then \\u0020 found at position " + pos + ".";
-                throw new JsonException(msg);
+                numberLong = NumberConverter.toLong(s, start, end);
             }
-            if(ch == '\\')
+            else
             {
-                next();
-                switch(ch)
-                {
-                    case '\"':
-                        ch = '\"';
-                        break;
-                    case '\'':
-                        ch = '\'';
-                        break;
-                    case '\\':
-                        ch = '\\';
-                        break;
-                    case '/':
-                        ch = '/';
-                        break;
-                    case 'b':
-                        ch = '\b';
-                        break;
-                    case 'f':
-                        ch = '\f';
-                        break;
-                    case 'n':
-                        ch = '\n';
-                        break;
-                    case 'r':
-                        ch = '\r';
-                        break;
-                    case 't':
-                        ch = '\t';
-                        break;
-                    case 'u':
-                        for(int i=0; i<4; i++)
-                        {
-                            next();
-                            if((ch >='0' && ch <='9') || (ch >= 'a' && ch <='f')
-                                    || (ch>= 'A' && ch <= 'F'))
-                            {
-                                unicodeChar[i] = (char)ch;
-                            }
-                            else
-                            {
-                                String msg = "Un expected character found in unicode character sequence at positon " + pos + ".";
-                                throw new JsonException(msg);
-                            }
-                            
-                        }
-                        ch = Integer.parseInt(new String(unicodeChar), 16);
-                        break;
-                    default:
-                        String msg = "Unexpected escape sign \'\\" + (char)ch + "\' found at position " + pos + ".";
-                        throw new JsonException(msg);
-                }
+                numberDouble = NumberConverter.toDouble(s, start, end);
             }
-            build.append((char)ch);
-
-            next();
-        }
-        
-        if(ch == quoteChar)
-        {
-            next(); // skip quator char
-        }
-        else
+        } 
+        catch (NumberFormatException e)
         {
-            String msg = "Cannot found string end quotation ";
-            msg += (quoteChar == '"')? "\'" + (char)quoteChar + "\'": 
-                                       "\"" + (char)quoteChar + "\"";
-            msg += " at position " + pos + ".";
-            throw new JsonException(msg);
+            String msg = (isInt)? "Integer ": "Float ";
+            msg += "string \"" + new String(s, start, end - start) + "\" format error at position " + pos + ".";
+            throw new JsonException(msg, e);
         }
-        
-        return build.toString();
     }
     
     /**
-     * 解析Number字符串， 进入时pos指向Number的第一个字符，退出时指向Number的下一个字符。
+     * 检查Number字符串的格式，并把其中的字符追加到build，
+     * 进入时pos指向Number的第一个字符，退出时指向Number的下一个字符。
+     * @param build 接受Number字符的StringBuilder，为null时只检查格式（用于跳过Number）
      * @param endChar Number后除空白、逗号外可接受的终止符，只允许是']' 或 '}'
-     * @return Number对象（Long或Double类型）
+     * @return 是整数返回true，含有小数或指数部分返回false
      * @throws IOException 读取Reader发生异常
      * @throws JsonException Json格式不正确（无法解析成一个Json Number）
      */
-    private Number parseNumber(int endChar) throws IOException, JsonException
+    private boolean scanNumber(StringBuilder build, int endChar) throws IOException, JsonException
     {
-        StringBuilder build = new StringBuilder();
         boolean isInt = true;
         
         // parse minus sign
         if(ch == '-')
         {
-            build.append((char)ch);
+            if(build != null) build.append((char)ch);
             next();
         }
         
         //parse integer part
         if(ch == '0') //begin with 0
         {
-            build.append((char)ch);
+            if(build != null) build.append((char)ch);
             next();
             if(ch >= '0' && ch <= '9')
             {
@@ -514,22 +1869,7 @@ class JsonTextParser
         }
         else if(ch > '0' && ch <= '9') //begin with 1..9
         {
-            build.append((char)ch);
-            next();
-            
-            while(ch != -1)
-            {
-                if(ch >= '0' && ch <= '9')
-                {
-                    build.append((char)ch);
-                }
-                else
-                {
-                    break;
-                }
-                
-                next();
-            }
+            appendDigits(build);
         }
         else
         {
@@ -539,24 +1879,12 @@ class JsonTextParser
         //parse fraction
         if(ch == '.')
         {
-            build.append((char)ch);
+            if(build != null) build.append((char)ch);
             isInt = false;            
             next(); //skip character '.'
             if(ch>='0' && ch<='9')
             {
-                while(ch != -1)
-                {
-                    if(ch>='0' && ch<='9')
-                    {
-                        build.append((char)ch);
-                    }
-                    else
-                    {
-                        break;
-                    }
-                    
-                    next();
-                }
+                appendDigits(build);
             }
             else
             {
@@ -568,7 +1896,7 @@ class JsonTextParser
         // parse exponent
         if(ch == 'e' || ch == 'E')
         {
-            build.append((char)ch);
+            if(build != null) build.append((char)ch);
             isInt = false;
             
             next(); //skip character e
@@ -576,25 +1904,13 @@ class JsonTextParser
             //parse plus or minus sign
             if(ch == '+' || ch == '-')
             {
-                build.append((char)ch);
+                if(build != null) build.append((char)ch);
                 next();
             }
             
             if(ch>='0' && ch<='9')
             {
-                while(ch != -1)
-                {
-                    if(ch>='0' && ch<='9')
-                    {
-                        build.append((char)ch);
-                    }
-                    else
-                    {
-                        break;
-                    }
-    
-                    next();
-                }
+                appendDigits(build);
             }
             else
             {
@@ -607,24 +1923,7 @@ class JsonTextParser
             throw new JsonException(msg);
         }
         
-        String numStr = build.toString();
-        try
-        {
-            if(isInt)
-            {
-                return Long.parseLong(numStr);
-            }
-            else
-            {
-                return Double.parseDouble(numStr);
-            }
-        } 
-        catch (NumberFormatException e)
-        {
-            String msg = (isInt)? "Integer ": "Float ";
-            msg += "string \"" + numStr + "\" format error at position " + pos + ".";
-            throw new JsonException(msg, e);
-        }
+        return isInt;
     }
     
     /**
@@ -672,7 +1971,7 @@ class JsonTextParser
      * @throws IOException 读取Reader发生异常
      * @throws JsonException Json格式不正确（遇到终止字符前读到非空白字符或已到达Reader尾部）
      */
-    private void parseTailBlank(int endChar1, int endChar2) throws IOException, JsonException
+    void parseTailBlank(int endChar1, int endChar2) throws IOException, JsonException
     {
         boolean found = false;
         
@@ -690,7 +1989,7 @@ class JsonTextParser
                 throw new JsonException(msg);
             }
             
-            next();
+            skipBlank();
         }
         
         if(! found)
@@ -708,7 +2007,7 @@ class JsonTextParser
      * @throws IOException 读取Reader发生异常
      * @throws JsonException Json格式不正确（遇到终止字符前读到非空白字符，或当终止字符不是-1时已到达Reader尾部）
      */
-    private void parseTailBlank(int endChar) throws IOException, JsonException
+    void parseTailBlank(int endChar) throws IOException, JsonException
     {
         boolean found = false;
         
@@ -726,7 +2025,7 @@ class JsonTextParser
                 throw new JsonException(msg);
             }
             
-            next();
+            skipBlank();
         }
         
         if(! found && endChar != -1)
@@ -743,33 +2042,195 @@ class JsonTextParser
      */
     private boolean isBlankCharacter(int c)
     {
-        return (ch == ' ' || ch == '\t' || ch == '\r' || ch == '\n')? true: false;
+        return JsonCharClass.isBlank(c);
+    }
+    
+    /**
+     * 检测字符c是否可以出现在不带引号的Name中。
+     * @param c 被检测字符
+     * @return 可以返回true，否则返回false
+     */
+    private boolean isNameCharacter(int c)
+    {
+        return JsonCharClass.isNamePart(c);
     }
     
     /**
-     * 读取下一个字符，并更新ch与pos。
+     * 从当前字符开始跳过连续的空白字符，进入时指向空白字符，退出时指向第一个非空白字符或EOF。
      * @throws IOException 读取Reader发生异常
      */
-    private void next() throws IOException
+    void skipBlank() throws IOException
     {
-        ch = reader.read();
+        while(ch != -1 && isBlankCharacter(ch))
+        {
+            int i = bufPos;
+            while(i < bufLen && isBlankCharacter(buf[i])) i++;
+            moveTo(i);
+        }
+    }
+    
+    /**
+     * 从当前字符开始将连续的数字追加到build，进入时指向第一个数字，退出时指向数字后的第一个字符。
+     * @param build 接受数字的StringBuilder，为null时只跳过数字
+     * @throws IOException 读取Reader发生异常
+     */
+    private void appendDigits(StringBuilder build) throws IOException
+    {
+        while(ch >= '0' && ch <= '9')
+        {
+            int start = bufPos - 1;
+            int i = bufPos;
+            while(i < bufLen && buf[i] >= '0' && buf[i] <= '9') i++;
+            if(build != null) build.append(buf, start, i - start);
+            moveTo(i);
+        }
+    }
+    
+    /**
+     * 读取下一个字符，并更新ch与pos，缓冲区读完后从reader中成块读入。
+     * @throws IOException 读取Reader发生异常
+     */
+    void next() throws IOException
+    {
+        if(bufPos < bufLen || fill())
+        {
+            ch = buf[bufPos++];
+        }
+        else
+        {
+            ch = -1;
+        }
 //        c = (char)ch; //this line used for debug
 //        System.out.print((char)ch);
         pos++;
     }
     
     /**
-     * 判断字符串是否为JavaScript关键字或保留字。
-     * @param str 被判断的字符串
-     * @return 是JavaScript关键字或保留字返回true，否则返回false
+     * 开始记录读过的字符，从当前字符开始，当前字符不能是EOF。
+     * @param build 接受记录的字符的StringBuilder
+     */
+    void startCapture(StringBuilder build)
+    {
+        capture = build;
+        captureStart = bufPos - 1;
+    }
+    
+    /**
+     * 结束记录读过的字符，当前字符（不是EOF时）也被记录。
+     */
+    void endCapture()
+    {
+        if(ch != -1) capture.append(buf, captureStart, bufPos - captureStart);
+        capture = null;
+    }
+    
+    /**
+     * 返回当前字符。
+     * @return 当前字符，已到达尾部时返回-1
+     */
+    int current()
+    {
+        return ch;
+    }
+    
+    /**
+     * 返回当前字符的位置。
+     * @return 当前字符的位置，从0开始
+     */
+    long position()
+    {
+        return pos;
+    }
+    
+    /**
+     * 将缓冲区下标为index的字符作为当前字符，并更新ch与pos，
+     * 进入时ch必须是缓冲区中的字符，且index不小于ch在缓冲区中的下标。
+     * 如果index等于bufLen，则从reader中读入下一块字符。
+     * @param index 新的当前字符在缓冲区中的下标
+     * @throws IOException 读取Reader发生异常
+     */
+    private void moveTo(int index) throws IOException
+    {
+        pos += index - bufPos;
+        bufPos = index;
+        next();
+    }
+    
+    /**
+     * 从reader中读入下一块字符到缓冲区。
+     * @return 读入了字符返回true，已到达reader尾部返回false
+     * @throws IOException 读取Reader发生异常
+     */
+    private boolean fill() throws IOException
+    {
+        if(capture != null)
+        {
+            capture.append(buf, captureStart, bufLen - captureStart);
+            captureStart = 0;
+        }
+        
+        int len = -1;
+        if(reader != null)
+        {
+            len = 0;
+            while(len == 0)
+            {
+                len = reader.read(buf, 0, buf.length);
+            }
+        }
+        else if(text != null && textPos < textEnd)
+        {
+            len = Math.min(buf.length, textEnd - textPos);
+            copyChars(text, textPos, len, buf);
+            textPos += len;
+        }
+        
+        if(len < 0)
+        {
+            bufPos = 0;
+            bufLen = 0;
+            return false;
+        }
+        
+        bufPos = 0;
+        bufLen = len;
+        return true;
+    }
+    
+    /**
+     * 将字符序列src中从start开始的len个字符复制到数组dest的开头。
+     * @param src 源字符序列
+     * @param start 源字符序列的起始下标
+     * @param len 复制的字符个数
+     * @param dest 目标数组
      */
-    protected static boolean isJsKeywords(String str)
+    static void copyChars(CharSequence src, int start, int len, char[] dest)
     {
-        for(String key: jsKeywords)
+        if(src instanceof String)
+        {
+            ((String)src).getChars(start, start + len, dest, 0);
+        }
+        else if(src instanceof StringBuilder)
+        {
+            ((StringBuilder)src).getChars(start, start + len, dest, 0);
+        }
+        else if(src instanceof StringBuffer)
+        {
+            ((StringBuffer)src).getChars(start, start + len, dest, 0);
+        }
+        else if(src instanceof CharBuffer)
+        {
+            CharBuffer cb = ((CharBuffer)src).duplicate();
+            cb.position(cb.position() + start);
+            cb.get(dest, 0, len);
+        }
+        else
         {
-            if(str.equals(key)) return true;
+            for(int i=0; i<len; i++)
+            {
+                dest[i] = src.charAt(start + i);
+            }
         }
-        return false;
     }
     
     /**
@@ -780,97 +2241,59 @@ class JsonTextParser
      */
     protected static void jsonStringToAppendable(String str, Appendable dest) throws IOException
     {
+        String[] escapes = JsonCharClass.ESCAPE_TEXTS;
         dest.append('\"');
         int len = str.length();
+        int run = 0; // 尚未追加的不需转义的连续字符的起始下标
         for(int i=0; i<len; i++)
         {
             char c = str.charAt(i);
-            if(c == '\'')
-            {
-                dest.append("\\\'");
-            }
-            else if(c == '\"')
-            {
-                dest.append("\\\"");
-            }
-            else if(c == '\\')
-            {
-                dest.append("\\\\");
-            }
-            else if(c == '/')
-            {
-                dest.append("\\/");
-            }
-            else if(c == '\b')
-            {
-                dest.append("\\b");
-            }
-            else if(c == '\f')
-            {
-                dest.append("\\f");
-            }
-            else if(c == '\n')
-            {
-                dest.append("\\n");
-            }
-            else if(c == '\r')
-            {
-                dest.append("\\r");
-            }
-            else if(c == '\t')
-            {
-                dest.append("\\t");
-            }
-            else if(c <= 0x1F)
-            {
-                dest.append("\\u");
-                dest.append(String.format("%04x", (int)c));
-            }
-            else
+            if(c < 128 && escapes[c] != null)
             {
-                dest.append(c);
+                if(i > run) appendRun(str, run, i, dest);
+                dest.append(escapes[c]);
+                run = i + 1;
             }
         }
+        if(len > run) appendRun(str, run, len, dest);
         dest.append('\"');
     }
     
     /**
-     * 将字符串尽量以不带引号的形式追加到字符流末尾，如果无法转换为不带引号的字符串，
-     * 则以带引号的字符串输出。
-     * @param str 要追加的字符串
+     * 将字符串中[start, end)范围的字符成块追加到字符流末尾。
+     * Writer.append(CharSequence, int, int)会先截取子串，所以对Writer直接调用write(String, int, int)。
+     * @param str 字符串
+     * @param start 起始下标
+     * @param end 结束下标（不包含）
      * @param dest 接受字符串的字符流对象
      * @throws IOException 发生IO异常
      */
-    protected static void jsonStringToAppendableWithoutQutoe(String str, Appendable dest) throws IOException
+    private static void appendRun(String str, int start, int end, Appendable dest) throws IOException
     {
-        boolean canToNoquote = true;
-
-        int len = str.length();
-        if(len ==0)
+        if(start == 0 && end == str.length())
         {
-            canToNoquote = false;
+            dest.append(str);
         }
-        else
+        else if(dest instanceof Writer)
         {
-            for(int i=0; i<len; i++)
-            {
-                char c = str.charAt(i);
-                
-                if(!(c > 256 || c =='_' || c == '$' || (c >= '0' && c<= '9')
-                        || (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z')))
-                {
-                    canToNoquote = false;
-                    break; 
-                }
-            }
+            ((Writer)dest).write(str, start, end - start);
         }
-        
-        if(canToNoquote)
+        else
         {
-            canToNoquote = ! isJsKeywords(str);
+            dest.append(str, start, end);
         }
-        
-        if(canToNoquote)
+    }
+    
+    /**
+     * 将字符串尽量以不带引号的形式追加到字符流末尾，如果无法转换为不带引号的字符串，
+     * 则以带引号的字符串输出。
+     * @param str 要追加的字符串
+     * @param dest 接受字符串的字符流对象
+     * @throws IOException 发生IO异常
+     */
+    protected static void jsonStringToAppendableWithoutQutoe(String str, Appendable dest) throws IOException
+    {
+        if(JsonCharClass.canOmitQuote(str))
         {
             dest.append(str);
         }
@@ -0,0 +1,648 @@
+package com.bantouyan.json;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigInteger;
+
+/**
+ * <p>把已经检查过格式的Json Number字符转换为long或double，以及把long或double转换为Json Number字符，
+ * 都不生成中间的String对象。</p>
+ *
+ * <p>整数直接累加到long，并检测溢出。浮点数先把最多19位有效数字累加到long，
+ * 能精确计算时（有效数字不超过2^53且10的指数不超过22）直接用一次乘法或除法；
+ * 否则用Eisel-Lemire算法根据128位的5的幂次近似值算出正确舍入的结果；
+ * 有效数字超过19位时交给Double.parseDouble处理。</p>
+ *
+ * <p>输出整数时先算出位数，再从低位开始每次用两位数字的查找表写入两位。
+ * 输出浮点数时用Schubfach算法根据126位的10的幂次近似值算出能还原为同一个double的最短的十进制数
+ * （最短的有多个时取最接近的），格式与Double.toString相同（如1.5、0.001、1.0E7、4.9E-324），
+ * 但不会像早期的Double.toString那样输出多余的数字（如2.0E-3输出为0.0020）。</p>
+ *
+ * @author 飞翔的河马
+ * @version 1.02
+ * @since 1.02
+ */
+final class NumberConverter
+{
+    private static final double[] POW10 = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private static final int MIN_POW10 = -342; // 小于此指数的非零数值舍入为0
+    private static final int MAX_POW10 = 308; // 大于此指数的非零数值舍入为无穷大
+
+    //5^q（q从-342到308）规格化为128位（最高位为1）的近似值的高64位与低64位
+    private static final long[] POW5_HIGH = new long[MAX_POW10 - MIN_POW10 + 1];
+    private static final long[] POW5_LOW = new long[MAX_POW10 - MIN_POW10 + 1];
+
+    static final int MAX_LONG_LENGTH = 20; // long的十进制表示最多占用的字符数（"-9223372036854775808"）
+    static final int MAX_DOUBLE_LENGTH = 24; // double的十进制表示最多占用的字符数（"-1.2345678901234567E-308"）
+
+    private static final long[] LONG_POW10 = new long[19]; // 10^0到10^18
+    private static final byte[] DIGIT_PAIRS = new byte[200]; // "00"到"99"
+
+    //Schubfach算法中double的参数
+    private static final int Q_MIN = -1074; // 最小的二进制指数（非规格化数）
+    private static final long C_MIN = 1L << 52; // 规格化数最小的有效数字
+    private static final long C_TINY = 3; // 小于此值的非规格化数的有效数字要乘以10才能得到足够的精度
+    private static final int K_MIN = -324;
+    private static final int K_MAX = 292;
+    private static final long MASK_63 = 0x7FFFFFFFFFFFFFFFL;
+
+    //10^-k（k从-324到292）规格化为126位（2^125 <= g < 2^126）后加1的高63位与低63位
+    private static final long[] POW10_HIGH = new long[K_MAX - K_MIN + 1];
+    private static final long[] POW10_LOW = new long[K_MAX - K_MIN + 1];
+
+    static
+    {
+        BigInteger two128 = BigInteger.ONE.shiftLeft(128);
+        BigInteger mask64 = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+        for(int q = MIN_POW10; q <= MAX_POW10; q++)
+        {
+            BigInteger c;
+            if(q < 0)
+            {
+                //2^b / 5^-q 向上取整，使其成为128位的数
+                BigInteger power5 = BigInteger.valueOf(5).pow(-q);
+                int z = power5.subtract(BigInteger.ONE).bitLength();
+                int b = (q >= -27)? z + 127: 2 * z + 128;
+                c = BigInteger.ONE.shiftLeft(b).divide(power5).add(BigInteger.ONE);
+                if(c.compareTo(two128) >= 0)
+                {
+                    c = c.shiftRight(c.bitLength() - 128);
+                }
+            }
+            else
+            {
+                //5^q 截断为128位
+                c = BigInteger.valueOf(5).pow(q);
+                c = (c.bitLength() <= 128)? c.shiftLeft(128 - c.bitLength()): c.shiftRight(c.bitLength() - 128);
+            }
+            POW5_HIGH[q - MIN_POW10] = c.shiftRight(64).longValue();
+            POW5_LOW[q - MIN_POW10] = c.and(mask64).longValue();
+        }
+
+        BigInteger mask63 = BigInteger.ONE.shiftLeft(63).subtract(BigInteger.ONE);
+        for(int k = K_MIN; k <= K_MAX; k++)
+        {
+            //10^-k = beta * 2^r，2^125 <= beta < 2^126，g = floor(beta) + 1
+            int r = flog2pow10(-k) - 125;
+            BigInteger g;
+            if(k <= 0)
+            {
+                BigInteger power10 = BigInteger.TEN.pow(-k);
+                g = (r >= 0)? power10.shiftRight(r): power10.shiftLeft(-r);
+            }
+            else
+            {
+                g = BigInteger.ONE.shiftLeft(-r).divide(BigInteger.TEN.pow(k));
+            }
+            g = g.add(BigInteger.ONE);
+            POW10_HIGH[k - K_MIN] = g.shiftRight(63).longValue();
+            POW10_LOW[k - K_MIN] = g.and(mask63).longValue();
+        }
+
+        LONG_POW10[0] = 1;
+        for(int i = 1; i < LONG_POW10.length; i++)
+        {
+            LONG_POW10[i] = LONG_POW10[i - 1] * 10;
+        }
+        for(int i = 0; i < 100; i++)
+        {
+            DIGIT_PAIRS[i * 2] = (byte)('0' + i / 10);
+            DIGIT_PAIRS[i * 2 + 1] = (byte)('0' + i % 10);
+        }
+    }
+
+    private NumberConverter()
+    {
+    }
+
+    /**
+     * 把十进制整数字符转换为long。
+     * @param s 包含整数字符的数组
+     * @param start 第一个字符的下标，可以是负号
+     * @param end 最后一个字符的下一个下标
+     * @return 对应的long值
+     * @throws NumberFormatException 整数超出long的范围
+     */
+    static long toLong(char[] s, int start, int end) throws NumberFormatException
+    {
+        boolean negative = (s[start] == '-');
+        //与Long.parseLong相同，以负数累加，避免Long.MIN_VALUE溢出
+        long limit = negative? Long.MIN_VALUE: -Long.MAX_VALUE;
+        long multmin = limit / 10;
+        long value = 0;
+        for(int i = (negative)? start + 1: start; i < end; i++)
+        {
+            int digit = s[i] - '0';
+            if(value < multmin || value * 10 < limit + digit)
+            {
+                throw new NumberFormatException("For input string: \"" + new String(s, start, end - start) + "\"");
+            }
+            value = value * 10 - digit;
+        }
+        return (negative)? value: -value;
+    }
+
+    /**
+     * 把十进制浮点数字符转换为正确舍入的double。
+     * @param s 包含浮点数字符的数组
+     * @param start 第一个字符的下标，可以是负号
+     * @param end 最后一个字符的下一个下标
+     * @return 对应的double值，超出范围时为无穷大或0
+     */
+    static double toDouble(char[] s, int start, int end)
+    {
+        int i = start;
+        boolean negative = (s[i] == '-');
+        if(negative) i++;
+
+        //有效数字（最多19位，作为无符号数）及10的指数
+        long significand = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean truncated = false;
+        boolean fraction = false;
+        for(; i < end; i++)
+        {
+            char c = s[i];
+            if(c == '.')
+            {
+                fraction = true;
+                continue;
+            }
+            if(c < '0' || c > '9') break;
+
+            int digit = c - '0';
+            if(digits == 0 && digit == 0)
+            {
+                if(fraction) exponent--; //前导0
+            }
+            else if(digits < 19)
+            {
+                significand = significand * 10 + digit;
+                digits++;
+                if(fraction) exponent--;
+            }
+            else
+            {
+                truncated = true;
+                if(! fraction) exponent++;
+            }
+        }
+
+        if(i < end) //指数部分
+        {
+            i++; //skip character e
+            boolean negativeExp = false;
+            if(s[i] == '+' || s[i] == '-')
+            {
+                negativeExp = (s[i] == '-');
+                i++;
+            }
+            int exp = 0;
+            for(; i < end; i++)
+            {
+                if(exp < 100000) exp = exp * 10 + (s[i] - '0');
+            }
+            exponent += (negativeExp)? -exp: exp;
+        }
+
+        if(significand == 0)
+        {
+            return (negative)? -0.0: 0.0;
+        }
+        if(truncated)
+        {
+            return Double.parseDouble(new String(s, start, end - start));
+        }
+
+        double value;
+        if(significand > 0 && significand <= (1L << 53) && exponent >= -22 && exponent <= 22)
+        {
+            //有效数字与10的幂次都能用double精确表示，一次运算只舍入一次
+            value = (exponent < 0)? significand / POW10[-exponent]: significand * POW10[exponent];
+        }
+        else
+        {
+            value = eiselLemire(significand, exponent);
+        }
+        return (negative)? -value: value;
+    }
+
+    /**
+     * 用Eisel-Lemire算法计算 w * 10^q 正确舍入后的double。
+     * @param w 有效数字，作为无符号数，不能为0
+     * @param q 10的指数
+     * @return 对应的正double值
+     */
+    private static double eiselLemire(long w, int q)
+    {
+        if(q < MIN_POW10) return 0.0;
+        if(q > MAX_POW10) return Double.POSITIVE_INFINITY;
+
+        int lz = Long.numberOfLeadingZeros(w);
+        w <<= lz;
+
+        //w与5^q的128位近似值相乘，只在需要时计算低64位的乘积
+        long high5 = POW5_HIGH[q - MIN_POW10];
+        long low = w * high5;
+        long high = multiplyHigh(w, high5);
+        long precisionMask = 0xFFFFFFFFFFFFFFFFL >>> 55;
+        if((high & precisionMask) == precisionMask)
+        {
+            long secondHigh = multiplyHigh(w, POW5_LOW[q - MIN_POW10]);
+            low += secondHigh;
+            if(unsignedLess(low, secondHigh)) high++;
+        }
+
+        int upperbit = (int)(high >>> 63);
+        int shift = upperbit + 64 - 52 - 3;
+        long mantissa = high >>> shift;
+        int power2 = (((152170 + 65536) * q) >> 16) + 63 + upperbit - lz + 1023;
+
+        if(power2 <= 0) //非规格化数
+        {
+            if(-power2 + 1 >= 64) return 0.0;
+            mantissa >>>= -power2 + 1;
+            mantissa += (mantissa & 1);
+            mantissa >>>= 1;
+            power2 = (mantissa < (1L << 52))? 0: 1;
+            return Double.longBitsToDouble(mantissa | ((long)power2 << 52));
+        }
+
+        //恰好在两个double中间时向偶数舍入
+        if(unsignedLess(low, 2) && q >= -4 && q <= 23 && (mantissa & 3) == 1)
+        {
+            if((mantissa << shift) == high) mantissa &= ~1L;
+        }
+        mantissa += (mantissa & 1);
+        mantissa >>>= 1;
+        if(mantissa >= (2L << 52))
+        {
+            mantissa = (1L << 52);
+            power2++;
+        }
+        mantissa &= ~(1L << 52);
+        if(power2 >= 0x7FF) return Double.POSITIVE_INFINITY;
+
+        return Double.longBitsToDouble(mantissa | ((long)power2 << 52));
+    }
+
+    /**
+     * 把long的十进制表示写入字节数组。
+     * @param value 整数
+     * @param buf 字节数组，从pos开始至少有MAX_LONG_LENGTH个字节的空间
+     * @param pos 写入的起始下标
+     * @return 写入的最后一个字节的下一个下标
+     */
+    static int writeLong(long value, byte[] buf, int pos)
+    {
+        if(value < 0)
+        {
+            buf[pos++] = '-';
+            if(value == Long.MIN_VALUE)
+            {
+                //-Long.MIN_VALUE溢出，先写入最高位
+                buf[pos++] = '9';
+                return writeDigits(223372036854775808L, 18, buf, pos + 18);
+            }
+            value = -value;
+        }
+        int digits = digitCount(value);
+        return writeDigits(value, digits, buf, pos + digits);
+    }
+
+    /**
+     * 向字符流输出数值时使用的缓冲区，由一次输出（如一次生成Json文本）独占并重复使用，
+     * 数值先写入这里，再一次追加到字符流，不生成字符串。
+     */
+    static final class Buffer
+    {
+        private final byte[] bytes = new byte[MAX_DOUBLE_LENGTH];
+        private final char[] chars = new char[MAX_DOUBLE_LENGTH];
+    }
+
+    /**
+     * 把long的十进制表示追加到字符流末尾。
+     * @param value 整数
+     * @param dest 接受字符的字符流对象
+     * @param buffer 格式化数值的缓冲区
+     * @throws IOException 发生IO异常
+     */
+    static void appendLong(long value, Appendable dest, Buffer buffer) throws IOException
+    {
+        append(buffer, writeLong(value, buffer.bytes, 0), dest);
+    }
+
+    /**
+     * 把有限的double的最短十进制表示（格式与Double.toString相同）追加到字符流末尾。
+     * @param value 有限的double值，不能是NaN或无穷大
+     * @param dest 接受字符的字符流对象
+     * @param buffer 格式化数值的缓冲区
+     * @throws IOException 发生IO异常
+     */
+    static void appendDouble(double value, Appendable dest, Buffer buffer) throws IOException
+    {
+        append(buffer, writeDouble(value, buffer.bytes, 0), dest);
+    }
+
+    /**
+     * 把缓冲区中的ASCII字符一次追加到字符流末尾。
+     * StringBuilder、StringBuffer与Writer直接追加字符数组，其他字符流只能逐个追加。
+     */
+    private static void append(Buffer buffer, int len, Appendable dest) throws IOException
+    {
+        byte[] bytes = buffer.bytes;
+        char[] chars = buffer.chars;
+        for(int i = 0; i < len; i++)
+        {
+            chars[i] = (char)bytes[i];
+        }
+
+        if(dest instanceof StringBuilder)
+        {
+            ((StringBuilder)dest).append(chars, 0, len);
+        }
+        else if(dest instanceof Writer)
+        {
+            ((Writer)dest).write(chars, 0, len);
+        }
+        else if(dest instanceof StringBuffer)
+        {
+            ((StringBuffer)dest).append(chars, 0, len);
+        }
+        else
+        {
+            for(int i = 0; i < len; i++)
+            {
+                dest.append(chars[i]);
+            }
+        }
+    }
+
+    /**
+     * 把有限的double的最短十进制表示（格式与Double.toString相同）写入字节数组。
+     * @param value 有限的double值，不能是NaN或无穷大
+     * @param buf 字节数组，从pos开始至少有MAX_DOUBLE_LENGTH个字节的空间
+     * @param pos 写入的起始下标
+     * @return 写入的最后一个字节的下一个下标
+     */
+    static int writeDouble(double value, byte[] buf, int pos)
+    {
+        long bits = Double.doubleToRawLongBits(value);
+        long t = bits & (C_MIN - 1);
+        int bq = (int)(bits >>> 52) & 0x7FF;
+        if(bits < 0) buf[pos++] = '-';
+
+        if(bq != 0)
+        {
+            //规格化数，value = c * 2^-mq
+            int mq = -Q_MIN + 1 - bq;
+            long c = C_MIN | t;
+            if(0 < mq && mq < 53)
+            {
+                //整数直接输出
+                long f = c >> mq;
+                if((f << mq) == c) return writeDecimal(f, 0, buf, pos);
+            }
+            return toDecimal(-mq, c, 0, buf, pos);
+        }
+        else if(t != 0)
+        {
+            //非规格化数
+            return (t < C_TINY)? toDecimal(Q_MIN, 10 * t, -1, buf, pos): toDecimal(Q_MIN, t, 0, buf, pos);
+        }
+        else
+        {
+            buf[pos++] = '0';
+            buf[pos++] = '.';
+            buf[pos++] = '0';
+            return pos;
+        }
+    }
+
+    /**
+     * 用Schubfach算法计算 c * 2^q 的最短十进制表示并写入字节数组。
+     * @param q 二进制指数
+     * @param c 有效数字
+     * @param dk c已经乘以10时为-1，否则为0
+     * @param buf 字节数组
+     * @param pos 写入的起始下标
+     * @return 写入的最后一个字节的下一个下标
+     */
+    private static int toDecimal(int q, long c, int dk, byte[] buf, int pos)
+    {
+        //舍入到double时向偶数舍入，有效数字为偶数时区间包含端点
+        int out = (int)c & 1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if(c != C_MIN || q == Q_MIN)
+        {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        }
+        else
+        {
+            //2的整数次幂与较小的相邻double的距离只有与较大的相邻double距离的一半
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 2;
+
+        long g1 = POW10_HIGH[k - K_MIN];
+        long g0 = POW10_LOW[k - K_MIN];
+        long vb = roundOdd(g1, g0, cb << h);
+        long vbl = roundOdd(g1, g0, cbl << h);
+        long vbr = roundOdd(g1, g0, cbr << h);
+
+        long s = vb >> 2;
+        if(s >= 100)
+        {
+            //先尝试少一位有效数字
+            long sp10 = 10 * multiplyHigh(s, 115292150460684698L << 4);
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if(upin != wpin) return writeDecimal(upin? sp10: tp10, k + dk, buf, pos);
+        }
+
+        long t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if(uin != win) return writeDecimal(uin? s: t, k + dk, buf, pos);
+
+        //s与t都能还原为同一个double时取较接近的，一样接近时取偶数
+        long cmp = vb - ((s + t) << 1);
+        return writeDecimal((cmp < 0 || (cmp == 0 && (s & 1) == 0))? s: t, k + dk, buf, pos);
+    }
+
+    /**
+     * 计算 g * cp / 2^127 并向奇数舍入（有余数时最低位置1）。
+     */
+    private static long roundOdd(long g1, long g0, long cp)
+    {
+        long x1 = multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | (((z & MASK_63) + MASK_63) >>> 63);
+    }
+
+    /**
+     * 以Double.toString的格式写入 f * 10^e：
+     * 10^-3 <= |value| < 10^7时写成小数（至少有一位小数），否则写成科学计数法（如1.0E-5）。
+     * @param f 十进制有效数字，不为0
+     * @param e 10的指数
+     * @param buf 字节数组
+     * @param pos 写入的起始下标
+     * @return 写入的最后一个字节的下一个下标
+     */
+    private static int writeDecimal(long f, int e, byte[] buf, int pos)
+    {
+        while(f % 10 == 0)
+        {
+            f /= 10;
+            e++;
+        }
+        int len = digitCount(f);
+        int exp = e + len - 1; // 第一位有效数字的指数
+
+        if(0 <= exp && exp < 7)
+        {
+            if(len <= exp + 1)
+            {
+                //整数，补零后加".0"
+                pos = writeDigits(f, len, buf, pos + len);
+                for(int i = len; i <= exp; i++) buf[pos++] = '0';
+                buf[pos++] = '.';
+                buf[pos++] = '0';
+                return pos;
+            }
+            long power = LONG_POW10[len - exp - 1];
+            long high = f / power;
+            pos = writeDigits(high, exp + 1, buf, pos + exp + 1);
+            buf[pos++] = '.';
+            return writeDigits(f - high * power, len - exp - 1, buf, pos + len - exp - 1);
+        }
+        else if(-3 <= exp && exp < 0)
+        {
+            buf[pos++] = '0';
+            buf[pos++] = '.';
+            for(int i = exp + 1; i < 0; i++) buf[pos++] = '0';
+            return writeDigits(f, len, buf, pos + len);
+        }
+
+        long power = LONG_POW10[len - 1];
+        long high = f / power;
+        buf[pos++] = (byte)('0' + high);
+        buf[pos++] = '.';
+        if(len == 1)
+            buf[pos++] = '0';
+        else
+            pos = writeDigits(f - high * power, len - 1, buf, pos + len - 1);
+        buf[pos++] = 'E';
+        if(exp < 0)
+        {
+            buf[pos++] = '-';
+            exp = -exp;
+        }
+        int expDigits = (exp >= 100)? 3: (exp >= 10)? 2: 1;
+        return writeDigits(exp, expDigits, buf, pos + expDigits);
+    }
+
+    /**
+     * 从end向前写入非负整数的最低width位数字，位数不够时补0，每次写入两位。
+     * @param value 非负整数
+     * @param width 写入的位数
+     * @param buf 字节数组
+     * @param end 写入的最后一个字节的下一个下标
+     * @return end
+     */
+    private static int writeDigits(long value, int width, byte[] buf, int end)
+    {
+        int i = end;
+        while(value > Integer.MAX_VALUE)
+        {
+            long q = value / 100;
+            int r = (int)(value - q * 100) << 1;
+            buf[--i] = DIGIT_PAIRS[r + 1];
+            buf[--i] = DIGIT_PAIRS[r];
+            value = q;
+        }
+
+        //剩余部分用int运算
+        int v = (int)value;
+        int start = end - width;
+        while(i - start >= 2)
+        {
+            int q = v / 100;
+            int r = (v - q * 100) << 1;
+            buf[--i] = DIGIT_PAIRS[r + 1];
+            buf[--i] = DIGIT_PAIRS[r];
+            v = q;
+        }
+        if(i > start) buf[--i] = (byte)('0' + v);
+        return end;
+    }
+
+    /**
+     * 返回非负整数的十进制位数。
+     */
+    private static int digitCount(long value)
+    {
+        int digits = 1;
+        while(digits < LONG_POW10.length && value >= LONG_POW10[digits]) digits++;
+        return digits;
+    }
+
+    /**
+     * 返回floor(e * log10(2))，|e| <= 5456721。
+     */
+    private static int flog10pow2(int e)
+    {
+        return (int)((e * 661971961083L) >> 41);
+    }
+
+    /**
+     * 返回floor(e * log10(2) + log10(3/4))，|e| <= 5456721。
+     */
+    private static int flog10threeQuartersPow2(int e)
+    {
+        return (int)((e * 661971961083L - 274743187321L) >> 41);
+    }
+
+    /**
+     * 返回floor(e * log2(10))，|e| <= 1838394。
+     */
+    private static int flog2pow10(int e)
+    {
+        return (int)((e * 913124641741L) >> 38);
+    }
+
+    /**
+     * 返回两个无符号long乘积的高64位。
+     */
+    private static long multiplyHigh(long a, long b)
+    {
+        long aLow = a & 0xFFFFFFFFL;
+        long aHigh = a >>> 32;
+        long bLow = b & 0xFFFFFFFFL;
+        long bHigh = b >>> 32;
+        long lowLow = aLow * bLow;
+        long highLow = aHigh * bLow;
+        long cross = (lowLow >>> 32) + (highLow & 0xFFFFFFFFL) + aLow * bHigh;
+        return (highLow >>> 32) + (cross >>> 32) + aHigh * bHigh;
+    }
+
+    /**
+     * 按无符号数比较a是否小于b。
+     */
+    private static boolean unsignedLess(long a, long b)
+    {
+        return (a + Long.MIN_VALUE) < (b + Long.MIN_VALUE);
+    }
+}
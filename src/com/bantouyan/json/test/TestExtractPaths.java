@@ -0,0 +1,105 @@
+package com.bantouyan.json.test;
+
+import java.io.Reader;
+import java.util.List;
+import java.util.Map;
+
+import com.bantouyan.json.*;
+
+import org.junit.Test;
+import org.junit.Assert;
+
+/**
+ * 测试按路径提取Json子元素。
+ */
+public class TestExtractPaths
+{
+    private String jsonText = "{user: {id: 42, name: 'u1', tags: ['a', 'b']},\n"
+        + " skip: {deep: [1, [2, {x: \"]}\\\"\"}], 'a\\'b'], more: tru},\n"
+        + " items: [{price: 1.5, n: 1}, {n: 2}, {price: 3, n: 3}], 'a/b': {'~c': 7}}";
+
+    @Test
+    public void simplePaths() throws Exception
+    {
+        Map<String, List<Json>> result = Json.extractPaths(jsonText, "$.user.id", "$.items[*].price",
+                "$['user'].tags[1]", "$.none", "$.items[1].n");
+        Assert.assertEquals(5, result.size());
+        Assert.assertEquals(42, ((JsonPrimitive)result.get("$.user.id").get(0)).getLong());
+        List<Json> prices = result.get("$.items[*].price");
+        Assert.assertEquals(2, prices.size());
+        Assert.assertEquals(1.5, ((JsonPrimitive)prices.get(0)).getDouble(), 0.0);
+        Assert.assertEquals(3, ((JsonPrimitive)prices.get(1)).getLong());
+        Assert.assertEquals("b", ((JsonPrimitive)result.get("$['user'].tags[1]").get(0)).getString());
+        Assert.assertTrue(result.get("$.none").isEmpty());
+        Assert.assertEquals(2, ((JsonPrimitive)result.get("$.items[1].n").get(0)).getLong());
+    }
+
+    @Test
+    public void pointerPaths() throws Exception
+    {
+        Map<String, List<Json>> result = Json.extractPaths(jsonText, "/user/tags/0", "/a~1b/~0c", "/user");
+        Assert.assertEquals("a", ((JsonPrimitive)result.get("/user/tags/0").get(0)).getString());
+        Assert.assertEquals(7, ((JsonPrimitive)result.get("/a~1b/~0c").get(0)).getLong());
+        Assert.assertEquals("u1", ((JsonObject)result.get("/user").get(0)).getString("name"));
+
+        //根元素需要解析整个Json文本
+        String text = jsonText.replace("tru}", "true}");
+        Assert.assertEquals(Json.parseJsonText(text), Json.extractPaths(text, "").get("").get(0));
+    }
+
+    @Test
+    public void stopWhenFound() throws Exception
+    {
+        //找到所有路径后不再读取之后的字符
+        final String text = "{a: {b: 1}, c: [" + jsonText + "]";
+        final int[] read = {0};
+        Reader reader = new Reader()
+        {
+            public int read(char[] cbuf, int off, int len)
+            {
+                if(read[0] >= text.length()) return -1;
+                cbuf[off] = text.charAt(read[0]++);
+                return 1;
+            }
+
+            public void close()
+            {
+            }
+        };
+        Map<String, List<Json>> result = Json.extractPaths(reader, "$.a.b");
+        Assert.assertEquals(1, ((JsonPrimitive)result.get("$.a.b").get(0)).getLong());
+        Assert.assertTrue(read[0] < 12);
+    }
+
+    @Test(expected = JsonException.class)
+    public void invalidPath() throws Exception
+    {
+        try
+        {
+            Json.extractPaths(jsonText, "user.id");
+        }
+        catch(JsonException e)
+        {
+            String msg = e.getMessage();
+            System.out.println("Exception: " + msg);
+            Assert.assertEquals(0, msg.indexOf("Json path \"user.id\" must begin with '/' or '$'."));
+            throw e;
+        }
+    }
+
+    @Test(expected = JsonException.class)
+    public void unclosedSkippedValue() throws Exception
+    {
+        try
+        {
+            Json.extractPaths("{a: [1, {b: 2}", "$.c");
+        }
+        catch(JsonException e)
+        {
+            String msg = e.getMessage();
+            System.out.println("Exception: " + msg);
+            Assert.assertEquals(0, msg.indexOf("Cannot found end of skipped value at position 14."));
+            throw e;
+        }
+    }
+}
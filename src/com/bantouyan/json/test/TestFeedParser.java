@@ -0,0 +1,175 @@
+package com.bantouyan.json.test;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+
+import com.bantouyan.json.*;
+import com.bantouyan.json.JsonFeedParser.Status;
+
+import org.junit.Test;
+import org.junit.Assert;
+
+/**
+ * 测试非阻塞的增量解析器JsonFeedParser。
+ */
+public class TestFeedParser
+{
+    private String[] jsonTexts = {"{name: 'v1', \"str\": \"a\\\"b\\u4e2d\", 名称: '中文😀'}",
+        "[1, -2.5e3, true, false, null, {}, []]", "{list: [{a: 12345678901}]}"};
+
+    @Test
+    public void feedBytes() throws Exception
+    {
+        StringBuilder build = new StringBuilder();
+        for(String text: jsonTexts)
+        {
+            build.append(text).append('\n');
+        }
+        byte[] bytes = build.toString().getBytes("UTF-8");
+
+        //每次只传入一个字节，UTF-8字符也会被分开
+        JsonFeedParser parser = new JsonFeedParser();
+        ArrayList<Json> list = new ArrayList<Json>();
+        for(int i=0; i<bytes.length; i++)
+        {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, i, 1);
+            if(parser.feed(buffer) == Status.JSON_READY)
+            {
+                list.add(parser.getJson());
+            }
+            Assert.assertFalse(buffer.hasRemaining());
+        }
+        parser.endOfInput();
+
+        Assert.assertEquals(jsonTexts.length, list.size());
+        for(int i=0; i<jsonTexts.length; i++)
+        {
+            Assert.assertEquals(Json.parseJsonText(jsonTexts[i]), list.get(i));
+        }
+
+        //一次传入全部字节
+        parser = new JsonFeedParser();
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        for(int i=0; i<jsonTexts.length; i++)
+        {
+            Assert.assertEquals(Status.JSON_READY, parser.feed(buffer));
+            Assert.assertEquals(Json.parseJsonText(jsonTexts[i]), parser.getJson());
+        }
+        Assert.assertEquals(Status.NEED_MORE_INPUT, parser.feed(buffer));
+        Assert.assertNull(parser.getJson());
+    }
+
+    @Test
+    public void feedSocket() throws Exception
+    {
+        ServerSocketChannel server = ServerSocketChannel.open();
+        server.socket().bind(new InetSocketAddress("127.0.0.1", 0));
+        final InetSocketAddress address = (InetSocketAddress)server.socket().getLocalSocketAddress();
+        final StringBuilder build = new StringBuilder();
+        for(int i=0; i<200; i++)
+        {
+            build.append(jsonTexts[i % jsonTexts.length]);
+        }
+
+        //客户端每次写入几个字节
+        Thread client = new Thread()
+        {
+            public void run()
+            {
+                try
+                {
+                    SocketChannel channel = SocketChannel.open(address);
+                    byte[] bytes = build.toString().getBytes("UTF-8");
+                    for(int i=0; i<bytes.length; i+=7)
+                    {
+                        channel.write(ByteBuffer.wrap(bytes, i, Math.min(7, bytes.length - i)));
+                        if(i % 700 == 0) Thread.sleep(1);
+                    }
+                    channel.close();
+                }
+                catch(Exception e)
+                {
+                    e.printStackTrace();
+                }
+            }
+        };
+        client.start();
+
+        SocketChannel channel = server.accept();
+        channel.configureBlocking(false);
+        Selector selector = Selector.open();
+        channel.register(selector, SelectionKey.OP_READ);
+
+        JsonFeedParser parser = new JsonFeedParser();
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        int count = 0;
+        boolean eof = false;
+        while(! eof)
+        {
+            selector.select(5000);
+            selector.selectedKeys().clear();
+            int len;
+            while((len = channel.read(buffer)) > 0)
+            {
+                buffer.flip();
+                while(parser.feed(buffer) == Status.JSON_READY)
+                {
+                    Json json = parser.getJson();
+                    Assert.assertEquals(Json.parseJsonText(jsonTexts[count % jsonTexts.length]), json);
+                    count++;
+                }
+                buffer.clear();
+            }
+            eof = (len < 0);
+        }
+        parser.endOfInput();
+
+        channel.close();
+        selector.close();
+        server.close();
+        client.join();
+        Assert.assertEquals(200, count);
+    }
+
+    @Test(expected = JsonException.class)
+    public void errorPosition() throws Exception
+    {
+        byte[] bytes = "[1, 2, tru]".getBytes("UTF-8");
+        JsonFeedParser parser = new JsonFeedParser();
+        try
+        {
+            parser.feed(ByteBuffer.wrap(bytes, 0, 8));
+            parser.feed(ByteBuffer.wrap(bytes, 8, 3));
+        }
+        catch(JsonException e)
+        {
+            String msg = e.getMessage();
+            System.out.println("Exception: " + msg);
+            Assert.assertEquals(0, msg.indexOf("Cannot foun constant \"true\" at position 10."));
+            throw e;
+        }
+    }
+
+    @Test(expected = JsonException.class)
+    public void endOfInput() throws Exception
+    {
+        JsonFeedParser parser = new JsonFeedParser();
+        try
+        {
+            Assert.assertEquals(Status.NEED_MORE_INPUT, parser.feed(ByteBuffer.wrap("{a: [1".getBytes("UTF-8"))));
+            parser.endOfInput();
+        }
+        catch(JsonException e)
+        {
+            String msg = e.getMessage();
+            System.out.println("Exception: " + msg);
+            Assert.assertEquals(0, msg.indexOf("Unexpected end of input at position 6."));
+            throw e;
+        }
+    }
+}
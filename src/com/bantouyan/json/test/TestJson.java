@@ -1,8 +1,10 @@
 package com.bantouyan.json.test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.nio.ByteBuffer;
 
 import org.junit.Ignore;
 import org.junit.Test;
@@ -678,4 +680,72 @@ public class TestJson
         Assert.assertEquals(str2, str4);
         Assert.assertEquals(str2, str6);
     }
+    
+    /**
+     * 生成深度为depth的嵌套JsonArray，最内层从第start层开始形成长度为depth - start的循环（start小于0时没有循环）。
+     */
+    private JsonArray deepArray(int depth, int start)
+    {
+        JsonArray root = new JsonArray();
+        JsonArray loop = null;
+        JsonArray current = root;
+        for(int i = 1; i < depth; i++)
+        {
+            if(i == start) loop = current;
+            JsonArray child = new JsonArray();
+            current.append(i);
+            current.append(child);
+            current = child;
+        }
+        if(loop != null) current.append(loop);
+        return root;
+    }
+    
+    @Test(expected = JsonException.class)
+    public void genText_deepCircle()
+    {
+        try
+        {
+            deepArray(300, 100).generateJsonText(true);
+        } 
+        catch (JsonException e)
+        {
+            String msg = e.getMessage();
+            Assert.assertEquals("Circle reference exists in this Json.", msg);
+            throw e;
+        }
+    }
+    
+    @Test
+    public void genText_deepTrusted() throws IOException
+    {
+        JsonArray jary = deepArray(500, -1);
+        String text = jary.generateJsonText(true);
+        Assert.assertEquals(text, jary.generateJsonText(true, true));
+        StringWriter writer = new StringWriter();
+        jary.outputToWriter(writer, true, true);
+        Assert.assertEquals(text, writer.toString());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        jary.writeTo(output, true, true);
+        Assert.assertEquals(text, output.toString("UTF-8"));
+        ByteBuffer buffer = ByteBuffer.allocate(output.size());
+        jary.writeTo(buffer, true, true);
+        Assert.assertArrayEquals(output.toByteArray(), buffer.array());
+        Assert.assertEquals(jary, Json.parseJsonText(text));
+    }
+    
+    @Test(expected = JsonException.class)
+    public void equals_deepCircle()
+    {
+        try
+        {
+            deepArray(300, 100).equals(deepArray(300, 100));
+        } 
+        catch (JsonException e)
+        {
+            String msg = e.getMessage();
+            Assert.assertEquals("The json instance used to compare exists circle.", msg);
+            throw e;
+        }
+    }
 }
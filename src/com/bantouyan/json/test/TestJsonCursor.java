@@ -0,0 +1,154 @@
+package com.bantouyan.json.test;
+
+import java.io.StringReader;
+
+import com.bantouyan.json.*;
+import com.bantouyan.json.Json.JsonType;
+
+import org.junit.Test;
+import org.junit.Assert;
+
+/**
+ * 测试Json结构索引与只读游标JsonCursor。
+ */
+public class TestJsonCursor
+{
+    private String jsonText = "{name: 'v1', \"str\": \"a\\nb\\u4e2d\", num: -2.5e3, big: -9223372036854775808,\n"
+        + " obj: {a: [1, 2, {b: true}], 'c': null, d: false},\n list: [ {x: 12345678901} , [] , \"s\", '42' ] }";
+
+    @Test
+    public void typedAccessors() throws Exception
+    {
+        JsonCursor root = Json.parseJsonTape(jsonText);
+        Assert.assertEquals(JsonType.OBJECT, root.getType());
+        Assert.assertEquals(6, root.count());
+        Assert.assertEquals("v1", root.getString("name"));
+        Assert.assertEquals("a\nb中", root.getString("str"));
+        Assert.assertEquals(-2500.0, root.getDouble("num"), 0.0);
+        Assert.assertEquals(Long.MIN_VALUE, root.getLong("big"));
+        Assert.assertNull(root.getString("none"));
+        Assert.assertFalse(root.containsName("none"));
+
+        JsonCursor obj = root.getJsonObject("obj");
+        Assert.assertEquals(JsonType.NULL, obj.getType("c"));
+        Assert.assertFalse(obj.getBoolean("d"));
+        JsonCursor ary = obj.getJsonArray("a");
+        Assert.assertEquals(3, ary.count());
+        Assert.assertEquals(2, ary.getLong(1));
+        Assert.assertTrue(ary.getJsonObject(2).getBoolean("b"));
+
+        JsonCursor list = root.getJsonArray("list");
+        Assert.assertEquals(12345678901L, list.getJsonObject(0).getLong("x"));
+        Assert.assertTrue(list.getJsonArray(1).isEmpty());
+        Assert.assertEquals("s", list.getString(2));
+        Assert.assertEquals(42, list.getLong(3));
+        Assert.assertEquals("{\"x\":12345678901}", list.getString(0));
+    }
+
+    @Test
+    public void iterate() throws Exception
+    {
+        JsonCursor root = Json.parseJsonTape(new StringReader(jsonText));
+        StringBuilder names = new StringBuilder();
+        for(JsonCursor c = root.first(); c != null; c = c.next())
+        {
+            names.append(c.getName()).append(',');
+        }
+        Assert.assertEquals("name,str,num,big,obj,list,", names.toString());
+
+        int count = 0;
+        for(JsonCursor c = root.getJsonArray("list").first(); c != null; c = c.next())
+        {
+            Assert.assertNull(c.getName());
+            count++;
+        }
+        Assert.assertEquals(4, count);
+        Assert.assertNull(root.next());
+    }
+
+    @Test
+    public void toJson() throws Exception
+    {
+        JsonCursor root = Json.parseJsonTape(jsonText);
+        Json json = Json.parseJsonText(jsonText);
+        Assert.assertEquals(json, root.toJson());
+        Assert.assertEquals(json, Json.parseJsonText(root.toString()));
+    }
+
+    @Test
+    public void overflowNumber() throws Exception
+    {
+        //与JsonPrimitive相同，溢出的浮点数转换为字符串
+        String text = "[1e309, -1e309, 0.5, 1.0E-4]";
+        JsonCursor ary = Json.parseJsonTape(text);
+        Json json = Json.parseJsonText(text);
+        Assert.assertEquals(JsonType.STRING, ary.getType(0));
+        Assert.assertEquals(json.getType(), ary.toJson().getType());
+        Assert.assertEquals(JsonType.STRING, ((JsonArray)ary.toJson()).getType(1));
+        Assert.assertEquals("Infinity", ary.getString(0));
+        Assert.assertEquals("-Infinity", ary.getString(1));
+        Assert.assertEquals(json.generateJsonText(true), ary.toString());
+        Assert.assertEquals("[\"Infinity\",\"-Infinity\",0.5,1.0E-4]", ary.toString());
+        Assert.assertEquals(json, ary.toJson());
+    }
+
+    @Test
+    public void indexedAccess() throws Exception
+    {
+        StringBuilder text = new StringBuilder("[");
+        for(int i = 0; i < 20000; i++)
+        {
+            if(i > 0) text.append(',');
+            text.append((i % 3 == 0)? "[" + i + ", {a: [" + i + "]}]": String.valueOf(i));
+        }
+        text.append(']');
+        JsonCursor ary = Json.parseJsonTape(text);
+        Assert.assertEquals(20000, ary.count());
+        for(int i = 0; i < ary.count(); i++)
+        {
+            if(i % 3 == 0)
+            {
+                JsonCursor child = ary.getJsonArray(i);
+                Assert.assertEquals(i, child.getLong(0));
+                Assert.assertEquals(i, child.getJsonObject(1).getJsonArray("a").getLong(0));
+            }
+            else
+            {
+                Assert.assertEquals(i, ary.getLong(i));
+            }
+        }
+        Assert.assertEquals(Json.parseJsonText(text), ary.toJson());
+    }
+
+    @Test(expected = JsonException.class)
+    public void wrongType() throws Exception
+    {
+        try
+        {
+            Json.parseJsonTape(jsonText).getLong("name");
+        }
+        catch(JsonException e)
+        {
+            String msg = e.getMessage();
+            System.out.println("Exception: " + msg);
+            Assert.assertEquals(0, msg.indexOf("Cannot transfer element corresponding name to long value."));
+            throw e;
+        }
+    }
+
+    @Test(expected = JsonException.class)
+    public void syntaxError() throws Exception
+    {
+        try
+        {
+            Json.parseJsonTape("{a: [1, 9223372036854775808]}");
+        }
+        catch(JsonException e)
+        {
+            String msg = e.getMessage();
+            System.out.println("Exception: " + msg);
+            Assert.assertEquals(0, msg.indexOf("Integer string \"9223372036854775808\" format error at position 27."));
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.bantouyan.json.test;
+
+import java.io.StringReader;
+
+import com.bantouyan.json.*;
+
+import org.junit.Test;
+import org.junit.Assert;
+
+/**
+ * 测试推模式解析与JsonHandler。
+ */
+public class TestJsonHandler
+{
+    private String jsonText = "{name: 'v1', \"num\": -30, 'f': 2.5e1, "
+        + "list: [true, null, {a: 'A'}, []], last: false}";
+
+    /**
+     * 把收到的回调记录为文本。
+     */
+    private static class RecordHandler implements JsonHandler
+    {
+        private StringBuilder build = new StringBuilder();
+
+        public void startObject()
+        {
+            build.append('{');
+        }
+
+        public void endObject()
+        {
+            build.append('}');
+        }
+
+        public void startArray()
+        {
+            build.append('[');
+        }
+
+        public void endArray()
+        {
+            build.append(']');
+        }
+
+        public void name(String name)
+        {
+            build.append(name).append(':');
+        }
+
+        public void stringValue(String value)
+        {
+            build.append('s').append(value).append(' ');
+        }
+
+        public void longValue(long value)
+        {
+            build.append('l').append(value).append(' ');
+        }
+
+        public void doubleValue(double value)
+        {
+            build.append('d').append(value).append(' ');
+        }
+
+        public void booleanValue(boolean value)
+        {
+            build.append('b').append(value).append(' ');
+        }
+
+        public void nullValue()
+        {
+            build.append("null ");
+        }
+
+        public String toString()
+        {
+            return build.toString();
+        }
+    }
+
+    @Test
+    public void parseText()
+    {
+        RecordHandler handler = new RecordHandler();
+        Json.parseJsonText(jsonText, handler);
+        String expected = "{name:sv1 num:l-30 f:d25.0 list:[btrue null {a:sA }[]]last:bfalse }";
+        Assert.assertEquals(expected, handler.toString());
+    }
+
+    @Test
+    public void parseReader() throws Exception
+    {
+        RecordHandler handler = new RecordHandler();
+        Json.parseJsonReader(new StringReader("[1, 'a\\u4e2d', {}]"), handler);
+        Assert.assertEquals("[l1 sa中 {}]", handler.toString());
+    }
+
+    @Test(expected = JsonException.class)
+    public void errorPosition()
+    {
+        try
+        {
+            Json.parseJsonText("{a: [1, 2, tru], b: 3}", new RecordHandler());
+        }
+        catch(JsonException e)
+        {
+            String msg = e.getMessage();
+            System.out.println("Exception: " + msg);
+            Assert.assertEquals(0, msg.indexOf("Cannot foun constant \"true\" at position 14."));
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.bantouyan.json.test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.NoSuchElementException;
+
+import com.bantouyan.json.*;
+
+import org.junit.Test;
+import org.junit.Assert;
+
+/**
+ * 测试逐个解析多个Json实例或JsonArray的子元素，以及逐行写出Json实例。
+ */
+public class TestJsonIterator
+{
+    private String[] jsonTexts = {"{name: 'v1', \"str\": \"a\\nb\\u4e2d\"}",
+        "[1, -2.5e3, true, false, null, {}, []]", "{list: [{a: 12345678901}]}"};
+
+    @Test
+    public void iterateReader() throws Exception
+    {
+        String text = jsonTexts[0] + "\n\n" + jsonTexts[1] + jsonTexts[2] + " \r\n";
+        JsonIterator it = Json.iterateDocuments(new StringReader(text));
+        for(String jsonText: jsonTexts)
+        {
+            Assert.assertTrue(it.hasNext());
+            Assert.assertEquals(Json.parseJsonText(jsonText), it.next());
+        }
+        Assert.assertFalse(it.hasNext());
+        Assert.assertFalse(it.hasNext());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void iterateEmpty() throws Exception
+    {
+        JsonIterator it = Json.iterateDocuments(new StringReader(" \n "));
+        Assert.assertFalse(it.hasNext());
+        it.next();
+    }
+
+    @Test
+    public void writeAndIterateFile() throws Exception
+    {
+        File file = File.createTempFile("bantouyan", ".ndjson");
+        file.deleteOnExit();
+        JsonLineWriter writer = new JsonLineWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+        for(int i=0; i<3000; i++)
+        {
+            writer.write(Json.parseJsonText(jsonTexts[i % jsonTexts.length]));
+        }
+        writer.close();
+
+        int count = 0;
+        JsonIterator it = Json.iterateDocuments(file);
+        while(it.hasNext())
+        {
+            Assert.assertEquals(Json.parseJsonText(jsonTexts[count % jsonTexts.length]), it.next());
+            count++;
+        }
+        Assert.assertEquals(3000, count);
+        file.delete();
+    }
+
+    @Test
+    public void writeLines() throws Exception
+    {
+        StringWriter out = new StringWriter();
+        JsonLineWriter writer = new JsonLineWriter(out);
+        for(String jsonText: jsonTexts)
+        {
+            writer.write(Json.parseJsonText(jsonText));
+        }
+        writer.flush();
+
+        String[] lines = out.toString().split("\n");
+        Assert.assertEquals(jsonTexts.length, lines.length);
+        for(int i=0; i<jsonTexts.length; i++)
+        {
+            Assert.assertEquals(Json.parseJsonText(jsonTexts[i]), Json.parseJsonText(lines[i]));
+        }
+    }
+
+    @Test
+    public void parseArrayElements() throws Exception
+    {
+        //按需生成一个很大的JsonArray文本，不在内存中保存全部文本
+        final int total = 100000;
+        Reader reader = new Reader()
+        {
+            private int index = -1;
+            private String current = "[";
+            private int offset = 0;
+
+            public int read(char[] cbuf, int off, int len)
+            {
+                if(offset == current.length())
+                {
+                    index++;
+                    if(index > total) return -1;
+                    current = (index == total)? "]": (index == 0? "": ",\n") + "{id: " + index + ", name: 'n" + index + "'}";
+                    offset = 0;
+                }
+                int n = Math.min(len, current.length() - offset);
+                current.getChars(offset, offset + n, cbuf, off);
+                offset += n;
+                return n;
+            }
+
+            public void close()
+            {
+            }
+        };
+
+        final int[] count = {0};
+        Json.parseArrayElements(reader, new JsonConsumer()
+        {
+            public void accept(Json json)
+            {
+                JsonObject obj = (JsonObject)json;
+                Assert.assertEquals(count[0], obj.getLong("id"));
+                Assert.assertEquals("n" + count[0], obj.getString("name"));
+                count[0]++;
+            }
+        });
+        Assert.assertEquals(total, count[0]);
+    }
+
+    @Test(expected = JsonException.class)
+    public void parseArrayElementsError() throws Exception
+    {
+        try
+        {
+            Json.parseArrayElements(new StringReader(" {a: 1}"), new JsonConsumer()
+            {
+                public void accept(Json json)
+                {
+                    Assert.fail();
+                }
+            });
+        }
+        catch(JsonException e)
+        {
+            String msg = e.getMessage();
+            System.out.println("Exception: " + msg);
+            Assert.assertEquals(0, msg.indexOf("Cannot found json array begin sign '[' at position 1."));
+            throw e;
+        }
+    }
+
+    @Test(expected = JsonException.class)
+    public void iterateError() throws Exception
+    {
+        JsonIterator it = Json.iterateDocuments(new StringReader("[1, 2]\n3\n"));
+        try
+        {
+            it.next();
+            it.next();
+        }
+        catch(JsonException e)
+        {
+            String msg = e.getMessage();
+            System.out.println("Exception: " + msg);
+            Assert.assertEquals(0, msg.indexOf("Cannot found json object begin sign '{' or json array begin sign ']' at position 7."));
+            throw e;
+        }
+    }
+}
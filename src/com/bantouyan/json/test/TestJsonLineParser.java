@@ -0,0 +1,169 @@
+package com.bantouyan.json.test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+
+import com.bantouyan.json.*;
+
+import org.junit.Test;
+import org.junit.Assert;
+
+/**
+ * 测试并行解析NDJSON文件。
+ */
+public class TestJsonLineParser
+{
+    /**
+     * 收集所有Json实例的JsonConsumer。
+     */
+    private static class Collector implements JsonConsumer
+    {
+        List<Json> list = new ArrayList<Json>();
+
+        public void accept(Json json)
+        {
+            list.add(json);
+        }
+    }
+
+    /**
+     * 生成包含count行的NDJSON文本，每10行有一个空行，以BOM开头。
+     */
+    private String lines(int count)
+    {
+        StringBuilder text = new StringBuilder("\uFEFF");
+        for(int i = 0; i < count; i++)
+        {
+            if(i % 10 == 9) text.append("  \r\n");
+            text.append("{\"id\": ").append(i).append(", 'name': \"名字\\n").append(i).append("\", ");
+            text.append("list: [1.5, true, null, {}]}\r\n");
+        }
+        return text.toString();
+    }
+
+    /**
+     * 把文本写入临时文件。
+     */
+    private File write(String text) throws IOException
+    {
+        File file = File.createTempFile("ndjson", ".txt");
+        file.deleteOnExit();
+        FileOutputStream out = new FileOutputStream(file);
+        try
+        {
+            out.write(text.getBytes("UTF-8"));
+        }
+        finally
+        {
+            out.close();
+        }
+        return file;
+    }
+
+    @Test
+    public void ordered() throws Exception
+    {
+        File file = write(lines(20000));
+        Collector collector = new Collector();
+        JsonLineParser parser = new JsonLineParser(4, true, false);
+        Json.parseDocuments(file, collector, parser);
+        Assert.assertEquals(20000, collector.list.size());
+        for(int i = 0; i < 20000; i++)
+        {
+            Assert.assertEquals(i, ((JsonObject)collector.list.get(i)).getLong("id"));
+        }
+        Assert.assertEquals("名字\n123", ((JsonObject)collector.list.get(123)).getString("name"));
+        Assert.assertEquals(20000 + 2000, parser.getLineCount());
+        Assert.assertEquals(20000, parser.getDocumentCount());
+        Assert.assertEquals(0, parser.getFailures().size());
+    }
+
+    @Test
+    public void unordered() throws Exception
+    {
+        File file = write(lines(20000));
+        Collector collector = new Collector();
+        Json.parseDocuments(file, collector, new JsonLineParser(3, false, false));
+        Assert.assertEquals(20000, collector.list.size());
+
+        boolean[] found = new boolean[20000];
+        for(Json json: collector.list)
+        {
+            int id = (int)((JsonObject)json).getLong("id");
+            Assert.assertFalse(found[id]);
+            found[id] = true;
+        }
+    }
+
+    @Test
+    public void partitions() throws Exception
+    {
+        File file = write(lines(20000));
+        List<List<Json>> partitions = Json.parseDocuments(file, new JsonLineParser(2, true, false));
+        Assert.assertTrue(partitions.size() > 1);
+        int id = 0;
+        for(List<Json> partition: partitions)
+        {
+            for(Json json: partition)
+            {
+                Assert.assertEquals(id++, ((JsonObject)json).getLong("id"));
+            }
+        }
+        Assert.assertEquals(20000, id);
+
+        //空文件与没有结尾换行符的文件
+        Assert.assertEquals(0, Json.parseDocuments(write(""), new JsonLineParser()).get(0).size());
+        List<Json> list = Json.parseDocuments(write("[1]\n{a: 2}"), new JsonLineParser()).get(0);
+        Assert.assertEquals(Json.parseJsonText("{a: 2}"), list.get(1));
+    }
+
+    @Test
+    public void collectFailures() throws Exception
+    {
+        String text = lines(20000);
+        text = text.replace("{\"id\": 7,", "{\"id\": 7 x").replace("{\"id\": 15000,", "[");
+        Collector collector = new Collector();
+        JsonLineParser parser = new JsonLineParser(4, true, true);
+        Json.parseDocuments(write(text), collector, parser);
+        Assert.assertEquals(19998, collector.list.size());
+        Assert.assertEquals(19998, parser.getDocumentCount());
+
+        SortedMap<Long, JsonException> failures = parser.getFailures();
+        Assert.assertEquals(2, failures.size());
+        Assert.assertEquals(8, failures.firstKey().longValue());
+        Assert.assertEquals(15000 + 1500 + 1, failures.lastKey().longValue());
+        Assert.assertEquals(0, failures.get(8L).getMessage().indexOf("Non-blank  character found at position "));
+    }
+
+    @Test(expected = JsonException.class)
+    public void abortOnFailure() throws Exception
+    {
+        String text = lines(20000);
+        int index = text.indexOf("true", text.indexOf("{\"id\": 12345,"));
+        text = text.substring(0, index) + "ture" + text.substring(index + 4);
+        Collector collector = new Collector();
+        try
+        {
+            Json.parseDocuments(write(text), collector, new JsonLineParser(4, true, false));
+        }
+        catch(JsonException e)
+        {
+            String msg = e.getMessage();
+            System.out.println("Exception: " + msg);
+            int position = text.substring(0, index).getBytes("UTF-8").length + 1;
+            Assert.assertEquals(0, msg.indexOf("Cannot foun constant \"true\" at position " + position));
+            Assert.assertEquals(12345, collector.list.size());
+            throw e;
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void illegalThreads() throws Exception
+    {
+        new JsonLineParser(0, true, false);
+    }
+}
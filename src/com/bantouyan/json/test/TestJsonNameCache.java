@@ -0,0 +1,98 @@
+package com.bantouyan.json.test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.StringReader;
+
+import com.bantouyan.json.*;
+
+import org.junit.Test;
+import org.junit.Assert;
+
+/**
+ * 测试JsonObject子元素Name的规范化缓存JsonNameCache。
+ */
+public class TestJsonNameCache
+{
+    /**
+     * 返回JsonObject中与name相等的Name实例。
+     */
+    private String nameOf(JsonObject obj, String name)
+    {
+        for(String str: obj.nameSet())
+        {
+            if(str.equals(name)) return str;
+        }
+        return null;
+    }
+
+    @Test
+    public void sameNameInstance() throws Exception
+    {
+        //同一个解析器中重复出现的Name（包括带引号的）是同一个实例
+        JsonArray ary = (JsonArray)Json.parseJsonText("[{id: 1, \"name\": 'a'}, {'id': 2, name: 'b'}]");
+        JsonObject first = (JsonObject)ary.get(0);
+        JsonObject second = (JsonObject)ary.get(1);
+        Assert.assertSame(nameOf(first, "id"), nameOf(second, "id"));
+        Assert.assertSame(nameOf(first, "name"), nameOf(second, "name"));
+        Assert.assertEquals(2, second.getLong("id"));
+
+        //共享的缓存在多次解析之间返回同一个实例
+        JsonNameCache names = new JsonNameCache();
+        JsonObject obj1 = (JsonObject)Json.parseJsonText("{key: 1}", names);
+        JsonObject obj2 = (JsonObject)Json.parseJsonReader(new StringReader("{\"key\": 2}"), names);
+        Assert.assertSame(nameOf(obj1, "key"), nameOf(obj2, "key"));
+
+        JsonIterator it1 = Json.iterateDocuments(new StringReader("{key: 3}\n{key: 4}"), names);
+        JsonIterator it2 = Json.iterateDocuments(new StringReader("{key: 5}"), names);
+        Assert.assertSame(nameOf(obj1, "key"), nameOf((JsonObject)it1.next(), "key"));
+        Assert.assertSame(nameOf(obj1, "key"), nameOf((JsonObject)it1.next(), "key"));
+        Assert.assertSame(nameOf(obj1, "key"), nameOf((JsonObject)it2.next(), "key"));
+    }
+
+    @Test
+    public void iterateFile() throws Exception
+    {
+        File file = File.createTempFile("names", ".ndjson");
+        file.deleteOnExit();
+        FileOutputStream out = new FileOutputStream(file);
+        out.write("{\"名称\": 1, id: 1}\n{\"名称\": 2, id: 2}\n".getBytes("UTF-8"));
+        out.close();
+
+        JsonNameCache names = new JsonNameCache(16);
+        JsonObject obj = (JsonObject)Json.parseJsonText("{'名称': 0}", names);
+        JsonIterator it = Json.iterateDocuments(file, names);
+        JsonObject obj1 = (JsonObject)it.next();
+        JsonObject obj2 = (JsonObject)it.next();
+        Assert.assertFalse(it.hasNext());
+        Assert.assertSame(nameOf(obj, "名称"), nameOf(obj1, "名称"));
+        Assert.assertSame(nameOf(obj1, "id"), nameOf(obj2, "id"));
+        Assert.assertEquals(2, obj2.getLong("名称"));
+    }
+
+    @Test
+    public void disableForRandomNames() throws Exception
+    {
+        JsonNameCache names = new JsonNameCache(16);
+        StringBuilder text = new StringBuilder("{");
+        for(int i = 0; i < 100; i++)
+        {
+            text.append("k").append(i).append(": ").append(i).append(", ");
+        }
+        text.append("last: 0}");
+        JsonObject obj = (JsonObject)Json.parseJsonText(text, names);
+        Assert.assertEquals(101, obj.count());
+        Assert.assertEquals(99, obj.getLong("k99"));
+        Assert.assertTrue(names.isDisabled());
+
+        //停用后仍然可以正常解析
+        obj = (JsonObject)Json.parseJsonText("{k1: 1, k1x: 2}", names);
+        Assert.assertEquals(2, obj.getLong("k1x"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void illegalCapacity() throws Exception
+    {
+        new JsonNameCache(0);
+    }
+}
@@ -0,0 +1,189 @@
+package com.bantouyan.json.test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.bantouyan.json.*;
+
+import org.junit.Test;
+import org.junit.Assert;
+
+/**
+ * 测试流水线方式解析JsonArray的子元素。
+ */
+public class TestJsonPipeline
+{
+    /**
+     * 收集所有子元素的JsonConsumer。
+     */
+    private static class Collector implements JsonConsumer
+    {
+        List<Json> list = new ArrayList<Json>();
+        int delay = 0; // 每个子元素之后等待的毫秒数
+
+        public void accept(Json json)
+        {
+            list.add(json);
+            if(delay > 0)
+            {
+                try
+                {
+                    Thread.sleep(delay);
+                }
+                catch(InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * 生成包含count个子元素的JsonArray文本。
+     */
+    private String arrayText(int count)
+    {
+        StringBuilder text = new StringBuilder("[");
+        for(int i = 0; i < count; i++)
+        {
+            if(i > 0) text.append(", ");
+            if(i % 3 == 0) text.append("{id: ").append(i).append(", 'name': \"n,]}\\\"").append(i).append("\"}");
+            else if(i % 3 == 1) text.append("[").append(i).append(", 'a[', {}]");
+            else text.append(i);
+        }
+        return text.append("]").toString();
+    }
+
+    /**
+     * 返回顺序解析时的异常信息。
+     */
+    private String sequentialMessage(String text) throws IOException
+    {
+        try
+        {
+            Json.parseArrayElements(new StringReader(text), new Collector());
+        }
+        catch(JsonException e)
+        {
+            return e.getMessage();
+        }
+        return null;
+    }
+
+    @Test
+    public void ordered() throws Exception
+    {
+        String text = arrayText(5000);
+        Collector expected = new Collector();
+        Json.parseArrayElements(new StringReader(text), expected);
+
+        Collector collector = new Collector();
+        JsonPipeline pipeline = new JsonPipeline(4, 64, true);
+        Json.parseArrayElements(new StringReader(text), collector, pipeline);
+        Assert.assertEquals(expected.list, collector.list);
+        Assert.assertEquals(5000, pipeline.getElementCount());
+        Assert.assertTrue(pipeline.getMaxInFlight() <= 64);
+
+        //同一个JsonPipeline可以再次使用
+        collector = new Collector();
+        Json.parseArrayElements(new StringReader(" [ ] "), collector, pipeline);
+        Assert.assertEquals(0, collector.list.size());
+        Assert.assertEquals(0, pipeline.getElementCount());
+    }
+
+    @Test
+    public void unordered() throws Exception
+    {
+        String text = arrayText(3000);
+        Collector collector = new Collector();
+        Json.parseArrayElements(new StringReader(text), collector, new JsonPipeline(3, 16, false));
+        Assert.assertEquals(3000, collector.list.size());
+
+        boolean[] found = new boolean[3000];
+        for(Json json: collector.list)
+        {
+            long id = (json.getType() == Json.JsonType.OBJECT)? ((JsonObject)json).getLong("id"):
+                      (json.getType() == Json.JsonType.ARRAY)? ((JsonArray)json).getLong(0):
+                      ((JsonPrimitive)json).getLong();
+            Assert.assertFalse(found[(int)id]);
+            found[(int)id] = true;
+        }
+    }
+
+    @Test
+    public void backPressure() throws Exception
+    {
+        Collector collector = new Collector();
+        collector.delay = 1;
+        JsonPipeline pipeline = new JsonPipeline(2, 2, true);
+        Json.parseArrayElements(new StringReader(arrayText(50)), collector, pipeline);
+        Assert.assertEquals(50, collector.list.size());
+        Assert.assertTrue(pipeline.getLexerWaitCount() > 0);
+        Assert.assertTrue(pipeline.getLexerWaitNanos() > 0);
+        Assert.assertEquals(2, pipeline.getMaxInFlight());
+    }
+
+    @Test(expected = JsonException.class)
+    public void elementError() throws Exception
+    {
+        String text = arrayText(1000);
+        int index = text.indexOf("{id: 501,");
+        text = text.substring(0, index) + "{id: 501 x" + text.substring(index + 9);
+        Collector collector = new Collector();
+        try
+        {
+            Json.parseArrayElements(new StringReader(text), collector, new JsonPipeline(4, 32, true));
+        }
+        catch(JsonException e)
+        {
+            String msg = e.getMessage();
+            System.out.println("Exception: " + msg);
+            Assert.assertEquals(0, msg.indexOf("Non-blank  character found at position " + (index + 9)));
+            Assert.assertEquals(sequentialMessage(text), msg);
+            Assert.assertEquals(501, collector.list.size());
+            throw e;
+        }
+    }
+
+    @Test(expected = JsonException.class)
+    public void unclosedString() throws Exception
+    {
+        String text = "[1, {a: 'abc}]";
+        try
+        {
+            Json.parseArrayElements(new StringReader(text), new Collector(), new JsonPipeline());
+        }
+        catch(JsonException e)
+        {
+            String msg = e.getMessage();
+            System.out.println("Exception: " + msg);
+            Assert.assertEquals(sequentialMessage(text), msg);
+            throw e;
+        }
+    }
+
+    @Test(expected = JsonException.class)
+    public void textAfterArray() throws Exception
+    {
+        String text = "[1, 2] 3";
+        try
+        {
+            Json.parseArrayElements(new StringReader(text), new Collector(), new JsonPipeline());
+        }
+        catch(JsonException e)
+        {
+            String msg = e.getMessage();
+            System.out.println("Exception: " + msg);
+            Assert.assertEquals(0, msg.indexOf("Non-blank character found at position 7 before EOF."));
+            throw e;
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void illegalCapacity() throws Exception
+    {
+        new JsonPipeline(1, 0, true);
+    }
+}
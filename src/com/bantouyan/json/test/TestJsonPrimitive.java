@@ -1,5 +1,7 @@
 package com.bantouyan.json.test;
 
+import java.io.StringWriter;
+
 import org.junit.Test;
 import org.junit.Assert;
 
@@ -93,5 +95,20 @@ public class TestJsonPrimitive
         Assert.assertFalse(json.canToDouble());
         Assert.assertFalse(json.canToLong());
     }
+    
+    @Test
+    public void testStringEscape() throws Exception
+    {
+        JsonPrimitive json = new JsonPrimitive("a\"b'c\\d/e\b\f\n\r\t\u0001\u001f\u007f中文");
+        String text = "\"a\\\"b\\'c\\\\d\\/e\\b\\f\\n\\r\\t\\u0001\\u001f\u007f中文\"";
+        Assert.assertEquals(text, json.generateJsonText());
+        StringWriter writer = new StringWriter();
+        json.outputToWriter(writer, true);
+        Assert.assertEquals(text, writer.toString());
+        
+        Assert.assertEquals("\"plain\"", new JsonPrimitive("plain").generateJsonText());
+        Assert.assertEquals("\"\\n\"", new JsonPrimitive("\n").generateJsonText());
+        Assert.assertEquals("\"\"", new JsonPrimitive("").generateJsonText());
+    }
 
 }
@@ -0,0 +1,150 @@
+package com.bantouyan.json.test;
+
+import java.io.StringReader;
+
+import com.bantouyan.json.*;
+import com.bantouyan.json.JsonReader.JsonToken;
+
+import org.junit.Test;
+import org.junit.Assert;
+
+/**
+ * 测试拉模式的JsonReader。
+ */
+public class TestJsonReader
+{
+    private String jsonText = "{name: 'v1', \"num\": -30, 'f': 2.5e1, "
+        + "list: [true, null, {a: 'A'}, []], last: false}";
+
+    @Test
+    public void nextToken() throws Exception
+    {
+        JsonReader reader = new JsonReader(new StringReader(jsonText));
+        JsonToken[] tokens = {JsonToken.START_OBJECT, JsonToken.NAME, JsonToken.STRING,
+                JsonToken.NAME, JsonToken.INTEGER, JsonToken.NAME, JsonToken.FLOAT,
+                JsonToken.NAME, JsonToken.START_ARRAY, JsonToken.BOOLEAN, JsonToken.NULL,
+                JsonToken.START_OBJECT, JsonToken.NAME, JsonToken.STRING, JsonToken.END_OBJECT,
+                JsonToken.START_ARRAY, JsonToken.END_ARRAY, JsonToken.END_ARRAY,
+                JsonToken.NAME, JsonToken.BOOLEAN, JsonToken.END_OBJECT, JsonToken.END_DOCUMENT};
+        for(JsonToken token: tokens)
+        {
+            Assert.assertEquals(token, reader.nextToken());
+        }
+        Assert.assertEquals(JsonToken.END_DOCUMENT, reader.nextToken());
+        reader.close();
+    }
+
+    @Test
+    public void getValue() throws Exception
+    {
+        JsonReader reader = new JsonReader(jsonText);
+        reader.nextToken();
+        Assert.assertNull(reader.getName());
+
+        reader.nextToken();
+        Assert.assertEquals("name", reader.getString());
+        reader.nextToken();
+        Assert.assertEquals("name", reader.getName());
+        Assert.assertEquals("v1", reader.getString());
+
+        reader.nextToken();
+        reader.nextToken();
+        Assert.assertEquals("num", reader.getName());
+        Assert.assertEquals(-30, reader.getLong());
+        Assert.assertEquals(-30.0, reader.getDouble(), 0);
+
+        reader.nextToken();
+        reader.nextToken();
+        Assert.assertEquals(25.0, reader.getDouble(), 0);
+
+        reader.nextToken();
+        reader.nextToken();
+        Assert.assertEquals("list", reader.getName());
+        reader.nextToken();
+        Assert.assertNull(reader.getName());
+        Assert.assertEquals(true, reader.getBoolean());
+        reader.nextToken();
+        Assert.assertEquals("null", reader.getString());
+    }
+
+    @Test
+    public void skipValue() throws Exception
+    {
+        JsonReader reader = new JsonReader(jsonText);
+        reader.nextToken();
+        while(reader.nextToken() == JsonToken.NAME)
+        {
+            if(reader.getName().equals("last"))
+            {
+                reader.nextToken();
+                Assert.assertEquals(false, reader.getBoolean());
+            }
+            else
+            {
+                reader.skipValue();
+            }
+        }
+        Assert.assertEquals(JsonToken.END_OBJECT, reader.getToken());
+        Assert.assertEquals(JsonToken.END_DOCUMENT, reader.nextToken());
+
+        reader = new JsonReader(jsonText);
+        reader.nextToken();
+        reader.skipValue();
+        Assert.assertEquals(JsonToken.END_OBJECT, reader.getToken());
+        Assert.assertEquals(JsonToken.END_DOCUMENT, reader.nextToken());
+    }
+
+    @Test
+    public void readJson() throws Exception
+    {
+        JsonReader reader = new JsonReader(jsonText);
+        reader.nextToken();
+        Assert.assertEquals(Json.parseJsonText(jsonText), reader.readJson());
+        Assert.assertEquals(JsonToken.END_DOCUMENT, reader.nextToken());
+
+        reader = new JsonReader(jsonText);
+        while(reader.nextToken() != JsonToken.NAME || !reader.getName().equals("list"))
+            ;
+        Json list = reader.readJson();
+        Assert.assertEquals(Json.parseJsonText("[true, null, {a: 'A'}, []]"), list);
+        Assert.assertEquals(JsonToken.NAME, reader.nextToken());
+        Assert.assertEquals("last", reader.getName());
+    }
+
+    @Test(expected = JsonException.class)
+    public void errorPosition() throws Exception
+    {
+        String text = "{a: [1, 2, tru], b: 3}";
+        JsonReader reader = new JsonReader(text);
+        try
+        {
+            reader.nextToken();
+            reader.skipValue();
+        }
+        catch(JsonException e)
+        {
+            String msg = e.getMessage();
+            System.out.println("Exception: " + msg);
+            Assert.assertEquals(0, msg.indexOf("Cannot foun constant \"true\" at position 14."));
+            throw e;
+        }
+    }
+
+    @Test(expected = JsonException.class)
+    public void keywordName() throws Exception
+    {
+        JsonReader reader = new JsonReader("{class: 1}");
+        try
+        {
+            reader.nextToken();
+            reader.nextToken();
+        }
+        catch(JsonException e)
+        {
+            String msg = e.getMessage();
+            System.out.println("Exception: " + msg);
+            Assert.assertEquals(0, msg.indexOf("Non-quotation mark string \"class\""));
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.bantouyan.json.test;
+
+import java.util.Map.Entry;
+
+import com.bantouyan.json.*;
+
+import org.junit.Test;
+import org.junit.Assert;
+
+/**
+ * 测试延迟解析的JsonObject与JsonArray。
+ */
+public class TestLazyJson
+{
+    private String jsonText = "{name: 'v1', \"str\": \"a\\nb\\u4e2d\", num: -2.5e3,\n"
+        + " obj: {a: [1, 2, {b: true}], 'c': null},\n list: [ {x: 12345678901} , [] , \"s\" ] }";
+
+    @Test
+    public void lazyEqualsEager() throws Exception
+    {
+        Json lazy = Json.parseJsonText(jsonText, true);
+        Json eager = Json.parseJsonText(jsonText);
+        Assert.assertEquals(eager, lazy);
+        Assert.assertEquals(eager.generateJsonText(), lazy.generateJsonText());
+        Assert.assertEquals(eager, Json.parseJsonText(jsonText, false));
+    }
+
+    @Test
+    public void accessNested() throws Exception
+    {
+        JsonObject obj = (JsonObject)Json.parseJsonText(jsonText, true);
+        Assert.assertEquals("v1", obj.getString("name"));
+        Assert.assertEquals(-2500.0, obj.getDouble("num"), 0.0);
+        JsonArray ary = obj.getJsonObject("obj").getJsonArray("a");
+        Assert.assertEquals(3, ary.count());
+        Assert.assertTrue(ary.getJsonObject(2).getBoolean("b"));
+        Assert.assertEquals(12345678901L, obj.getJsonArray("list").getJsonObject(0).getLong("x"));
+
+        int count = 0;
+        for(Entry<String, Json> entry: obj.getJsonObject("obj").entrySet())
+        {
+            Assert.assertNotNull(entry.getValue());
+            count++;
+        }
+        Assert.assertEquals(2, count);
+    }
+
+    @Test
+    public void outputSameAsEager() throws Exception
+    {
+        Json eager = Json.parseJsonText(jsonText);
+        for(boolean useQuote: new boolean[]{true, false})
+        {
+            JsonObject obj = (JsonObject)Json.parseJsonText(jsonText, true);
+            obj.getString("name");
+            //未访问的子元素输出的文本与非延迟解析时相同，不受原来的空白字符与引号影响
+            Assert.assertEquals(eager.generateJsonText(useQuote), obj.generateJsonText(useQuote));
+            Assert.assertEquals(eager.toString(), obj.toString());
+
+            //修改后输出新的文本
+            obj.getJsonArray("list").remove(1);
+            String text = obj.generateJsonText(useQuote);
+            Assert.assertTrue(text.indexOf(useQuote? "[{\"x\":12345678901},\"s\"]": "[{x:12345678901},\"s\"]") > 0);
+            Assert.assertTrue(text.indexOf(useQuote? "{\"a\":[1,2,{\"b\":true}],\"c\":null}": "{a:[1,2,{b:true}],c:null}") > 0);
+        }
+    }
+
+    @Test
+    public void cloneLazy() throws Exception
+    {
+        JsonObject obj = (JsonObject)Json.parseJsonText(jsonText, true);
+        JsonObject copy = obj.clone();
+        copy.getJsonObject("obj").set("c", 1);
+        Assert.assertEquals(Json.JsonType.NULL, obj.getJsonObject("obj").getType("c"));
+        Assert.assertEquals(1, copy.getJsonObject("obj").getLong("c"));
+    }
+
+    @Test(expected = JsonException.class)
+    public void syntaxError() throws Exception
+    {
+        try
+        {
+            Json.parseJsonText("{a: {b: [1, 2}}", true);
+        }
+        catch(JsonException e)
+        {
+            String msg = e.getMessage();
+            System.out.println("Exception: " + msg);
+            Assert.assertEquals(0, msg.indexOf("Number invalid sufix at position 13."));
+            throw e;
+        }
+    }
+
+    @Test(expected = JsonException.class)
+    public void duplicateNameOnAccess() throws Exception
+    {
+        JsonObject obj = (JsonObject)Json.parseJsonText("{a: 1, b: {c: 1, c: 2}}", true);
+        Assert.assertEquals(1, obj.getLong("a"));
+        try
+        {
+            obj.getJsonObject("b").count();
+        }
+        catch(JsonException e)
+        {
+            String msg = e.getMessage();
+            System.out.println("Exception: " + msg);
+            Assert.assertEquals(0, msg.indexOf("Object element name \"c\" at position 19 is repeated."));
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.bantouyan.json.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import com.bantouyan.json.*;
+
+import org.junit.Test;
+import org.junit.Assert;
+
+/**
+ * 测试直接解析UTF-8编码的字节。
+ */
+public class TestParseBytes
+{
+    private String jsonText = "{name: 'v1', \"str\": \"a\\\"b\\u4e2d\", 名称: '中文😀',"
+        + " list: [1, -2.5e3, true, false, null, {}, []]}";
+
+    @Test
+    public void parseByteArray() throws Exception
+    {
+        Json json = Json.parseJsonText(jsonText);
+        byte[] bytes = jsonText.getBytes("UTF-8");
+        Assert.assertEquals(json, Json.parseJsonBytes(bytes));
+
+        byte[] padded = new byte[bytes.length + 6];
+        System.arraycopy(bytes, 0, padded, 3, bytes.length);
+        Assert.assertEquals(json, Json.parseJsonBytes(padded, 3, bytes.length));
+
+        JsonObject obj = (JsonObject)Json.parseJsonBytes(bytes);
+        Assert.assertEquals("a\"b中", obj.getString("str"));
+        Assert.assertEquals("中文😀", obj.getString("名称"));
+    }
+
+    @Test
+    public void parseByteBuffer() throws Exception
+    {
+        Json json = Json.parseJsonText(jsonText);
+        byte[] bytes = jsonText.getBytes("UTF-8");
+
+        ByteBuffer heap = ByteBuffer.wrap(bytes);
+        Assert.assertEquals(json, Json.parseJsonBytes(heap));
+        Assert.assertEquals(0, heap.position());
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 2);
+        direct.put((byte)' ').put(bytes).put((byte)' ');
+        direct.flip();
+        direct.position(1);
+        Assert.assertEquals(json, Json.parseJsonBytes(direct));
+        Assert.assertEquals(1, direct.position());
+    }
+
+    @Test
+    public void parseStream() throws Exception
+    {
+        StringBuilder build = new StringBuilder("[");
+        for(int i=0; i<3000; i++)
+        {
+            if(i > 0) build.append(',');
+            build.append(jsonText);
+        }
+        build.append(']');
+        String text = build.toString();
+
+        Json json = Json.parseJsonText(text);
+        Json jsonB = Json.parseJsonStream(new ByteArrayInputStream(text.getBytes("UTF-8")));
+        Assert.assertEquals(3000, jsonB.count());
+        Assert.assertEquals(json, jsonB);
+    }
+
+    @Test
+    public void parseFile() throws Exception
+    {
+        StringBuilder build = new StringBuilder("[");
+        for(int i=0; i<3000; i++)
+        {
+            if(i > 0) build.append(',');
+            build.append(jsonText);
+        }
+        build.append(']');
+        String text = build.toString();
+
+        File file = File.createTempFile("bantouyan", ".json");
+        file.deleteOnExit();
+        FileOutputStream out = new FileOutputStream(file);
+        try
+        {
+            out.write(text.getBytes("UTF-8"));
+        }
+        finally
+        {
+            out.close();
+        }
+
+        Json json = Json.parseJsonFile(file);
+        Assert.assertEquals(3000, json.count());
+        Assert.assertEquals(Json.parseJsonText(text), json);
+        file.delete();
+    }
+
+    @Test
+    public void parseWithBom() throws Exception
+    {
+        Json json = Json.parseJsonText(jsonText);
+
+        byte[] utf8 = jsonText.getBytes("UTF-8");
+        byte[] withBom = new byte[utf8.length + 3];
+        withBom[0] = (byte)0xEF;
+        withBom[1] = (byte)0xBB;
+        withBom[2] = (byte)0xBF;
+        System.arraycopy(utf8, 0, withBom, 3, utf8.length);
+        Assert.assertEquals(json, Json.parseJsonBytes(withBom));
+        Assert.assertEquals(json, Json.parseJsonStream(new ByteArrayInputStream(withBom)));
+
+        byte[] utf16 = jsonText.getBytes("UTF-16"); //Java以大端序编码并写入BOM
+        Assert.assertEquals(json, Json.parseJsonBytes(utf16));
+        Assert.assertEquals(json, Json.parseJsonStream(new ByteArrayInputStream(utf16)));
+
+        byte[] utf16le = jsonText.getBytes("UTF-16LE");
+        byte[] utf16leBom = new byte[utf16le.length + 2];
+        utf16leBom[0] = (byte)0xFF;
+        utf16leBom[1] = (byte)0xFE;
+        System.arraycopy(utf16le, 0, utf16leBom, 2, utf16le.length);
+        Assert.assertEquals(json, Json.parseJsonBytes(utf16leBom));
+    }
+
+    @Test(expected = JsonException.class)
+    public void invalidUtf8() throws JsonException
+    {
+        byte[] bytes = {'[', '"', 'a', (byte)0xC3, '"', ']'};
+        try
+        {
+            Json json = Json.parseJsonBytes(bytes);
+        }
+        catch(JsonException e)
+        {
+            String msg = e.getMessage();
+            System.out.println("Exception: " + msg);
+            Assert.assertEquals(0, msg.indexOf("Invalid UTF-8 byte sequence found at position 3."));
+            throw e;
+        }
+    }
+
+    @Test(expected = JsonException.class)
+    public void errorPosition() throws IOException, JsonException
+    {
+        StringBuilder build = new StringBuilder("[");
+        for(int i=0; i<20000; i++) build.append(' ');
+        build.append("tru]");
+        byte[] bytes = build.toString().getBytes("UTF-8");
+        try
+        {
+            Json json = Json.parseJsonStream(new ByteArrayInputStream(bytes));
+        }
+        catch(JsonException e)
+        {
+            String msg = e.getMessage();
+            System.out.println("Exception: " + msg);
+            Assert.assertEquals(0, msg.indexOf("Cannot foun constant \"true\" at position 20004."));
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.bantouyan.json.test;
+
+import com.bantouyan.json.*;
+
+import org.junit.Test;
+import org.junit.Assert;
+
+/**
+ * 测试Json Number的解析（直接累加为long或正确舍入为double）。
+ */
+public class TestParseNumber
+{
+    private String[] floats = {"0.0", "-0.0", "0.1", "1e23", "-2.5e-3", "123.456e+7",
+        "1.7976931348623157e308", "1.7976931348623158e308", "2.2250738585072011e-308",
+        "4.9e-324", "2.4703282292062327e-324", "2.4703282292062328e-324", "1e-400",
+        "9007199254740993.0", "123456789012345678901234567890.5", "7.3177701707893310e+15"};
+
+    @Test
+    public void doubles() throws Exception
+    {
+        StringBuilder text = new StringBuilder("[");
+        for(int i = 0; i < floats.length; i++)
+        {
+            if(i > 0) text.append(", ");
+            text.append(floats[i]);
+        }
+        text.append("]");
+
+        JsonArray ary = (JsonArray)Json.parseJsonText(text);
+        JsonArray bytes = (JsonArray)Json.parseJsonBytes(text.toString().getBytes("UTF-8"));
+        JsonCursor cursor = Json.parseJsonTape(text);
+        for(int i = 0; i < floats.length; i++)
+        {
+            long expected = Double.doubleToLongBits(Double.parseDouble(floats[i]));
+            Assert.assertEquals(floats[i], expected, Double.doubleToLongBits(ary.getDouble(i)));
+            Assert.assertEquals(floats[i], expected, Double.doubleToLongBits(bytes.getDouble(i)));
+            Assert.assertEquals(floats[i], expected, Double.doubleToLongBits(cursor.getDouble(i)));
+        }
+    }
+
+    @Test
+    public void longs() throws Exception
+    {
+        JsonArray ary = (JsonArray)Json.parseJsonText("[0, -0, 9223372036854775807, -9223372036854775808, 1234567890123]");
+        Assert.assertEquals(0, ary.getLong(0));
+        Assert.assertEquals(0, ary.getLong(1));
+        Assert.assertEquals(Long.MAX_VALUE, ary.getLong(2));
+        Assert.assertEquals(Long.MIN_VALUE, ary.getLong(3));
+        Assert.assertEquals(1234567890123L, ary.getLong(4));
+        Assert.assertEquals(Json.JsonType.INTEGER, ary.getType(4));
+    }
+
+    @Test(expected = JsonException.class)
+    public void longOverflow() throws Exception
+    {
+        try
+        {
+            Json.parseJsonText("{a: -9223372036854775809}");
+        }
+        catch(JsonException e)
+        {
+            String msg = e.getMessage();
+            System.out.println("Exception: " + msg);
+            Assert.assertEquals(0, msg.indexOf("Integer string \"-9223372036854775809\" format error at position 24."));
+            throw e;
+        }
+    }
+
+    @Test(expected = JsonException.class)
+    public void leadingZero() throws Exception
+    {
+        try
+        {
+            Json.parseJsonText("[1, 012]");
+        }
+        catch(JsonException e)
+        {
+            String msg = e.getMessage();
+            System.out.println("Exception: " + msg);
+            Assert.assertEquals(0, msg.indexOf("Number not allow leading zero at position 5."));
+            throw e;
+        }
+    }
+
+    @Test(expected = JsonException.class)
+    public void invalidSuffix() throws Exception
+    {
+        try
+        {
+            Json.parseJsonText("[1.5e3x]");
+        }
+        catch(JsonException e)
+        {
+            String msg = e.getMessage();
+            System.out.println("Exception: " + msg);
+            Assert.assertEquals(0, msg.indexOf("Number invalid sufix at position 6."));
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.bantouyan.json.test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.bantouyan.json.*;
+
+import org.junit.Test;
+import org.junit.Assert;
+
+/**
+ * 测试并行解析（结果与异常都与顺序解析相同）。
+ */
+public class TestParseParallel
+{
+    /**
+     * 生成包含count个子元素的Json文本，字符串中有引号、转义符、括号与逗号。
+     */
+    private String bigText(boolean isObject, int count)
+    {
+        StringBuilder text = new StringBuilder(isObject? "{": "[");
+        for(int i = 0; i < count; i++)
+        {
+            if(i > 0) text.append(",\n ");
+            if(isObject) text.append((i % 2 == 0)? "k" + i: "\"k" + i + "\"").append(": ");
+            text.append("{\"id\": ").append(i).append(", 'name': \"n\\\"a,m]e{").append(i).append("\\\\\", ");
+            text.append("list: [1.5, -2e3, true, null, 'x\\'],[{'], \"中文\": '单引号\"[{,', ");
+            text.append("nested: {\"a\": [{}, [], {b: \"}\"}]}}");
+        }
+        text.append(isObject? "}": "]");
+        return text.toString();
+    }
+
+    /**
+     * 返回顺序解析Json文本时的异常信息。
+     */
+    private String sequentialMessage(String text)
+    {
+        try
+        {
+            Json.parseJsonText(text);
+        }
+        catch(JsonException e)
+        {
+            return e.getMessage();
+        }
+        return null;
+    }
+
+    @Test
+    public void parseArray() throws Exception
+    {
+        String text = bigText(false, 20000);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            JsonArray ary = (JsonArray)Json.parseParallel(text, executor);
+            Assert.assertEquals(20000, ary.count());
+            Assert.assertEquals(Json.parseJsonText(text), ary);
+            Assert.assertEquals(12345, ary.getJsonObject(12345).getLong("id"));
+            Assert.assertEquals("n\"a,m]e{19999\\", ary.getJsonObject(19999).getString("name"));
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void parseObject() throws Exception
+    {
+        String text = "  " + bigText(true, 20000) + "\n";
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            JsonObject obj = (JsonObject)Json.parseParallel(new StringBuilder(text), executor);
+            Assert.assertEquals(20000, obj.count());
+            Assert.assertEquals(Json.parseJsonText(text), obj);
+            Assert.assertEquals(777, obj.getJsonObject("k777").getLong("id"));
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void parseBytes() throws Exception
+    {
+        byte[] utf8 = bigText(false, 20000).getBytes("UTF-8");
+        byte[] bytes = new byte[utf8.length + 3];
+        bytes[0] = (byte)0xEF; //BOM
+        bytes[1] = (byte)0xBB;
+        bytes[2] = (byte)0xBF;
+        System.arraycopy(utf8, 0, bytes, 3, utf8.length);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            JsonArray ary = (JsonArray)Json.parseParallel(bytes, executor);
+            Assert.assertEquals(Json.parseJsonBytes(bytes), ary);
+            Assert.assertEquals("单引号\"[{,", ary.getJsonObject(15000).getString("中文"));
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void smallText() throws Exception
+    {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            Assert.assertEquals(Json.parseJsonText("[1, 'a', {}]"), Json.parseParallel("[1, 'a', {}]", executor));
+            Assert.assertEquals(0, Json.parseParallel(" {} ".getBytes("UTF-8"), executor).count());
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = JsonException.class)
+    public void repeatedNameInLaterSegment() throws Exception
+    {
+        String text = bigText(true, 20000);
+        text = text.substring(0, text.length() - 1) + ", k10: 0}";
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            Json.parseParallel(text, executor);
+        }
+        catch(JsonException e)
+        {
+            String msg = e.getMessage();
+            System.out.println("Exception: " + msg);
+            Assert.assertEquals(0, msg.indexOf("Object element name \"k10\" at position "));
+            Assert.assertEquals(sequentialMessage(text), msg);
+            throw e;
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = JsonException.class)
+    public void invalidValueInLaterSegment() throws Exception
+    {
+        String text = bigText(false, 20000);
+        int index = text.indexOf("-2e3", text.length() / 3 * 2);
+        text = text.substring(0, index) + "-2e3x" + text.substring(index + 4);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            Json.parseParallel(text.getBytes("UTF-8"), executor);
+        }
+        catch(JsonException e)
+        {
+            String msg = e.getMessage();
+            System.out.println("Exception: " + msg);
+            Assert.assertEquals(0, msg.indexOf("Number invalid sufix at position "));
+            try
+            {
+                Json.parseJsonBytes(text.getBytes("UTF-8"));
+            }
+            catch(JsonException sequential)
+            {
+                Assert.assertEquals(sequential.getMessage(), msg);
+            }
+            throw e;
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = JsonException.class)
+    public void missingRootEnd() throws Exception
+    {
+        String text = bigText(false, 20000);
+        text = text.substring(0, text.length() - 1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            Json.parseParallel(text, executor);
+        }
+        catch(JsonException e)
+        {
+            String msg = e.getMessage();
+            System.out.println("Exception: " + msg);
+            Assert.assertEquals(0, msg.indexOf("Cannot found end character ',' and ']' at position " + text.length() + "."));
+            Assert.assertEquals(sequentialMessage(text), msg);
+            throw e;
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+}
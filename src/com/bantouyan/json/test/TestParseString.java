@@ -1,6 +1,8 @@
 package com.bantouyan.json.test;
 
 import java.io.IOException;
+import java.io.StringReader;
+import java.nio.CharBuffer;
 
 import com.bantouyan.json.*;
 
@@ -1038,4 +1040,99 @@ public class TestParseString
             throw e;
         }
     }
+    
+    @Test
+    public void readerCrossBuffer() throws IOException, JsonException
+    {
+        StringBuilder build = new StringBuilder("[");
+        for(int i=0; i<5000; i++)
+        {
+            if(i > 0) build.append(", ");
+            build.append("{\"name\": \"value\\t" + i + "\", num: " + i + ", 'f': -" + i + ".5e1}");
+        }
+        build.append("]");
+        String jsonText = build.toString();
+        
+        Json jsonA = Json.parseJsonText(jsonText);
+        Json jsonB = Json.parseJsonReader(new StringReader(jsonText));
+        Assert.assertEquals(5000, jsonB.count());
+        Assert.assertEquals(jsonA, jsonB);
+        Assert.assertEquals("value\t4999", ((JsonArray)jsonB).getJsonObject(4999).getString("name"));
+    }
+    
+    @Test(expected = JsonException.class)
+    public void readerErrorPosition() throws IOException, JsonException
+    {
+        StringBuilder build = new StringBuilder("[");
+        for(int i=0; i<20000; i++) build.append(' ');
+        build.append("tru]");
+        String jsonText = build.toString();
+        try
+        {
+            Json json = Json.parseJsonReader(new StringReader(jsonText));
+        }
+        catch(JsonException e)
+        {
+            String msg = e.getMessage();
+            System.out.println("Exception: " + msg);
+            Assert.assertEquals(0, msg.indexOf("Cannot foun constant \"true\" at position 20004."));
+            throw e;
+        }
+    }
+    
+    @Test
+    public void parseCharArrayAndCharBuffer() throws JsonException
+    {
+        String jsonText = "{name: 'v1', \"str\": \"a\\\"b\", list: [1, 2.5, true, null]}";
+        Json json = Json.parseJsonText(jsonText);
+        
+        char[] chars = ("  ##" + jsonText + "##").toCharArray();
+        Assert.assertEquals(json, Json.parseJsonText(chars, 4, jsonText.length()));
+        
+        CharBuffer heapBuffer = CharBuffer.wrap(chars, 4, jsonText.length());
+        Assert.assertEquals(json, Json.parseJsonText(heapBuffer));
+        Assert.assertEquals(4, heapBuffer.position()); //解析不改变CharBuffer的位置
+        
+        CharBuffer textBuffer = CharBuffer.wrap("##" + jsonText, 2, jsonText.length() + 2);
+        Assert.assertEquals(json, Json.parseJsonText(textBuffer));
+        Assert.assertEquals(json, Json.parseJsonText(new StringBuilder(jsonText)));
+        Assert.assertEquals("a\"b", ((JsonObject)json).getString("str"));
+    }
+    
+    @Test
+    public void unescapeString() throws JsonException, IOException
+    {
+        String jsonText = "[\"\\\"\\'\\\\\\/\\b\\f\\n\\r\\t\", '\\u4E2d\\u0041', \"\\uD83D\\uDE00!\"]";
+        JsonArray json = (JsonArray)Json.parseJsonText(jsonText);
+        Assert.assertEquals("\"'\\/\b\f\n\r\t", json.getString(0));
+        Assert.assertEquals("\u4e2dA", json.getString(1));
+        //两个\\u转义序列组成的代理对还原为一个增补字符
+        Assert.assertEquals(0x1F600, json.getString(2).codePointAt(0));
+        Assert.assertEquals(3, json.getString(2).length());
+        
+        //转义序列跨越缓冲区
+        StringBuilder build = new StringBuilder();
+        for(int i = 0; i < 8190; i++) build.append(' ');
+        build.append(jsonText);
+        Assert.assertEquals(json, Json.parseJsonReader(new StringReader(build.toString())));
+        build.delete(0, 3);
+        Assert.assertEquals(json, Json.parseJsonReader(new StringReader(build.toString())));
+    }
+    
+    @Test(expected = JsonException.class)
+    public void unicodeEscapeIllegalChar() throws JsonException
+    {
+        String jsonText = "[\"ab\\u12G4\"]";
+        try
+        {
+            Json.parseJsonText(jsonText);
+        }
+        catch(JsonException e)
+        {
+            String msg = e.getMessage();
+            System.out.println("Exception: " + msg);
+            Assert.assertEquals(0, msg.indexOf("Un expected character found in unicode character sequence at positon 8."));
+            throw e;
+        }
+    }
 }
@@ -0,0 +1,122 @@
+package com.bantouyan.json.test;
+
+import java.io.StringReader;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.bantouyan.json.*;
+
+import org.junit.Test;
+import org.junit.Assert;
+
+/**
+ * 测试静态解析方法重复使用解析器（前一次解析的状态不影响后一次解析）。
+ */
+public class TestParserReuse
+{
+    /**
+     * 返回解析Json文本时的异常信息。
+     */
+    private String message(String text)
+    {
+        try
+        {
+            Json.parseJsonText(text);
+        }
+        catch(JsonException e)
+        {
+            return e.getMessage();
+        }
+        return null;
+    }
+
+    @Test
+    public void afterException() throws Exception
+    {
+        for(int i = 0; i < 100; i++)
+        {
+            Assert.assertEquals(0, message("{a: 'unclosed").indexOf("Cannot found string end quotation \"'\" at position 13."));
+            Assert.assertEquals(0, message(" [1, 2").indexOf("Number invalid sufix at position 6."));
+            JsonObject obj = (JsonObject)Json.parseJsonText("{\"a\\n\": [1, \"x\\ty\"], b: 2.5}");
+            Assert.assertEquals("x\ty", obj.getJsonArray("a\n").getString(1));
+            Assert.assertEquals(2.5, obj.getDouble("b"), 0);
+        }
+    }
+
+    @Test
+    public void mixedSources() throws Exception
+    {
+        StringBuilder big = new StringBuilder("[\"");
+        for(int i = 0; i < 100000; i++)
+        {
+            big.append((char)('a' + i % 26));
+        }
+        big.append("\\\\\"]");
+        JsonArray ary = (JsonArray)Json.parseJsonText(big);
+        Assert.assertEquals(100001, ary.getString(0).length());
+
+        char[] chars = "xx[1, 'b', {c: null}]xx".toCharArray();
+        CharBuffer cb = CharBuffer.wrap(chars, 2, 19);
+        for(int i = 0; i < 10; i++)
+        {
+            Assert.assertEquals(3, Json.parseJsonText(cb).count());
+            Assert.assertEquals(1, Json.parseJsonText("{'k': 'v'}").count());
+            Assert.assertEquals(2, Json.parseJsonReader(new StringReader("{k: 1, \"j\": [\"\\u4e2d\"]}")).count());
+        }
+        Assert.assertEquals(2, cb.position());
+    }
+
+    @Test
+    public void sharedNameCache() throws Exception
+    {
+        JsonNameCache names = new JsonNameCache();
+        JsonObject first = (JsonObject)Json.parseJsonText("{name: 1}", names);
+        JsonObject second = (JsonObject)Json.parseJsonReader(new StringReader("{\"name\": 2}"), names);
+        Assert.assertSame(first.entrySet().iterator().next().getKey(), second.entrySet().iterator().next().getKey());
+        Assert.assertEquals(1, Json.parseJsonText("{name: 3}").count());
+    }
+
+    @Test
+    public void concurrentParse() throws Exception
+    {
+        final List<Throwable> errors = new ArrayList<Throwable>();
+        Thread[] threads = new Thread[8];
+        for(int t = 0; t < threads.length; t++)
+        {
+            final int id = t;
+            threads[t] = new Thread()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        for(int i = 0; i < 2000; i++)
+                        {
+                            String text = "{\"t\": " + id + ", 'i': " + i + ", \"s\": \"a\\\"b" + i + "\"}";
+                            JsonObject obj = (JsonObject)Json.parseJsonText(text);
+                            if(obj.getLong("t") != id || obj.getLong("i") != i
+                                    || ! obj.getString("s").equals("a\"b" + i))
+                            {
+                                throw new AssertionError(text + " -> " + obj);
+                            }
+                        }
+                    }
+                    catch(Throwable e)
+                    {
+                        synchronized(errors)
+                        {
+                            errors.add(e);
+                        }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for(Thread thread: threads)
+        {
+            thread.join();
+        }
+        Assert.assertEquals("[]", errors.toString());
+    }
+}
@@ -0,0 +1,279 @@
+package com.bantouyan.json.test;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import com.bantouyan.json.*;
+
+import org.junit.Test;
+import org.junit.Assert;
+
+/**
+ * 测试缓存生成的Json文本，以及修改子孙实例后缓存失效。
+ */
+public class TestTextCache
+{
+    /**
+     * 比较缓存文本的Json实例生成的文本（Name加引号与不加引号、字符与UTF-8字节）与不缓存文本的Clone，
+     * Clone的HashMap容量可能不同，所以解析后比较。
+     */
+    private void check(Json json) throws Exception
+    {
+        Json copy = json.clone();
+        Assert.assertFalse(copy.isCacheText());
+        for(int i = 0; i < 2; i++)
+        {
+            String text = json.generateJsonText(true);
+            Assert.assertEquals(copy, Json.parseJsonText(text));
+            Assert.assertEquals(copy, Json.parseJsonText(json.generateJsonText(false)));
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            json.writeTo(out, true);
+            Assert.assertEquals(text, out.toString("UTF-8"));
+        }
+    }
+
+    private JsonObject config() throws Exception
+    {
+        return (JsonObject)Json.parseJsonText("{\"name\": \"服务\\n\", \"port\": 8080, 'a b': true, "
+                + "\"hosts\": [\"h1\", {\"ip\": \"10.0.0.1\", \"tags\": [1, 2]}], "
+                + "\"limits\": {\"max\": 10, \"deep\": {\"x\": [null]}}}");
+    }
+
+    @Test
+    public void mutations() throws Exception
+    {
+        JsonObject root = config();
+        root.setCacheText(true);
+        Assert.assertTrue(root.isCacheText());
+        check(root);
+
+        JsonArray tags = root.getJsonArray("hosts").getJsonObject(1).getJsonArray("tags");
+        Assert.assertTrue(tags.isCacheText());
+        tags.append(3);
+        check(root);
+        tags.insert(0, "前");
+        check(root);
+        tags.set(1, new JsonObject());
+        check(root);
+        tags.getJsonObject(1).add("k\"", 1.5);
+        check(root);
+        tags.remove(2);
+        check(root);
+
+        JsonObject deep = root.getJsonObject("limits").getJsonObject("deep");
+        deep.set("y", "新值");
+        check(root);
+        deep.getJsonArray("x").clear();
+        check(root);
+        deep.remove("x");
+        check(root);
+
+        Iterator<Json> it = root.getJsonArray("hosts").iterator();
+        it.next();
+        it.remove();
+        check(root);
+
+        JsonObject other = new JsonObject();
+        other.add("port", 9090);
+        other.add("extra", new JsonArray());
+        root.setAll(other);
+        check(root);
+        root.getJsonArray("extra").append(false);
+        check(root);
+
+        for(Entry<String, Json> entry: root.entrySet())
+        {
+            if(entry.getKey().equals("port")) entry.setValue(new JsonPrimitive(1));
+        }
+        check(root);
+
+        root.clear();
+        check(root);
+    }
+
+    @Test
+    public void sharedChild() throws Exception
+    {
+        JsonArray shared = (JsonArray)Json.parseJsonText("[1, [2]]");
+        JsonObject first = new JsonObject();
+        first.add("s", shared);
+        JsonArray second = new JsonArray();
+        second.append(shared);
+        second.append(shared);
+        first.setCacheText(true);
+        second.setCacheText(true);
+        check(first);
+        check(second);
+
+        shared.getJsonArray(1).append(3);
+        check(first);
+        check(second);
+
+        //second中还有一个shared，删除一个后仍然要使second的缓存失效
+        second.remove(0);
+        check(second);
+        shared.append("x");
+        check(first);
+        check(second);
+
+        first.remove("s");
+        check(first);
+        shared.clear();
+        check(second);
+    }
+
+    @Test
+    public void sharedChildNotRetainParents() throws Exception
+    {
+        JsonArray shared = (JsonArray)Json.parseJsonText("[1, {\"a\": [2]}]");
+        shared.setCacheText(true);
+        String text = shared.generateJsonText(true);
+
+        //共享的子元素不引用上级实例，短生命周期的上级实例输出后可以被回收
+        List<WeakReference<JsonArray>> parents = new ArrayList<WeakReference<JsonArray>>();
+        for(int i = 0; i < 1000; i++)
+        {
+            JsonArray parent = new JsonArray();
+            parent.append(i);
+            parent.append(shared);
+            parent.setCacheText(true);
+            Assert.assertEquals("[" + i + "," + text + "]", parent.generateJsonText(true));
+            parents.add(new WeakReference<JsonArray>(parent));
+        }
+
+        for(int i = 0; i < 20 && retained(parents) > 0; i++)
+        {
+            System.gc();
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(0, retained(parents));
+        Assert.assertEquals(text, shared.generateJsonText(true));
+    }
+
+    private int retained(List<WeakReference<JsonArray>> parents)
+    {
+        int count = 0;
+        for(WeakReference<JsonArray> parent: parents)
+        {
+            if(parent.get() != null) count++;
+        }
+        return count;
+    }
+
+    @Test
+    public void lazy() throws Exception
+    {
+        JsonObject root = (JsonObject)Json.parseJsonText("{a: {b: [1, {c: 2}]}, d: [3]}", true);
+        root.setCacheText(true);
+        check(root);
+
+        JsonObject c = root.getJsonObject("a").getJsonArray("b").getJsonObject(1);
+        c.set("c", 5);
+        check(root);
+        root.getJsonArray("d").append(4);
+        check(root);
+
+        JsonArray added = new JsonArray();
+        root.set("e", added);
+        check(root);
+        Assert.assertTrue(added.isCacheText());
+        added.append("new");
+        check(root);
+    }
+
+    @Test
+    public void heldViews() throws Exception
+    {
+        JsonObject root = config();
+        root.setCacheText(true);
+
+        //在生成并缓存文本之前取得的集合，之后通过它们修改JsonObject也要使缓存失效
+        Set<Entry<String, Json>> entries = root.entrySet();
+        Set<String> names = root.nameSet();
+        Collection<Json> values = root.getJsonObject("limits").values();
+        String text = root.generateJsonText(true);
+        check(root);
+
+        //只读取不影响输出
+        int count = 0;
+        for(Entry<String, Json> entry: entries) count += entry.getKey().length();
+        for(Json value: values) count += value.getType().ordinal();
+        Assert.assertTrue(count > 0 && names.contains("port"));
+        Assert.assertEquals(text, root.generateJsonText(true));
+
+        for(Entry<String, Json> entry: entries)
+        {
+            if(entry.getKey().equals("port")) entry.setValue(new JsonPrimitive(1));
+        }
+        Assert.assertEquals(1, root.getLong("port"));
+        check(root);
+
+        Iterator<Entry<String, Json>> it = entries.iterator();
+        while(! it.next().getKey().equals("name")) {}
+        it.remove();
+        Assert.assertFalse(root.containsName("name"));
+        check(root);
+
+        Assert.assertTrue(names.remove("a b"));
+        Assert.assertFalse(names.remove("a b"));
+        check(root);
+
+        Iterator<Json> vit = values.iterator();
+        vit.next();
+        vit.remove();
+        Assert.assertEquals(1, root.getJsonObject("limits").count());
+        check(root);
+
+        names.retainAll(Collections.singleton("hosts"));
+        Assert.assertEquals(1, root.count());
+        check(root);
+        values.clear();
+        check(root);
+    }
+
+    @Test
+    public void disableCache() throws Exception
+    {
+        JsonObject root = config();
+        root.setCacheText(true);
+        String text = root.generateJsonText(true);
+
+        root.setCacheText(false);
+        Assert.assertFalse(root.isCacheText());
+        Assert.assertFalse(root.getJsonObject("limits").isCacheText());
+        Assert.assertEquals(text, root.generateJsonText(true));
+        root.set("port", 1);
+        Assert.assertFalse(text.equals(root.generateJsonText(true)));
+        check(root);
+    }
+
+    @Test(expected = JsonException.class)
+    public void circle() throws Exception
+    {
+        JsonArray jary = new JsonArray();
+        JsonObject jobj = new JsonObject();
+        jary.append(jobj);
+        jary.setCacheText(true);
+        check(jary);
+
+        jobj.add("loop", jary);
+        try
+        {
+            jary.generateJsonText(true);
+        }
+        catch(JsonException e)
+        {
+            String msg = e.getMessage();
+            System.out.println("Exception: " + msg);
+            Assert.assertEquals("Circle reference exists in this Json.", msg);
+            jary.setCacheText(true);
+        }
+    }
+}
@@ -81,6 +81,37 @@ public class TestTime
         }
     }
     
+    @Ignore
+    @Test
+    public void unquotedNameTime() throws JsonException
+    {
+        //不带引号的Name逐个字符查表，并检查是否是JavaScript关键字
+        StringBuilder build = new StringBuilder("[");
+        for(int i=0; i<2000; i++)
+        {
+            if(i > 0) build.append(", ");
+            build.append("{userName: 'u', emailAddress: 'e', createdTime: 1, isActive: true, "
+                    + "$ref: null, _internalId: 99, nested: {level2: [1, 2], typeName: 'x'}}");
+        }
+        build.append("]");
+        String text = build.toString();
+        
+        long start = System.currentTimeMillis();
+        for(int i=0; i<cnt; i++)
+        {
+            Json.parseJsonText(text);
+        }
+        System.out.println("parse unquoted names: " + (System.currentTimeMillis() - start) + "ms");
+        
+        Json json = Json.parseJsonText(text);
+        start = System.currentTimeMillis();
+        for(int i=0; i<cnt; i++)
+        {
+            json.generateJsonText(false);
+        }
+        System.out.println("generate unquoted names: " + (System.currentTimeMillis() - start) + "ms");
+    }
+    
     public static void main(String[] args)
     {
     }
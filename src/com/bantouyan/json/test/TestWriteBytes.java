@@ -0,0 +1,124 @@
+package com.bantouyan.json.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import com.bantouyan.json.*;
+
+import org.junit.Test;
+import org.junit.Assert;
+
+/**
+ * 测试直接以UTF-8编码的字节输出Json文本（结果与generateJsonText相同）。
+ */
+public class TestWriteBytes
+{
+    /**
+     * 生成包含count个子元素的JsonArray，字符串中有转义字符、中文与代理字符对。
+     */
+    private JsonArray bigArray(int count)
+    {
+        JsonArray ary = new JsonArray();
+        for(int i = 0; i < count; i++)
+        {
+            JsonObject obj = new JsonObject();
+            obj.set("id", i);
+            obj.set("名字", "中文\"/\\\n\t\u0001😀" + i);
+            obj.set("key with space", -1234567890123L * i);
+            obj.set("f", i / 8.0);
+            obj.set("b", i % 2 == 0);
+            obj.set("n", (String)null);
+            ary.append(obj);
+        }
+        return ary;
+    }
+
+    @Test
+    public void outputStream() throws Exception
+    {
+        JsonArray ary = bigArray(3000);
+        for(boolean useQuote: new boolean[]{true, false})
+        {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            ary.writeTo(output, useQuote);
+            Assert.assertTrue(output.size() > 4 * 8192);
+            Assert.assertEquals(ary.generateJsonText(useQuote), new String(output.toByteArray(), "UTF-8"));
+        }
+    }
+
+    @Test
+    public void channel() throws Exception
+    {
+        JsonArray ary = bigArray(2000);
+        byte[] expected = ary.generateJsonText(true).getBytes("UTF-8");
+
+        File file = File.createTempFile("json", ".txt");
+        file.deleteOnExit();
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try
+        {
+            FileChannel channel = raf.getChannel();
+            ary.writeTo(channel, true);
+            Assert.assertEquals(expected.length, channel.size());
+            Assert.assertEquals(ary, Json.parseJsonFile(file));
+        }
+        finally
+        {
+            raf.close();
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ary.writeTo(Channels.newChannel(output), true);
+        Assert.assertTrue(Arrays.equals(expected, output.toByteArray()));
+    }
+
+    @Test
+    public void byteBuffer() throws Exception
+    {
+        Json json = Json.parseJsonText("{a: [1, -9223372036854775808, 2.5e-3], 'b': \"\\ud800x\", c: {d: null}}");
+        byte[] expected = json.generateJsonText(false).getBytes("UTF-8");
+        ByteBuffer buffer = ByteBuffer.allocate(100);
+        buffer.put((byte)'#');
+        json.writeTo(buffer, false);
+        Assert.assertEquals(1 + expected.length, buffer.position());
+        Assert.assertTrue(Arrays.equals(expected, Arrays.copyOfRange(buffer.array(), 1, buffer.position())));
+
+        //延迟解析的实例直接输出原来的文本
+        String text = "[{\"x\" : [1,  2]}, '中文']";
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Json.parseJsonText(text, true).writeTo(output, true);
+        Assert.assertEquals(Json.parseJsonText(text, true).generateJsonText(), new String(output.toByteArray(), "UTF-8"));
+    }
+
+    @Test(expected = BufferOverflowException.class)
+    public void bufferOverflow() throws Exception
+    {
+        bigArray(10).writeTo(ByteBuffer.allocate(64), true);
+    }
+
+    @Test(expected = JsonException.class)
+    public void circleReference() throws Exception
+    {
+        JsonArray ary = new JsonArray();
+        JsonArray child = new JsonArray();
+        ary.append(child);
+        child.append(ary);
+        try
+        {
+            ary.writeTo(new ByteArrayOutputStream(), true);
+        }
+        catch(JsonException e)
+        {
+            String msg = e.getMessage();
+            System.out.println("Exception: " + msg);
+            Assert.assertEquals(0, msg.indexOf("Circle reference exists in this Json."));
+            throw e;
+        }
+    }
+}
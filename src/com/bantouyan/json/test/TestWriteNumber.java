@@ -0,0 +1,103 @@
+package com.bantouyan.json.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.util.Random;
+
+import com.bantouyan.json.*;
+
+import org.junit.Test;
+import org.junit.Assert;
+
+/**
+ * 测试输出整数与浮点数（字符串、字符流与UTF-8字节的结果相同，浮点数输出最短的十进制表示）。
+ */
+public class TestWriteNumber
+{
+    /**
+     * 返回JsonArray生成的Json文本，并检查输出到字符流与以UTF-8字节输出的结果与之相同。
+     */
+    private String text(JsonArray ary) throws Exception
+    {
+        String text = ary.generateJsonText(true);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ary.writeTo(output, true);
+        Assert.assertEquals(text, output.toString("UTF-8"));
+        StringWriter writer = new StringWriter();
+        ary.outputToWriter(writer, true);
+        Assert.assertEquals(text, writer.toString());
+        return text;
+    }
+
+    private String text(double value) throws Exception
+    {
+        JsonArray ary = new JsonArray();
+        ary.append(value);
+        String text = text(ary);
+        return text.substring(1, text.length() - 1);
+    }
+
+    @Test
+    public void longValue() throws Exception
+    {
+        long[] values = {0, 1, -1, 9, 10, 99, 100, -100, 12345678, 1000000000000000000L,
+                999999999999999999L, Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE + 1};
+        Random random = new Random(25);
+        JsonArray ary = new JsonArray();
+        StringBuilder expected = new StringBuilder("[");
+        for(int i = 0; i < values.length + 5000; i++)
+        {
+            long value = (i < values.length)? values[i]: random.nextLong() >> random.nextInt(64);
+            ary.append(value);
+            if(i > 0) expected.append(',');
+            expected.append(Long.toString(value));
+        }
+        expected.append(']');
+        Assert.assertEquals(expected.toString(), text(ary));
+    }
+
+    @Test
+    public void doubleValue() throws Exception
+    {
+        Assert.assertEquals("0.0", text(0.0));
+        Assert.assertEquals("-0.0", text(-0.0));
+        Assert.assertEquals("1.0", text(1.0));
+        Assert.assertEquals("-2.5", text(-2.5));
+        Assert.assertEquals("0.001", text(0.001));
+        Assert.assertEquals("0.002", text(2e-3));
+        Assert.assertEquals("1.0E-4", text(1e-4));
+        Assert.assertEquals("9999999.0", text(9999999.0));
+        Assert.assertEquals("1.0E7", text(1e7));
+        Assert.assertEquals("1.2345678E7", text(12345678.0));
+        Assert.assertEquals("1.0E23", text(1e23));
+        Assert.assertEquals("0.30000000000000004", text(0.1 + 0.2));
+        Assert.assertEquals("4.9E-324", text(Double.MIN_VALUE));
+        Assert.assertEquals("2.2250738585072014E-308", text(Double.MIN_NORMAL));
+        Assert.assertEquals("1.7976931348623157E308", text(Double.MAX_VALUE));
+        Assert.assertEquals("9.007199254740992E15", text(9007199254740992.0));
+    }
+
+    @Test
+    public void roundTrip() throws Exception
+    {
+        Random random = new Random(25);
+        JsonArray ary = new JsonArray();
+        for(int i = 0; i < 20000; i++)
+        {
+            double value = Double.longBitsToDouble(random.nextLong());
+            if(Double.isNaN(value) || Double.isInfinite(value)) continue;
+            ary.append(value);
+            ary.append(random.nextInt() / 1000.0);
+        }
+
+        JsonArray parsed = (JsonArray)Json.parseJsonText(text(ary));
+        Assert.assertEquals(ary.count(), parsed.count());
+        for(int i = 0; i < ary.count(); i++)
+        {
+            double value = ary.getDouble(i);
+            Assert.assertEquals(Double.doubleToLongBits(value), Double.doubleToLongBits(parsed.getDouble(i)));
+            //最短表示不会比Double.toString长
+            Assert.assertTrue(text(value).length() <= Double.toString(value).length());
+        }
+    }
+}